@@ -118,7 +118,13 @@ public class MainActivity extends AndroidHarness {
         // loadConfig() above clamped the persisted gridRadius against the default max (15) ; re-clamp it
         // now against the (lower) device-specific max so a value saved on a roomier session is brought down.
         config.setGridRadius(config.getGridRadius());
-        config.setMaxUpdatePerFrame(2);
+        config.setMaxUpdatePerFrame(16);
+        // Mobile GPUs leave less of the frame to the render thread : page in smaller time slices
+        config.setFrameBudgetMs(2f);
+        config.setFrameBudgetMaxMs(4f);
+        config.setFrameBudgetMinMs(0.5f);
+        // Vertex memory bounds the render distance on mobile GPUs : halve the size of the mesh positions
+        config.setPackedVertexPositions(true);
         // Apply the persisted frame-rate cap (toggled in the in-game settings). Keep the harness field
         // in sync as it is what the GL surface reads.
         this.frameRate = config.getMaxFramerate();
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.benchmarks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.ChunkManager;
+import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
+
+/**
+ * The world shared by the benchmark suites : the blocks framework configured headless, and chunks
+ * generated with a fixed seed, so every run works on the same blocks.
+ *
+ * @author Cedric de Launois
+ */
+final class BenchmarkWorld {
+
+    static final long SEED = 2;
+    static final float WATER_HEIGHT = 50f;
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    private BenchmarkWorld() {
+        // Prevent instantiation
+    }
+
+    /**
+     * Configures the blocks framework with the default settings, without any display.
+     * @return the configuration
+     */
+    static IalonConfig configure() {
+        IalonConfig config = new IalonConfig();
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), config);
+        return config;
+    }
+
+    static NoiseTerrainGenerator createGenerator() {
+        return new NoiseTerrainGenerator(SEED, WATER_HEIGHT);
+    }
+
+    /**
+     * Creates a chunk manager holding the whole columns of chunks within the given radius around
+     * the chunk column (0, 0), and sets it as the chunk manager of the configuration.
+     * @param config the configuration
+     * @param radius the radius, in chunks
+     * @return the chunk manager
+     */
+    static ChunkManager createWorld(IalonConfig config, int radius) {
+        ChunkManager world = ChunkManager.builder()
+                .generator(createGenerator())
+                .poolSize(1)
+                .build();
+        world.initialize();
+        for (int x = -radius; x <= radius; x++) {
+            for (int y = 0; y < config.getGridHeight(); y++) {
+                for (int z = -radius; z <= radius; z++) {
+                    world.generateChunk(new Vec3i(x, y, z));
+                }
+            }
+        }
+        config.setChunkManager(world);
+        return world;
+    }
+
+    /**
+     * @return the world y of the highest block of the column (x, z), or 0 if the column is empty
+     */
+    static int surface(ChunkManager world, IalonConfig config, int x, int z) {
+        int worldHeight = config.getGridHeight() * BlocksConfig.getInstance().getChunkSize().y;
+        for (int y = worldHeight - 1; y > 0; y--) {
+            if (world.getBlock(new Vector3f(x + 0.5f, y + 0.5f, z + 0.5f)).isPresent()) {
+                return y;
+            }
+        }
+        return 0;
+    }
+}
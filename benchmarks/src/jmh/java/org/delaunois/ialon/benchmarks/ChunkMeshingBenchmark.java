@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.delaunois.ialon.benchmarks;
+
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkManager;
+import org.delaunois.ialon.blocks.FacesMeshGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Arrays;
+
+/**
+ * Meshing of a chunk by {@link FacesMeshGenerator#createAndSetNodeAndCollisionMesh(Chunk)} : the render
+ * mesh and the collision mesh, the production path. The meshed chunks are the chunks of the column
+ * (0, 0) within the terrain, surrounded by their neighbours so every border face is resolved.
+ *
+ * @author Cedric de Launois
+ */
+@State(Scope.Thread)
+public class ChunkMeshingBenchmark {
+
+    private ChunkManager world;
+    private FacesMeshGenerator meshGenerator;
+    private Chunk[] chunks;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        IalonConfig config = BenchmarkWorld.configure();
+        world = BenchmarkWorld.createWorld(config, 1);
+        meshGenerator = new FacesMeshGenerator(config);
+        chunks = new Chunk[config.getGridHeight()];
+        int count = 0;
+        for (int y = 0; y < config.getGridHeight(); y++) {
+            Chunk chunk = world.getChunk(new Vec3i(0, y, 0)).orElseThrow();
+            if (!chunk.isEmpty() && !chunk.isFull()) {
+                chunks[count++] = chunk;
+            }
+        }
+        chunks = Arrays.copyOf(chunks, count);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.cleanup(1000);
+    }
+
+    @Benchmark
+    public Chunk meshChunk() {
+        next = (next + 1) % chunks.length;
+        Chunk chunk = chunks[next];
+        meshGenerator.createAndSetNodeAndCollisionMesh(chunk);
+        return chunk;
+    }
+}
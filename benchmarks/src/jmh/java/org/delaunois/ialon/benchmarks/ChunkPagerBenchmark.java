@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.delaunois.ialon.benchmarks;
+
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Node;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.ChunkManager;
+import org.delaunois.ialon.blocks.ChunkPager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Chunk crossing in {@link ChunkPager} : one operation moves the center page by one chunk along x,
+ * back and forth, and updates the paging queues (the pages to fetch, mesh, detach and unfetch). The
+ * world is empty, so the generation and the meshing of the new pages cost almost nothing. The pages
+ * are attached and detached between the operations.
+ *
+ * @author Cedric de Launois
+ */
+@State(Scope.Thread)
+public class ChunkPagerBenchmark {
+
+    private ChunkManager world;
+    private BenchmarkPager pager;
+    private int crossings;
+
+    @Setup
+    public void setUp() {
+        BenchmarkWorld.configure();
+        world = ChunkManager.builder()
+                .poolSize(1)
+                .build();
+        world.initialize();
+        pager = new BenchmarkPager(world);
+        pager.setMaxUpdatePerFrame(Integer.MAX_VALUE);
+        pager.initialize();
+        pager.updateQueues(new Vec3i(1, 0, 0));
+        pager.updateQueues(new Vec3i(0, 0, 0));
+        pager.update();
+    }
+
+    @TearDown(Level.Invocation)
+    public void updatePages() {
+        pager.update();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pager.cleanup(1000);
+        world.cleanup(1000);
+    }
+
+    @Benchmark
+    public void crossChunk() {
+        crossings++;
+        pager.updateQueues(new Vec3i(crossings % 2, 0, 0));
+    }
+
+    private static final class BenchmarkPager extends ChunkPager {
+
+        BenchmarkPager(ChunkManager chunkManager) {
+            super(new Node(), chunkManager);
+        }
+
+        /**
+         * Updates the queues around the given center page, on the caller thread
+         */
+        void updateQueues(Vec3i page) {
+            Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+            float scale = BlocksConfig.getInstance().getBlockScale();
+            setLocation(new Vector3f(page.x + 0.5f, page.y + 0.5f, page.z + 0.5f)
+                    .multLocal(chunkSize.x * scale, chunkSize.y * scale, chunkSize.z * scale));
+            setCenterPage(page);
+            updateQueues();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.delaunois.ialon.benchmarks;
+
+import com.jme3.math.Vector3f;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ZipFileRepository;
+import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Saving and loading a chunk crossing the terrain surface with {@link ZipFileRepository}, in a
+ * temporary directory.
+ *
+ * @author Cedric de Launois
+ */
+@State(Scope.Thread)
+public class ChunkRepositoryBenchmark {
+
+    private Path directory;
+    private ZipFileRepository repository;
+    private Chunk chunk;
+
+    @Setup
+    public void setUp() throws IOException {
+        BenchmarkWorld.configure();
+        NoiseTerrainGenerator generator = BenchmarkWorld.createGenerator();
+        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+        float height = Math.max(generator.getHeight(new Vector3f(chunkSize.x / 2f, 0, chunkSize.z / 2f)), BenchmarkWorld.WATER_HEIGHT);
+        chunk = generator.generate(new Vec3i(0, (int) height / chunkSize.y, 0));
+        directory = Files.createTempDirectory("ialon-benchmark");
+        repository = new ZipFileRepository(directory);
+        repository.save(chunk);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public boolean save() {
+        return repository.save(chunk);
+    }
+
+    @Benchmark
+    public Chunk load() {
+        return repository.load(chunk.getLocation());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.delaunois.ialon.benchmarks;
+
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.blocks.Block;
+import org.delaunois.ialon.blocks.BlockIds;
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkLiquidManager;
+import org.delaunois.ialon.blocks.ChunkManager;
+import org.delaunois.ialon.blocks.generator.FlatTerrainGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Liquid simulation by {@link ChunkLiquidManager#step()} : one operation is the whole flood of a water
+ * source placed on a flat ground, stepped until the simulation queue is empty. The water is drained
+ * before each operation, so every flood starts from the same dry ground.
+ *
+ * @author Cedric de Launois
+ */
+@State(Scope.Thread)
+public class LiquidFlowBenchmark {
+
+    private static final int MAX_STEPS = 1000;
+    private static final Vec3i SOURCE = new Vec3i(8, 1, 8);
+
+    private ChunkManager world;
+    private ChunkLiquidManager liquidManager;
+    private Chunk[] chunks;
+    private Chunk sourceChunk;
+    private Block waterSource;
+
+    @Setup
+    public void setUp() {
+        IalonConfig config = BenchmarkWorld.configure();
+        world = ChunkManager.builder()
+                .generator(new FlatTerrainGenerator())
+                .poolSize(1)
+                .build();
+        world.initialize();
+        config.setChunkManager(world);
+        chunks = new Chunk[9];
+        int count = 0;
+        for (int x = -1; x <= 1; x++) {
+            for (int z = -1; z <= 1; z++) {
+                chunks[count++] = world.generateChunk(new Vec3i(x, 0, z));
+            }
+        }
+        sourceChunk = world.getChunk(new Vec3i(0, 0, 0)).orElseThrow();
+        liquidManager = new ChunkLiquidManager(config);
+        waterSource = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.WATER_SOURCE);
+    }
+
+    @Setup(Level.Invocation)
+    public void placeSource() {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        for (Chunk chunk : chunks) {
+            for (int x = 0; x < size.x; x++) {
+                for (int y = 0; y < size.y; y++) {
+                    for (int z = 0; z < size.z; z++) {
+                        Block block = chunk.getBlock(x, y, z);
+                        if (block != null && block.getLiquidLevel() > 0) {
+                            chunk.removeBlock(x, y, z);
+                        }
+                    }
+                }
+            }
+        }
+        sourceChunk.addBlock(SOURCE, waterSource);
+        liquidManager.addSource(sourceChunk, SOURCE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.cleanup(1000);
+    }
+
+    @Benchmark
+    public int flood() {
+        int steps = 0;
+        while (liquidManager.queueSize() > 0 && steps < MAX_STEPS) {
+            liquidManager.step();
+            steps++;
+        }
+        return steps;
+    }
+}
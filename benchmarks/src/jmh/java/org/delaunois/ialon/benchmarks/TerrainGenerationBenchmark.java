@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.delaunois.ialon.benchmarks;
+
+import com.jme3.math.Vector3f;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Generation of the chunks crossing the terrain surface by {@link NoiseTerrainGenerator#generate(Vec3i)}.
+ * The chunk columns are walked along a line long enough for the heightmap of each column to be
+ * computed, not reused.
+ *
+ * @author Cedric de Launois
+ */
+@State(Scope.Thread)
+public class TerrainGenerationBenchmark {
+
+    private static final int COLUMNS = 4096;
+
+    private NoiseTerrainGenerator generator;
+    private int[] surfaceY;
+    private int column;
+
+    @Setup
+    public void setUp() {
+        BenchmarkWorld.configure();
+        generator = BenchmarkWorld.createGenerator();
+        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+        surfaceY = new int[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            // The chunk holding the ground (or the water surface) at the center of the column
+            Vector3f center = new Vector3f(i * chunkSize.x + chunkSize.x / 2f, 0, chunkSize.z / 2f);
+            surfaceY[i] = (int) Math.max(generator.getHeight(center), BenchmarkWorld.WATER_HEIGHT) / chunkSize.y;
+        }
+    }
+
+    @Benchmark
+    public Chunk generateSurfaceChunk() {
+        column = (column + 1) % COLUMNS;
+        return generator.generate(new Vec3i(column, surfaceY[column], 0));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package org.delaunois.ialon.benchmarks;
+
+import com.jme3.math.Vector3f;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkLightManager;
+import org.delaunois.ialon.blocks.ChunkManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Torchlight propagation by {@link ChunkLightManager} : a torch is placed just above the ground, then
+ * removed, which restores the world. The torches are spread over the central chunk columns, so the
+ * light crosses chunk borders.
+ *
+ * @author Cedric de Launois
+ */
+@State(Scope.Thread)
+public class TorchLightBenchmark {
+
+    private static final int TORCHES = 256;
+
+    private ChunkManager world;
+    private ChunkLightManager lightManager;
+    private Chunk[] chunks;
+    private Vec3i[] locations;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        IalonConfig config = BenchmarkWorld.configure();
+        world = BenchmarkWorld.createWorld(config, 2);
+        lightManager = new ChunkLightManager(config);
+
+        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+        int worldHeight = config.getGridHeight() * chunkSize.y;
+        chunks = new Chunk[TORCHES];
+        locations = new Vec3i[TORCHES];
+        Random random = new Random(BenchmarkWorld.SEED);
+        int count = 0;
+        while (count < TORCHES) {
+            int x = random.nextInt(3 * chunkSize.x) - chunkSize.x;
+            int z = random.nextInt(3 * chunkSize.z) - chunkSize.z;
+            int y = BenchmarkWorld.surface(world, config, x, z) + 1;
+            if (y < worldHeight) {
+                Chunk chunk = world.getChunk(ChunkManager.getChunkLocation(new Vector3f(x + 0.5f, y + 0.5f, z + 0.5f))).orElseThrow();
+                chunks[count] = chunk;
+                locations[count] = chunk.toLocalLocation(new Vec3i(x, y, z));
+                count++;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        world.cleanup(1000);
+    }
+
+    @Benchmark
+    public Set<Vec3i> addAndRemoveTorch() {
+        next = (next + 1) % TORCHES;
+        lightManager.addTorchlight(locations[next], chunks[next], 15);
+        return lightManager.removeTorchlight(locations[next], chunks[next]);
+    }
+}
@@ -11,10 +11,12 @@ import com.simsilica.mathd.Vec3i;
 import org.delaunois.ialon.blocks.Block;
 import org.delaunois.ialon.blocks.ChunkManager;
 import org.delaunois.ialon.blocks.ChunkRepository;
+import org.delaunois.ialon.blocks.FrameBudget;
+import org.delaunois.ialon.blocks.RegionFileRepository;
 import org.delaunois.ialon.blocks.TextureAtlasManager;
 import org.delaunois.ialon.blocks.WorldEditOverlay;
 import org.delaunois.ialon.blocks.WorldSettings;
-import org.delaunois.ialon.blocks.ZipFileRepository;
+import org.delaunois.ialon.blocks.generator.ColumnHeightsRepository;
 import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
 import org.delaunois.ialon.blocks.generator.TerrainGenerator;
 import org.delaunois.ialon.input.InputActionManager;
@@ -50,8 +52,21 @@ public class IalonConfig implements WorldSettings {
     // persisted in game.yml so the last-used mode is restored on the next launch (DesktopLauncher).
     // Ignored on Android (always fullscreen).
     private boolean fullscreen = true;
-    private int maxUpdatePerFrame = 8;
+    // Hard cap on the pages handled per frame ; the frame budget below is what normally bounds paging
+    private int maxUpdatePerFrame = 64;
+    // Render thread time per frame for paging and liquid ticks (see FrameBudget). Starts at
+    // frameBudgetMs, halves after a frame slower than frameBudgetTargetFrameMs, grows up to frameBudgetMaxMs.
+    private float frameBudgetMs = 4f;
+    private float frameBudgetMinMs = 1f;
+    private float frameBudgetMaxMs = 8f;
+    private float frameBudgetTargetFrameMs = 20f;
     private int chunkPoolsize = defaultChunkPoolSize();
+    // Memory budget (bytes) of the chunk cache : blocks, lightmaps and meshes. Chunks that left the
+    // grid are kept within it for fast revisits. A quarter of the heap by default (see ChunkCache).
+    private long chunkCacheSize = defaultChunkCacheSize();
+    // Spill the generator's column heightmaps to the world directory, so that revisited areas and a
+    // restarted game do not evaluate the terrain noise again (see ColumnHeightsRepository).
+    private boolean spillColumnHeights = true;
 
     // Grid
     private int gridRadius = 4;
@@ -120,6 +135,11 @@ public class IalonConfig implements WorldSettings {
 
     private float waterHeight = 30;
     private boolean greedyCalmWater = true;
+    // Greedy render mesh : merge the coplanar, uniformly lit faces of the opaque cubes into larger tiled quads
+    private boolean greedyRenderMesh = false;
+    // Store the render mesh positions of the blocks and the water as fixed point shorts (1/256 block)
+    // instead of floats : 6 bytes per vertex instead of 12
+    private boolean packedVertexPositions = false;
     // Cave culling : hide chunks the camera cannot see through the chunk visibility graph
     // (behind walls, underground). Minecraft-style advanced occlusion culling.
     private boolean chunkCaveCulling = true;
@@ -129,6 +149,9 @@ public class IalonConfig implements WorldSettings {
     private float waterSimulationSpeed = 4f;
     // Lava flows like water but slower : its own (lower) simulation cadence. See ChunkLiquidManagerState.
     private float lavaSimulationSpeed = 0.5f;
+    // Maximum number of liquid nodes processed per simulation tick (water and lava each). A large flood
+    // spreads over more ticks instead of making one tick (and the remeshing that follows) arbitrarily long.
+    private int liquidSimulationNodeBudget = 4096;
 
     // Underwater view : a full-screen post-process (UnderwaterState) applied only while the camera is
     // below waterHeight - a bluish distance fog that shortens the view range plus a gentle ripple
@@ -192,6 +215,9 @@ public class IalonConfig implements WorldSettings {
     private float playerHeight = 1.6f;
     private float playerRadius = 0.3f;
     private float playerStepHeight = 0.3f;
+    // Collide the player directly with the blocks instead of the Bullet chunk collision meshes : no
+    // collision mesh is built nor paged in the physics space (see VoxelCharacterBody)
+    private boolean voxelCollision = false;
     private boolean playerStartFly = false;
     private boolean saveUserSettingsOnStop = true;
     private final InputActionManager inputActionManager = new InputActionManager();
@@ -201,6 +227,7 @@ public class IalonConfig implements WorldSettings {
     private int selectedBlockIndex = 0;
     private String selectedBlockName = null;
     private ChunkManager chunkManager;
+    private FrameBudget frameBudget;
     private ChunkRepository chunkRepository;
     private TerrainGenerator terrainGenerator;
     // Player edits the far horizon must honour (felled trees / reshaped relief). One instance per config,
@@ -220,6 +247,17 @@ public class IalonConfig implements WorldSettings {
 
     public void setGridRadius(int gridRadius) {
         this.gridRadius = clamp(gridRadius, gridRadiusMin, gridRadiusMax);
+        if (terrainGenerator instanceof NoiseTerrainGenerator) {
+            ((NoiseTerrainGenerator) terrainGenerator).setHeightsCacheCapacity(getHeightsCacheCapacity());
+        }
+    }
+
+    /**
+     * Capacity of the generator's column heightmap cache : twice the columns of the pager grid, so that
+     * the young generation of the cache alone holds the whole grid (see ColumnHeightsCache).
+     */
+    public int getHeightsCacheCapacity() {
+        return Math.max(NoiseTerrainGenerator.DEFAULT_HEIGHTS_CACHE_CAPACITY, 2 * getGridSize() * getGridSize());
     }
 
     public void setTimeFactorIndex(int timeFactorIndex) {
@@ -296,6 +334,13 @@ public class IalonConfig implements WorldSettings {
         return chunkManager;
     }
 
+    public FrameBudget getFrameBudget() {
+        if (frameBudget == null) {
+            frameBudget = FrameBudget.ofMillis(frameBudgetMs, frameBudgetMinMs, frameBudgetMaxMs, frameBudgetTargetFrameMs);
+        }
+        return frameBudget;
+    }
+
     public ChunkRepository getChunkRepository() {
         if (chunkRepository == null) {
             chunkRepository = getDefaultChunkRepository();
@@ -313,17 +358,20 @@ public class IalonConfig implements WorldSettings {
     public ChunkManager getDefaultChunkManager() {
         return ChunkManager.builder()
                 .poolSize(getChunkPoolsize())
+                .cacheSize(getChunkCacheSize())
                 .generator(getTerrainGenerator())
                 .repository(getChunkRepository())
                 .build();
     }
 
     public ChunkRepository getDefaultChunkRepository() {
-        ZipFileRepository repository = new ZipFileRepository();
-        repository.setPath(getCurrentWorldPath());
+        RegionFileRepository repository = new RegionFileRepository(getCurrentWorldPath());
         // Finite world : key saves/edits by canonical (wrapped) coordinates so a tile is stored once
         // and edits are consistent across the seam. 0 keeps the legacy per-(x,z) storage.
         repository.setWorldSizeChunks(finiteWorld ? worldSizeChunks : 0);
+        // Worlds saved before region files hold one chunk_*.zblock per chunk : fold them into regions,
+        // off the render thread (the chunks not migrated yet are read from their .zblock files).
+        repository.migrateInBackground(getCurrentWorldPath());
         return repository;
     }
 
@@ -338,12 +386,32 @@ public class IalonConfig implements WorldSettings {
         generator.setForestFrequency(generator.getForestFrequency() / forestPatchSize);
         // Bind the per-world edit overlay so the far horizon honours felled trees / reshaped relief.
         generator.setWorldEditOverlay(worldEditOverlay);
+        generator.setHeightsCacheCapacity(getHeightsCacheCapacity());
+        if (spillColumnHeights) {
+            generator.setHeightsRepository(new ColumnHeightsRepository(getCurrentWorldPath()));
+        }
         return generator;
     }
 
+    /**
+     * Closes the files kept open by the data sources of the current world : the chunk region files and
+     * the spilled column heightmaps. The data sources reopen them on demand.
+     */
+    public void closeWorldFiles() {
+        if (chunkRepository != null) {
+            chunkRepository.close();
+        }
+        if (terrainGenerator instanceof NoiseTerrainGenerator) {
+            ColumnHeightsRepository heightsRepository = ((NoiseTerrainGenerator) terrainGenerator).getHeightsRepository();
+            if (heightsRepository != null) {
+                heightsRepository.close();
+            }
+        }
+    }
+
     /**
      * Filesystem directory of the currently loaded world : {@code savePath/worlds/<worldId>}. Each world
-     * keeps its own chunks (chunk_*.zblock), generation parameters (world.yml) and player state
+     * keeps its own chunks (region_*.zregion), generation parameters (world.yml) and player state
      * (player.yml) under this directory.
      */
     public Path getCurrentWorldPath() {
@@ -364,4 +432,11 @@ public class IalonConfig implements WorldSettings {
         return clamp(Runtime.getRuntime().availableProcessors() - 2, 2, 6);
     }
 
+    /**
+     * Default budget of the chunk cache, in bytes : a quarter of the maximum heap.
+     */
+    private static long defaultChunkCacheSize() {
+        return Runtime.getRuntime().maxMemory() / 4;
+    }
+
 }
@@ -293,7 +293,10 @@ public class IalonInitializer {
         sm.attach(setupPlayerState(app, config));
         sm.attach(setupChunkManager(config));
         sm.attach(setupChunkPager(app, config)); // Depends on PlayerState
-        sm.attach(setupPhysicsChunkPager(app, config)); // Depends on PlayerState and BulletAppState
+        if (!config.isVoxelCollision()) {
+            // The player collides with the chunk meshes paged in the physics space
+            sm.attach(setupPhysicsChunkPager(app, config)); // Depends on PlayerState and BulletAppState
+        }
         sm.attach(setupChunkLiquidManager(config));
         if (config.isFarTerrain()) {
             sm.attach(setupFarTerrain(config)); // Distant horizon, depends on camera + terrain generator
@@ -358,6 +361,8 @@ public class IalonInitializer {
         // (Blocks/blocks.yaml + Blocks/Textures/). No filename-convention theme anymore.
         IalonBlockCatalog catalog = IalonBlockCatalog.load(assetManager);
         catalog.registerAll(typeRegistry, blocksConfig.getBlockRegistry());
+        // Every registry is now complete : resolve the shapes and types of the blocks registered before them
+        blocksConfig.getBlockRegistry().resolveAll();
         ialonConfig.setBlockCatalog(catalog);
         log.info("registerIalonBlocks: loaded block materials/textures in {} ms",
                 (System.nanoTime() - start) / 1_000_000);
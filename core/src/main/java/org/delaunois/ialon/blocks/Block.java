@@ -84,6 +84,32 @@ public class Block {
     @Builder.Default
     private byte liquidLevel = LIQUID_DISABLED;
 
+    /**
+     * The {@link Shape} instance named by {@link #shape}, resolved by the {@link BlockRegistry} when the block
+     * is registered so the meshing loop does not look it up by name for each cell.
+     */
+    private Shape resolvedShape;
+
+    /**
+     * The index of the shape in the {@link ShapeRegistry}, resolved at registration.
+     */
+    private int shapeId;
+
+    /**
+     * The index of the type in the {@link TypeRegistry}, resolved at registration.
+     */
+    private int typeId;
+
+    /**
+     * The chunk mesh the block is rendered into (see {@link MeshBuckets}), resolved at registration.
+     */
+    private int meshBucket;
+
+    /**
+     * Flag indicating if the shape of the block is a {@link ShapeIds#CUBE}, resolved at registration.
+     */
+    private boolean cube;
+
     public Block(String name, String shape, String type, boolean usingMultipleImages, boolean transparent, boolean solid, boolean torchlight) {
         this.name = name;
         this.shape = shape;
@@ -22,7 +22,9 @@ import com.simsilica.mathd.Vec3i;
 
 import java.util.Arrays;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 
 /**
  * The 3x3x3 block neighborhood centered on a block, used during chunk meshing to provide both the
@@ -45,7 +47,8 @@ import lombok.Getter;
  * {@link #setLocation(Vec3i)} instead of clearing the whole arrays.
  *
  * <p>The neighborhood is confined to a single meshing thread, so these buffers can be pre-allocated
- * once and refilled rather than re-allocated per block.
+ * once and refilled rather than re-allocated per block. When the thread meshes the chunk from a
+ * {@link ChunkSnapshot}, the neighbours and their lights are read from the snapshot by index.
  */
 public class BlockNeighborhood {
 
@@ -99,6 +102,13 @@ public class BlockNeighborhood {
     // Chunk of the center block
     private final Chunk chunk;
 
+    // The padded copy of the chunk and its border being meshed, or null
+    private final ChunkSnapshot snapshot;
+
+    // Collects the uniformly lit cube faces to merge, or null when the render mesh is not greedy
+    @Setter(AccessLevel.PACKAGE)
+    private GreedyFaceMesher greedyFaces;
+
     // The neighborhood : all blocks surrounding the location (lazily filled, see get()).
     private final Block[] n = new Block[NEIGHB_SIZE];
     private final Block[] face = new Block[8];
@@ -120,6 +130,12 @@ public class BlockNeighborhood {
      */
     @Getter
     private final Vector4f colorScratch = new Vector4f();
+    /**
+     * -- GETTER --
+     *  Reused buffers for the 4 corner colors of a face, in the order they are emitted.
+     */
+    @Getter
+    private final Vector4f[] cornerColorScratch = {new Vector4f(), new Vector4f(), new Vector4f(), new Vector4f()};
 
     // Per-face visibility of the center block, recorded by Chunk.isFaceVisible(neighborhood, dir)
     // during the render pass so the collision mesher can reuse it (shared visibility mask). Always
@@ -128,6 +144,7 @@ public class BlockNeighborhood {
 
     public BlockNeighborhood(Vec3i location, Chunk chunk) {
         this.chunk = chunk;
+        this.snapshot = ChunkSnapshot.getActive(chunk);
         for (int i = 0; i < NEIGHB_SIZE; i++) {
             lights[i] = new Vector4f();
         }
@@ -153,6 +170,11 @@ public class BlockNeighborhood {
      * but allocation-free.
      */
     public Vector4f getFaceLight(Direction face) {
+        if (snapshot != null) {
+            Vec3i dir = face.getVector();
+            return snapshot.getLightLevel(location.x + dir.x, location.y + dir.y, location.z + dir.z, face,
+                    faceLightScratch);
+        }
         return chunk.getLightLevel(location.x, location.y, location.z, face, faceLightScratch);
     }
 
@@ -163,6 +185,9 @@ public class BlockNeighborhood {
      * surface does not reach the cell boundary).
      */
     public Vector4f getSelfLight() {
+        if (snapshot != null) {
+            return snapshot.getLightLevel(location.x, location.y, location.z, null, selfLightScratch);
+        }
         return chunk.getLightLevel(location.x, location.y, location.z, null, selfLightScratch);
     }
 
@@ -180,6 +205,18 @@ public class BlockNeighborhood {
         return n[CENTER_IDX];
     }
 
+    /**
+     * Hands a visible face of the center cube over to the greedy render mesher, which merges it with
+     * its coplanar neighbours if its 4 corners have the same light.
+     *
+     * @param face the direction of the face
+     * @param colors the colors of the 4 corners of the face
+     * @return true if the face was taken by the greedy mesher : the caller must not emit it
+     */
+    public boolean collectUniformFace(Direction face, Vector4f[] colors) {
+        return greedyFaces != null && greedyFaces.collect(n[CENTER_IDX], location, face, colors);
+    }
+
     public void setFaceVisible(Direction direction, boolean visible) {
         faceVisible[direction.ordinal()] = visible;
     }
@@ -307,7 +344,9 @@ public class BlockNeighborhood {
 
     private Block get(int index, int dx, int dy, int dz) {
         if (blockStamp[index] != epoch) {
-            Block cb = this.chunk.getNeighbour(location.x, location.y, location.z, dx, dy, dz);
+            Block cb = snapshot != null
+                    ? snapshot.getBlock(location.x + dx, location.y + dy, location.z + dz)
+                    : this.chunk.getNeighbour(location.x, location.y, location.z, dx, dy, dz);
             n[index] = cb == null ? EMPTY : cb;
             blockStamp[index] = epoch;
         }
@@ -317,7 +356,11 @@ public class BlockNeighborhood {
 
     private Vector4f getLight(int index, int dx, int dy, int dz) {
         if (lightStamp[index] != epoch) {
-            this.chunk.getLightLevel(location.x + dx, location.y + dy, location.z + dz, null, lights[index]);
+            if (snapshot != null) {
+                snapshot.getLightLevel(location.x + dx, location.y + dy, location.z + dz, null, lights[index]);
+            } else {
+                this.chunk.getLightLevel(location.x + dx, location.y + dy, location.z + dz, null, lights[index]);
+            }
             lightStamp[index] = epoch;
         }
         return lights[index];
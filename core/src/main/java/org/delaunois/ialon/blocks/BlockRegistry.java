@@ -48,6 +48,7 @@ public class BlockRegistry {
 
         registry.put(name, block);
 
+        resolve(block);
         block.setId(size);
         aregistry[size] = block;
         size += 1;
@@ -58,6 +59,39 @@ public class BlockRegistry {
         return block;
     }
 
+    /**
+     * Resolves every registered block again. Must run once all the registries are initialized : a block
+     * registered before its shape, or while there was no type registry, is only partially resolved until then.
+     */
+    public void resolveAll() {
+        for (int id = 1; id < size; id++) {
+            if (aregistry[id] != null) {
+                resolve(aregistry[id]);
+            }
+        }
+    }
+
+    /**
+     * Resolves the shape, type and mesh bucket of the given block once, so the meshing and lighting loops read
+     * them from the block instead of looking them up by name.
+     */
+    private static void resolve(Block block) {
+        block.setMeshBucket(MeshBuckets.of(block.getType()));
+        block.setCube(ShapeIds.CUBE.equals(block.getShape()));
+        BlocksConfig config = BlocksConfig.getInstance();
+        if (config == null) {
+            return;
+        }
+        if (block.getShape() != null) {
+            ShapeRegistry shapeRegistry = config.getShapeRegistry();
+            block.setShapeId(shapeRegistry.getId(block.getShape()));
+            block.setResolvedShape(shapeRegistry.get(block.getShapeId()));
+        }
+        if (block.getType() != null && config.getTypeRegistry() != null) {
+            block.setTypeId(config.getTypeRegistry().getId(block.getType()));
+        }
+    }
+
     public void register(@NonNull Block... blocks) {
         Arrays.stream(blocks).forEach(this::register);
     }
@@ -63,7 +63,13 @@ public class Chunk {
             ThreadLocal.withInitial(() -> new int[CHUNK_SIZE.x * CHUNK_SIZE.y * CHUNK_SIZE.z]);
 
     // a one dimensional array is quicker to lookup blocks then a 3n array
-    private short[] blocks;
+    // Volatile, as packedBlocks : the meshing, light and liquid threads read them without the lock
+    // while compact() and unpack() swap them under it (see blockId)
+    private volatile short[] blocks;
+
+    // The blocks of a compacted chunk while blocks is null, see compact()
+    @Getter(AccessLevel.NONE)
+    private volatile PaletteBlockStorage packedBlocks;
 
     @Setter(AccessLevel.PRIVATE)
     @ToString.Include
@@ -121,6 +127,15 @@ public class Chunk {
      */
     private byte[] lightMap;
 
+    /**
+     * The uniform content of the chunk while {@link #getBlocks()} and {@link #getLightMap()} are null :
+     * every cell holds the block with this id (0 for air) at this light level. Deep rock and open sky
+     * chunks are generated uniform and take no array ; the arrays are materialized from these values on
+     * the first write (see {@link #allocate()}).
+     */
+    private short uniformBlock = 0;
+    private byte uniformLight = (byte) (0xF << 4);
+
     // To avoid many instanciation of Vec3i (costly)
     private final Vec3i v = new Vec3i();
 
@@ -139,26 +154,206 @@ public class Chunk {
         return new Chunk(location);
     }
 
-    private void allocate() {
+    /**
+     * Materializes the block and light arrays before a write of the blocks, unpacking the packed blocks.
+     */
+    private synchronized void allocate() {
+        if (blocks == null && packedBlocks != null) {
+            unpack();
+        }
         if (blocks == null) {
-            setBlocks(new short[CHUNK_SIZE.x * CHUNK_SIZE.y * CHUNK_SIZE.z]);
+            short[] array = new short[CHUNK_SIZE.x * CHUNK_SIZE.y * CHUNK_SIZE.z];
+            if (uniformBlock != 0) {
+                Arrays.fill(array, uniformBlock);
+            }
+            setBlocks(array);
             byte[] lightmap = new byte[CHUNK_SIZE.x * CHUNK_SIZE.y * CHUNK_SIZE.z];
-            // TODO implement when the chunk is empty but below a non-empty chunk
-            // the lightmap should be properly computed
-            Arrays.fill(lightmap, (byte) (0xF << 4));
+            // The uniform light, full sunlight by default : an empty chunk under terrain is relit from
+            // the chunk above it by ColumnSunlight (see ChunkManager)
+            Arrays.fill(lightmap, uniformLight);
             setLightMap(lightmap);
         }
     }
 
+    /**
+     * Materializes the light map before a write of the lights. Packed blocks stay packed : only a
+     * uniform chunk needs its arrays.
+     */
+    private synchronized void allocateLight() {
+        if (blocks == null && packedBlocks == null) {
+            allocate();
+        }
+    }
+
+    /**
+     * Makes every cell of this chunk hold the given block at the given light level, without allocating
+     * the block and light arrays. They are allocated on the first write.
+     *
+     * @param block the block of every cell, or null for air
+     * @param sunlight the sunlight level of every cell
+     * @param torchlight the torchlight level of every cell
+     */
+    public void setUniform(Block block, int sunlight, int torchlight) {
+        this.blocks = null;
+        this.packedBlocks = null;
+        this.lightMap = null;
+        this.uniformBlock = block == null ? 0 : block.getId();
+        this.uniformLight = (byte) ((sunlight << 4) | torchlight);
+        update();
+    }
+
+    /**
+     * @return true if every cell of this chunk holds the same block at the same light level, and the
+     * block and light arrays are not allocated
+     */
+    public boolean isUniform() {
+        return blocks == null && packedBlocks == null;
+    }
+
+    /**
+     * @return the block of every cell of a uniform chunk, or null for air or a chunk that is not uniform
+     * @see #isUniform()
+     */
+    public Block getUniformBlock() {
+        return !isUniform() || uniformBlock == 0 ? null : REGISTRY.get(uniformBlock);
+    }
+
+    /**
+     * Returns the blocks of this chunk, unpacking them first if the chunk is {@link #compact() compacted}.
+     * The array stays attached to the chunk until it is compacted again : changing it changes the chunk.
+     * Readers should prefer {@link #readBlocks()}, which leaves the chunk packed.
+     * @return the blocks of this chunk, or null for a {@link #isUniform() uniform} chunk
+     */
+    public short[] getBlocks() {
+        short[] array = blocks;
+        if (array == null && packedBlocks != null) {
+            array = unpack();
+        }
+        return array;
+    }
+
+    /**
+     * Returns the blocks of this chunk for reading : the plain array, or an unpacked copy if the chunk is
+     * {@link #compact() compacted}. The chunk stays packed.
+     * @return the blocks of this chunk, or null for a {@link #isUniform() uniform} chunk
+     */
+    public short[] readBlocks() {
+        short[] array = blocks;
+        if (array != null) {
+            return array;
+        }
+        PaletteBlockStorage packed = packedBlocks;
+        if (packed != null) {
+            return packed.unpack();
+        }
+        synchronized (this) {
+            array = blocks;
+            packed = packedBlocks;
+        }
+        return array != null || packed == null ? array : packed.unpack();
+    }
+
     public void setBlocks(short[] blocks) {
         this.blocks = blocks;
+        this.packedBlocks = null;
         update();
     }
 
+    /**
+     * Packs the blocks of this chunk against a palette of its distinct blocks (see
+     * {@link PaletteBlockStorage}) and drops the plain array : the blocks take 2 to 4 times less memory.
+     * {@link #getBlock(int, int, int)} reads the packed blocks as they are ; the first write or call to
+     * {@link #getBlocks()} unpacks them. Meant to be called once the chunk is meshed.
+     * @return true if the blocks were packed, false if the chunk is uniform, already packed, or holds
+     * more than 256 distinct blocks
+     */
+    public synchronized boolean compact() {
+        if (blocks == null) {
+            return false;
+        }
+        PaletteBlockStorage packed = PaletteBlockStorage.pack(blocks);
+        if (packed == null) {
+            return false;
+        }
+        packedBlocks = packed;
+        blocks = null;
+        return true;
+    }
+
+    /**
+     * @return true if the blocks of this chunk are packed, see {@link #compact()}
+     */
+    public boolean isCompacted() {
+        return packedBlocks != null;
+    }
+
+    /**
+     * @return an estimate of the memory held by the blocks of this chunk, in bytes
+     */
+    public long getBlocksSize() {
+        short[] array = blocks;
+        if (array != null) {
+            return array.length * (long) Short.BYTES;
+        }
+        PaletteBlockStorage packed = packedBlocks;
+        return packed == null ? 0 : packed.getSize();
+    }
+
+    private synchronized short[] unpack() {
+        if (blocks == null && packedBlocks != null) {
+            short[] array = packedBlocks.unpack();
+            // Publish the array before dropping the packed blocks : lock-free readers find one or the other
+            blocks = array;
+            packedBlocks = null;
+        }
+        return blocks;
+    }
+
+    /**
+     * @return the plain block array, or null while the blocks are packed or uniform
+     */
+    short[] getPlainBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return the id of the block at the given index, whatever the storage of the blocks
+     */
+    short blockId(int index) {
+        short[] array = this.blocks;
+        if (array != null) {
+            return array[index];
+        }
+        PaletteBlockStorage packed = this.packedBlocks;
+        if (packed != null) {
+            return packed.get(index);
+        }
+        // Uniform, or swapped meanwhile by compact() or unpack() : read again under their lock
+        synchronized (this) {
+            array = this.blocks;
+            packed = this.packedBlocks;
+        }
+        if (array != null) {
+            return array[index];
+        }
+        return packed != null ? packed.get(index) : uniformBlock;
+    }
+
     public void setLightMap(byte[] lightMap) {
         this.lightMap = lightMap;
     }
 
+    /**
+     * Returns the lightmap, allocating the (empty) blocks and the (full sunlight) lightmap of an empty
+     * chunk first. Unlike {@link #setSunlight(int, int, int, int)}, does not flag the chunk as dirty :
+     * the caller writes derived light only.
+     * @return the lightmap of this chunk, never null
+     */
+    public byte[] allocateLightMap() {
+        allocateLight();
+        return lightMap;
+    }
+
     /**
      * Add a block to this chunk. If there was already a block at this location, it will be overwritten.
      *
@@ -181,10 +376,14 @@ public class Chunk {
      */
     public Block addBlock(int x, int y, int z, Block block) {
         if (isInsideChunk(x, y, z)) {
-            allocate();
-            int index = calculateIndex(x, y, z);
-            Block previous = REGISTRY.get(blocks[index]);
-            blocks[index] = block.getId();
+            Block previous;
+            // Not compacted between the allocation and the write
+            synchronized (this) {
+                allocate();
+                int index = calculateIndex(x, y, z);
+                previous = REGISTRY.get(blocks[index]);
+                blocks[index] = block.getId();
+            }
             if (log.isTraceEnabled()) {
                 log.trace("Added {} at ({}, {}, {}) to {}", block, x, y, z, this);
             }
@@ -216,7 +415,7 @@ public class Chunk {
      */
     public Block getBlock(int x, int y, int z) {
         if (isInsideChunk(x, y, z)) {
-            return this.blocks == null ? null : REGISTRY.get(this.blocks[calculateIndex(x, y, z)]);
+            return REGISTRY.get(blockId(calculateIndex(x, y, z)));
         }
 
         log.warn("Block location ({}, {}, {}) is outside of the chunk boundaries!", x, y, z);
@@ -242,10 +441,17 @@ public class Chunk {
      * @return the removed block or null
      */
     public Block removeBlock(int x, int y, int z) {
-        if (blocks != null && isInsideChunk(x, y, z)) {
-            int index = calculateIndex(x, y, z);
-            Block block = REGISTRY.get(blocks[index]);
-            blocks[index] = 0;
+        if (isInsideChunk(x, y, z)) {
+            Block block;
+            synchronized (this) {
+                if (isUniform() && uniformBlock == 0) {
+                    return null;
+                }
+                allocate();
+                int index = calculateIndex(x, y, z);
+                block = REGISTRY.get(blocks[index]);
+                blocks[index] = 0;
+            }
             if (log.isTraceEnabled()) {
                 log.trace("Removed {} at ({}, {}, {}) from {}", block, x, y, z, this);
             }
@@ -284,10 +490,11 @@ public class Chunk {
      * changed.
      */
     public void update() {
+        short[] blocks = this.blocks;
         if (blocks == null) {
-            empty = true;
-            full = false;
-            fullyOpaque = false;
+            // Packed or uniform : the palette gives the flags without a scan
+            PaletteBlockStorage packed = packedBlocks;
+            updateFromPalette(packed != null ? packed.getPalette() : new short[] {uniformBlock});
             return;
         }
 
@@ -332,11 +539,31 @@ public class Chunk {
         }
     }
 
+    /**
+     * Updates the flags of a chunk holding exactly the given blocks.
+     */
+    private void updateFromPalette(short[] palette) {
+        boolean empty = true;
+        boolean full = true;
+        boolean opaque = true;
+        for (short id : palette) {
+            Block b = REGISTRY.get(id);
+            empty &= b == null;
+            full &= b != null;
+            opaque &= b != null && !b.isTransparent();
+        }
+        this.empty = empty;
+        this.full = full;
+        this.fullyOpaque = full && opaque;
+    }
+
     public void cleanup() {
         if (log.isDebugEnabled()) {
             log.debug("cleanup " + this.location);
         }
         this.blocks = null;
+        this.packedBlocks = null;
+        this.uniformBlock = 0;
         this.node = null;
         this.collisionMesh = null;
         this.chunkResolver = null;
@@ -415,6 +642,11 @@ public class Chunk {
             return getBlock(blx, bly, blz);
         }
 
+        ChunkSnapshot snapshot = ChunkSnapshot.getActive(this);
+        if (snapshot != null && snapshot.contains(blx, bly, blz)) {
+            return snapshot.getBlock(blx, bly, blz);
+        }
+
         if (hasChunkResolver()) {
             int[] loc = computeNeighbourCoordinates(location.x, location.y, location.z, blx, bly, blz, neighbourCoords);
             Chunk chunk = chunkResolver.unsafeFastGet(v.set(loc[0], loc[1], loc[2]));
@@ -453,7 +685,7 @@ public class Chunk {
     }
 
     public int getAOIndex(Block block) {
-        if (block != null && block.getShape().equals(ShapeIds.CUBE)) {
+        if (block != null && block.isCube()) {
             return 1;
         }
         return 0;
@@ -494,17 +726,13 @@ public class Chunk {
 
         // Fast path : an opaque full cube neighbour always hides the face, whatever the direction
         // or the current block. This is the dominant case (terrain) and avoids the singleton +
-        // shape registry lookup + virtual fullyCoversFace() call below. Verified equivalent to the
-        // general logic : a cube fully covers every face, is not transparent, and is not a liquid.
-        if (!neighbour.isTransparent() && ShapeIds.CUBE.equals(neighbour.getShape())) {
+        // virtual fullyCoversFace() call below. Verified equivalent to the general logic : a cube
+        // fully covers every face, is not transparent, and is not a liquid.
+        if (!neighbour.isTransparent() && neighbour.isCube()) {
             return false;
         }
 
-        boolean fullyCovers = BlocksConfig
-                .getInstance()
-                .getShapeRegistry()
-                .get(neighbour.getShape())
-                .fullyCoversFace(direction.opposite());
+        boolean fullyCovers = neighbour.getResolvedShape().fullyCoversFace(direction.opposite());
 
         if (!fullyCovers) {
             // Draw the face if the neighbour face does not fully cover the square
@@ -579,6 +807,11 @@ public class Chunk {
             return getLightLevel(x, y, z, direction, WATER_COLOR_FILTER, store);
         }
 
+        ChunkSnapshot snapshot = ChunkSnapshot.getActive(this);
+        if (snapshot != null && snapshot.contains(x, y, z)) {
+            return snapshot.getLightLevel(x, y, z, direction, store);
+        }
+
         if (hasChunkResolver()) {
             int[] loc = computeNeighbourCoordinates(location.x, location.y, location.z, x, y, z, neighbourCoords);
             Chunk chunk = chunkResolver.unsafeFastGet(v.set(loc[0], loc[1], loc[2]));
@@ -641,20 +874,29 @@ public class Chunk {
     }
 
     private Vector4f getLightLevel(int x, int y, int z, Direction face, ColorRGBA color, Vector4f store) {
-        if (blocks == null) {
-            return store.set(1f, 1f, 1f, 0xF << 4);
-        }
         int index = calculateIndex(x, y, z);
-        int level = this.lightMap[index];
+        int level = this.lightMap == null ? uniformLight : this.lightMap[index];
+        return getLightLevel(level, color == null ? 0 : blockId(index), face, color, store);
+    }
+
+    /**
+     * Gets the light of a cell holding the given light and block, as seen through the given face, with
+     * the water filter applied if the block is a liquid.
+     * @param level the light of the cell, as stored in the lightmap
+     * @param blockId the id of the block of the cell
+     * @return a Vector with (x, y, z) = color of the light and w = sun and torch light level,
+     */
+    static Vector4f getLightLevel(int level, short blockId, Direction face, Vector4f store) {
+        return getLightLevel(level, blockId, face, WATER_COLOR_FILTER, store);
+    }
+
+    private static Vector4f getLightLevel(int level, short blockId, Direction face, ColorRGBA color, Vector4f store) {
         ColorRGBA lightColor = ColorRGBA.White;
-        if (color != null) {
-            short bId = this.blocks[index];
-            if (bId > 0) {
-                Block block = REGISTRY.get(bId);
-                if (block.getLiquidLevel() == Block.LIQUID_FULL || (block.getLiquidLevel() > 0 && face == Direction.UP)) {
-                    // Lava tints red, every other liquid (water) keeps the passed-in blue filter.
-                    lightColor = TypeIds.LAVA.equals(block.getType()) ? LAVA_COLOR_FILTER : color;
-                }
+        if (color != null && blockId > 0) {
+            Block block = REGISTRY.get(blockId);
+            if (block.getLiquidLevel() == Block.LIQUID_FULL || (block.getLiquidLevel() > 0 && face == Direction.UP)) {
+                // Lava tints red, every other liquid (water) keeps the passed-in blue filter.
+                lightColor = TypeIds.LAVA.equals(block.getType()) ? LAVA_COLOR_FILTER : color;
             }
         }
         return store.set(lightColor.r, lightColor.g, lightColor.b, level);
@@ -666,13 +908,13 @@ public class Chunk {
 
     private int getSunlight(int index) {
         if (lightMap == null) {
-            return 0xF;
+            return (uniformLight >> 4) & 0xF;
         }
         return (this.lightMap[index] >> 4) & 0xF;
     }
 
     public void setSunlight(int x, int y, int z, int intensity) {
-        allocate();
+        allocateLight();
         int i = calculateIndex(x, y, z);
         lightMap[i] = (byte) ((lightMap[i] & 0xF) | (intensity << 4));
         dirty = true;
@@ -684,18 +926,25 @@ public class Chunk {
 
     private int getTorchlight(int index) {
         if (lightMap == null) {
-            return 0;
+            return uniformLight & 0xF;
         }
         return this.lightMap[index] & 0xF;
     }
 
     public void setTorchlight(int x, int y, int z, int intensity) {
-        allocate();
+        allocateLight();
         int i = calculateIndex(x, y, z);
         this.lightMap[i] = (byte) ((lightMap[i] & 0xF0) | intensity);
         dirty = true;
     }
 
+    /**
+     * @return the block with the given id, resolved through the registry the chunk arrays refer to
+     */
+    static Block blockOf(short id) {
+        return REGISTRY.get(id);
+    }
+
 
     /**
      * Checks if the given block coordinate is inside the chunk.
@@ -718,9 +967,10 @@ public class Chunk {
      * to be called on the meshing worker thread whenever the chunk node is (re)built.
      */
     public void computeFaceConnectivity() {
+        short[] blocks = getBlocks();
         if (blocks == null || empty) {
-            // Nothing occludes : sight passes through every face pair.
-            faceConnectivity = CONNECT_ALL;
+            // Uniform : sight passes through every face pair, unless every cell occludes
+            faceConnectivity = blocks == null && isOccluder(uniformBlock) ? 0 : CONNECT_ALL;
             return;
         }
 
@@ -756,12 +1006,12 @@ public class Chunk {
                         int cy = tmp % sy;
                         int cx = tmp / sy;
                         faceBits |= faceBitsOf(cx, cy, cz, sx, sy, sz);
-                        tail = visitFloodNeighbour(cx - 1, cy, cz, sx, sy, sz, region, queue, tail, nextRegion);
-                        tail = visitFloodNeighbour(cx + 1, cy, cz, sx, sy, sz, region, queue, tail, nextRegion);
-                        tail = visitFloodNeighbour(cx, cy - 1, cz, sx, sy, sz, region, queue, tail, nextRegion);
-                        tail = visitFloodNeighbour(cx, cy + 1, cz, sx, sy, sz, region, queue, tail, nextRegion);
-                        tail = visitFloodNeighbour(cx, cy, cz - 1, sx, sy, sz, region, queue, tail, nextRegion);
-                        tail = visitFloodNeighbour(cx, cy, cz + 1, sx, sy, sz, region, queue, tail, nextRegion);
+                        tail = visitFloodNeighbour(cx - 1, cy, cz, sx, sy, sz, blocks, region, queue, tail, nextRegion);
+                        tail = visitFloodNeighbour(cx + 1, cy, cz, sx, sy, sz, blocks, region, queue, tail, nextRegion);
+                        tail = visitFloodNeighbour(cx, cy - 1, cz, sx, sy, sz, blocks, region, queue, tail, nextRegion);
+                        tail = visitFloodNeighbour(cx, cy + 1, cz, sx, sy, sz, blocks, region, queue, tail, nextRegion);
+                        tail = visitFloodNeighbour(cx, cy, cz - 1, sx, sy, sz, blocks, region, queue, tail, nextRegion);
+                        tail = visitFloodNeighbour(cx, cy, cz + 1, sx, sy, sz, blocks, region, queue, tail, nextRegion);
                     }
                     nextRegion++;
                     connectivity |= pairsOf(faceBits);
@@ -771,7 +1021,7 @@ public class Chunk {
         faceConnectivity = connectivity;
     }
 
-    private int visitFloodNeighbour(int x, int y, int z, int sx, int sy, int sz,
+    private int visitFloodNeighbour(int x, int y, int z, int sx, int sy, int sz, short[] blocks,
                                     int[] region, int[] queue, int tail, int regionId) {
         if (x < 0 || x >= sx || y < 0 || y >= sy || z < 0 || z >= sz) {
             return tail;
@@ -795,7 +1045,7 @@ public class Chunk {
             return false;
         }
         Block b = REGISTRY.get(id);
-        return b != null && !b.isTransparent() && ShapeIds.CUBE.equals(b.getShape());
+        return b != null && !b.isTransparent() && b.isCube();
     }
 
     /** Bitset (indexed by {@link Direction#ordinal()}) of the chunk faces the given cell lies on. */
@@ -855,7 +1105,7 @@ public class Chunk {
      * @param z block coordinate
      * @return the block array index for the block coordinate.
      */
-    private static int calculateIndex(int x, int y, int z) {
+    static int calculateIndex(int x, int y, int z) {
         // Use the cached CHUNK_SIZE to avoid a singleton lookup on this very hot path
         // (called for every block access: getBlock/addBlock/getLightLevel/getSunlight/getTorchlight).
         return z + (y + x * CHUNK_SIZE.y) * CHUNK_SIZE.z;
@@ -1,73 +1,420 @@
 package org.delaunois.ialon.blocks;
 
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.VertexBuffer;
 import com.simsilica.mathd.Vec3i;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * An in memory threadsafe chunk cache implementation.
+ * <p>
+ * The cache holds two kinds of chunks. <i>Live</i> chunks are the ones the pager currently uses
+ * (inside its grid) : they are the only ones returned by {@link #get(Vec3i)} and
+ * {@link #unsafeFastGet(Vec3i)}. A chunk leaving the grid is {@link #release(Vec3i) released} : it drops
+ * its meshes and stays in a warm ring, so that coming back to a recently visited place is a
+ * {@link #acquire(Vec3i) cache hit} instead of a load or a regeneration.
+ * <p>
+ * The memory used by the cache (blocks, lightmap and meshes, see {@link #estimateSize(Chunk)}) is
+ * bounded by {@link #getMaxBytes() maxBytes}. {@link #maintain()} evicts released chunks, least recently
+ * released first, until the cache fits its budget again ; a dirty chunk is written back to the
+ * repository before it is evicted. Live chunks are never evicted. With a budget of 0, every released
+ * chunk is evicted by the next {@link #maintain()}.
+ * <p>
+ * Chunks are keyed by their {@link ChunkKey packed location} : looking a chunk up allocates nothing.
  *
  * @author: rvandoosselaer
  */
 @Slf4j
 public class ChunkCache implements ChunkResolver {
 
-    private final Map<Vec3i, Chunk> cache = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<Entry> cache = new ConcurrentLongMap<>();
+
+    // Released chunks, least recently released first, as a list linked through the entries. Guarded by
+    // the released lock, as are the live flags' transitions.
+    private final Object released = new Object();
+    private Entry eldest;
+    private Entry youngest;
+    private int releasedSize;
+
+    @Getter
+    private final long maxBytes;
+    private final ChunkRepository repository;
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong writeBacks = new AtomicLong();
 
     public ChunkCache() {
-        this(0);
+        this(0, null);
     }
 
-    public ChunkCache(int cacheSize) {
+    /**
+     * @param maxBytes the memory budget of the cache, in bytes
+     * @param repository the repository dirty chunks are written back to before eviction (may be null)
+     */
+    public ChunkCache(long maxBytes, ChunkRepository repository) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.repository = repository;
     }
 
     @Override
     public Optional<Chunk> get(@NonNull Vec3i location) {
-        return Optional.ofNullable(cache.get(location));
+        return Optional.ofNullable(unsafeFastGet(location));
     }
 
     @Override
     public Chunk unsafeFastGet(@NonNull Vec3i location) {
-        return cache.get(location);
+        return unsafeFastGet(ChunkKey.of(location));
+    }
+
+    /**
+     * @param key the packed location of the chunk, see {@link ChunkKey}
+     * @return the live chunk at this location, or null
+     */
+    public Chunk unsafeFastGet(long key) {
+        Entry entry = cache.get(key);
+        return entry != null && entry.live ? entry.chunk : null;
+    }
+
+    /**
+     * Makes the chunk at the given location live again, whether it is still live or was released and
+     * not yet evicted. Counts a hit or a miss.
+     *
+     * @param location the location of the chunk
+     * @return the chunk, or null if it is not in the cache
+     */
+    public Chunk acquire(@NonNull Vec3i location) {
+        long key = ChunkKey.of(location);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        synchronized (released) {
+            // trimTo may have evicted the entry since it was read : the chunk is no longer tracked
+            if (cache.get(key) != entry) {
+                misses.incrementAndGet();
+                return null;
+            }
+            unlink(entry);
+            entry.live = true;
+        }
+        hits.incrementAndGet();
+        return entry.chunk;
+    }
+
+    /**
+     * Informs the cache that the chunk at the given location left the pager grid. The chunk drops
+     * its meshes (they are rebuilt when it becomes live again) and joins the warm ring, where
+     * {@link #maintain()} may evict it.
+     *
+     * @param location the location of the chunk
+     */
+    public void release(@NonNull Vec3i location) {
+        Entry entry = cache.get(ChunkKey.of(location));
+        if (entry == null) {
+            return;
+        }
+
+        Chunk chunk = entry.chunk;
+        chunk.setNode(null);
+        chunk.setCollisionMesh(null);
+        synchronized (released) {
+            entry.live = false;
+            unlink(entry);
+            linkYoungest(entry);
+        }
+        resize(entry);
     }
 
     public void evict(@NonNull Vec3i location) {
         if (log.isDebugEnabled()) {
             log.debug("Cache evicted {}", location);
         }
-        cache.remove(location);
+        synchronized (released) {
+            Entry entry = cache.remove(ChunkKey.of(location));
+            if (entry != null) {
+                unlink(entry);
+                bytes.addAndGet(-entry.bytes);
+            }
+        }
     }
 
     public void evictAll() {
-        cache.clear();
+        synchronized (released) {
+            while (eldest != null) {
+                unlink(eldest);
+            }
+            cache.clear();
+            bytes.set(0);
+        }
     }
 
     public void put(@NonNull Chunk chunk) {
         if (log.isDebugEnabled()) {
             log.debug("Cache added {}", chunk.getLocation());
         }
-        cache.put(chunk.getLocation(), chunk);
+        Entry entry = new Entry(ChunkKey.of(chunk.getLocation()), chunk);
+        entry.bytes = estimateSize(chunk);
+        synchronized (released) {
+            Entry previous = cache.put(entry.key, entry);
+            if (previous != null) {
+                unlink(previous);
+                bytes.addAndGet(-previous.bytes);
+            }
+            bytes.addAndGet(entry.bytes);
+        }
+    }
+
+    /**
+     * Updates the memory accounted for the given chunk, e.g. after its meshes have been (re)built.
+     *
+     * @param chunk the cached chunk
+     */
+    public void updateSize(@NonNull Chunk chunk) {
+        Entry entry = cache.get(ChunkKey.of(chunk.getLocation()));
+        if (entry != null && entry.chunk == chunk) {
+            resize(entry);
+        }
     }
 
+    /**
+     * @return the number of chunks in the cache, live or released
+     */
     public long getSize() {
         return cache.size();
     }
 
+    /**
+     * @return the number of released chunks waiting in the warm ring
+     */
+    public int getReleasedSize() {
+        synchronized (released) {
+            return releasedSize;
+        }
+    }
+
+    /**
+     * @return the estimated memory used by the cached chunks, in bytes
+     */
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    public boolean isOverBudget() {
+        return bytes.get() > maxBytes && getReleasedSize() > 0;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getWriteBacks() {
+        return writeBacks.get();
+    }
+
+    /**
+     * Evicts released chunks until the cache fits its memory budget. Dirty chunks are written back to
+     * the repository first, so this should not run on the render thread.
+     */
     public void maintain() {
+        trimTo(maxBytes);
+    }
+
+    /**
+     * Evicts released chunks, least recently released first, until the cache uses at most the given
+     * amount of memory or no released chunk is left. A dirty chunk is written back to the repository
+     * before it is evicted ; a chunk that could not be written back is kept.
+     *
+     * @param targetBytes the memory to shrink the cache to, in bytes
+     */
+    public void trimTo(long targetBytes) {
+        int evicted = 0;
+        while (bytes.get() > targetBytes) {
+            Entry victim;
+            synchronized (released) {
+                victim = eldest;
+                if (victim == null) {
+                    break;
+                }
+                unlink(victim);
+            }
 
+            Chunk chunk = victim.chunk;
+            if (chunk.isDirty() && !writeBack(chunk)) {
+                // Keep the chunk rather than lose its changes. Retried on a later pass.
+                synchronized (released) {
+                    if (!victim.live && cache.get(victim.key) == victim) {
+                        linkYoungest(victim);
+                    }
+                }
+                break;
+            }
+
+            synchronized (released) {
+                // The chunk may have been acquired again while it was written back
+                if (!victim.live && cache.remove(victim.key, victim)) {
+                    bytes.addAndGet(-victim.bytes);
+                    evicted++;
+                }
+            }
+        }
+
+        if (evicted > 0) {
+            evictions.addAndGet(evicted);
+            if (log.isDebugEnabled()) {
+                log.debug("Cache evicted {} released chunks, {} bytes used", evicted, bytes.get());
+            }
+        }
     }
 
     /**
-     * Live view of all cached chunks. Intended for debug/measurement (e.g. summing chunk-data
-     * memory) ; the returned collection reflects the backing map.
+     * Snapshot of all cached chunks, live or released. Intended for debug/measurement (e.g. summing
+     * chunk-data memory).
      */
-    public java.util.Collection<Chunk> getChunks() {
-        return cache.values();
+    public Collection<Chunk> getChunks() {
+        List<Chunk> chunks = new ArrayList<>();
+        cache.forEach((key, entry) -> chunks.add(entry.chunk));
+        return chunks;
+    }
+
+    /**
+     * @return an estimate of the memory held by the chunk : its blocks, its lightmap and the vertex
+     * buffers of its render and collision meshes
+     */
+    public static long estimateSize(@NonNull Chunk chunk) {
+        // The blocks are packed or plain : do not unpack them to measure them
+        long size = chunk.getBlocksSize();
+        if (chunk.getLightMap() != null) {
+            size += chunk.getLightMap().length;
+        }
+        Node node = chunk.getNode();
+        if (node != null) {
+            List<Geometry> geometries = new ArrayList<>();
+            node.depthFirstTraversal(spatial -> {
+                if (spatial instanceof Geometry) {
+                    geometries.add((Geometry) spatial);
+                }
+            });
+            for (Geometry geometry : geometries) {
+                size += meshSize(geometry.getMesh());
+            }
+        }
+        return size + meshSize(chunk.getCollisionMesh());
+    }
+
+    private static long meshSize(Mesh mesh) {
+        if (mesh == null) {
+            return 0;
+        }
+        long size = 0;
+        for (VertexBuffer vb : mesh.getBufferList()) {
+            if (vb.getData() != null) {
+                size += (long) vb.getData().capacity() * vb.getFormat().getComponentSize();
+            }
+        }
+        return size;
+    }
+
+    private void resize(Entry entry) {
+        long size = estimateSize(entry.chunk);
+        synchronized (released) {
+            if (cache.get(entry.key) == entry) {
+                bytes.addAndGet(size - entry.bytes);
+            }
+            entry.bytes = size;
+        }
+    }
+
+    private boolean writeBack(Chunk chunk) {
+        if (repository == null) {
+            return true;
+        }
+        try {
+            if (!repository.save(chunk)) {
+                log.warn("Unable to write back chunk {} before eviction", chunk.getLocation());
+                return false;
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+            return false;
+        }
+        chunk.setDirty(false);
+        writeBacks.incrementAndGet();
+        return true;
+    }
+
+    // Both list operations must hold the released lock
+
+    private void linkYoungest(Entry entry) {
+        entry.older = youngest;
+        entry.younger = null;
+        if (youngest == null) {
+            eldest = entry;
+        } else {
+            youngest.younger = entry;
+        }
+        youngest = entry;
+        entry.linked = true;
+        releasedSize++;
+    }
+
+    private void unlink(Entry entry) {
+        if (!entry.linked) {
+            return;
+        }
+        if (entry.older == null) {
+            eldest = entry.younger;
+        } else {
+            entry.older.younger = entry.younger;
+        }
+        if (entry.younger == null) {
+            youngest = entry.older;
+        } else {
+            entry.younger.older = entry.older;
+        }
+        entry.older = null;
+        entry.younger = null;
+        entry.linked = false;
+        releasedSize--;
+    }
+
+    private static final class Entry {
+        private final long key;
+        private final Chunk chunk;
+        private volatile boolean live = true;
+        private long bytes;
+        // Links in the released list
+        private boolean linked;
+        private Entry older;
+        private Entry younger;
+
+        private Entry(long key, Chunk chunk) {
+            this.key = key;
+            this.chunk = chunk;
+        }
     }
 
 }
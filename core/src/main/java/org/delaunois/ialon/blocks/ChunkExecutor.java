@@ -0,0 +1,168 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A fixed thread pool running the chunk tasks closest to a focus location first. The tasks bound to
+ * a chunk location (see {@link #at(Vec3i, Callable)}) wait in a priority queue ordered by their
+ * distance to the focus, the other tasks (cache maintenance) run first. When the focus moves, the
+ * queue is re-sorted and the waiting tasks out of the area around the new focus are cancelled : they
+ * would build chunks the pager no longer wants.
+ *
+ * @author Cedric de Launois
+ */
+@Slf4j
+final class ChunkExecutor extends ThreadPoolExecutor {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Null : no focus, tasks run in FIFO order
+    private volatile Vec3i focus;
+
+    ChunkExecutor(int poolSize, ThreadFactory threadFactory) {
+        super(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), threadFactory);
+    }
+
+    /**
+     * Binds the given task to the chunk at the given location. Submitted to a ChunkExecutor, the task
+     * is prioritized by the distance of the location to the focus. Other executors run it as is.
+     * @param location the location of the chunk the task works on
+     * @param task the task
+     * @return the task bound to the location
+     */
+    static <T> Callable<T> at(Vec3i location, Callable<T> task) {
+        return new LocatedCallable<>(location, task);
+    }
+
+    /**
+     * Moves the focus, re-sorts the waiting tasks and cancels those out of the area around the focus.
+     * @param focus the new focus
+     * @param extent the half size of the area around the focus, in chunks
+     */
+    synchronized void setFocus(Vec3i focus, Vec3i extent) {
+        this.focus = focus;
+
+        List<Runnable> waiting = new ArrayList<>(getQueue().size());
+        getQueue().drainTo(waiting);
+        int cancelled = 0;
+        for (Runnable runnable : waiting) {
+            ChunkTask<?> task = (ChunkTask<?>) runnable;
+            if (task.location != null && isOutside(task.location, focus, extent)) {
+                task.cancel(false);
+                cancelled++;
+            } else {
+                task.priority = priorityOf(task.location);
+                getQueue().offer(task);
+            }
+        }
+
+        if (cancelled > 0 && log.isDebugEnabled()) {
+            log.debug("Focus moved to {} : {} chunk tasks reprioritized, {} cancelled", focus, waiting.size() - cancelled, cancelled);
+        }
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        // The queue only accepts comparable tasks
+        super.execute(command instanceof ChunkTask ? command : newTaskFor(command, null));
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Callable<T> callable) {
+        Vec3i location = callable instanceof LocatedCallable ? ((LocatedCallable<T>) callable).location : null;
+        return new ChunkTask<>(callable, location, priorityOf(location), sequence.getAndIncrement());
+    }
+
+    @Override
+    protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+        return newTaskFor(() -> {
+            runnable.run();
+            return value;
+        });
+    }
+
+    private int priorityOf(Vec3i location) {
+        Vec3i center = focus;
+        if (location == null) {
+            return -1;
+        }
+        if (center == null) {
+            return 0;
+        }
+        return location.getDistanceSq(center);
+    }
+
+    private static boolean isOutside(Vec3i location, Vec3i focus, Vec3i extent) {
+        return Math.abs(location.x - focus.x) > extent.x
+                || Math.abs(location.y - focus.y) > extent.y
+                || Math.abs(location.z - focus.z) > extent.z;
+    }
+
+    private static final class LocatedCallable<T> implements Callable<T> {
+
+        private final Vec3i location;
+        private final Callable<T> task;
+
+        private LocatedCallable(Vec3i location, Callable<T> task) {
+            this.location = location;
+            this.task = task;
+        }
+
+        @Override
+        public T call() throws Exception {
+            return task.call();
+        }
+    }
+
+    private static final class ChunkTask<T> extends FutureTask<T> implements Comparable<ChunkTask<?>> {
+
+        private final Vec3i location;
+        private final long sequence;
+        // Only updated while the task is out of the queue
+        private int priority;
+
+        private ChunkTask(Callable<T> callable, Vec3i location, int priority, long sequence) {
+            super(callable);
+            this.location = location;
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(ChunkTask<?> other) {
+            int result = Integer.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import lombok.NonNull;
+
+/**
+ * Chunk coordinates packed into a single long, to key chunk maps and sets without allocating a
+ * {@link Vec3i} per lookup. x takes the 22 high bits, y and z 21 bits each, all signed : chunk
+ * coordinates range over [-2^20, 2^20[ on y and z and [-2^21, 2^21[ on x, far beyond any reachable
+ * world.
+ *
+ * @author Cedric de Launois
+ */
+public final class ChunkKey {
+
+    private static final int YZ_BITS = 21;
+    private static final long YZ_MASK = (1L << YZ_BITS) - 1;
+
+    private ChunkKey() {
+    }
+
+    public static long of(int x, int y, int z) {
+        return ((long) x << (2 * YZ_BITS)) | ((y & YZ_MASK) << YZ_BITS) | (z & YZ_MASK);
+    }
+
+    public static long of(@NonNull Vec3i location) {
+        return of(location.x, location.y, location.z);
+    }
+
+    public static int x(long key) {
+        return (int) (key >> (2 * YZ_BITS));
+    }
+
+    public static int y(long key) {
+        return (int) ((key << (64 - 2 * YZ_BITS)) >> (64 - YZ_BITS));
+    }
+
+    public static int z(long key) {
+        return (int) ((key << (64 - YZ_BITS)) >> (64 - YZ_BITS));
+    }
+
+    public static Vec3i toVec3i(long key) {
+        return new Vec3i(x(key), y(key), z(key));
+    }
+
+    /**
+     * @return the squared euclidean distance between the chunks at the given packed location and at
+     * (x, y, z)
+     */
+    public static int distanceSq(long key, int x, int y, int z) {
+        int dx = x(key) - x;
+        int dy = y(key) - y;
+        int dz = z(key) - z;
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+}
@@ -20,13 +20,11 @@ package org.delaunois.ialon.blocks;
 import com.jme3.math.Vector3f;
 import com.simsilica.mathd.Vec3i;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Set;
 
-import lombok.AllArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
@@ -34,6 +32,15 @@ import lombok.extern.slf4j.Slf4j;
  * Manages the torch and sun lights computation for the blocks.
  * Based on the Fast Flood Fill Lighting article :
  * https://www.seedofandromeda.com/blogs/29-fast-flood-fill-lighting-in-a-blocky-voxel-game-pt-1
+ * <p>
+ * The flood fills run on int ring buffers reused across calls. Each entry packs a cell : the slot of
+ * its chunk in a small per-call chunk table, its coordinates inside the chunk and, for the removal
+ * queues, a light level. The chunk table caches the 6 neighbours of each chunk once resolved, so
+ * crossing a chunk border costs an array lookup, as well as the block and light arrays of each chunk,
+ * read and written directly. The faces a block stops the light on are resolved once per block id. The
+ * chunks to remesh are tracked as bits per slot. The BFS loops allocate nothing ; only the returned set
+ * of chunk locations is allocated, at the end.
+ * Calls are serialized : a ChunkLightManager may be shared between threads.
  *
  * @author Cedric de Launois
  */
@@ -44,9 +51,65 @@ public class ChunkLightManager {
     // instead of fading to gloom. Applied both at generation and during sunlight propagation.
     public static final int WATER_MIN_SUNLIGHT = 13;
 
+    // The 6 propagation directions, in the order the neighbours of a node are visited. The order is
+    // part of the algorithm : a removal followed by a refill depends on it.
+    private static final Direction[] DIRECTIONS = {Direction.WEST, Direction.EAST, Direction.DOWN, Direction.UP, Direction.NORTH, Direction.SOUTH};
+    static final int[] OPPOSITE = {1, 0, 3, 2, 5, 4};
+    static final int[] DX = {-1, 1, 0, 0, 0, 0};
+    static final int[] DY = {0, 0, -1, 1, 0, 0};
+    static final int[] DZ = {0, 0, 0, 0, -1, 1};
+    static final int DOWN = 2;
+
+    private static final int LEVEL_BITS = 4;
+    private static final int LEVEL_MASK = (1 << LEVEL_BITS) - 1;
+    private static final int INITIAL_SLOTS = 32;
+    private static final int UNRESOLVED = -2;
+    private static final int NONE = -1;
+    // The uniform block of the slot of a compacted chunk, see slotUniformBlocks
+    private static final short PACKED = -1;
+    // Mesh update bits of a slot : bit d marks the neighbour in direction d, SELF the chunk itself
+    private static final int SELF = 1 << 6;
+    // Block flags, besides the 6 face bits
+    static final int TRANSPARENT = 1 << 6;
+    static final int LIQUID = 1 << 7;
+
     @Setter
     private ChunkManager chunkManager;
 
+    private final IntQueue lightBfsQueue = new IntQueue();
+    private final IntQueue lightRemovalBfsQueue = new IntQueue();
+    private final IntQueue sunlightBfsQueue = new IntQueue();
+    private final IntQueue sunlightRemovalBfsQueue = new IntQueue();
+
+    // The chunk table of the current call
+    private Chunk[] slotChunks = new Chunk[INITIAL_SLOTS];
+    private long[] slotKeys = new long[INITIAL_SLOTS];
+    private short[][] slotBlocks = new short[INITIAL_SLOTS][];
+    private byte[][] slotLightMaps = new byte[INITIAL_SLOTS][];
+    // The block id and light of every cell of a uniform chunk, whose arrays above are null. The blocks of
+    // a compacted chunk (PACKED) are read from the chunk, which stays packed.
+    private short[] slotUniformBlocks = new short[INITIAL_SLOTS];
+    private byte[] slotUniformLights = new byte[INITIAL_SLOTS];
+    private int[] slotNeighbours = new int[INITIAL_SLOTS * 6];
+    private int[] slotMeshUpdates = new int[INITIAL_SLOTS];
+    private int slotCount;
+
+    // The light related properties of each block id, resolved on first use
+    private int[] blockFlags = new int[0];
+
+    // Entry layout (high to low bits) : slot | x | y | z | level, sized for the current chunk size
+    private int sizeX;
+    private int sizeY;
+    private int sizeZ;
+    private int zShift;
+    private int yShift;
+    private int xShift;
+    private int slotShift;
+    private int coordMaskX;
+    private int coordMaskY;
+    private int coordMaskZ;
+    private int maxSlots;
+
     public ChunkLightManager(WorldSettings config) {
         this.chunkManager = config.getChunkManager();
     }
@@ -71,11 +134,14 @@ public class ChunkLightManager {
         return Collections.emptySet();
     }
 
-    public Set<Vec3i> addTorchlight(Vec3i blockLocationInsideChunk, Chunk chunk, int intensity) {
-        LightRunningContext context = new LightRunningContext();
+    public synchronized Set<Vec3i> addTorchlight(Vec3i blockLocationInsideChunk, Chunk chunk, int intensity) {
+        begin();
+        // Written through the chunk before its slot caches the (possibly just allocated) light array
         chunk.setTorchlight(blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, intensity);
-        context.lightBfsQueue.offer(new LightNode(chunk, blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z));
-        return updateTorchLight(context);
+        int slot = slotOf(chunk);
+        lightBfsQueue.offer(pack(slot, blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, 0));
+        updateTorchLight();
+        return end();
     }
 
     /**
@@ -97,12 +163,13 @@ public class ChunkLightManager {
         return Collections.emptySet();
     }
 
-    public Set<Vec3i> removeTorchlight(Vec3i blockLocationInsideChunk, Chunk chunk) {
-        LightRunningContext context = new LightRunningContext();
+    public synchronized Set<Vec3i> removeTorchlight(Vec3i blockLocationInsideChunk, Chunk chunk) {
+        begin();
         int intensity = chunk.getTorchlight(blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z);
-        context.lightRemovalBfsQueue.offer(new LightRemovalNode(chunk, blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, intensity));
         chunk.setTorchlight(blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, 0);
-        return updateTorchLight(context);
+        lightRemovalBfsQueue.offer(pack(slotOf(chunk), blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, intensity));
+        updateTorchLight();
+        return end();
     }
 
     /**
@@ -111,28 +178,28 @@ public class ChunkLightManager {
      * @param location the (world) start location (e.g. the location of the removed block)
      * @return the set of chunk locations whose meshes must be updated due to the light propagation
      */
-    public Set<Vec3i> restoreSunlight(Vector3f location) {
+    public synchronized Set<Vec3i> restoreSunlight(Vector3f location) {
         if (log.isDebugEnabled()) {
             log.debug("Restoring sunlight at ({}, {}, {}) in chunk {}", location.x, location.y, location.z, this);
         }
 
-        Set<Vector3f> neighborBlockLocations = new HashSet<>();
+        begin();
+        Vector3f loc = new Vector3f();
         for (int dx = -1; dx <= 1; dx++) {
             for (int dy = -1; dy <= 1; dy++) {
                 for (int dz = -1; dz <= 1; dz++) {
-                    neighborBlockLocations.add(new Vector3f(location.x + dx, location.y + dy, location.z + dz));
+                    loc.set(location.x + dx, location.y + dy, location.z + dz);
+                    Chunk chunk = chunkManager.getChunk(ChunkManager.getChunkLocation(loc)).orElse(null);
+                    if (chunk != null) {
+                        Vec3i blockLocationInsideChunk = chunk.toLocalLocation(toVec3i(getScaledBlockLocation(loc)));
+                        sunlightBfsQueue.offer(pack(slotOf(chunk), blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, 0));
+                    }
                 }
             }
         }
 
-        LightRunningContext context = new LightRunningContext();
-        neighborBlockLocations.forEach(loc ->
-                chunkManager.getChunk(ChunkManager.getChunkLocation(loc)).ifPresent(chunk -> {
-                    Vec3i blockLocationInsideChunk = chunk.toLocalLocation(toVec3i(getScaledBlockLocation(loc)));
-                    context.sunlightBfsQueue.offer(new LightNode(chunk, blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z));
-                }));
-
-        return updateSunlight(context);
+        updateSunlight();
+        return end();
     }
 
     /**
@@ -156,398 +223,459 @@ public class ChunkLightManager {
         return Collections.emptySet();
     }
 
-    public Set<Vec3i> removeSunlight(Vec3i blockLocationInsideChunk, Chunk chunk) {
-        LightRunningContext context = new LightRunningContext();
+    public synchronized Set<Vec3i> removeSunlight(Vec3i blockLocationInsideChunk, Chunk chunk) {
+        begin();
         int intensity = chunk.getSunlight(blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z);
-        context.sunlightRemovalBfsQueue.offer(new LightRemovalNode(chunk, blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, intensity));
         chunk.setSunlight(blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, 0);
-        return updateSunlight(context);
+        sunlightRemovalBfsQueue.offer(pack(slotOf(chunk), blockLocationInsideChunk.x, blockLocationInsideChunk.y, blockLocationInsideChunk.z, intensity));
+        updateSunlight();
+        return end();
     }
 
-    private Set<Vec3i> updateTorchLight(LightRunningContext context) {
+    private void updateTorchLight() {
         log.debug("Updating torchlight");
 
-        while (!context.lightRemovalBfsQueue.isEmpty()) {
-            LightRemovalNode node = context.lightRemovalBfsQueue.poll();
-            propagateRemovedTorchlight(node.chunk, node.x - 1, node.y, node.z, node.intensity, context);
-            propagateRemovedTorchlight(node.chunk, node.x + 1, node.y, node.z, node.intensity, context);
-            propagateRemovedTorchlight(node.chunk, node.x, node.y - 1, node.z, node.intensity, context);
-            propagateRemovedTorchlight(node.chunk, node.x, node.y + 1, node.z, node.intensity, context);
-            propagateRemovedTorchlight(node.chunk, node.x, node.y, node.z - 1, node.intensity, context);
-            propagateRemovedTorchlight(node.chunk, node.x, node.y, node.z + 1, node.intensity, context);
+        while (!lightRemovalBfsQueue.isEmpty()) {
+            int node = lightRemovalBfsQueue.poll();
+            int intensity = node & LEVEL_MASK;
+            for (int d = 0; d < 6; d++) {
+                int target = neighbour(node, d);
+                if (target != NONE) {
+                    propagateRemovedTorchlight(target, intensity);
+                }
+            }
         }
 
-        while (!context.lightBfsQueue.isEmpty()) {
-            LightNode node = context.lightBfsQueue.poll();
-            int lightLevel = node.chunk.getTorchlight(node.x, node.y, node.z);
-            propagateAddedTorchlight(node.chunk, node.x - 1, node.y, node.z, lightLevel, Direction.WEST, context);
-            propagateAddedTorchlight(node.chunk, node.x + 1, node.y, node.z, lightLevel, Direction.EAST, context);
-            propagateAddedTorchlight(node.chunk, node.x, node.y - 1, node.z, lightLevel, Direction.DOWN, context);
-            propagateAddedTorchlight(node.chunk, node.x, node.y + 1, node.z, lightLevel, Direction.UP, context);
-            propagateAddedTorchlight(node.chunk, node.x, node.y, node.z - 1, lightLevel, Direction.NORTH, context);
-            propagateAddedTorchlight(node.chunk, node.x, node.y, node.z + 1, lightLevel, Direction.SOUTH, context);
+        while (!lightBfsQueue.isEmpty()) {
+            int node = lightBfsQueue.poll();
+            int slot = slotOfCell(node);
+            int index = indexOf(node);
+            int lightLevel = torchlight(slot, index);
+            int sourceFlags = blockFlags(slot, index);
+            for (int d = 0; d < 6; d++) {
+                // Stop the light if the source block fully covers the face in the propagation direction.
+                if ((sourceFlags & (1 << d)) == 0) {
+                    int target = neighbour(node, d);
+                    if (target != NONE) {
+                        propagateAddedTorchlight(target, lightLevel, d);
+                    }
+                }
+            }
         }
-
-        return context.chunkMeshUpdateRequests;
     }
 
-    private Set<Vec3i> updateSunlight(LightRunningContext context) {
+    private void updateSunlight() {
         log.debug("Updating sunlight");
 
-        while (!context.sunlightRemovalBfsQueue.isEmpty()) {
-            LightRemovalNode node = context.sunlightRemovalBfsQueue.poll();
-            log.debug("Propagating light removal node({}, {}, {})", node.x, node.y, node.z);
-            propagateRemovedSunlight(node.chunk, node.x - 1, node.y, node.z, node.intensity, false, context);
-            propagateRemovedSunlight(node.chunk, node.x + 1, node.y, node.z, node.intensity, false, context);
-            propagateRemovedSunlight(node.chunk, node.x, node.y - 1, node.z, node.intensity, true, context);
-            propagateRemovedSunlight(node.chunk, node.x, node.y + 1, node.z, node.intensity, false, context);
-            propagateRemovedSunlight(node.chunk, node.x, node.y, node.z - 1, node.intensity, false, context);
-            propagateRemovedSunlight(node.chunk, node.x, node.y, node.z + 1, node.intensity, false, context);
+        while (!sunlightRemovalBfsQueue.isEmpty()) {
+            int node = sunlightRemovalBfsQueue.poll();
+            int intensity = node & LEVEL_MASK;
+            for (int d = 0; d < 6; d++) {
+                int target = neighbour(node, d);
+                if (target != NONE) {
+                    propagateRemovedSunlight(target, intensity, d == DOWN);
+                }
+            }
         }
 
-        while (!context.sunlightBfsQueue.isEmpty()) {
-            LightNode node = context.sunlightBfsQueue.poll();
-            log.debug("Propagating light add node({}, {}, {})", node.x, node.y, node.z);
-            int lightLevel = node.chunk.getSunlight(node.x, node.y, node.z);
-            propagateAddedSunlight(node.chunk ,node.x - 1, node.y, node.z, lightLevel, true, Direction.WEST, context);
-            propagateAddedSunlight(node.chunk, node.x + 1, node.y, node.z, lightLevel, true, Direction.EAST, context);
-            propagateAddedSunlight(node.chunk, node.x, node.y - 1, node.z, lightLevel, false, Direction.DOWN, context);
-            propagateAddedSunlight(node.chunk, node.x, node.y + 1, node.z, lightLevel, true, Direction.UP, context);
-            propagateAddedSunlight(node.chunk, node.x, node.y, node.z - 1, lightLevel, true, Direction.NORTH, context);
-            propagateAddedSunlight(node.chunk, node.x, node.y, node.z + 1, lightLevel, true, Direction.SOUTH, context);
+        while (!sunlightBfsQueue.isEmpty()) {
+            int node = sunlightBfsQueue.poll();
+            int slot = slotOfCell(node);
+            int index = indexOf(node);
+            int lightLevel = sunlight(slot, index);
+            int sourceFlags = blockFlags(slot, index);
+            for (int d = 0; d < 6; d++) {
+                // Stop the light if the source block fully covers the face in the propagation direction.
+                if ((sourceFlags & (1 << d)) == 0) {
+                    int target = neighbour(node, d);
+                    if (target != NONE) {
+                        propagateAddedSunlight(target, lightLevel, d != DOWN, d);
+                    }
+                }
+            }
         }
-
-        return context.chunkMeshUpdateRequests;
     }
 
-    private void propagateAddedTorchlight(Chunk c, int x, int y, int z, int lightLevel, Direction direction, LightRunningContext context) {
-        Chunk chunk = c;
-
-        // Stop the light if the source block fully covers the face in the propagation direction.
-        if (isFaceBlocked(c.getBlock(x - direction.getVector().x, y - direction.getVector().y, z - direction.getVector().z), direction)) {
-            return;
-        }
-
-        if (isOutsideChunk(x, y, z) && c.getChunkResolver() != null) {
-            Vec3i location = new Vec3i(x, y, z);
-            Vec3i chunkLocation = calculateNeighbourChunkLocation(c, location);
-            chunk = c.getChunkResolver().get(chunkLocation).orElse(null);
-            Vec3i neighbourBlockLocation = calculateNeighbourChunkBlockLocation(location);
-            x = neighbourBlockLocation.x;
-            y = neighbourBlockLocation.y;
-            z = neighbourBlockLocation.z;
-        }
-
-        if (chunk == null) {
-            return;
-        }
+    private void propagateAddedTorchlight(int cell, int lightLevel, int direction) {
+        int slot = slotOfCell(cell);
+        int index = indexOf(cell);
 
         // Stop the light if the target block fully covers the face toward the incoming light.
-        if (isFaceBlocked(chunk.getBlock(x, y, z), direction.opposite())) {
+        if ((blockFlags(slot, index) & (1 << OPPOSITE[direction])) != 0) {
             return;
         }
 
-        int blockLightLevel = chunk.getTorchlight(x, y, z);
+        int blockLightLevel = torchlight(slot, index);
         if (blockLightLevel + 2 <= lightLevel) {
-            chunk.setTorchlight(x, y, z, lightLevel - 1);
-            updateChunkMeshUpdateRequests(chunk, x, y, z, context);
-            context.lightBfsQueue.offer(new LightNode(chunk, x, y, z));
+            setTorchlight(slot, index, lightLevel - 1);
+            updateChunkMeshUpdateRequests(cell);
+            lightBfsQueue.offer(cell);
         }
     }
 
-    private void propagateRemovedTorchlight(Chunk c, int x, int y, int z, int lightLevel, LightRunningContext context) {
-        Chunk chunk = c;
-
-        if (isOutsideChunk(x, y, z) && c.getChunkResolver() != null) {
-            Vec3i location = new Vec3i(x, y, z);
-            Vec3i chunkLocation = calculateNeighbourChunkLocation(c, location);
-            chunk = c.getChunkResolver().get(chunkLocation).orElse(null);
-            Vec3i neighbourBlockLocation = calculateNeighbourChunkBlockLocation(location);
-            x = neighbourBlockLocation.x;
-            y = neighbourBlockLocation.y;
-            z = neighbourBlockLocation.z;
-        }
-
-        if (chunk == null) {
-            return;
-        }
-
-        int neighborLevel = chunk.getTorchlight(x, y, z);
+    private void propagateRemovedTorchlight(int cell, int lightLevel) {
+        int slot = slotOfCell(cell);
+        int index = indexOf(cell);
+        int neighborLevel = torchlight(slot, index);
 
         if (neighborLevel != 0 && neighborLevel < lightLevel) {
             // Set its light level
-            chunk.setTorchlight(x, y, z, 0);
-            updateChunkMeshUpdateRequests(chunk, x, y, z, context);
-            context.lightRemovalBfsQueue.offer(new LightRemovalNode(chunk, x, y, z, neighborLevel));
+            setTorchlight(slot, index, 0);
+            updateChunkMeshUpdateRequests(cell);
+            lightRemovalBfsQueue.offer(cell | neighborLevel);
 
         } else if (neighborLevel >= lightLevel) {
             // Add it to the update queue, so it can propagate to fill in the gaps
             // left behind by this removal. We should update the lightBfsQueue after
             // the lightRemovalBfsQueue is empty.
-            context.lightBfsQueue.offer(new LightNode(chunk, x, y, z));
+            lightBfsQueue.offer(cell);
         }
     }
 
-    private void propagateAddedSunlight(Chunk c, int x, int y, int z, int lightLevel, boolean dimLight, Direction direction, LightRunningContext context) {
-        Chunk chunk = c;
-
-        // Stop the light if the source block fully covers the face in the propagation direction.
-        if (isFaceBlocked(c.getBlock(x - direction.getVector().x, y - direction.getVector().y, z - direction.getVector().z), direction)) {
-            return;
-        }
+    private void propagateAddedSunlight(int cell, int lightLevel, boolean dimLight, int direction) {
+        int slot = slotOfCell(cell);
+        int index = indexOf(cell);
 
-        if (isOutsideChunk(x, y, z) && c.getChunkResolver() != null) {
-            Vec3i location = new Vec3i(x, y, z);
-            Vec3i chunkLocation = calculateNeighbourChunkLocation(c, location);
-            chunk = c.getChunkResolver().get(chunkLocation).orElse(null);
-            Vec3i neighbourBlockLocation = calculateNeighbourChunkBlockLocation(location);
-            x = neighbourBlockLocation.x;
-            y = neighbourBlockLocation.y;
-            z = neighbourBlockLocation.z;
-        }
+        int flags = blockFlags(slot, index);
+        if ((flags & TRANSPARENT) != 0) {
+            // Dimming light through transparent block
+            dimLight = true;
 
-        if (chunk == null) {
-            log.debug("PAS1 - Chunk is null for light ({}, {}, {})", x, y, z);
+        } else if ((flags & (1 << OPPOSITE[direction])) != 0) {
+            // Light blocked
             return;
         }
 
-        Block block = chunk.getBlock(x, y, z);
-        if (block != null) {
-            if (block.isTransparent()) {
-                log.debug("PAS2.0 - Dimming light through transparent block at ({}, {}, {})", x, y, z);
-                dimLight = true;
-
-            } else if (coversFace(block, direction.opposite())) {
-                log.debug("PAS2.1 - Light blocked at ({}, {}, {})", x, y, z);
-                return;
-            }
-        }
-
         if (!dimLight && lightLevel == 15) {
             // Full-strength sunlight travels straight down (no dimming). Only act when the cell isn't
             // already at 15 : re-setting an unchanged cell would re-mark its chunk for meshing and
             // re-enqueue an already-propagated node — spurious mesh updates and wasted BFS work. When
             // it IS already 15 its downstream was propagated when it was first lit, so we can stop here.
-            if (chunk.getSunlight(x, y, z) != lightLevel) {
-                log.debug("PAS3 - Setting light ({}, {}, {}) to {}", x, y, z, lightLevel);
-                chunk.setSunlight(x, y, z, lightLevel);
-                updateChunkMeshUpdateRequests(chunk, x, y, z, context);
-                context.sunlightBfsQueue.offer(new LightNode(chunk, x, y, z));
+            if (sunlight(slot, index) != lightLevel) {
+                setSunlight(slot, index, lightLevel);
+                updateChunkMeshUpdateRequests(cell);
+                sunlightBfsQueue.offer(cell);
             }
             return;
         }
 
-        int blockLightLevel = chunk.getSunlight(x, y, z);
+        int blockLightLevel = sunlight(slot, index);
         // Sunlight dims by 1 per block, but under water it is floored : a water block stays at least
         // WATER_MIN_SUNLIGHT however deep it is. The propagation still terminates -- once a water block
         // reaches the floor, its neighbours are already >= the floor and stop being updated.
         int target = lightLevel - 1;
-        if (block != null && block.getLiquidLevel() > 0 && target < WATER_MIN_SUNLIGHT) {
+        if ((flags & LIQUID) != 0 && target < WATER_MIN_SUNLIGHT) {
             target = WATER_MIN_SUNLIGHT;
         }
         if (blockLightLevel < target) {
-            if (log.isDebugEnabled()) {
-                log.debug("PAS4 - Setting light ({}, {}, {}) to {}. BL={} LL={}", x, y, z, target, blockLightLevel, lightLevel);
-            }
-
-            chunk.setSunlight(x, y, z, target);
-            updateChunkMeshUpdateRequests(chunk, x, y, z, context);
-            context.sunlightBfsQueue.offer(new LightNode(chunk, x, y, z));
-
-        } else {
-            log.debug("PAS5 - Leaving light ({}, {}, {}) at {}. BL={} LL={}", x, y, z, lightLevel, blockLightLevel, lightLevel);
+            setSunlight(slot, index, target);
+            updateChunkMeshUpdateRequests(cell);
+            sunlightBfsQueue.offer(cell);
         }
     }
 
-    private void propagateRemovedSunlight(Chunk c, int x, int y, int z, int lightLevel, boolean dimLight, LightRunningContext context) {
-        Chunk chunk = c;
-
-        if (isOutsideChunk(x, y, z) && c.getChunkResolver() != null) {
-            Vec3i location = new Vec3i(x, y, z);
-            Vec3i chunkLocation = calculateNeighbourChunkLocation(c, location);
-            chunk = c.getChunkResolver().get(chunkLocation).orElse(null);
-            Vec3i neighbourBlockLocation = calculateNeighbourChunkBlockLocation(location);
-            x = neighbourBlockLocation.x;
-            y = neighbourBlockLocation.y;
-            z = neighbourBlockLocation.z;
-        }
-
-        if (chunk == null) {
-            log.debug("PRS1 - Chunk is null for light ({}, {}, {})", x, y, z);
-            return;
-        }
-
-        int neighborLevel = chunk.getSunlight(x, y, z);
+    private void propagateRemovedSunlight(int cell, int lightLevel, boolean dimLight) {
+        int slot = slotOfCell(cell);
+        int index = indexOf(cell);
+        int neighborLevel = sunlight(slot, index);
 
         if ((dimLight && neighborLevel == 15) || (neighborLevel != 0 && neighborLevel < lightLevel)) {
-            log.debug("PRS2 - Setting light ({}, {}, {}) to {}. NL={} LL={} D={}", x, y, z, 0, neighborLevel, lightLevel, dimLight);
-            chunk.setSunlight(x, y, z, 0);
-            updateChunkMeshUpdateRequests(chunk, x, y, z, context);
-            context.sunlightRemovalBfsQueue.offer(new LightRemovalNode(chunk, x, y, z, neighborLevel));
+            setSunlight(slot, index, 0);
+            updateChunkMeshUpdateRequests(cell);
+            sunlightRemovalBfsQueue.offer(cell | neighborLevel);
 
         } else if (neighborLevel >= lightLevel) {
-            log.debug("PRS3 - Enqueuing light ({}, {}, {}). NL={} LL={} D={}", x, y, z, neighborLevel, lightLevel, dimLight);
             // Add it to the update queue, so it can propagate to fill in the gaps
             // left behind by this removal. We should update the lightBfsQueue after
             // the lightRemovalBfsQueue is empty.
-            context.sunlightBfsQueue.offer(new LightNode(chunk, x, y, z));
-
-        } else {
-            log.debug("PRS3 - Leaving light ({}, {}, {}) at {}. NL={} LL={} D={}", x, y, z, neighborLevel, neighborLevel, lightLevel, dimLight);
+            sunlightBfsQueue.offer(cell);
         }
     }
 
+    private int sunlight(int slot, int index) {
+        byte[] lightMap = slotLightMaps[slot];
+        return lightMap == null ? (slotUniformLights[slot] >> 4) & 0xF : (lightMap[index] >> 4) & 0xF;
+    }
+
+    private void setSunlight(int slot, int index, int intensity) {
+        byte[] lightMap = lightMapForWrite(slot);
+        lightMap[index] = (byte) ((lightMap[index] & 0xF) | (intensity << 4));
+    }
+
+    private int torchlight(int slot, int index) {
+        byte[] lightMap = slotLightMaps[slot];
+        return lightMap == null ? slotUniformLights[slot] & 0xF : lightMap[index] & 0xF;
+    }
+
+    private void setTorchlight(int slot, int index, int intensity) {
+        byte[] lightMap = lightMapForWrite(slot);
+        lightMap[index] = (byte) ((lightMap[index] & 0xF0) | intensity);
+    }
+
+    private byte[] lightMapForWrite(int slot) {
+        byte[] lightMap = slotLightMaps[slot];
+        if (lightMap == null) {
+            // Let the chunk allocate its arrays from its uniform content
+            Chunk chunk = slotChunks[slot];
+            chunk.setSunlight(0, 0, 0, chunk.getSunlight(0, 0, 0));
+            slotBlocks[slot] = chunk.getPlainBlocks();
+            lightMap = chunk.getLightMap();
+            slotLightMaps[slot] = lightMap;
+        }
+        return lightMap;
+    }
+
     /**
-     * Checks if the given block stops the light on the given face, i.e. the block is opaque and its
-     * shape fully covers that face. Transparent blocks (e.g. glass) never block the light.
-     * @param block the block to test (may be null)
-     * @param direction the face to test
-     * @return true if the light must be stopped on this face
+     * @return the light related properties of the block in the given cell, see {@link #flagsOf(Block)}
      */
-    private static boolean isFaceBlocked(Block block, Direction direction) {
-        return block != null && !block.isTransparent() && coversFace(block, direction);
+    private int blockFlags(int slot, int index) {
+        short[] blocks = slotBlocks[slot];
+        int id = blocks != null ? blocks[index] : slotUniformBlocks[slot];
+        if (id == PACKED) {
+            id = slotChunks[slot].blockId(index);
+        }
+        if (id >= blockFlags.length) {
+            int length = blockFlags.length;
+            blockFlags = Arrays.copyOf(blockFlags, Math.max(id + 1, length * 2));
+            Arrays.fill(blockFlags, length, blockFlags.length, UNRESOLVED);
+        }
+        int flags = blockFlags[id];
+        if (flags == UNRESOLVED) {
+            flags = flagsOf(Chunk.blockOf((short) id));
+            blockFlags[id] = flags;
+        }
+        return flags;
     }
 
     /**
-     * Checks if the shape of the given block fully covers the given face.
-     * @param block the block to test (may be null)
-     * @param direction the face to test
-     * @return true if the block's shape fully covers the face
+     * @return the light related properties of the block : bit d is set when the block stops the light
+     * on the face {@code DIRECTIONS[d]} (opaque block whose shape fully covers that face), and the
+     * TRANSPARENT and LIQUID bits. 0 for no block.
      */
-    private static boolean coversFace(Block block, Direction direction) {
-        return block != null
-                && BlocksConfig.getInstance().getShapeRegistry().get(block.getShape()).fullyCoversFace(direction);
+    static int flagsOf(Block block) {
+        if (block == null) {
+            return 0;
+        }
+
+        int flags = block.getLiquidLevel() > 0 ? LIQUID : 0;
+        if (block.isTransparent()) {
+            return flags | TRANSPARENT;
+        }
+        Shape shape = block.getResolvedShape();
+        for (int d = 0; d < 6; d++) {
+            if (shape.fullyCoversFace(DIRECTIONS[d])) {
+                flags |= 1 << d;
+            }
+        }
+        return flags;
     }
 
     /**
-     * Updates the set of chunks to be updated due to the light propagation.
-     * This method adds the current chunks and the neighbour chunks if the light is adjacent
-     * to them.
-     * @param chunk the chunk where the light is updated
-     * @param x the x location of the light
-     * @param y the y location of the light
-     * @param z the z location of the light
-     * @param context the processing context
+     * Records that the chunk of the given cell must be remeshed, as well as the neighbour chunks if
+     * the cell is at their border.
+     * @param cell the packed cell whose light is updated
      */
-    private void updateChunkMeshUpdateRequests(Chunk chunk, int x, int y, int z, LightRunningContext context) {
-        context.chunkMeshUpdateRequests.add(chunk.getLocation());
-
-        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+    private void updateChunkMeshUpdateRequests(int cell) {
+        int x = xOf(cell);
+        int y = yOf(cell);
+        int z = zOf(cell);
+        int bits = SELF;
 
         // Request chunk updates of neighbour blocks only if block is at the border of the chunk
-        if (x == size.x - 1) {
-            context.chunkMeshUpdateRequests.add(chunk.getLocation().add(1, 0, 0));
+        if (x == sizeX - 1) {
+            bits |= 1 << 1;
         } else if (x == 0) {
-            context.chunkMeshUpdateRequests.add(chunk.getLocation().add(-1, 0, 0));
+            bits |= 1;
         }
 
-        if (y == size.y - 1) {
-            context.chunkMeshUpdateRequests.add(chunk.getLocation().add(0, 1, 0));
+        if (y == sizeY - 1) {
+            bits |= 1 << 3;
         } else if (y == 0) {
-            context.chunkMeshUpdateRequests.add(chunk.getLocation().add(0, -1, 0));
+            bits |= 1 << 2;
         }
 
-        if (z == size.z - 1) {
-            context.chunkMeshUpdateRequests.add(chunk.getLocation().add(0, 0, 1));
+        if (z == sizeZ - 1) {
+            bits |= 1 << 5;
         } else if (z == 0) {
-            context.chunkMeshUpdateRequests.add(chunk.getLocation().add(0, 0, -1));
+            bits |= 1 << 4;
         }
 
+        slotMeshUpdates[slotOfCell(cell)] |= bits;
     }
 
     /**
-     * Checks if the given block coordinate is inside the chunk.
-     *
-     * @param x coordinate of the block in this chunk
-     * @param y coordinate of the block in this chunk
-     * @param z coordinate of the block in this chunk
-     * @return true if the coordinate of the block is inside the chunk, false otherwise.
+     * @return the packed cell next to the given one in the given direction, with a level of 0, or
+     * NONE if that cell is in a chunk that is not loaded
      */
-    private static boolean isOutsideChunk(int x, int y, int z) {
-        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
-        return x < 0 || x >= chunkSize.x || y < 0 || y >= chunkSize.y || z < 0 || z >= chunkSize.z;
-    }
-
-    private static Vec3i calculateNeighbourChunkLocation(Chunk chunk, Vec3i blockLocation) {
-        Vec3i chunkLocation = new Vec3i(chunk.getLocation());
-        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
-
-        if (blockLocation.x < 0) {
-            chunkLocation.addLocal(-1, 0, 0);
-        } else if (blockLocation.x >= chunkSize.x) {
-            chunkLocation.addLocal(1, 0, 0);
+    private int neighbour(int cell, int direction) {
+        int slot = slotOfCell(cell);
+        int x = xOf(cell) + DX[direction];
+        int y = yOf(cell) + DY[direction];
+        int z = zOf(cell) + DZ[direction];
+        if (x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ) {
+            slot = neighbourSlot(slot, direction);
+            if (slot == NONE) {
+                return NONE;
+            }
+            x = Math.floorMod(x, sizeX);
+            y = Math.floorMod(y, sizeY);
+            z = Math.floorMod(z, sizeZ);
         }
+        return pack(slot, x, y, z, 0);
+    }
 
-        if (blockLocation.y < 0) {
-            chunkLocation.addLocal(0, -1, 0);
-        } else if (blockLocation.y >= chunkSize.y) {
-            chunkLocation.addLocal(0, 1, 0);
+    private int neighbourSlot(int slot, int direction) {
+        int neighbour = slotNeighbours[slot * 6 + direction];
+        if (neighbour == UNRESOLVED) {
+            Chunk chunk = slotChunks[slot];
+            Chunk neighbourChunk = null;
+            if (chunk.getChunkResolver() != null) {
+                Vec3i location = chunk.getLocation();
+                neighbourChunk = chunk.getChunkResolver()
+                        .get(new Vec3i(location.x + DX[direction], location.y + DY[direction], location.z + DZ[direction]))
+                        .orElse(null);
+            }
+            neighbour = neighbourChunk == null ? NONE : slotOf(neighbourChunk);
+            slotNeighbours[slot * 6 + direction] = neighbour;
         }
+        return neighbour;
+    }
 
-        if (blockLocation.z < 0) {
-            chunkLocation.addLocal(0, 0, -1);
-        } else if (blockLocation.z >= chunkSize.z) {
-            chunkLocation.addLocal(0, 0, 1);
+    /**
+     * @return the slot of the chunk in the chunk table of the current call, adding it if needed
+     */
+    private int slotOf(Chunk chunk) {
+        Vec3i location = chunk.getLocation();
+        long key = ChunkKey.of(location);
+        for (int i = 0; i < slotCount; i++) {
+            if (slotKeys[i] == key) {
+                return i;
+            }
         }
 
-        return chunkLocation;
+        if (slotCount == slotChunks.length) {
+            if (slotCount == maxSlots) {
+                throw new IllegalStateException("Light propagation spans more than " + maxSlots + " chunks");
+            }
+            int capacity = Math.min(slotCount * 2, maxSlots);
+            slotChunks = Arrays.copyOf(slotChunks, capacity);
+            slotKeys = Arrays.copyOf(slotKeys, capacity);
+            slotBlocks = Arrays.copyOf(slotBlocks, capacity);
+            slotLightMaps = Arrays.copyOf(slotLightMaps, capacity);
+            slotUniformBlocks = Arrays.copyOf(slotUniformBlocks, capacity);
+            slotUniformLights = Arrays.copyOf(slotUniformLights, capacity);
+            slotMeshUpdates = Arrays.copyOf(slotMeshUpdates, capacity);
+            slotNeighbours = Arrays.copyOf(slotNeighbours, capacity * 6);
+        }
+
+        int slot = slotCount++;
+        slotChunks[slot] = chunk;
+        slotKeys[slot] = key;
+        slotBlocks[slot] = chunk.getPlainBlocks();
+        slotLightMaps[slot] = chunk.getLightMap();
+        Block uniformBlock = chunk.getUniformBlock();
+        slotUniformBlocks[slot] = chunk.isCompacted() ? PACKED : uniformBlock == null ? 0 : uniformBlock.getId();
+        slotUniformLights[slot] = chunk.getUniformLight();
+        slotMeshUpdates[slot] = 0;
+        Arrays.fill(slotNeighbours, slot * 6, slot * 6 + 6, UNRESOLVED);
+        return slot;
     }
 
-    private static Vec3i calculateNeighbourChunkBlockLocation(Vec3i blockLocation) {
-        Vec3i toReturn = new Vec3i(blockLocation);
-        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+    /**
+     * Prepares the buffers for a new call. The entry layout follows the chunk size, which may change
+     * between worlds.
+     */
+    private void begin() {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        if (size.x != sizeX || size.y != sizeY || size.z != sizeZ) {
+            int bitsX = bits(size.x);
+            int bitsY = bits(size.y);
+            int bitsZ = bits(size.z);
+            int slotBits = Integer.SIZE - 1 - LEVEL_BITS - bitsX - bitsY - bitsZ;
+            if (slotBits < 4) {
+                throw new IllegalStateException("Chunk size " + size + " too large for the light engine");
+            }
+            sizeX = size.x;
+            sizeY = size.y;
+            sizeZ = size.z;
+            zShift = LEVEL_BITS;
+            yShift = zShift + bitsZ;
+            xShift = yShift + bitsY;
+            slotShift = xShift + bitsX;
+            coordMaskX = (1 << bitsX) - 1;
+            coordMaskY = (1 << bitsY) - 1;
+            coordMaskZ = (1 << bitsZ) - 1;
+            maxSlots = 1 << slotBits;
+        }
+        // A previous call may have failed midway
+        slotCount = 0;
+        lightBfsQueue.clear();
+        lightRemovalBfsQueue.clear();
+        sunlightBfsQueue.clear();
+        sunlightRemovalBfsQueue.clear();
+    }
 
-        if (blockLocation.x < 0) {
-            toReturn.x = chunkSize.x - 1;
-        } else if (blockLocation.x >= chunkSize.x) {
-            toReturn.x = 0;
+    /**
+     * Ends the current call : flags the modified chunks as dirty and releases them.
+     * @return the locations of the chunks to remesh
+     */
+    private Set<Vec3i> end() {
+        Set<Vec3i> chunkMeshUpdateRequests = new HashSet<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            int bits = slotMeshUpdates[slot];
+            if (bits != 0) {
+                Chunk chunk = slotChunks[slot];
+                chunk.setDirty(true);
+                Vec3i location = chunk.getLocation();
+                chunkMeshUpdateRequests.add(location);
+                for (int d = 0; d < 6; d++) {
+                    if ((bits & (1 << d)) != 0) {
+                        chunkMeshUpdateRequests.add(location.add(DX[d], DY[d], DZ[d]));
+                    }
+                }
+            }
+            slotChunks[slot] = null;
+            slotBlocks[slot] = null;
+            slotLightMaps[slot] = null;
         }
+        slotCount = 0;
+        return chunkMeshUpdateRequests;
+    }
 
-        if (blockLocation.y < 0) {
-            toReturn.y = chunkSize.y - 1;
-        } else if (blockLocation.y >= chunkSize.y) {
-            toReturn.y = 0;
-        }
+    private static int bits(int size) {
+        return Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(size - 1, 1));
+    }
 
-        if (blockLocation.z < 0) {
-            toReturn.z = chunkSize.z - 1;
-        } else if (blockLocation.z >= chunkSize.z) {
-            toReturn.z = 0;
-        }
+    private int pack(int slot, int x, int y, int z, int level) {
+        return (slot << slotShift) | (x << xShift) | (y << yShift) | (z << zShift) | level;
+    }
 
-        return toReturn;
+    private int slotOfCell(int cell) {
+        return cell >>> slotShift;
     }
 
-    private static Vec3i toVec3i(Vector3f location) {
-        return new Vec3i((int) Math.floor(location.x), (int) Math.floor(location.y), (int) Math.floor(location.z));
+    private int xOf(int cell) {
+        return (cell >>> xShift) & coordMaskX;
     }
 
-    private static Vector3f getScaledBlockLocation(Vector3f location) {
-        return location.mult(1f / BlocksConfig.getInstance().getBlockScale());
+    private int yOf(int cell) {
+        return (cell >>> yShift) & coordMaskY;
     }
 
-    @AllArgsConstructor
-    private static class LightNode {
-        Chunk chunk;
-        int x;
-        int y;
-        int z;
+    private int zOf(int cell) {
+        return (cell >>> zShift) & coordMaskZ;
     }
 
-    @AllArgsConstructor
-    private static class LightRemovalNode {
-        Chunk chunk;
-        int x;
-        int y;
-        int z;
-        int intensity;
+    private int indexOf(int cell) {
+        // Same layout as the chunk arrays
+        return zOf(cell) + (yOf(cell) + xOf(cell) * sizeY) * sizeZ;
     }
 
-    private static class LightRunningContext {
-        final Queue<LightNode> lightBfsQueue = new LinkedList<>();
-        final Queue<LightRemovalNode> lightRemovalBfsQueue = new LinkedList<>();
-        final Queue<LightNode> sunlightBfsQueue = new LinkedList<>();
-        final Queue<LightRemovalNode> sunlightRemovalBfsQueue = new LinkedList<>();
-        final Set<Vec3i> chunkMeshUpdateRequests = new HashSet<>();
+    private static Vec3i toVec3i(Vector3f location) {
+        return new Vec3i((int) Math.floor(location.x), (int) Math.floor(location.y), (int) Math.floor(location.z));
+    }
+
+    private static Vector3f getScaledBlockLocation(Vector3f location) {
+        return location.mult(1f / BlocksConfig.getInstance().getBlockScale());
     }
 }
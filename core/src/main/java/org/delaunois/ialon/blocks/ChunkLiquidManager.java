@@ -22,11 +22,13 @@ import com.simsilica.mathd.Vec3i;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
 
 import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import static org.delaunois.ialon.blocks.shapes.Liquid.LEVEL_MAX;
@@ -41,15 +43,19 @@ public class ChunkLiquidManager {
 
     private final WorldSettings config;
     private final ChunkManager chunkManager;
-    // Used to clear a fire block's torchlight when water floods (extinguishes) it. A private instance
-    // is fine : the light state lives in the chunks, and ChunkLightManager keeps no cross-call state.
+    // Used to clear a fire block's torchlight when water floods (extinguishes) it. Shared with the
+    // world edits (see WorldManager), and only used on the edit thread : the simulation steps through
+    // ChunkManager#requestOrderedUpdate, so no two light updates write the same light maps at once.
+    @Getter
     private final ChunkLightManager chunkLightManager;
     // Flow queues are split per liquid type so the simulation can be paced independently (lava flows
     // slower than water — see ChunkLiquidManagerState). The removal (un-flow) queue is shared : it is
     // level-based, type-agnostic, and driven by the water cadence.
-    private final Queue<LiquidNode> liquidBfsQueue = new LinkedList<>();
-    private final Queue<LiquidNode> lavaBfsQueue = new LinkedList<>();
-    private final Queue<LiquidNode> liquidRemovalBfsQueue = new LinkedList<>();
+    // The simulation steps on its own thread while edits enqueue from the render thread : the queues are
+    // threadsafe, with a constant-time size() (the tick reads it to bound its work).
+    private final Queue<LiquidNode> liquidBfsQueue = new LinkedBlockingQueue<>();
+    private final Queue<LiquidNode> lavaBfsQueue = new LinkedBlockingQueue<>();
+    private final Queue<LiquidNode> liquidRemovalBfsQueue = new LinkedBlockingQueue<>();
 
     /** The flow queue feeding the given liquid type (lava has its own, slower-paced queue). */
     private Queue<LiquidNode> flowQueue(String liquidType) {
@@ -171,6 +177,36 @@ public class ChunkLiquidManager {
         return context.chunkMeshUpdateRequests;
     }
 
+    /**
+     * Advances the water simulation by one tick : the nodes queued when the tick starts (one BFS layer,
+     * so the flow spreads by one block per tick), but at most maxNodes of them. Nodes left over by the
+     * budget stay queued for the next tick : a flood slows down instead of stalling the simulation.
+     * @param maxNodes the maximum number of nodes to process
+     * @return the locations of the chunks to remesh, coalesced over the tick
+     */
+    public Set<Vec3i> tick(int maxNodes) {
+        Set<Vec3i> updatedChunks = new HashSet<>();
+        int nodes = Math.min(queueSize(), maxNodes);
+        for (int i = 0; i < nodes; i++) {
+            updatedChunks.addAll(step());
+        }
+        return updatedChunks;
+    }
+
+    /**
+     * Advances the lava simulation by one tick. See {@link #tick(int)}.
+     * @param maxNodes the maximum number of nodes to process
+     * @return the locations of the chunks to remesh, coalesced over the tick
+     */
+    public Set<Vec3i> tickLava(int maxNodes) {
+        Set<Vec3i> updatedChunks = new HashSet<>();
+        int nodes = Math.min(lavaQueueSize(), maxNodes);
+        for (int i = 0; i < nodes; i++) {
+            updatedChunks.addAll(stepLava());
+        }
+        return updatedChunks;
+    }
+
     /**
      * Advances the lava flow by one node. Lava has its own queue so it can be paced slower than water
      * (see ChunkLiquidManagerState). Recession (un-flow) is handled by the shared {@link #step()}.
@@ -259,8 +295,14 @@ public class ChunkLiquidManager {
         return block.getLiquidLevel();
     }
 
-    public void updateChunkMesh(Collection<Vec3i> locations) {
-        chunkManager.requestOrderedMeshChunks(locations);
+    /**
+     * Requests the remeshing of the chunks at the given locations, without waiting for the meshes. The
+     * chunk manager hands each mesh to its listeners (hence to the pager's attach queue) once built.
+     * @param locations the locations of the chunks to remesh
+     * @return the meshing tasks
+     */
+    public Set<Future<Chunk>> updateChunkMesh(Collection<Vec3i> locations) {
+        return chunkManager.requestUpdatedMeshChunks(locations);
     }
 
     private boolean propagateRemovedLiquid(Chunk c, int x, int y, int z, int liquidLevel, boolean dims, LiquidRunningContext context) {
@@ -1,17 +1,21 @@
 package org.delaunois.ialon.blocks;
 
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.jme3.collision.CollisionResult;
 import com.jme3.math.Vector3f;
 import com.simsilica.mathd.Vec3i;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -19,6 +23,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import lombok.Builder;
 import lombok.NonNull;
@@ -31,14 +36,16 @@ public class ChunkManager {
     private boolean initialized = false;
     private ChunkCache cache;
     private ChunkMeshGenerator meshGenerator;
-    private ExecutorService requestExecutor;
+    // Runs the chunk generation/meshing tasks closest to the pager center first (see setFocus)
+    private ChunkExecutor requestExecutor;
     // Dedicated single-thread executor for interactive edits (add/remove/toggle block). Kept separate
-    // from requestExecutor so an edit's mesh regeneration runs immediately instead of queueing behind
-    // the (often busy) chunk generation/meshing tasks of the pager — the render thread blocks on the
-    // edit's mesh via requestOrderedMeshChunks, so any wait behind paging directly stalls the frame.
+    // from requestExecutor so an edit's light and mesh regeneration run immediately instead of queueing
+    // behind the (often busy) chunk generation/meshing tasks of the pager : the player expects to see
+    // the edit in the next frames. Single-threaded, so edits complete in order.
     private ExecutorService editExecutor;
 
     private final int poolSize;
+    private final long cacheSize;
     private final ChunkRepository repository;
     private final ChunkGenerator generator;
     private final List<ChunkManagerListener> listeners = new CopyOnWriteArrayList<>();
@@ -52,11 +59,19 @@ public class ChunkManager {
      */
     private final AtomicBoolean memoryPressure = new AtomicBoolean(false);
 
+    // At most one cache maintenance task queued at a time : the pager releases chunks in bursts.
+    private final AtomicBoolean cacheMaintenancePending = new AtomicBoolean(false);
+
+    /**
+     * @param cacheSize the memory budget of the chunk cache, in bytes. Chunks that left the pager grid
+     *                  are kept within this budget for fast revisits (see {@link ChunkCache}).
+     */
     @Builder
-    private ChunkManager(ChunkRepository repository, ChunkGenerator generator, int poolSize) {
+    private ChunkManager(ChunkRepository repository, ChunkGenerator generator, int poolSize, long cacheSize) {
         this.repository = repository;
         this.generator = generator == null ? new EmptyGenerator() : generator;
         this.poolSize = poolSize;
+        this.cacheSize = cacheSize;
     }
 
     public void initialize() {
@@ -64,9 +79,9 @@ public class ChunkManager {
             log.trace("{} - initialize", getClass().getSimpleName());
         }
 
-        cache = new ChunkCache();
+        cache = new ChunkCache(cacheSize, repository);
         meshGenerator = BlocksConfig.getInstance().getChunkMeshGenerator();
-        requestExecutor = Executors.newFixedThreadPool(poolSize, new ThreadFactoryBuilder().setNameFormat("chunk-generator-%d").build());
+        requestExecutor = new ChunkExecutor(poolSize, new ThreadFactoryBuilder().setNameFormat("chunk-generator-%d").build());
         editExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("chunk-editor-%d").build());
         initialized = true;
     }
@@ -108,18 +123,66 @@ public class ChunkManager {
         return cache;
     }
 
+    /**
+     * Loads or generates the chunks at the given locations and meshes the chunks at the given mesh
+     * locations, then waits for the completion of the whole request.
+     * <p>
+     * The mesh of a chunk depends on its blocks, on the blocks of its neighbours, and on the sunlight
+     * coming from the chunks above (see {@link #lightEmptyChunksBelow(Chunk)}). Rather than waiting
+     * for the whole batch to be generated, each chunk is meshed, in the worker thread that completed
+     * its last dependency, as soon as those chunks are in the cache : the chunks close to the player
+     * become visible while the far ones are still generating. Generating the locations in order of
+     * distance (columns top-down) lets the nearest chunks complete first.
+     * @param locationsToGenerate the locations of the chunks to load or generate, in order of priority
+     * @param locationsToMesh the locations of the chunks to mesh, in order of priority
+     */
     public void requestChunks(Collection<Vec3i> locationsToGenerate, Collection<Vec3i> locationsToMesh) {
         assertInitialized();
 
-        Set<Future<Chunk>> results = requestGenerateChunks(locationsToGenerate);
-        // We need to wait for all chunks to be generated before starting to mesh them
-        // This is required because the mesh of a chunk depends on the blocks of the mesh AND the
-        // blocks of its neighbours
-        waitForTasks(results);
-        if (!locationsToMesh.isEmpty()) {
-            results = requestMeshChunks(locationsToMesh);
-            waitForTasks(results);
+        if (locationsToMesh.isEmpty()) {
+            waitForTasks(requestGenerateChunks(locationsToGenerate));
+            return;
+        }
+
+        MeshDependencies dependencies = new MeshDependencies(locationsToGenerate, locationsToMesh);
+        Set<Future<Chunk>> results = new HashSet<>();
+
+        // Chunks whose dependencies are all in the cache already
+        locationsToMesh.forEach(location -> {
+            if (dependencies.isReady(location)) {
+                results.add(requestExecutor.submit(ChunkExecutor.at(location, () -> meshChunk(location))));
+            }
+        });
+
+        if (!locationsToGenerate.isEmpty()) {
+            log.info("Generating chunks for {} locations", locationsToGenerate.size());
         }
+        locationsToGenerate.forEach(location ->
+                results.add(requestExecutor.submit(ChunkExecutor.at(location, () -> {
+                    Chunk chunk = generateChunk(location);
+                    // The chunk is in the cache (or failed to generate) : mesh the chunks it completes
+                    dependencies.onGenerated(location).forEach(this::meshChunk);
+                    return chunk;
+                })))
+        );
+
+        waitForTasks(results);
+    }
+
+    /**
+     * Moves the focus of the chunk requests, usually to the chunk of the player : the waiting chunk
+     * tasks are re-sorted by distance to the focus, and those out of the grid around it (see
+     * {@link BlocksConfig#getGrid()}) are cancelled. Their chunks are requested again if the focus
+     * comes back.
+     * @param focus the location of the focus chunk
+     */
+    public void setFocus(@NonNull Vec3i focus) {
+        assertInitialized();
+
+        Vec3i grid = BlocksConfig.getInstance().getGrid();
+        // The pager fetches one more chunk around the meshed grid
+        Vec3i extent = new Vec3i((grid.x - 1) / 2 + 1, (grid.y - 1) / 2 + 1, (grid.z - 1) / 2 + 1);
+        requestExecutor.setFocus(focus, extent);
     }
 
     public Set<Future<Chunk>> requestGenerateChunks(Collection<Vec3i> locations) {
@@ -131,14 +194,14 @@ public class ChunkManager {
 
         log.info("Generating chunks for {} locations", locations.size());
         locations.forEach(location ->
-                results.add(requestExecutor.submit(() -> generateChunk(location)))
+                results.add(requestExecutor.submit(ChunkExecutor.at(location, () -> generateChunk(location))))
         );
         return results;
     }
 
     public Chunk generateChunk(Vec3i location) {
         try {
-            Chunk chunk = cache.unsafeFastGet(location);
+            Chunk chunk = cache.acquire(location);
             if (chunk == null) {
                 if (repository != null) {
                     chunk = repository.load(location);
@@ -147,8 +210,11 @@ public class ChunkManager {
                     chunk = generator.generate(location);
                     chunk.update();
                     chunk.setGenerated(true);
+                    // A generated chunk can be generated again : only later changes need a write-back
+                    chunk.setDirty(false);
                 }
                 addToCache(chunk);
+                lightEmptyChunksBelow(chunk);
             }
             triggerListenerChunkFetched(chunk);
             return chunk;
@@ -162,6 +228,37 @@ public class ChunkManager {
         }
     }
 
+    /**
+     * Lights the run of empty chunks starting at (or just below) the given chunk, from the chunk above
+     * each of them (see {@link ColumnSunlight}). An empty chunk has no lightmap and reads as full
+     * sunlight, which is wrong under terrain. Chunks of a column are generated concurrently and in any
+     * order : the chunk added last to the cache, above or below, relights the empty chunks.
+     * @param chunk the chunk just added to the cache
+     */
+    private void lightEmptyChunksBelow(Chunk chunk) {
+        Vec3i location = chunk.getLocation();
+        Chunk upper = chunk;
+        Chunk current = chunk;
+        if (chunk.isEmpty()) {
+            upper = cache.get(new Vec3i(location.x, location.y + 1, location.z)).orElse(null);
+        } else {
+            current = cache.get(new Vec3i(location.x, location.y - 1, location.z)).orElse(null);
+        }
+
+        while (upper != null && current != null && current.isEmpty()) {
+            int[] sky;
+            synchronized (upper) {
+                sky = ColumnSunlight.bottomOf(upper);
+            }
+            synchronized (current) {
+                ColumnSunlight.light(current, sky);
+            }
+            upper = current;
+            Vec3i below = current.getLocation();
+            current = cache.get(new Vec3i(below.x, below.y - 1, below.z)).orElse(null);
+        }
+    }
+
     /**
      * Returns and clears the "a chunk task ran out of memory" flag (see {@link #memoryPressure}).
      * Polled by the memory guard on the main thread.
@@ -174,24 +271,97 @@ public class ChunkManager {
         return requestMeshChunks(locations, true, requestExecutor);
     }
 
-    public void requestOrderedMeshChunks(Collection<Vec3i> locations) {
-        // Interactive edits mesh on the dedicated single-thread editExecutor so they never queue behind
-        // the pager's generation/meshing work : the render thread blocks on these futures below.
-        Set<Future<Chunk>> results = requestMeshChunks(locations, false, editExecutor);
-        results.forEach(result -> {
+    /**
+     * Remeshes the chunks at the given locations after an interactive edit. See
+     * {@link #requestOrderedMeshChunks(Collection, Supplier)}.
+     * @param locations the locations of the chunks to remesh
+     * @return the edit task
+     */
+    public Future<List<Chunk>> requestOrderedMeshChunks(Collection<Vec3i> locations) {
+        return requestOrderedMeshChunks(locations, null);
+    }
+
+    /**
+     * Completes an interactive edit (add/remove/toggle block) whose block data was already changed by
+     * the caller, without blocking it. On the dedicated edit thread, so that it never queues behind the
+     * pager's generation/meshing work, the task propagates the light changes of the edit, remeshes the
+     * chunks at the given locations and those whose light changed, then hands all of them to the
+     * listeners as one batch : the pager swaps their pages in the same frame, leaving no seam between
+     * an edited chunk and its neighbours. Edits are completed in the order they are requested.
+     * @param locations the locations of the chunks to remesh
+     * @param lightUpdate propagates the light changes of the edit and returns the locations of the
+     *                    chunks whose light changed, or null if the edit changes no light
+     * @return the edit task, giving the remeshed chunks
+     */
+    public Future<List<Chunk>> requestOrderedMeshChunks(Collection<Vec3i> locations, Supplier<Collection<Vec3i>> lightUpdate) {
+        assertInitialized();
+
+        Collection<Vec3i> editLocations = new LinkedHashSet<>(locations);
+        return editExecutor.submit(() -> {
+            List<Chunk> chunks = new ArrayList<>();
             try {
-                triggerListenerChunkAvailable(result.get());
-                triggerListenerChunkUpdated(result.get());
-            } catch (ExecutionException e) {
-                log.warn("Got exception while getting task result", e);
-            } catch (InterruptedException e) {
-                log.warn("Interrupted !", e);
-                Thread.currentThread().interrupt();
+                if (lightUpdate != null) {
+                    editLocations.addAll(lightUpdate.get());
+                }
+                if (editLocations.isEmpty()) {
+                    return chunks;
+                }
+                // Mesh in place : we already are on the edit thread
+                waitForTasks(requestMeshChunks(editLocations, false, MoreExecutors.newDirectExecutorService()));
+                for (Vec3i location : editLocations) {
+                    Chunk chunk = cache.unsafeFastGet(location);
+                    if (chunk != null) {
+                        chunks.add(chunk);
+                    }
+                }
+                triggerListenerChunksAvailable(chunks);
+                chunks.forEach(this::triggerListenerChunkUpdated);
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
             }
+            return chunks;
         });
     }
 
+    /**
+     * Runs a change of the world that is not an interactive edit, e.g. a step of the liquid simulation,
+     * on the edit thread : it is serialized with the edits, their light updates and their meshing, and
+     * sees the chunks consistent. The chunks it changed are then remeshed and handed to the listeners as
+     * one batch, as for an edit (see {@link #requestOrderedMeshChunks(Collection, Supplier)}).
+     * @param update changes the world and returns the locations of the chunks to remesh
+     * @return the update task, giving the remeshed chunks
+     */
+    public Future<List<Chunk>> requestOrderedUpdate(@NonNull Supplier<Collection<Vec3i>> update) {
+        return requestOrderedMeshChunks(Collections.emptyList(), update);
+    }
+
+    /**
+     * Waits for the completion of the edits requested so far.
+     * @see #requestOrderedMeshChunks(Collection, Supplier)
+     */
+    public void waitForEdits() {
+        assertInitialized();
+
+        waitForTasks(Collections.singleton(editExecutor.submit(() -> null)));
+    }
+
+    /**
+     * Remeshes the chunks at the given locations on the edit thread, without blocking the caller. Each
+     * chunk is notified to the listeners as available then updated as soon as its mesh is built, so the
+     * pager attaches it in a later frame. Used by the liquid simulation, whose changes are not awaited
+     * by the player.
+     * @param locations the locations of the chunks to remesh
+     * @return the meshing tasks
+     */
+    public Set<Future<Chunk>> requestUpdatedMeshChunks(Collection<Vec3i> locations) {
+        return requestMeshChunks(locations, true, true, editExecutor);
+    }
+
     private Set<Future<Chunk>> requestMeshChunks(Collection<Vec3i> locations, boolean triggers, ExecutorService executor) {
+        return requestMeshChunks(locations, triggers, false, executor);
+    }
+
+    private Set<Future<Chunk>> requestMeshChunks(Collection<Vec3i> locations, boolean triggers, boolean updates, ExecutorService executor) {
         assertInitialized();
 
         Set<Future<Chunk>> results = new LinkedHashSet<>();
@@ -212,40 +382,62 @@ public class ChunkManager {
             }
 
             // All chunks should be loaded into cache, chunk is never null here
-            if (chunk.isEmpty()) {
+            if (skipMesh(chunk, triggers, updates)) {
                 saved[0]++;
-                chunk.setNode(new EmptyNode());
-                triggerListenerChunkAvailable(chunk, triggers);
 
             } else if (chunk.isFull()) {
-                // Skip only a fully-OPAQUE chunk fully enclosed by fully-opaque neighbours : it has no
-                // visible face. A full chunk that mixes opaque + transparent blocks (e.g. a lake floor :
-                // dirt/rock under water) DOES have visible internal faces and must be meshed, even
-                // though it is "full" (no air).
-                if (chunk.isFullyOpaque() && isSurroundedByOpaqueChunks(location)) {
-                    saved[0]++;
-                    chunk.setNode(new EmptyNode());
-                    triggerListenerChunkAvailable(chunk, triggers);
-
-                } else {
-                    // Defer full chunks
-                    fullChunks.add(chunk);
-                }
+                // Defer full chunks
+                fullChunks.add(chunk);
 
             } else {
                 // Generate mesh for partially-filled chunks
-                requestMeshChunk(results, chunk, triggers, executor);
+                requestMeshChunk(results, chunk, triggers, updates, executor);
             }
         });
 
         // Generate mesh for full chunks
-        fullChunks.forEach(chunk -> requestMeshChunk(results, chunk, triggers, executor));
+        fullChunks.forEach(chunk -> requestMeshChunk(results, chunk, triggers, updates, executor));
 
         log.info("{} locations generated and {} empty locations", locations.size() - saved[0], saved[0]);
 
         return results;
     }
 
+    /**
+     * Sets an {@link EmptyNode} on the chunk and notifies it if the chunk has no visible face : an empty
+     * chunk, or a fully-OPAQUE chunk fully enclosed by fully-opaque neighbours. A full chunk that mixes
+     * opaque + transparent blocks (e.g. a lake floor : dirt/rock under water) DOES have visible internal
+     * faces and must be meshed, even though it is "full" (no air).
+     * @return true if the chunk needs no mesh
+     */
+    private boolean skipMesh(Chunk chunk, boolean triggers, boolean updates) {
+        if (chunk.isEmpty() || (chunk.isFull() && chunk.isFullyOpaque() && isSurroundedByOpaqueChunks(chunk.getLocation()))) {
+            chunk.setNode(new EmptyNode());
+            // As for a meshed chunk : an edit may have unpacked the blocks
+            chunk.compact();
+            cache.updateSize(chunk);
+            triggerListenerChunkAvailable(chunk, triggers, updates);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Meshes the chunk at the given location in the calling thread, if it is in the cache.
+     * @return the chunk, or null if it is not in the cache
+     */
+    private Chunk meshChunk(Vec3i location) {
+        Chunk chunk = cache.unsafeFastGet(location);
+        try {
+            if (chunk != null && !skipMesh(chunk, true, false)) {
+                meshChunk(chunk, true, false);
+            }
+        } catch (Exception e) {
+            log.error("Exception while meshing chunk at " + location, e);
+        }
+        return chunk;
+    }
+
     /**
      * Whether the chunk at the given location is fully hidden by its 6 neighbours (so it can be
      * skipped). An OPAQUE full chunk is hidden only by fully-opaque neighbours (a transparent
@@ -267,23 +459,28 @@ public class ChunkManager {
         return neighbour == null || neighbour.isFullyOpaque();
     }
 
-    private void requestMeshChunk(Set<Future<Chunk>> results, Chunk chunk, boolean triggers, ExecutorService executor) {
+    private void requestMeshChunk(Set<Future<Chunk>> results, Chunk chunk, boolean triggers, boolean updates, ExecutorService executor) {
         results.add(
-                executor.submit(() -> {
-                    try {
-                        meshGenerator.createAndSetNodeAndCollisionMesh(chunk);
-                        if (triggers) {
-                            triggerListenerChunkAvailable(chunk);
-                        }
-                    } catch (OutOfMemoryError e) {
-                        memoryPressure.set(true);
-                        log.warn("Out of memory while meshing chunk at {} - dropping its mesh", chunk.getLocation());
-                    }
+                executor.submit(ChunkExecutor.at(chunk.getLocation(), () -> {
+                    meshChunk(chunk, triggers, updates);
                     return chunk;
-                })
+                }))
         );
     }
 
+    private void meshChunk(Chunk chunk, boolean triggers, boolean updates) {
+        try {
+            meshGenerator.createAndSetNodeAndCollisionMesh(chunk);
+            // The meshes are built : keep the blocks packed until the next edit or mesh
+            chunk.compact();
+            cache.updateSize(chunk);
+            triggerListenerChunkAvailable(chunk, triggers, updates);
+        } catch (OutOfMemoryError e) {
+            memoryPressure.set(true);
+            log.warn("Out of memory while meshing chunk at {} - dropping its mesh", chunk.getLocation());
+        }
+    }
+
     /**
      * @param location of the chunk
      * @see #removeChunk(Chunk)
@@ -294,8 +491,44 @@ public class ChunkManager {
         getChunk(location).ifPresent(this::removeChunk);
     }
 
+    /**
+     * Informs the ChunkManager that the chunk left the pager grid. The chunk is kept in the cache for
+     * a fast revisit as long as the cache memory budget allows it.
+     *
+     * @param location of the chunk
+     */
     public void fastRemoveChunk(Vec3i location) {
-        cache.evict(location);
+        cache.release(location);
+        if (cache.isOverBudget()) {
+            maintainCache();
+        }
+    }
+
+    /**
+     * Evicts (in a worker thread) the chunks kept for fast revisits, e.g. when memory runs low.
+     */
+    public void releaseCacheMemory() {
+        if (initialized) {
+            requestExecutor.submit(() -> trimCache(0));
+        }
+    }
+
+    private void maintainCache() {
+        // Eviction may write dirty chunks back to the repository : keep it off the render thread
+        if (initialized && cacheMaintenancePending.compareAndSet(false, true)) {
+            requestExecutor.submit(() -> {
+                cacheMaintenancePending.set(false);
+                trimCache(cache.getMaxBytes());
+            });
+        }
+    }
+
+    private void trimCache(long targetBytes) {
+        try {
+            cache.trimTo(targetBytes);
+        } catch (Exception e) {
+            log.error("Exception while trimming the chunk cache", e);
+        }
     }
 
     /**
@@ -376,6 +609,8 @@ public class ChunkManager {
         tasks.forEach(result -> {
             try {
                 result.get();
+            } catch (CancellationException e) {
+                // The chunk left the grid, see setFocus
             } catch (ExecutionException e) {
                 log.warn("Got exception while getting task result", e);
             } catch (InterruptedException e) {
@@ -404,9 +639,12 @@ public class ChunkManager {
         return getScaledBlockLocation(location).add(neighbourDirection);
     }
 
-    private void triggerListenerChunkAvailable(Chunk chunk, boolean triggers) {
+    private void triggerListenerChunkAvailable(Chunk chunk, boolean triggers, boolean updates) {
         if (triggers) {
             triggerListenerChunkAvailable(chunk);
+            if (updates) {
+                triggerListenerChunkUpdated(chunk);
+            }
         }
     }
 
@@ -414,6 +652,12 @@ public class ChunkManager {
         listeners.forEach(listener -> listener.onChunkAvailable(chunk));
     }
 
+    private void triggerListenerChunksAvailable(List<Chunk> chunks) {
+        if (!chunks.isEmpty()) {
+            listeners.forEach(listener -> listener.onChunksAvailable(chunks));
+        }
+    }
+
     private void triggerListenerChunkUpdated(Chunk chunk) {
         listeners.forEach(listener -> listener.onChunkUpdated(chunk));
     }
@@ -1,5 +1,7 @@
 package org.delaunois.ialon.blocks;
 
+import java.util.List;
+
 
 /**
  * A listener that can be registered to the {@link ChunkManager}. Use this to get notified when the mesh of a chunk is
@@ -13,6 +15,15 @@ public interface ChunkManagerListener {
 
     void onChunkAvailable(Chunk chunk);
 
+    /**
+     * Called when the chunks of an interactive edit are available, all at once. They should be shown
+     * together, otherwise the player may see holes between the edited chunk and its neighbours.
+     * Notifies each chunk separately by default.
+     */
+    default void onChunksAvailable(List<Chunk> chunks) {
+        chunks.forEach(this::onChunkAvailable);
+    }
+
     default void onChunkFetched(Chunk chunk) {};
 
     /**
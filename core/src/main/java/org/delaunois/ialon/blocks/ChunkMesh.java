@@ -1,12 +1,16 @@
 package org.delaunois.ialon.blocks;
 
+import com.jme3.bounding.BoundingBox;
+import com.jme3.math.Vector3f;
 import com.jme3.scene.Mesh;
 import com.jme3.scene.VertexBuffer;
 
+import java.nio.ShortBuffer;
 import java.util.concurrent.TimeUnit;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -24,10 +28,16 @@ public class ChunkMesh {
     // Largest vertex count addressable with 16-bit (unsigned) indices : indices 0..65535.
     private static final int MAX_USHORT_VERTICES = 65536;
 
+    /**
+     * Packed positions are stored in steps of 1/256 block : a short holds chunk-local coordinates up to
+     * 127 blocks, and the fractions used by the shapes (slabs, liquid levels, rounded corners) survive
+     * the rounding.
+     */
+    public static final int POSITION_STEPS = 256;
+
     private boolean collisionMesh = false;
     private final DirectVector3fBuffer positions = new DirectVector3fBuffer(INITIAL_CAPACITY);
     private final DirectVector3fBuffer normals = new DirectVector3fBuffer(INITIAL_CAPACITY);
-    private final DirectVector4fBuffer tangents = new DirectVector4fBuffer(INITIAL_CAPACITY);
     private final DirectVector2fBuffer uvs = new DirectVector2fBuffer(INITIAL_CAPACITY);
     private final DirectIntBuffer indices = new DirectIntBuffer(INITIAL_CAPACITY);
     private final DirectVector4fBuffer colors = new DirectVector4fBuffer(INITIAL_CAPACITY);
@@ -35,6 +45,14 @@ public class ChunkMesh {
     // (TypeRegistry.assignLayers via FacesMeshGenerator). Empty for the atlas path and for the
     // procedural fire/lava/calm-water meshes, whose materials don't sample the block array.
     private final DirectFloatBuffer layers = new DirectFloatBuffer(INITIAL_CAPACITY);
+    // True when the mesh holds greedy-merged quads (see GreedyFaceMesher), whose UVs count tiles and
+    // therefore exceed [0,1] : the UVs are then stored as floats.
+    @Setter
+    private boolean tiledUvs = false;
+    // True to store the positions as fixed point shorts (see POSITION_STEPS) instead of floats. The
+    // geometry must then be scaled by getPositionScale(mesh).
+    @Setter
+    private boolean packedPositions = false;
 
     public ChunkMesh(boolean collisionMesh) {
         this.collisionMesh = collisionMesh;
@@ -42,34 +60,62 @@ public class ChunkMesh {
 
     public Mesh generateMesh() {
         long start = System.nanoTime();
-        Mesh mesh = new Mesh();
+        // The attributes are converted from the scratch buffers of the meshing thread into exactly sized
+        // buffers taken from the pool, and handed back to it when the pager drops the chunk node (see
+        // DirectBufferPool). Collision meshes are copied by the physics engine and keep plain buffers.
+        DirectBufferPool.Lease lease = collisionMesh ? null : new DirectBufferPool.Lease();
+        Mesh mesh = lease == null ? new Mesh() : new DirectBufferPool.PooledMesh(lease);
         // all meshes have a position and index buffer
-        mesh.setBuffer(VertexBuffer.Type.Position, 3, positions.getBuffer());
+        // Packed positions : 3 non-normalized shorts (6 bytes/vertex instead of 12). The shader reads
+        // them in 1/POSITION_STEPS block units and the geometry scale brings them back to world units.
+        // Collision meshes keep floats for the physics engine, and a mesh reaching too far from its
+        // chunk falls back to floats.
+        ShortBuffer packed = packedPositions && !collisionMesh
+                ? positions.getFixedPointBuffer(POSITION_STEPS / BlocksConfig.getInstance().getBlockScale(), lease)
+                : null;
+        if (packed != null) {
+            VertexBuffer positionBuffer = new VertexBuffer(VertexBuffer.Type.Position);
+            positionBuffer.setupData(VertexBuffer.Usage.Static, 3, VertexBuffer.Format.Short, packed);
+            mesh.setBuffer(positionBuffer);
+        } else {
+            mesh.setBuffer(VertexBuffer.Type.Position, 3, positions.getBuffer(lease));
+        }
 
         // Index buffer : use 16-bit indices (half the memory) when the vertex count fits in an
         // unsigned short, falling back to 32-bit only for the (rare) larger meshes. A chunk index
         // references a vertex of this very mesh, so the max index is positions.size() - 1.
+        // A mesh made of quads only references the shared quad indices instead of a copy of its own
+        // (see QuadIndices) : its indices were only counted.
+        boolean quadList = indices.isQuadList();
         if (positions.size() <= MAX_USHORT_VERTICES) {
-            mesh.setBuffer(VertexBuffer.Type.Index, 1, indices.getShortBuffer());
+            mesh.setBuffer(VertexBuffer.Type.Index, 1, quadList
+                    ? QuadIndices.getShortBuffer(indices.size())
+                    : indices.getShortBuffer(lease));
         } else {
-            mesh.setBuffer(VertexBuffer.Type.Index, 1, indices.getBuffer());
+            mesh.setBuffer(VertexBuffer.Type.Index, 1, quadList
+                    ? QuadIndices.getIntBuffer(indices.size())
+                    : indices.getBuffer(lease));
         }
 
-        // collision meshes don't require uvs, normals and tangents
+        // collision meshes don't require uvs and normals
         if (!isCollisionMesh()) {
             // UVs are block-local [0,1] : store them as 2 normalized unsigned shorts (4 bytes/vertex
             // instead of 8 floats). The shader receives them back in [0,1].
-            VertexBuffer uvBuffer = new VertexBuffer(VertexBuffer.Type.TexCoord);
-            uvBuffer.setupData(VertexBuffer.Usage.Static, 2, VertexBuffer.Format.UnsignedShort, uvs.getShortBuffer());
-            uvBuffer.setNormalized(true);
-            mesh.setBuffer(uvBuffer);
+            if (tiledUvs) {
+                mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, uvs.getBuffer(lease));
+            } else {
+                VertexBuffer uvBuffer = new VertexBuffer(VertexBuffer.Type.TexCoord);
+                uvBuffer.setupData(VertexBuffer.Usage.Static, 2, VertexBuffer.Format.UnsignedShort, uvs.getShortBuffer(lease));
+                uvBuffer.setNormalized(true);
+                mesh.setBuffer(uvBuffer);
+            }
             // Texture-array layer index, one per vertex (bound as TexCoord2 -> shader inTexCoord2), as a
             // NON-normalized unsigned byte (1 byte instead of 4 floats ; the shader reads the integer
             // index as a float). Only present on the array path ; the atlas path and procedural meshes
             // leave it empty.
             if (!layers.isEmpty()) {
                 VertexBuffer layerBuffer = new VertexBuffer(VertexBuffer.Type.TexCoord2);
-                layerBuffer.setupData(VertexBuffer.Usage.Static, 1, VertexBuffer.Format.UnsignedByte, layers.getByteBuffer());
+                layerBuffer.setupData(VertexBuffer.Usage.Static, 1, VertexBuffer.Format.UnsignedByte, layers.getByteBuffer(lease));
                 layerBuffer.setNormalized(false);
                 mesh.setBuffer(layerBuffer);
             }
@@ -77,23 +123,25 @@ public class ChunkMesh {
             // instead of 12). The shader normalizes the interpolated normal, so the byte quantization
             // is imperceptible. See DirectVector3fBuffer#getByteBuffer.
             VertexBuffer normalBuffer = new VertexBuffer(VertexBuffer.Type.Normal);
-            normalBuffer.setupData(VertexBuffer.Usage.Static, 3, VertexBuffer.Format.Byte, normals.getByteBuffer());
+            normalBuffer.setupData(VertexBuffer.Usage.Static, 3, VertexBuffer.Format.Byte, normals.getByteBuffer(lease));
             normalBuffer.setNormalized(true);
             mesh.setBuffer(normalBuffer);
-            if (!tangents.isEmpty()) {
-                mesh.setBuffer(VertexBuffer.Type.Tangent, 4, tangents.getBuffer());
-            }
             if (!colors.isEmpty()) {
                 // Colours are stored as 4 normalized unsigned bytes (RGBA) instead of 4 floats :
                 // 4 bytes/vertex instead of 16. The shader receives them back in [0, 1] (normalized).
                 // See DirectVector4fBuffer#getByteBuffer for the A-channel (packed light) convention.
                 VertexBuffer colorBuffer = new VertexBuffer(VertexBuffer.Type.Color);
-                colorBuffer.setupData(VertexBuffer.Usage.Static, 4, VertexBuffer.Format.UnsignedByte, colors.getByteBuffer());
+                colorBuffer.setupData(VertexBuffer.Usage.Static, 4, VertexBuffer.Format.UnsignedByte, colors.getByteBuffer(lease));
                 colorBuffer.setNormalized(true);
                 mesh.setBuffer(colorBuffer);
             }
         }
-        mesh.updateBound();
+        if (packed != null) {
+            // Mesh#updateBound only reads float positions
+            mesh.setBound(computeBound(packed));
+        } else {
+            mesh.updateBound();
+        }
         mesh.setStatic();
         long stop = System.nanoTime();
         if (log.isTraceEnabled()) {
@@ -102,6 +150,36 @@ public class ChunkMesh {
         return mesh;
     }
 
+    /**
+     * @param mesh a mesh generated by a chunk mesh
+     * @return the scale of the geometry of the mesh that brings its positions to world units : 1 unless
+     * the positions are packed
+     */
+    public static float getPositionScale(Mesh mesh) {
+        VertexBuffer positionBuffer = mesh.getBuffer(VertexBuffer.Type.Position);
+        if (positionBuffer == null || positionBuffer.getFormat() != VertexBuffer.Format.Short) {
+            return 1f;
+        }
+        return BlocksConfig.getInstance().getBlockScale() / POSITION_STEPS;
+    }
+
+    private static BoundingBox computeBound(ShortBuffer packed) {
+        Vector3f min = new Vector3f(Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY, Float.POSITIVE_INFINITY);
+        Vector3f max = new Vector3f(Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.NEGATIVE_INFINITY);
+        for (int i = 0; i + 2 < packed.limit(); i += 3) {
+            float x = packed.get(i);
+            float y = packed.get(i + 1);
+            float z = packed.get(i + 2);
+            min.set(Math.min(min.x, x), Math.min(min.y, y), Math.min(min.z, z));
+            max.set(Math.max(max.x, x), Math.max(max.y, y), Math.max(max.z, z));
+        }
+        if (min.x > max.x) {
+            min.zero();
+            max.zero();
+        }
+        return new BoundingBox(min, max);
+    }
+
     /**
      * Resets all buffers (position and size) so this instance can be reused for another chunk
      * without reallocating the underlying direct buffers. The grown capacity is retained.
@@ -109,11 +187,12 @@ public class ChunkMesh {
     public void clear() {
         positions.clear();
         normals.clear();
-        tangents.clear();
         uvs.clear();
         indices.clear();
         colors.clear();
         layers.clear();
+        tiledUvs = false;
+        packedPositions = false;
     }
 
 }
@@ -25,18 +25,15 @@ import com.simsilica.mathd.Vec3i;
 
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -53,16 +50,23 @@ public class ChunkPager {
     private final Vec3i gridSize;
 
     @Getter
+    @Setter(AccessLevel.PROTECTED)
     private Vec3i centerPage = null;
 
     @Getter
     @Setter
     private Vector3f location = null;
 
+    // Hard cap on the pages attached, detached or unfetched per frame, on top of the frame budget
     @Getter
     @Setter
     private int maxUpdatePerFrame = 10;
 
+    @Getter
+    @Setter
+    @NonNull
+    private FrameBudget frameBudget = FrameBudget.unlimited();
+
     @Getter
     @Setter
     private Vec3i gridLowerBounds = new Vec3i(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
@@ -71,22 +75,24 @@ public class ChunkPager {
     @Setter
     private Vec3i gridUpperBounds = new Vec3i(Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
 
+    // Pages are keyed by their packed location (see ChunkKey) : paging and cave culling look them up
+    // by the thousands on a chunk-cross without allocating a Vec3i per cell.
     @Getter
-    private final Map<Vec3i, Node> attachedPages = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<Node> attachedPages = new ConcurrentLongMap<>();
 
     // Derived views of attachedPages, maintained at trackPage/untrackPage so the cave-culling pass scans
     // only the relevant subsets instead of the whole grid VOLUME. attachedPages also holds the thousands
     // of air/empty pages (kept for connectivity + paging), so scanning it wholesale costs 16-27 ms on a
     // chunk-cross. scenePages = pages actually in the scene graph (have a mesh to cull) ; occluders =
     // pages whose connectivity is not CONNECT_ALL (the only cells that can block the BFS).
-    private final Map<Vec3i, Node> scenePages = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<Node> scenePages = new ConcurrentLongMap<>();
     // Occluders store their connectivity bitset directly (computed once at trackPage) so the per-pass
     // cacheConnectivity avoids a String-keyed getUserData per occluder — there can be thousands when the
     // grid spans dense/underground terrain.
-    private final Map<Vec3i, Short> occluders = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<Short> occluders = new ConcurrentLongMap<>();
 
     @Getter
-    private final Map<Vec3i, Chunk> fetchedPages = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<Chunk> fetchedPages = new ConcurrentLongMap<>();
 
     // Cumulative count of scene-graph page mutations (attach + detach). Used by profiling/diagnostics
     // to tell a genuinely idle frame (delta 0) from one that re-meshed a chunk in place (detach+attach,
@@ -95,6 +101,8 @@ public class ChunkPager {
     private long pageOps;
 
     private final Queue<Chunk> pagesToAttach = new ConcurrentLinkedQueue<>();
+    // The chunks of an interactive edit : each batch is attached whole, in a single frame
+    private final Queue<List<Chunk>> batchesToAttach = new ConcurrentLinkedQueue<>();
     private final Queue<Vec3i> pagesToDetach = new ConcurrentLinkedQueue<>();
     private final Queue<Vec3i> pagesToUnfetch = new ConcurrentLinkedQueue<>();
     private final ChunkManagerListener listener = new ChunkPagerListener();
@@ -103,9 +111,14 @@ public class ChunkPager {
 
     // Scratch buffers reused across updateQueues() invocations to avoid per-crossing allocation.
     // Only ever touched on the single-threaded requestExecutor, so no synchronization is needed.
-    private final Set<Vec3i> pagesToMesh = new HashSet<>();
-    private final Set<Vec3i> pagesToFetch = new HashSet<>();
+    private final LongHashSet pagesToMesh = new LongHashSet();
+    private final LongHashSet pagesToFetch = new LongHashSet();
     private final Comparator<Vec3i> meshDistanceComparator = Comparator.comparingInt(vec -> vec.getDistanceSq(centerPage));
+    // Columns by horizontal distance to the center, each one top-down : the sunlight of a column flows
+    // from its top chunk, and a chunk is meshed as soon as the columns around it are complete.
+    private final Comparator<Vec3i> fetchOrderComparator = Comparator
+            .<Vec3i>comparingInt(vec -> (vec.x - centerPage.x) * (vec.x - centerPage.x) + (vec.z - centerPage.z) * (vec.z - centerPage.z))
+            .thenComparingInt(vec -> -vec.y);
 
     // --- Cave culling : occlusion culling via the chunk visibility graph. A connectivity-only BFS from
     // the chunk holding the player marks every chunk sight can reach THROUGH open faces (air/glass/...),
@@ -224,6 +237,9 @@ public class ChunkPager {
             if (log.isDebugEnabled()) {
                 log.debug("New center page {}", newCenterPage);
             }
+            // Right away, from this thread : the pager thread may be waiting for the previous request,
+            // whose tasks out of the new grid are dropped and the others re-sorted around the new center.
+            chunkManager.setFocus(newCenterPage);
             requestExecutor.submit(this::updateQueues);
         }
     }
@@ -244,8 +260,6 @@ public class ChunkPager {
         final int fetchMaxX = Math.min(meshMaxX + 1, gridUpperBounds.x);
         final int fetchMaxY = Math.min(meshMaxY + 1, gridUpperBounds.y);
         final int fetchMaxZ = Math.min(meshMaxZ + 1, gridUpperBounds.z);
-        final Vec3i meshMin = new Vec3i(meshMinX, meshMinY, meshMinZ);
-        final Vec3i meshMax = new Vec3i(meshMaxX, meshMaxY, meshMaxZ);
 
         if (log.isDebugEnabled()) {
             log.debug("Grid is set to ({}:{}, {}:{}, {}:{})", meshMinX, meshMaxX, meshMinY, meshMaxY, meshMinZ, meshMaxZ);
@@ -257,51 +271,49 @@ public class ChunkPager {
         for (int x = fetchMinX; x <= fetchMaxX; x++) {
             for (int y = fetchMinY; y <= fetchMaxY; y++) {
                 for (int z = fetchMinZ; z <= fetchMaxZ; z++) {
-                    Vec3i pageLocation = new Vec3i(x, y, z);
-                    pagesToFetch.add(pageLocation);
-                    addPageToMesh(pageLocation, meshMin, meshMax, pagesToMesh);
+                    long page = ChunkKey.of(x, y, z);
+                    pagesToFetch.add(page);
+                    if (x >= meshMinX && x <= meshMaxX
+                            && y >= meshMinY && y <= meshMaxY
+                            && z >= meshMinZ && z <= meshMaxZ) {
+                        pagesToMesh.add(page);
+                    }
                 }
             }
         }
 
         pagesToDetach.clear();
-        for (Vec3i page : attachedPages.keySet()) {
-            if (pagesToMesh.contains(page)) {
-                // page already meshed
-                pagesToMesh.remove(page);
-            } else {
-                // detach pages outside of the grid
-                pagesToDetach.offer(page);
+        attachedPages.forEach((page, node) -> {
+            // remove pages already meshed, detach pages outside of the grid
+            if (!pagesToMesh.remove(page)) {
+                pagesToDetach.offer(ChunkKey.toVec3i(page));
             }
-        }
+        });
 
         pagesToUnfetch.clear();
-        for (Vec3i page : fetchedPages.keySet()) {
-            if (pagesToFetch.contains(page)) {
-                // page already fetched
-                pagesToFetch.remove(page);
-            } else {
-                // detach fetched pages outside of the grid
-                pagesToUnfetch.add(page);
+        fetchedPages.forEach((page, chunk) -> {
+            // remove pages already fetched, unfetch pages outside of the grid
+            if (!pagesToFetch.remove(page)) {
+                pagesToUnfetch.offer(ChunkKey.toVec3i(page));
             }
-        }
+        });
 
-        // request the new pages to load/generate and mesh
-        // Mesh pages sorted by distance to the center so the closest chunks appear first.
-        List<Vec3i> meshList = new ArrayList<>(pagesToMesh);
+        // request the new pages to load/generate and mesh. Only those need a Vec3i.
+        // Pages sorted by distance to the center so the closest chunks appear first.
+        List<Vec3i> fetchList = toLocations(pagesToFetch);
+        fetchList.sort(fetchOrderComparator);
+        List<Vec3i> meshList = toLocations(pagesToMesh);
         meshList.sort(meshDistanceComparator);
-        chunkManager.requestChunks(new ArrayList<>(pagesToFetch), meshList);
+        chunkManager.requestChunks(fetchList, meshList);
 
         pagesToMesh.clear();
         pagesToFetch.clear();
     }
 
-    private void addPageToMesh(Vec3i pageLocation, Vec3i meshMin, Vec3i meshMax, Set<Vec3i> pagesToMesh) {
-        if (pageLocation.x >= meshMin.x && pageLocation.x <= meshMax.x
-                && pageLocation.y >= meshMin.y && pageLocation.y <= meshMax.y
-                && pageLocation.z >= meshMin.z && pageLocation.z <= meshMax.z) {
-            pagesToMesh.add(pageLocation);
-        }
+    private static List<Vec3i> toLocations(LongHashSet pages) {
+        List<Vec3i> locations = new ArrayList<>(pages.size());
+        pages.forEach(page -> locations.add(ChunkKey.toVec3i(page)));
+        return locations;
     }
 
     private void detachNextPages() {
@@ -309,16 +321,19 @@ public class ChunkPager {
         int removed = 0;
 
         while (pageLocation != null) {
-            Node page = attachedPages.get(pageLocation);
+            Node page = attachedPages.get(ChunkKey.of(pageLocation));
             if (page == null) {
                 log.warn("Trying to detach page at location {} that isn't attached.", pageLocation);
             } else {
+                long start = System.nanoTime();
                 detachPage(page);
                 untrackPage(pageLocation);
+                releasePage(page);
+                frameBudget.spendSince(start);
                 removed += 1;
             }
 
-            if (removed < maxUpdatePerFrame) {
+            if (removed < maxUpdatePerFrame && frameBudget.hasTime()) {
                 pageLocation = pagesToDetach.poll();
             } else {
                 // Spread large detach bursts (e.g. grid shrink or teleport) over several frames.
@@ -338,19 +353,22 @@ public class ChunkPager {
         int unfetched = 0;
 
         while (pageLocation != null) {
-            Chunk page = fetchedPages.get(pageLocation);
+            long key = ChunkKey.of(pageLocation);
+            Chunk page = fetchedPages.get(key);
             if (page == null) {
                 log.warn("Trying to unfetch page at location {} that isn't attached.", pageLocation);
             } else {
-                fetchedPages.remove(pageLocation);
+                long start = System.nanoTime();
+                fetchedPages.remove(key);
                 // Notify (chunk still cached) so e.g. the far terrain can capture an edited chunk's
                 // final relief as it leaves the grid, then evict.
                 chunkManager.triggerListenerChunkUnfetched(page);
                 chunkManager.fastRemoveChunk(pageLocation);
+                frameBudget.spendSince(start);
                 unfetched += 1;
             }
 
-            if (unfetched < maxUpdatePerFrame) {
+            if (unfetched < maxUpdatePerFrame && frameBudget.hasTime()) {
                 pageLocation = pagesToUnfetch.poll();
             } else {
                 // Spread large unfetch bursts (e.g. grid shrink or teleport) over several frames.
@@ -364,26 +382,28 @@ public class ChunkPager {
     }
 
     protected void attachNextPages() {
-        Chunk chunk = pagesToAttach.poll();
         int attached = 0;
 
-        while (chunk != null) {
-
-            // detach the old page if any
-            Node oldPage = untrackPage(chunk.getLocation());
-            if (oldPage != null) {
-                detachPage(oldPage);
+        // Edits first, never split across frames : the player is watching them. They do not count
+        // against the page count, an edit remeshes a handful of chunks, but their time is spent.
+        long start = System.nanoTime();
+        List<Chunk> batch = batchesToAttach.poll();
+        while (batch != null) {
+            for (Chunk chunk : batch) {
+                attached += replacePage(chunk);
             }
+            batch = batchesToAttach.poll();
+        }
+        frameBudget.spendSince(start);
+        int budget = maxUpdatePerFrame + attached;
 
-            // Create the new page
-            Node newPage = createPage(chunk);
-            trackPage(chunk.getLocation(), newPage);
-            if (newPage != null) {
-                attachPage(newPage);
-                attached += 1;
-            }
+        Chunk chunk = pagesToAttach.poll();
+        while (chunk != null) {
+            start = System.nanoTime();
+            attached += replacePage(chunk);
+            frameBudget.spendSince(start);
 
-            if (attached < maxUpdatePerFrame) {
+            if (attached < budget && frameBudget.hasTime()) {
                 chunk = pagesToAttach.poll();
             } else {
                 // Timeout for this frame. Stop work now.
@@ -398,6 +418,33 @@ public class ChunkPager {
         }
     }
 
+    /**
+     * Replaces the page of the chunk by its new node.
+     * @return 1 if a page was attached, 0 otherwise
+     */
+    private int replacePage(Chunk chunk) {
+        // Create the new page
+        Node newPage = createPage(chunk);
+        if (newPage == null) {
+            // The chunk left the grid while its page was queued : the cache released its node (see
+            // ChunkCache#release). The old page, if any, is detached with the pages outside the grid.
+            return 0;
+        }
+
+        // detach the old page if any
+        Node oldPage = untrackPage(chunk.getLocation());
+        if (oldPage != null) {
+            detachPage(oldPage);
+            if (oldPage != newPage) {
+                releasePage(oldPage);
+            }
+        }
+
+        trackPage(chunk.getLocation(), newPage);
+        attachPage(newPage);
+        return 1;
+    }
+
     protected Node createPage(Chunk chunk) {
         return chunk.getNode();
     }
@@ -413,31 +460,43 @@ public class ChunkPager {
         node.detachChild(page);
     }
 
+    /**
+     * Returns the native buffers of the meshes of a detached page to the pool (see
+     * {@link DirectBufferPool}). The chunk drops the page : it is meshed again before it comes back.
+     */
+    private static void releasePage(Node page) {
+        if (!(page instanceof EmptyNode)) {
+            DirectBufferPool.release(page);
+        }
+    }
+
     /**
      * Records a page in {@link #attachedPages} and updates the derived {@link #scenePages} /
      * {@link #occluders} views used by the cave-culling pass. Package-private so cave-culling tests can
      * populate the pager through the same path the real paging uses.
      */
     void trackPage(Vec3i location, Node page) {
-        attachedPages.put(location, page);
+        long key = ChunkKey.of(location);
+        attachedPages.put(key, page);
         if (page instanceof EmptyNode) {
-            scenePages.remove(location); // air / fully-internal chunk : nothing in the scene to cull
+            scenePages.remove(key); // air / fully-internal chunk : nothing in the scene to cull
         } else {
-            scenePages.put(location, page);
+            scenePages.put(key, page);
         }
         short conn = connectivityOf(page);
         if (conn != Chunk.CONNECT_ALL) {
-            occluders.put(location, conn); // can block sight : the BFS must see its connectivity
+            occluders.put(key, conn); // can block sight : the BFS must see its connectivity
         } else {
-            occluders.remove(location);
+            occluders.remove(key);
         }
     }
 
     /** Removes a page from {@link #attachedPages} and the derived views, returning the removed node. */
     private Node untrackPage(Vec3i location) {
-        Node removed = attachedPages.remove(location);
-        scenePages.remove(location);
-        occluders.remove(location);
+        long key = ChunkKey.of(location);
+        Node removed = attachedPages.remove(key);
+        scenePages.remove(key);
+        occluders.remove(key);
         return removed;
     }
 
@@ -595,25 +654,23 @@ public class ChunkPager {
     /** Sets each scene page's cull hint from the BFS result, touching only the pages that changed. Only
      * scene pages (non-empty, actually in the graph) have a mesh to cull — air/empty pages are skipped. */
     private void applyVisibility() {
-        for (Map.Entry<Vec3i, Node> entry : scenePages.entrySet()) {
-            Vec3i loc = entry.getKey();
-            Node page = entry.getValue();
-            int li = localIndex(loc.x, loc.y, loc.z);
+        scenePages.forEach((loc, page) -> {
+            int li = localIndex(ChunkKey.x(loc), ChunkKey.y(loc), ChunkKey.z(loc));
             // Pages outside the current BFS grid (transient, about to be detached) are left visible.
             boolean cull = li >= 0 && reachStamp[li] != reachEpoch;
             Spatial.CullHint desired = cull ? Spatial.CullHint.Always : Spatial.CullHint.Inherit;
             if (page.getLocalCullHint() != desired) {
                 page.setCullHint(desired);
             }
-        }
+        });
     }
 
     private void showAllPages() {
-        for (Node page : scenePages.values()) {
+        scenePages.forEach((loc, page) -> {
             if (page.getLocalCullHint() != Spatial.CullHint.Inherit) {
                 page.setCullHint(Spatial.CullHint.Inherit);
             }
-        }
+        });
     }
 
     /**
@@ -627,15 +684,13 @@ public class ChunkPager {
         connEpoch++;
         // Only occluders (connectivity != CONNECT_ALL) need stamping : every other cell — air, open
         // terrain, not-yet-loaded — reads back as CONNECT_ALL (traversable) from the unstamped default.
-        for (Map.Entry<Vec3i, Short> entry : occluders.entrySet()) {
-            Vec3i loc = entry.getKey();
-            int li = localIndex(loc.x, loc.y, loc.z);
-            if (li < 0) {
-                continue; // outside the current BFS grid (transient, about to be detached)
+        occluders.forEach((loc, conn) -> {
+            int li = localIndex(ChunkKey.x(loc), ChunkKey.y(loc), ChunkKey.z(loc));
+            if (li >= 0) { // else outside the current BFS grid (transient, about to be detached)
+                connGrid[li] = conn;
+                connStamp[li] = connEpoch;
             }
-            connGrid[li] = entry.getValue();
-            connStamp[li] = connEpoch;
-        }
+        });
     }
 
     private int localIndex(int wx, int wy, int wz) {
@@ -682,12 +737,16 @@ public class ChunkPager {
             log.error("Interrupted while cleaning up {}", getClass().getSimpleName());
             Thread.currentThread().interrupt();
         }
-        attachedPages.forEach((loc, page) -> detachPage(page));
+        attachedPages.forEach((loc, page) -> {
+            detachPage(page);
+            releasePage(page);
+        });
         attachedPages.clear();
         scenePages.clear();
         occluders.clear();
         fetchedPages.clear();
         pagesToAttach.clear();
+        batchesToAttach.clear();
         pagesToDetach.clear();
         pagesToUnfetch.clear();
         chunkManager.removeListener(listener);
@@ -705,9 +764,14 @@ public class ChunkPager {
             pagesToAttach.offer(chunk);
         }
 
+        @Override
+        public void onChunksAvailable(List<Chunk> chunks) {
+            batchesToAttach.offer(chunks);
+        }
+
         @Override
         public void onChunkFetched(Chunk chunk) {
-            fetchedPages.put(chunk.getLocation(), chunk);
+            fetchedPages.put(ChunkKey.of(chunk.getLocation()), chunk);
         }
     }
 
@@ -25,4 +25,11 @@ public interface ChunkRepository {
      */
     boolean save(Chunk chunk);
 
+    /**
+     * Releases the resources (e.g. open files) held by the repository.
+     */
+    default void close() {
+        // Nothing to release by default
+    }
+
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.jme3.math.Vector4f;
+import com.simsilica.mathd.Vec3i;
+
+import java.util.Arrays;
+
+/**
+ * A copy of the block ids and lights of a chunk being meshed, padded with a one-block border taken
+ * from its 26 neighbours. The blocks of a neighbour are read once per chunk, row by row, instead of
+ * once per border block through the {@link ChunkResolver}, and the border no longer changes while
+ * the chunk is meshed.
+ * <p>
+ * Each meshing thread owns one snapshot, reused from chunk to chunk. It is opened for a chunk with
+ * {@link #open(Chunk)} and must be closed after the meshing. While it is open, the neighbour lookups
+ * of the chunk on this thread ({@link Chunk#getNeighbour(int, int, int, int, int, int)},
+ * {@link Chunk#getLightLevel(int, int, int, Direction, Vector4f)}, {@link BlockNeighborhood}) read the
+ * snapshot.
+ *
+ * @author Cedric de Launois
+ */
+final class ChunkSnapshot {
+
+    private static final Vec3i CHUNK_SIZE = BlocksConfig.getInstance().getChunkSize();
+    private static final BlockRegistry REGISTRY = BlocksConfig.getInstance().getBlockRegistry();
+
+    // The id of the cells of a neighbour that is not loaded : no block and no light
+    private static final short MISSING = -1;
+    private static final ThreadLocal<ChunkSnapshot> SNAPSHOT = ThreadLocal.withInitial(ChunkSnapshot::new);
+
+    private final int sizeY = CHUNK_SIZE.y + 2;
+    private final int sizeZ = CHUNK_SIZE.z + 2;
+    private final short[] ids = new short[(CHUNK_SIZE.x + 2) * sizeY * sizeZ];
+    private final byte[] lights = new byte[ids.length];
+    private final Vec3i neighbourLocation = new Vec3i();
+
+    // The chunk the snapshot is open for, or null
+    private Chunk chunk;
+
+    private ChunkSnapshot() {
+    }
+
+    /**
+     * Fills the snapshot of this thread with the given chunk and its neighbours.
+     *
+     * @param chunk the chunk to mesh
+     * @return the snapshot, open for the chunk
+     */
+    static ChunkSnapshot open(Chunk chunk) {
+        ChunkSnapshot snapshot = SNAPSHOT.get();
+        snapshot.fill(chunk);
+        snapshot.chunk = chunk;
+        return snapshot;
+    }
+
+    /**
+     * @param chunk a chunk
+     * @return the snapshot of this thread if it is open for the given chunk, or null
+     */
+    static ChunkSnapshot getActive(Chunk chunk) {
+        ChunkSnapshot snapshot = SNAPSHOT.get();
+        return snapshot.chunk == chunk ? snapshot : null;
+    }
+
+    void close() {
+        chunk = null;
+    }
+
+    /**
+     * @return true if the given location, relative to the chunk, is in the chunk or its border
+     */
+    boolean contains(int x, int y, int z) {
+        return x >= -1 && x <= CHUNK_SIZE.x && y >= -1 && y <= CHUNK_SIZE.y && z >= -1 && z <= CHUNK_SIZE.z;
+    }
+
+    /**
+     * @param x the x of the block, relative to the chunk, in [-1, chunk size]
+     * @param y the y of the block, relative to the chunk, in [-1, chunk size]
+     * @param z the z of the block, relative to the chunk, in [-1, chunk size]
+     * @return the block, or null
+     */
+    Block getBlock(int x, int y, int z) {
+        short id = ids[index(x, y, z)];
+        return id > 0 ? REGISTRY.get(id) : null;
+    }
+
+    /**
+     * Same as {@link Chunk#getLightLevel(int, int, int, Direction, Vector4f)} for a location that was
+     * already offset by the face direction.
+     */
+    Vector4f getLightLevel(int x, int y, int z, Direction face, Vector4f store) {
+        int index = index(x, y, z);
+        short id = ids[index];
+        if (id == MISSING) {
+            return store.set(0, 0, 0, 0);
+        }
+        return Chunk.getLightLevel(lights[index], id, face, store);
+    }
+
+    private int index(int x, int y, int z) {
+        return (z + 1) + ((y + 1) + (x + 1) * sizeY) * sizeZ;
+    }
+
+    private void fill(Chunk center) {
+        ChunkResolver resolver = center.getChunkResolver();
+        Vec3i location = center.getLocation();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Chunk source = center;
+                    if (dx != 0 || dy != 0 || dz != 0) {
+                        source = resolver == null ? null : resolver.unsafeFastGet(
+                                neighbourLocation.set(location.x + dx, location.y + dy, location.z + dz));
+                    }
+                    copy(source, dx, dy, dz);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies the part of a chunk that borders the center chunk : the whole chunk for the center, a
+     * face, an edge or a corner for a neighbour.
+     */
+    private void copy(Chunk source, int dx, int dy, int dz) {
+        // The ranges of the copied blocks, in the source chunk and in the snapshot
+        int fromX = dx < 0 ? CHUNK_SIZE.x - 1 : 0;
+        int fromY = dy < 0 ? CHUNK_SIZE.y - 1 : 0;
+        int fromZ = dz < 0 ? CHUNK_SIZE.z - 1 : 0;
+        int lengthX = dx == 0 ? CHUNK_SIZE.x : 1;
+        int lengthY = dy == 0 ? CHUNK_SIZE.y : 1;
+        int lengthZ = dz == 0 ? CHUNK_SIZE.z : 1;
+        int toX = dx < 0 ? -1 : dx * CHUNK_SIZE.x;
+        int toY = dy < 0 ? -1 : dy * CHUNK_SIZE.y;
+        int toZ = dz < 0 ? -1 : dz * CHUNK_SIZE.z;
+
+        short[] blocks = source == null ? null : source.getPlainBlocks();
+        byte[] lightMap = source == null ? null : source.getLightMap();
+        for (int x = 0; x < lengthX; x++) {
+            for (int y = 0; y < lengthY; y++) {
+                int from = Chunk.calculateIndex(fromX + x, fromY + y, fromZ);
+                int to = index(toX + x, toY + y, toZ);
+                if (source == null) {
+                    Arrays.fill(ids, to, to + lengthZ, MISSING);
+                    Arrays.fill(lights, to, to + lengthZ, (byte) 0);
+                    continue;
+                }
+
+                if (blocks != null) {
+                    System.arraycopy(blocks, from, ids, to, lengthZ);
+                } else {
+                    // Packed or uniform blocks
+                    for (int z = 0; z < lengthZ; z++) {
+                        ids[to + z] = source.blockId(from + z);
+                    }
+                }
+
+                if (lightMap != null) {
+                    System.arraycopy(lightMap, from, lights, to, lengthZ);
+                } else {
+                    Arrays.fill(lights, to, to + lengthZ, source.getUniformLight());
+                }
+            }
+        }
+    }
+
+}
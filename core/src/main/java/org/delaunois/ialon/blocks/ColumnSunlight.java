@@ -0,0 +1,242 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import java.util.Arrays;
+
+/**
+ * Computes the initial sunlight of a chunk, column by column, from the sunlight entering the top of
+ * each (x, z) column (the "sky" of the chunk, see {@link #bottomOf(Chunk)} to chain the chunks of a
+ * vertical stack).
+ * <p>
+ * A first pass walks each column down and writes the lightmap directly, following the rules of the
+ * {@link ChunkLightManager} sunlight propagation : full sunlight travels straight down through air,
+ * is dimmed by transparent blocks (water is floored at {@link ChunkLightManager#WATER_MIN_SUNLIGHT})
+ * and is stopped by blocks covering the faces it crosses. It records the height of the first cell
+ * out of full sunlight of each column. A second pass spreads the light sideways, only from the cells
+ * where that height differs between adjacent columns (cliff sides, overhangs, holes in a roof). The
+ * spread is bounded to the chunk : crossing chunk borders is left to later {@link ChunkLightManager}
+ * updates.
+ * <p>
+ * Threadsafe, as long as a chunk is not lit by two threads at once.
+ *
+ * @author Cedric de Launois
+ */
+public final class ColumnSunlight {
+
+    public static final int FULL_SUNLIGHT = 15;
+
+    private static final int UNRESOLVED = -1;
+    // The 4 horizontal directions, in the order of ChunkLightManager.DX / DZ
+    private static final int[] HORIZONTAL = {0, 1, 4, 5};
+
+    private static final ThreadLocal<IntQueue> QUEUE = ThreadLocal.withInitial(IntQueue::new);
+
+    // The ChunkLightManager flags of each block id, resolved on first use. Races only resolve an id twice.
+    private static volatile int[] blockFlags = new int[0];
+
+    private ColumnSunlight() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @return the sky of a chunk open to the sky : full sunlight entering every column
+     */
+    public static int[] fullSky() {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        int[] sky = new int[size.x * size.z];
+        Arrays.fill(sky, FULL_SUNLIGHT);
+        return sky;
+    }
+
+    /**
+     * Returns the sunlight leaving the bottom of each column of the given chunk, i.e. the sky of the
+     * chunk below it.
+     * @param chunk the chunk
+     * @return the sunlight leaving each (x, z) column, at index {@code x * sizeZ + z}
+     */
+    public static int[] bottomOf(Chunk chunk) {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        int[] sky = new int[size.x * size.z];
+        byte[] lightMap = chunk.getLightMap();
+        if (lightMap == null || chunk.isUniform()) {
+            // Uniform chunk : the same light leaves every column, unless the block stops it
+            Block block = chunk.getUniformBlock();
+            boolean stopped = block != null && (flags(block.getId()) & (1 << ChunkLightManager.DOWN)) != 0;
+            Arrays.fill(sky, stopped ? 0 : (chunk.getUniformLight() >> 4) & 0xF);
+            return sky;
+        }
+
+        for (int x = 0; x < size.x; x++) {
+            for (int z = 0; z < size.z; z++) {
+                int index = z + x * size.y * size.z;
+                boolean stopped = (flags(chunk.blockId(index)) & (1 << ChunkLightManager.DOWN)) != 0;
+                sky[x * size.z + z] = stopped ? 0 : (lightMap[index] >> 4) & 0xF;
+            }
+        }
+        return sky;
+    }
+
+    /**
+     * Sets the sunlight of every cell of the given chunk. The torchlight is left untouched and the
+     * chunk is not flagged as dirty. An empty chunk under a full sky is left unallocated, it already
+     * reads as full sunlight.
+     * @param chunk the chunk to light
+     * @param sky the sunlight entering each (x, z) column from above, at index {@code x * sizeZ + z}
+     */
+    public static void light(Chunk chunk, int[] sky) {
+        if (chunk.isUniform() && chunk.getUniformBlock() == null
+                && chunk.getSunlight(0, 0, 0) == FULL_SUNLIGHT && isFullSky(sky)) {
+            return;
+        }
+
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        byte[] lightMap = chunk.allocateLightMap();
+        // Reads a copy of packed blocks : the light does not unpack the chunk
+        short[] blocks = chunk.readBlocks();
+        int[] heights = new int[size.x * size.z];
+        int columnStride = size.y * size.z;
+
+        for (int x = 0; x < size.x; x++) {
+            for (int z = 0; z < size.z; z++) {
+                int column = x * size.z + z;
+                int level = sky[column];
+                // The highest cell out of full sunlight ; -1 when the whole column is in full sunlight
+                int height = level == FULL_SUNLIGHT ? -1 : size.y - 1;
+                int index = z + x * columnStride + (size.y - 1) * size.z;
+                for (int y = size.y - 1; y >= 0; y--, index -= size.z) {
+                    int flags = flags(blocks[index]);
+                    level = lightFromAbove(level, flags);
+                    lightMap[index] = (byte) ((lightMap[index] & 0xF) | (level << 4));
+                    if (level != FULL_SUNLIGHT && height < 0) {
+                        height = y;
+                    }
+                    if ((flags & (1 << ChunkLightManager.DOWN)) != 0) {
+                        level = 0;
+                    }
+                }
+                heights[column] = height;
+            }
+        }
+
+        spread(blocks, lightMap, heights, size);
+    }
+
+    /**
+     * Spreads the sunlight from the sides of the columns rising above their neighbours, into the cells
+     * of the neighbours that are out of full sunlight.
+     */
+    private static void spread(short[] blocks, byte[] lightMap, int[] heights, Vec3i size) {
+        IntQueue queue = QUEUE.get();
+        queue.clear();
+        for (int x = 0; x < size.x; x++) {
+            for (int z = 0; z < size.z; z++) {
+                int height = heights[x * size.z + z];
+                int top = height;
+                for (int d : HORIZONTAL) {
+                    int nx = x + ChunkLightManager.DX[d];
+                    int nz = z + ChunkLightManager.DZ[d];
+                    if (nx >= 0 && nx < size.x && nz >= 0 && nz < size.z) {
+                        top = Math.max(top, heights[nx * size.z + nz]);
+                    }
+                }
+                // The full sunlight cells of this column facing a neighbour cell out of full sunlight
+                for (int y = height + 1; y <= top; y++) {
+                    queue.offer(z + (y + x * size.y) * size.z);
+                }
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            int index = queue.poll();
+            int z = index % size.z;
+            int y = (index / size.z) % size.y;
+            int x = index / (size.z * size.y);
+            int level = (lightMap[index] >> 4) & 0xF;
+            int sourceFlags = flags(blocks[index]);
+            for (int d = 0; d < 6; d++) {
+                int nx = x + ChunkLightManager.DX[d];
+                int ny = y + ChunkLightManager.DY[d];
+                int nz = z + ChunkLightManager.DZ[d];
+                if ((sourceFlags & (1 << d)) != 0
+                        || nx < 0 || nx >= size.x || ny < 0 || ny >= size.y || nz < 0 || nz >= size.z) {
+                    continue;
+                }
+
+                int target = nz + (ny + nx * size.y) * size.z;
+                int flags = flags(blocks[target]);
+                if ((flags & (1 << ChunkLightManager.OPPOSITE[d])) != 0) {
+                    continue;
+                }
+                int targetLevel = d == ChunkLightManager.DOWN ? lightFromAbove(level, flags) : dim(level, flags);
+                if (((lightMap[target] >> 4) & 0xF) < targetLevel) {
+                    lightMap[target] = (byte) ((lightMap[target] & 0xF) | (targetLevel << 4));
+                    queue.offer(target);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the sunlight of a cell with the given flags lit from the cell above it, at the given level
+     */
+    private static int lightFromAbove(int level, int flags) {
+        if ((flags & (1 << ChunkLightManager.OPPOSITE[ChunkLightManager.DOWN])) != 0) {
+            return 0;
+        }
+        if (level == FULL_SUNLIGHT && (flags & ChunkLightManager.TRANSPARENT) == 0) {
+            return level;
+        }
+        return dim(level, flags);
+    }
+
+    private static int dim(int level, int flags) {
+        if (level == 0) {
+            return 0;
+        }
+        if ((flags & ChunkLightManager.LIQUID) != 0) {
+            return Math.max(level - 1, ChunkLightManager.WATER_MIN_SUNLIGHT);
+        }
+        return level - 1;
+    }
+
+    private static boolean isFullSky(int[] sky) {
+        for (int level : sky) {
+            if (level != FULL_SUNLIGHT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int flags(short id) {
+        int[] cache = blockFlags;
+        if (id < cache.length && cache[id] != UNRESOLVED) {
+            return cache[id];
+        }
+
+        int flags = ChunkLightManager.flagsOf(Chunk.blockOf(id));
+        int[] resolved = Arrays.copyOf(cache, Math.max(id + 1, cache.length));
+        Arrays.fill(resolved, cache.length, resolved.length, UNRESOLVED);
+        resolved[id] = flags;
+        blockFlags = resolved;
+        return flags;
+    }
+}
@@ -0,0 +1,343 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+import lombok.NonNull;
+
+/**
+ * A threadsafe map from primitive long keys (typically {@link ChunkKey packed chunk locations}) to
+ * non-null values. Unlike a {@code ConcurrentHashMap<Vec3i, V>}, a lookup allocates nothing and hashes
+ * no key object.
+ * <p>
+ * The map is split in segments, each an open-addressing table (linear probing, backward-shift
+ * deletion) guarded by a {@link StampedLock}. Reads are optimistic : they take no lock unless a write
+ * to the same segment happened meanwhile, so the many reader threads (meshing, lighting) never contend.
+ * Writes lock their segment only.
+ *
+ * @param <V> the type of the values
+ * @author Cedric de Launois
+ */
+public class ConcurrentLongMap<V> {
+
+    private static final int SEGMENT_BITS = 4;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+    private static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+    /**
+     * A function of a long key and its value.
+     *
+     * @param <V> the type of the values
+     */
+    @FunctionalInterface
+    public interface LongObjectConsumer<V> {
+        void accept(long key, V value);
+    }
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    public ConcurrentLongMap() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * @return the value mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long hash = hash(key);
+        Segment segment = segments[segmentIndex(hash)];
+        StampedLock lock = segment.lock;
+        long stamp = lock.tryOptimisticRead();
+        Object value = segment.find(key, hash);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                value = segment.find(key, hash);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return (V) value;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps the key to the value.
+     *
+     * @return the previous value mapped to the key, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, @NonNull V value) {
+        long hash = hash(key);
+        Segment segment = segments[segmentIndex(hash)];
+        long stamp = segment.lock.writeLock();
+        try {
+            return (V) segment.put(key, hash, value);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the mapping of the key.
+     *
+     * @return the removed value, or null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        long hash = hash(key);
+        Segment segment = segments[segmentIndex(hash)];
+        long stamp = segment.lock.writeLock();
+        try {
+            return (V) segment.remove(key, hash, null);
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the mapping of the key only if it is mapped to the given value (compared by identity).
+     *
+     * @return true if the mapping was removed
+     */
+    public boolean remove(long key, @NonNull V value) {
+        long hash = hash(key);
+        Segment segment = segments[segmentIndex(hash)];
+        long stamp = segment.lock.writeLock();
+        try {
+            return segment.remove(key, hash, value) != null;
+        } finally {
+            segment.lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.writeLock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * Performs the action for each mapping, one segment at a time. Each segment is read-locked while
+     * its mappings are visited : the action must not modify this map.
+     *
+     * @param action the action to perform
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(@NonNull LongObjectConsumer<? super V> action) {
+        for (Segment segment : segments) {
+            long stamp = segment.lock.readLock();
+            try {
+                long[] keys = segment.keys;
+                Object[] values = segment.values;
+                for (int i = 0; i < values.length; i++) {
+                    if (values[i] != null) {
+                        action.accept(keys[i], (V) values[i]);
+                    }
+                }
+            } finally {
+                segment.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    /**
+     * @return a snapshot of the keys
+     */
+    public long[] keys() {
+        LongHashSet keys = new LongHashSet();
+        forEach((key, value) -> keys.add(key));
+        return keys.toArray();
+    }
+
+    /**
+     * @return a snapshot of the values
+     */
+    public List<V> values() {
+        List<V> values = new ArrayList<>();
+        forEach((key, value) -> values.add(value));
+        return values;
+    }
+
+    static long hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static int segmentIndex(long hash) {
+        return (int) (hash >>> (64 - SEGMENT_BITS));
+    }
+
+    private static final class Segment {
+
+        private final StampedLock lock = new StampedLock();
+        // A slot is free when its value is null. keys and values always have the same length (a power
+        // of 2) ; both are replaced together on resize.
+        private long[] keys = new long[INITIAL_SEGMENT_CAPACITY];
+        private Object[] values = new Object[INITIAL_SEGMENT_CAPACITY];
+        private int size;
+
+        /**
+         * Lookup tolerant to a concurrent write (optimistic read) : it may return a wrong value, but
+         * never throws nor loops forever. The caller validates the stamp.
+         */
+        Object find(long key, long hash) {
+            long[] k = keys;
+            Object[] v = values;
+            int length = v.length;
+            if (k.length != length) {
+                return null;
+            }
+            int mask = length - 1;
+            int i = (int) hash & mask;
+            for (int probes = 0; probes < length; probes++) {
+                Object value = v[i];
+                if (value == null) {
+                    return null;
+                }
+                if (k[i] == key) {
+                    return value;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        Object put(long key, long hash, Object value) {
+            int mask = values.length - 1;
+            int i = (int) hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    Object previous = values[i];
+                    values[i] = value;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+
+            keys[i] = key;
+            values[i] = value;
+            size++;
+            if (size * 2 > values.length) {
+                resize(values.length * 2);
+            }
+            return null;
+        }
+
+        Object remove(long key, long hash, Object expected) {
+            int mask = values.length - 1;
+            int i = (int) hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    Object previous = values[i];
+                    if (expected != null && previous != expected) {
+                        return null;
+                    }
+                    deleteSlot(i);
+                    size--;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        void clear() {
+            keys = new long[INITIAL_SEGMENT_CAPACITY];
+            values = new Object[INITIAL_SEGMENT_CAPACITY];
+            size = 0;
+        }
+
+        /**
+         * Backward-shift deletion : moves up the following entries of the probe run so that no
+         * tombstone is needed.
+         */
+        private void deleteSlot(int slot) {
+            int mask = values.length - 1;
+            int free = slot;
+            int i = slot;
+            while (true) {
+                i = (i + 1) & mask;
+                if (values[i] == null) {
+                    break;
+                }
+                int ideal = (int) hash(keys[i]) & mask;
+                // Move the entry into the free slot unless its ideal slot lies cyclically in ]free, i]
+                boolean stays = free <= i ? (free < ideal && ideal <= i) : (free < ideal || ideal <= i);
+                if (!stays) {
+                    keys[free] = keys[i];
+                    values[free] = values[i];
+                    free = i;
+                }
+            }
+            values[free] = null;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            Object[] oldValues = values;
+            long[] newKeys = new long[capacity];
+            Object[] newValues = new Object[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = (int) hash(oldKeys[j]) & mask;
+                    while (newValues[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    newKeys[i] = oldKeys[j];
+                    newValues[i] = oldValues[j];
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+    }
+
+}
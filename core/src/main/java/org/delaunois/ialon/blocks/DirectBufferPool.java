@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A pool of the native (direct) buffers of the chunk render meshes.
+ * <p>
+ * {@link ChunkMesh#generateMesh()} takes exactly-sized views of pooled buffers for the vertex buffers
+ * of a render mesh, and records them in the {@link PooledMesh} it returns. When the page of a chunk
+ * leaves the scene, the pager releases its meshes with {@link #release(Spatial)} : their native buffers
+ * go back to the pool, to be reused by the next meshes, instead of waiting for the garbage collector to
+ * free the direct memory. A mesh that is never released is collected as usual.
+ * <p>
+ * The GPU buffers are left to the engine : they are deleted when their vertex buffers are collected.
+ * The native copy is no longer read once uploaded, and the engine does not destroy the data of a
+ * collected vertex buffer.
+ * <p>
+ * The buffers are pooled by size class : 4 classes per power of two, so that a buffer wastes at most a
+ * quarter of its size. Beyond {@link #MAX_POOLED_BYTES}, released buffers are destroyed.
+ *
+ * @author Cedric de Launois
+ */
+public final class DirectBufferPool {
+
+    /**
+     * The maximum number of bytes kept in the pool.
+     */
+    public static final long MAX_POOLED_BYTES = 32L << 20;
+
+    private static final int MIN_CLASS_SIZE = 256;
+
+    private static final Map<Integer, Queue<ByteBuffer>> POOL = new ConcurrentHashMap<>();
+    private static final AtomicLong POOLED_BYTES = new AtomicLong();
+
+    private DirectBufferPool() {
+    }
+
+    /**
+     * The pooled buffers used by a mesh.
+     */
+    public static final class Lease {
+
+        private final List<ByteBuffer> buffers = new ArrayList<>(8);
+
+        private synchronized void add(ByteBuffer buffer) {
+            buffers.add(buffer);
+        }
+
+        /**
+         * Returns the buffers to the pool. Does nothing if they were already returned.
+         */
+        private synchronized void release() {
+            buffers.forEach(DirectBufferPool::recycle);
+            buffers.clear();
+        }
+
+    }
+
+    /**
+     * A render mesh whose native buffers were taken from the pool. Its clones share its buffers : only
+     * the mesh of the chunk node may be released.
+     */
+    public static final class PooledMesh extends Mesh {
+
+        private final Lease lease;
+
+        public PooledMesh() {
+            this(new Lease());
+        }
+
+        PooledMesh(Lease lease) {
+            this.lease = lease;
+        }
+
+        /**
+         * Removes the vertex buffers of the mesh and returns their native buffers to the pool. The mesh
+         * is empty afterwards. Must be called on the render thread, once the mesh is no longer in the
+         * scene.
+         */
+        public void release() {
+            List<VertexBuffer.Type> types = new ArrayList<>();
+            for (VertexBuffer vb : getBufferList().getArray()) {
+                types.add(vb.getBufferType());
+            }
+            types.forEach(this::clearBuffer);
+            lease.release();
+        }
+
+    }
+
+    /**
+     * @param size the number of bytes
+     * @param lease the lease recording the buffer, or null for a buffer outside the pool
+     * @return a direct byte buffer of exactly the given size
+     */
+    public static ByteBuffer createByteBuffer(int size, Lease lease) {
+        if (lease == null || size == 0) {
+            return BufferUtils.createByteBuffer(size);
+        }
+        return acquire(size, lease);
+    }
+
+    /**
+     * @see #createByteBuffer(int, Lease)
+     */
+    public static ShortBuffer createShortBuffer(int size, Lease lease) {
+        if (lease == null || size == 0) {
+            return BufferUtils.createShortBuffer(size);
+        }
+        return acquire(size * Short.BYTES, lease).asShortBuffer();
+    }
+
+    /**
+     * @see #createByteBuffer(int, Lease)
+     */
+    public static IntBuffer createIntBuffer(int size, Lease lease) {
+        if (lease == null || size == 0) {
+            return BufferUtils.createIntBuffer(size);
+        }
+        return acquire(size * Integer.BYTES, lease).asIntBuffer();
+    }
+
+    /**
+     * @see #createByteBuffer(int, Lease)
+     */
+    public static FloatBuffer createFloatBuffer(int size, Lease lease) {
+        if (lease == null || size == 0) {
+            return BufferUtils.createFloatBuffer(size);
+        }
+        return acquire(size * Float.BYTES, lease).asFloatBuffer();
+    }
+
+    /**
+     * Releases the pooled meshes of the geometries of a spatial (see {@link PooledMesh#release()}).
+     *
+     * @param spatial a spatial that is no longer in the scene
+     */
+    public static void release(Spatial spatial) {
+        spatial.depthFirstTraversal(s -> {
+            if (s instanceof Geometry && ((Geometry) s).getMesh() instanceof PooledMesh) {
+                ((PooledMesh) ((Geometry) s).getMesh()).release();
+            }
+        });
+    }
+
+    /**
+     * @return the number of bytes kept in the pool
+     */
+    public static long getPooledBytes() {
+        return POOLED_BYTES.get();
+    }
+
+    /**
+     * @return the capacity of the pooled buffers holding the given number of bytes
+     */
+    static int classSize(int size) {
+        if (size <= MIN_CLASS_SIZE) {
+            return MIN_CLASS_SIZE;
+        }
+        // A quarter of the power of two below the size
+        int step = Integer.highestOneBit(size - 1) >> 2;
+        return (size + step - 1) / step * step;
+    }
+
+    /**
+     * Empties the pool.
+     */
+    static void clear() {
+        POOL.values().forEach(queue -> {
+            ByteBuffer buffer = queue.poll();
+            while (buffer != null) {
+                POOLED_BYTES.addAndGet(-buffer.capacity());
+                BufferUtils.destroyDirectBuffer(buffer);
+                buffer = queue.poll();
+            }
+        });
+    }
+
+    private static ByteBuffer acquire(int size, Lease lease) {
+        int classSize = classSize(size);
+        ByteBuffer buffer = POOL.computeIfAbsent(classSize, c -> new ConcurrentLinkedQueue<>()).poll();
+        if (buffer == null) {
+            buffer = BufferUtils.createByteBuffer(classSize);
+        } else {
+            POOLED_BYTES.addAndGet(-classSize);
+        }
+        lease.add(buffer);
+        buffer.clear();
+        buffer.limit(size);
+        return buffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    private static void recycle(ByteBuffer buffer) {
+        if (POOLED_BYTES.addAndGet(buffer.capacity()) > MAX_POOLED_BYTES) {
+            POOLED_BYTES.addAndGet(-buffer.capacity());
+            BufferUtils.destroyDirectBuffer(buffer);
+            return;
+        }
+        POOL.computeIfAbsent(buffer.capacity(), c -> new ConcurrentLinkedQueue<>()).offer(buffer);
+    }
+
+}
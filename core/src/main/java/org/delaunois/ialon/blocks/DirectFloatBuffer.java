@@ -46,8 +46,16 @@ public class DirectFloatBuffer {
      * than 256 layers).
      */
     public ByteBuffer getByteBuffer() {
+        return getByteBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getByteBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public ByteBuffer getByteBuffer(DirectBufferPool.Lease lease) {
         int n = buff.position();
-        ByteBuffer bb = BufferUtils.createByteBuffer(n);
+        ByteBuffer bb = DirectBufferPool.createByteBuffer(n, lease);
         for (int i = 0; i < n; i++) {
             int v = Math.round(buff.get(i));
             if (v < 0) {
@@ -5,11 +5,21 @@ import com.jme3.util.BufferUtils;
 import java.nio.IntBuffer;
 import java.nio.ShortBuffer;
 
+/**
+ * A growable direct buffer of mesh indices.
+ * <p>
+ * As long as the added indices follow the quad pattern of {@link QuadIndices} (each quad of 4 vertices
+ * split into the triangles 0, 1, 2 and 1, 3, 2), they are only counted, not stored : such a quad list
+ * can reference the shared quad indices. The first index breaking the pattern writes the pattern
+ * followed so far into the buffer.
+ */
 public class DirectIntBuffer {
 
     private static final int INITIAL_CAPACITY = 1000;
     private IntBuffer buff;
     private int size = 0;
+    // True while the indices follow the quad pattern : they are then not written to the buffer
+    private boolean quadList = true;
 
     public DirectIntBuffer() {
         buff = BufferUtils.createIntBuffer(INITIAL_CAPACITY);
@@ -20,6 +30,13 @@ public class DirectIntBuffer {
     }
 
     public void add(int i) {
+        if (quadList) {
+            if (i == QuadIndices.get(size)) {
+                size++;
+                return;
+            }
+            writeQuadList();
+        }
         if (buff.position() + 1 > buff.capacity()) {
             increaseCapacity();
         }
@@ -27,8 +44,24 @@ public class DirectIntBuffer {
         size++;
     }
 
+    /**
+     * @return true if the indices form a list of quads following the pattern of {@link QuadIndices}
+     */
+    public boolean isQuadList() {
+        return quadList && size % 6 == 0;
+    }
+
     public IntBuffer getBuffer() {
-        IntBuffer newbuffer = BufferUtils.createIntBuffer(buff.position());
+        return getBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public IntBuffer getBuffer(DirectBufferPool.Lease lease) {
+        writeQuadList();
+        IntBuffer newbuffer = DirectBufferPool.createIntBuffer(buff.position(), lease);
         buff.flip();
         newbuffer.put(buff);
         newbuffer.flip();
@@ -42,7 +75,16 @@ public class DirectIntBuffer {
      * &gt; 65535 are truncated to their low 16 bits. Use {@link #getBuffer()} otherwise.
      */
     public ShortBuffer getShortBuffer() {
-        ShortBuffer newbuffer = BufferUtils.createShortBuffer(buff.position());
+        return getShortBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getShortBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public ShortBuffer getShortBuffer(DirectBufferPool.Lease lease) {
+        writeQuadList();
+        ShortBuffer newbuffer = DirectBufferPool.createShortBuffer(buff.position(), lease);
         buff.flip();
         while (buff.hasRemaining()) {
             newbuffer.put((short) buff.get());
@@ -52,6 +94,7 @@ public class DirectIntBuffer {
     }
 
     public IntBuffer getInternalBuffer() {
+        writeQuadList();
         return buff;
     }
 
@@ -66,6 +109,25 @@ public class DirectIntBuffer {
     public void clear() {
         buff.clear();
         size = 0;
+        quadList = true;
+    }
+
+    /**
+     * Writes the quad pattern of the indices counted so far into the buffer, which then stores the
+     * indices as they are added.
+     */
+    private void writeQuadList() {
+        if (!quadList) {
+            return;
+        }
+        quadList = false;
+        // Nothing was written yet
+        if (buff.capacity() < size) {
+            buff = BufferUtils.createIntBuffer(Math.max(size, buff.capacity() * 2));
+        }
+        for (int i = 0; i < size; i++) {
+            buff.put(QuadIndices.get(i));
+        }
     }
 
     private void increaseCapacity() {
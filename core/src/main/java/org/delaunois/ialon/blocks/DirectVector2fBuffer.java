@@ -29,7 +29,15 @@ public class DirectVector2fBuffer {
     }
 
     public FloatBuffer getBuffer() {
-        FloatBuffer newbuffer = BufferUtils.createFloatBuffer(buff.position());
+        return getBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public FloatBuffer getBuffer(DirectBufferPool.Lease lease) {
+        FloatBuffer newbuffer = DirectBufferPool.createFloatBuffer(buff.position(), lease);
         buff.flip();
         newbuffer.put(buff);
         newbuffer.flip();
@@ -47,8 +55,16 @@ public class DirectVector2fBuffer {
      * is far finer than a 128 px tile texel.
      */
     public ShortBuffer getShortBuffer() {
+        return getShortBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getShortBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public ShortBuffer getShortBuffer(DirectBufferPool.Lease lease) {
         int n = buff.position();
-        ShortBuffer sb = BufferUtils.createShortBuffer(n);
+        ShortBuffer sb = DirectBufferPool.createShortBuffer(n, lease);
         for (int i = 0; i < n; i++) {
             float f = buff.get(i);
             if (f < 0f) {
@@ -5,6 +5,7 @@ import com.jme3.util.BufferUtils;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -32,7 +33,15 @@ public class DirectVector3fBuffer {
     }
 
     public FloatBuffer getBuffer() {
-        FloatBuffer newbuffer = BufferUtils.createFloatBuffer(buff.position());
+        return getBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public FloatBuffer getBuffer(DirectBufferPool.Lease lease) {
+        FloatBuffer newbuffer = DirectBufferPool.createFloatBuffer(buff.position(), lease);
         buff.flip();
         newbuffer.put(buff);
         newbuffer.flip();
@@ -47,7 +56,15 @@ public class DirectVector3fBuffer {
      * Components are scaled by 127 and clamped to [-127, 127] (avoiding -128, which maps below -1).
      */
     public ByteBuffer getByteBuffer() {
-        ByteBuffer newbuffer = BufferUtils.createByteBuffer(buff.position());
+        return getByteBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getByteBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public ByteBuffer getByteBuffer(DirectBufferPool.Lease lease) {
+        ByteBuffer newbuffer = DirectBufferPool.createByteBuffer(buff.position(), lease);
         buff.flip();
         while (buff.hasRemaining()) {
             newbuffer.put(toSignedByte(buff.get()));
@@ -66,6 +83,37 @@ public class DirectVector3fBuffer {
         return (byte) i;
     }
 
+    /**
+     * Returns a tightly-sized {@link ShortBuffer} copy with each component stored as a fixed point
+     * SIGNED short, in steps of {@code 1 / stepsPerUnit} : 6 bytes/vertex instead of 12, meant to feed a
+     * non-normalized {@code Short} vertex buffer for bounded values (e.g. chunk-local POSITIONS) whose
+     * geometry is scaled back by {@code 1 / stepsPerUnit}. Returns null if a component does not fit in
+     * a short.
+     */
+    public ShortBuffer getFixedPointBuffer(float stepsPerUnit) {
+        return getFixedPointBuffer(stepsPerUnit, null);
+    }
+
+    /**
+     * Same as {@link #getFixedPointBuffer(float)}, taking the copy from the pool when a lease is given
+     * (see {@link DirectBufferPool}).
+     */
+    public ShortBuffer getFixedPointBuffer(float stepsPerUnit, DirectBufferPool.Lease lease) {
+        int n = buff.position();
+        for (int i = 0; i < n; i++) {
+            int v = Math.round(buff.get(i) * stepsPerUnit);
+            if (v < Short.MIN_VALUE || v > Short.MAX_VALUE) {
+                return null;
+            }
+        }
+        ShortBuffer sb = DirectBufferPool.createShortBuffer(n, lease);
+        for (int i = 0; i < n; i++) {
+            sb.put((short) Math.round(buff.get(i) * stepsPerUnit));
+        }
+        sb.flip();
+        return sb;
+    }
+
     public FloatBuffer getInternalBuffer() {
         return buff;
     }
@@ -47,7 +47,15 @@ public class DirectVector4fBuffer {
      * so they must multiply by 255 (with rounding) before unpacking the nibbles.
      */
     public ByteBuffer getByteBuffer() {
-        ByteBuffer newbuffer = BufferUtils.createByteBuffer(buff.position());
+        return getByteBuffer(null);
+    }
+
+    /**
+     * Same as {@link #getByteBuffer()}, taking the copy from the pool when a lease is given (see
+     * {@link DirectBufferPool}).
+     */
+    public ByteBuffer getByteBuffer(DirectBufferPool.Lease lease) {
+        ByteBuffer newbuffer = DirectBufferPool.createByteBuffer(buff.position(), lease);
         buff.flip();
         while (buff.hasRemaining()) {
             newbuffer.put(colorByte(buff.get())); // r : [0,1] colour -> [0,255]
@@ -81,6 +89,25 @@ public class DirectVector4fBuffer {
         return (byte) (Math.round(v) & 0xFF);
     }
 
+    /**
+     * Reorders the 4 vectors of a quad starting at {@code first} as 1, 3, 0, 2 : the vertex order of a
+     * quad whose triangle diagonal is flipped (see {@link Shape#emitQuad}).
+     */
+    public void reorderFlippedQuad(int first) {
+        int v0 = first * 4;
+        int v1 = v0 + 4;
+        int v2 = v0 + 8;
+        int v3 = v0 + 12;
+        for (int c = 0; c < 4; c++) {
+            // Rotates the cycle 0 <- 1 <- 3 <- 2 <- 0
+            float first0 = buff.get(v0 + c);
+            buff.put(v0 + c, buff.get(v1 + c));
+            buff.put(v1 + c, buff.get(v3 + c));
+            buff.put(v3 + c, buff.get(v2 + c));
+            buff.put(v2 + c, first0);
+        }
+    }
+
     public FloatBuffer getInternalBuffer() {
         return buff;
     }
@@ -19,9 +19,6 @@ import org.delaunois.ialon.blocks.jme.LayerComparator;
 import org.delaunois.ialon.blocks.shapes.Liquid;
 
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
 import lombok.ToString;
@@ -40,14 +37,9 @@ import lombok.extern.slf4j.Slf4j;
 @ToString(onlyExplicitlyIncluded = true)
 public class FacesMeshGenerator implements ChunkMeshGenerator {
 
-    private static final String CHUNK_MESH_TYPE_GENERIC = "generic";
-    private static final String CHUNK_MESH_TYPE_WATER = "water";
-    // Flat calm-water surface : its own mesh/material (a flat colour, no texture), greedy-merged.
-    private static final String CHUNK_MESH_TYPE_WATER_CALM = "water_calm";
-    // Fire : its own mesh/material rendered by a procedural flame shader (no atlas texture).
-    private static final String CHUNK_MESH_TYPE_FIRE = "fire";
-    // Lava : its own mesh/material rendered by a procedural molten-lava shader (no atlas texture).
-    private static final String CHUNK_MESH_TYPE_LAVA = "lava";
+    // The chunk meshes are indexed by MeshBuckets : GENERIC, WATER, WATER_CALM (flat calm-water surface : its
+    // own mesh/material, a flat colour, no texture, greedy-merged), FIRE (procedural flame shader, no atlas
+    // texture) and LAVA (procedural molten-lava shader, no atlas texture).
     // Water shapes that do NOT emit their top face, one per liquid level : used for calm-surface cells
     // whose flat top is produced instead by the greedy calm-water mesher. Their sides/bottom keep the
     // normal textured look. Only SOURCE water (level 5) is calm-rendered ; flowing water keeps its
@@ -80,7 +72,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
 
     private static final class MeshPool {
         private final ChunkMesh collisionMesh = new ChunkMesh(true);
-        private final Map<String, ChunkMesh> renderMeshes = new HashMap<>();
+        private final ChunkMesh[] renderMeshes = new ChunkMesh[MeshBuckets.COUNT];
         // Shared visibility mask : faceVisible[direction.ordinal() * volume + blockIndex] for solid
         // cubes, populated by the render pass and consumed by the greedy collision mesher.
         private boolean[] visibilityMask;
@@ -94,6 +86,18 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         // Per-layer grid of smoothed corner light, indexed gx*(sz+1)+gz. Reused across layers and
         // chunks ; rebuilt for each water layer by addCalmWaterSurfaceMesh before its greedy merge.
         private int[] calmCorner;
+        // Scratch copy of the content of a uniform chunk, which has no block array
+        private short[] uniformBlocks;
+        // Greedy render mesher of the uniformly lit opaque cube faces
+        private GreedyFaceMesher greedyFaces;
+        // Resolved once per chunk for the water of the liquid-carrying non-water blocks
+        private ShapeRegistry shapeRegistry;
+        private int waterTypeId;
+
+        void prepare(BlocksConfig blocksConfig) {
+            shapeRegistry = blocksConfig.getShapeRegistry();
+            waterTypeId = blocksConfig.getTypeRegistry().getId(TypeIds.WATER);
+        }
 
         ChunkMesh acquireCollision() {
             collisionMesh.clear();
@@ -123,6 +127,23 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
             return calmCorner;
         }
 
+        GreedyFaceMesher acquireGreedyFaces(BlocksConfig blocksConfig) {
+            if (greedyFaces == null || !greedyFaces.fits(blocksConfig.getChunkSize())) {
+                greedyFaces = new GreedyFaceMesher(blocksConfig.getChunkSize(), blocksConfig.getTypeRegistry());
+            } else {
+                greedyFaces.clear();
+            }
+            return greedyFaces;
+        }
+
+        short[] acquireUniformBlocks(short id, int size) {
+            if (uniformBlocks == null || uniformBlocks.length != size) {
+                uniformBlocks = new short[size];
+            }
+            Arrays.fill(uniformBlocks, id);
+            return uniformBlocks;
+        }
+
         boolean[] acquireVisibilityMask(int size) {
             if (visibilityMask == null || visibilityMask.length < size) {
                 visibilityMask = new boolean[size];
@@ -132,11 +153,11 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
             return visibilityMask;
         }
 
-        ChunkMesh acquireRender(String type) {
-            ChunkMesh mesh = renderMeshes.get(type);
+        ChunkMesh acquireRender(int bucket) {
+            ChunkMesh mesh = renderMeshes[bucket];
             if (mesh == null) {
                 mesh = new ChunkMesh();
-                renderMeshes.put(type, mesh);
+                renderMeshes[bucket] = mesh;
             } else {
                 mesh.clear();
             }
@@ -155,32 +176,37 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         }
 
         long start = System.nanoTime();
-        ShapeRegistry shapeRegistry = BlocksConfig.getInstance().getShapeRegistry();
         BlockRegistry blockRegistry = BlocksConfig.getInstance().getBlockRegistry();
 
         // create the node of the chunk
         Vec3i chunkLocation = chunk.getLocation();
         Node node = new Node("Chunk - " + chunkLocation);
 
-        // create the map holding all the meshes of the chunk
-        Map<String, ChunkMesh> meshMap = new HashMap<>();
+        // create the array holding all the meshes of the chunk, indexed by mesh bucket
+        ChunkMesh[] meshes = new ChunkMesh[MeshBuckets.COUNT];
 
         // the first block location is (0, 0, 0)
         Vec3i blockLocation = new Vec3i(0, 0, 0);
 
         BlockNeighborhood neighborhood = new BlockNeighborhood(blockLocation, chunk);
-        for (short blockId : chunk.getBlocks()) {
-            Block block = blockRegistry.get(blockId);
+        short[] blocks = chunk.getBlocks();
+        short uniformBlockId = blocks == null ? uniformBlockIdOf(chunk) : 0;
+        int volume = volumeOf(blocks);
+        for (int i = 0; i < volume; i++) {
+            Block block = blockRegistry.get(blocks == null ? uniformBlockId : blocks[i]);
 
             // check if there is a block
             if (block != null) {
                 // create a mesh for each different block type
-                ChunkMesh mesh = meshMap.computeIfAbsent(getChunkMeshType(block), function -> new ChunkMesh());
+                ChunkMesh mesh = meshes[block.getMeshBucket()];
+                if (mesh == null) {
+                    mesh = new ChunkMesh();
+                    meshes[block.getMeshBucket()] = mesh;
+                }
 
                 // add the block mesh to the chunk mesh
-                Shape shape = shapeRegistry.get(block.getShape());
                 neighborhood.setLocation(blockLocation);
-                addShapeToMesh(block.getType(), shape, mesh, neighborhood);
+                addShapeToMesh(block.getTypeId(), block.getResolvedShape(), mesh, neighborhood);
             }
 
             // increment the block location
@@ -192,14 +218,14 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         }
 
         // create a geometry for each type of block
-        meshMap.forEach((type, chunkMesh) -> {
-            Geometry geometry = createGeometry(type, chunkMesh);
+        for (int bucket = 0; bucket < MeshBuckets.COUNT; bucket++) {
+            Geometry geometry = meshes[bucket] == null ? null : createGeometry(bucket, meshes[bucket]);
             if (geometry != null) {
                 // Both paths already finalised the UVs per shape in addShapeToMesh (atlas remap or
                 // local-UV + layer index), so no whole-geometry pass is needed here.
                 node.attachChild(geometry);
             }
-        });
+        }
 
         // position the node
         node.setLocalTranslation(chunk.getWorldLocation());
@@ -217,7 +243,6 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
     @Override
     public Mesh createCollisionMesh(Chunk chunk) {
         long start = System.nanoTime();
-        ShapeRegistry shapeRegistry = BlocksConfig.getInstance().getShapeRegistry();
         BlockRegistry blockRegistry = BlocksConfig.getInstance().getBlockRegistry();
 
         // create the collision mesh
@@ -226,12 +251,14 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         // the first block location is (0, 0, 0)
         Vec3i blockLocation = new Vec3i(0, 0, 0);
 
-        for (short blockId : chunk.getBlocks()) {
-            Block block = blockRegistry.get(blockId);
+        short[] blocks = chunk.getBlocks();
+        short uniformBlockId = blocks == null ? uniformBlockIdOf(chunk) : 0;
+        int volume = volumeOf(blocks);
+        for (int i = 0; i < volume; i++) {
+            Block block = blockRegistry.get(blocks == null ? uniformBlockId : blocks[i]);
             if (block != null && block.isSolid()) {
                 // add the block to the collision mesh
-                Shape shape = shapeRegistry.get(block.getShape());
-                shape.add(blockLocation, chunk, collisionMesh);
+                block.getResolvedShape().add(blockLocation, chunk, collisionMesh);
             }
 
             // increment the block location
@@ -262,17 +289,29 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         long start = System.nanoTime();
 
         short[] blocks = chunk.getBlocks();
-        if (blocks == null) {
+        Block uniformBlock = blocks == null ? chunk.getUniformBlock() : null;
+        if (blocks == null && uniformBlock == null) {
             if (log.isDebugEnabled()) {
                 log.debug("Cancelling chunk {} collision mesh creation", chunk);
             }
             return;
         }
 
-        // create the map holding all the meshes of the chunk and the collision mesh.
+        // Read the border of the chunk once from its neighbours, in a snapshot they cannot change meanwhile
+        ChunkSnapshot snapshot = ChunkSnapshot.open(chunk);
+        try {
+            createAndSetNodeAndCollisionMesh(chunk, blocks, uniformBlock, start);
+        } finally {
+            snapshot.close();
+        }
+    }
+
+    private void createAndSetNodeAndCollisionMesh(Chunk chunk, short[] blocks, Block uniformBlock, long start) {
+        // create the array holding all the meshes of the chunk (indexed by mesh bucket) and the collision mesh.
         // The meshes are reused from a per-thread pool to avoid reallocating direct buffers.
         MeshPool pool = meshPool.get();
-        Map<String, ChunkMesh> meshMap = new HashMap<>();
+        pool.prepare(BlocksConfig.getInstance());
+        ChunkMesh[] meshes = new ChunkMesh[MeshBuckets.COUNT];
         ChunkMesh collisionMesh = pool.acquireCollision();
 
         // Shared visibility mask : the render pass records each solid cube's visible faces here so the
@@ -283,14 +322,24 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         // Calm-water surface collector : the render pass flags the source-water cells whose flat top is
         // open to the air ; the greedy pass below merges them into the flat-coloured water_calm mesh.
         boolean[] calmTop = pool.acquireCalmTop(volume);
+        if (blocks == null) {
+            // Uniform chunk (e.g. deep rock bordering a cave) : walk a scratch copy of its content
+            blocks = pool.acquireUniformBlocks(uniformBlock.getId(), volume);
+        }
 
         // the first block location is (0, 0, 0)
         Vec3i blockLocation = new Vec3i(0, 0, 0);
         BlockNeighborhood neighborhood = new BlockNeighborhood(blockLocation, chunk);
+        // Greedy render mesh : the cubes hand their uniformly lit opaque faces over to the greedy mesher,
+        // which merges them below instead of emitting one quad per face
+        GreedyFaceMesher greedyFaces = config.isGreedyRenderMesh()
+                ? pool.acquireGreedyFaces(BlocksConfig.getInstance())
+                : null;
+        neighborhood.setGreedyFaces(greedyFaces);
 
         BlockRegistry blockRegistry = BlocksConfig.getInstance().getBlockRegistry();
         for (short blockId : blocks) {
-            createMesh(blockRegistry.get(blockId), blockLocation, neighborhood, meshMap, collisionMesh, pool,
+            createMesh(blockRegistry.get(blockId), blockLocation, neighborhood, meshes, collisionMesh, pool,
                     visibilityMask, volume, chunkSize);
 
             // increment the block location
@@ -303,14 +352,23 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
 
         // greedy-mesh the flagged calm-water tops into a single flat-coloured surface mesh (merges the
         // large flat sea/lake surfaces into a handful of quads). Skipped entirely if none were flagged.
-        addCalmWaterSurfaceMesh(chunk, meshMap, pool, calmTop, volume, chunkSize);
+        addCalmWaterSurfaceMesh(chunk, meshes, pool, calmTop, volume, chunkSize);
+
+        // merge the collected cube faces into larger quads repeating their texture
+        if (greedyFaces != null && !greedyFaces.isEmpty()) {
+            greedyFaces.emit(acquire(meshes, MeshBuckets.GENERIC, pool), BlocksConfig.getInstance().getBlockScale());
+        }
 
         // create the node of the chunk
         Vec3i chunkLocation = chunk.getLocation();
         Node node = new Node("Chunk - " + chunkLocation);
 
         // create a geometry for each type of block
-        meshMap.forEach((type, chunkMesh) -> createGeometryAndAttach(type, chunkMesh, node));
+        for (int bucket = 0; bucket < MeshBuckets.COUNT; bucket++) {
+            if (meshes[bucket] != null) {
+                createGeometryAndAttach(bucket, meshes[bucket], node);
+            }
+        }
 
         if (node.getVertexCount() == 0) {
             chunk.setNode(emptyNodeWithConnectivity(chunk));
@@ -326,8 +384,12 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         node.setLocalTranslation(chunk.getWorldLocation());
 
         // greedy-mesh the solid full cubes into the collision mesh (merges coplanar exposed faces),
-        // reusing the visibility mask populated by the render pass above.
-        addCubeCollisionMesh(chunk, collisionMesh, visibilityMask, volume);
+        // reusing the visibility mask populated by the render pass above. No collision mesh at all when
+        // the bodies collide directly with the blocks.
+        boolean voxelCollision = config.isVoxelCollision();
+        if (!voxelCollision) {
+            addCubeCollisionMesh(chunk, collisionMesh, visibilityMask, volume);
+        }
 
         // compute the chunk's face-connectivity bitset (cave-culling visibility graph) and carry it
         // on the node so the renderer's BFS can read it without a chunk lookup.
@@ -336,7 +398,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
 
         // set the node and collision mesh on the chunk
         chunk.setNode(node);
-        chunk.setCollisionMesh(collisionMesh.generateMesh());
+        chunk.setCollisionMesh(voxelCollision ? null : collisionMesh.generateMesh());
         collisionMesh.clear();
 
         if (log.isTraceEnabled()) {
@@ -347,7 +409,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
     private void createMesh(Block block,
                             Vec3i blockLocation,
                             BlockNeighborhood neighborhood,
-                            Map<String, ChunkMesh> meshMap,
+                            ChunkMesh[] meshes,
                             ChunkMesh collisionMesh,
                             MeshPool pool,
                             boolean[] visibilityMask,
@@ -359,31 +421,29 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         }
 
         // create a mesh for each different block type
-        ChunkMesh mesh = meshMap.computeIfAbsent(
-                getChunkMeshType(block),
-                pool::acquireRender);
+        ChunkMesh mesh = acquire(meshes, block.getMeshBucket(), pool);
 
         // add the block mesh to the chunk mesh
         neighborhood.setLocation(blockLocation);
-        Shape shape = BlocksConfig.getInstance().getShapeRegistry().get(block.getShape());
+        Shape shape = block.getResolvedShape();
         // Calm water surface : a WATER source block whose flat top is open to the air. Its top is rendered
         // by the greedy calm-water mesher (merged, flat-coloured quads with sky reflection) instead of one
         // textured quad per block, so swap to the no-top shape (sides/bottom still textured). Flowing water
         // keeps its textured sloped top (the scrolling texture conveys the flow).
-        if (Objects.equals(block.getType(), TypeIds.WATER)) {
+        if (block.getMeshBucket() == MeshBuckets.WATER) {
             Shape noTop = flagCalmTopIfExposed(block, blockLocation, neighborhood, pool, chunkSize);
             if (noTop != null) {
                 shape = noTop;
             }
         }
-        addShapeToMesh(block.getType(), shape, mesh, neighborhood);
+        addShapeToMesh(block.getTypeId(), shape, mesh, neighborhood);
 
         // add the block to the collision mesh.
         // Solid full cubes are deferred to the greedy collision mesher (addCubeCollisionMesh),
         // which merges coplanar exposed faces. addShapeToMesh above has just computed (via Cube.add)
         // the visibility of the 6 faces : record it into the shared mask so the greedy mesher reuses
         // it instead of rescanning the whole chunk. Non-cube solids keep their per-block faces.
-        if (block.isSolid()) {
+        if (block.isSolid() && !config.isVoxelCollision()) {
             if (isCollisionCube(block)) {
                 int index = blockLocation.z + (blockLocation.y + blockLocation.x * chunkSize.y) * chunkSize.z;
                 for (Direction direction : DIRECTIONS) {
@@ -403,21 +463,23 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         // AND lava) are excluded : they are meshed by their own type path above. Lava never co-habits a
         // structural block (pure-cell rule), so a structure logged with liquid is always water.
         if (block.getLiquidLevel() > 0
-                && !Objects.equals(block.getType(), TypeIds.WATER)
-                && !Objects.equals(block.getType(), TypeIds.LAVA)) {
-            mesh = meshMap.computeIfAbsent(TypeIds.WATER, pool::acquireRender);
+                && block.getMeshBucket() != MeshBuckets.WATER
+                && block.getMeshBucket() != MeshBuckets.LAVA) {
+            mesh = acquire(meshes, MeshBuckets.WATER, pool);
             Shape noTop = flagCalmTopIfExposed(block, blockLocation, neighborhood, pool, chunkSize);
-            if (noTop != null) {
-                shape = noTop;
-            } else if (block.isLiquidSource()) {
-                shape = BlocksConfig.getInstance().getShapeRegistry().get(ShapeIds.LIQUID5);
-            } else if (block.getLiquidLevel() == Block.LIQUID_FULL) {
-                shape = BlocksConfig.getInstance().getShapeRegistry().get(ShapeIds.LIQUID);
-            } else {
-                shape = BlocksConfig.getInstance().getShapeRegistry().get(ShapeIds.LIQUID + "_" + block.getLiquidLevel());
-            }
-            addShapeToMesh(TypeIds.WATER, shape, mesh, neighborhood);
+            // a source reads as level 5 (LIQUID5), a full cell as LIQUID_FULL (LIQUID)
+            shape = noTop != null ? noTop : pool.shapeRegistry.getLiquid(block.getLiquidLevel());
+            addShapeToMesh(pool.waterTypeId, shape, mesh, neighborhood);
+        }
+    }
+
+    private static ChunkMesh acquire(ChunkMesh[] meshes, int bucket, MeshPool pool) {
+        ChunkMesh mesh = meshes[bucket];
+        if (mesh == null) {
+            mesh = pool.acquireRender(bucket);
+            meshes[bucket] = mesh;
         }
+        return mesh;
     }
 
     /**
@@ -446,7 +508,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
     }
 
     private static boolean isCollisionCube(Block block) {
-        return block != null && block.isSolid() && ShapeIds.CUBE.equals(block.getShape());
+        return block != null && block.isSolid() && block.isCube();
     }
 
     /**
@@ -456,7 +518,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
      * collapses a big sea/lake surface from one quad per block into a handful of quads. The flat colour
      * (no texture, no scrolling) is what makes the merge safe : there is no per-block UV to preserve.
      */
-    private void addCalmWaterSurfaceMesh(Chunk chunk, Map<String, ChunkMesh> meshMap, MeshPool pool, boolean[] calmTop,
+    private void addCalmWaterSurfaceMesh(Chunk chunk, ChunkMesh[] meshes, MeshPool pool, boolean[] calmTop,
                                          int volume, Vec3i chunkSize) {
         boolean any = false;
         for (int i = 0; i < volume && !any; i++) {
@@ -469,7 +531,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         float blockScale = BlocksConfig.getInstance().getBlockScale();
         Vector4f[] calmColor = pool.calmColor;
         float[] calmTopY = pool.calmTopY;
-        ChunkMesh mesh = pool.acquireRender(CHUNK_MESH_TYPE_WATER_CALM);
+        ChunkMesh mesh = pool.acquireRender(MeshBuckets.WATER_CALM);
         int sx = chunkSize.x;
         int sy = chunkSize.y;
         int sz = chunkSize.z;
@@ -530,7 +592,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         }
 
         if (!mesh.getPositions().isEmpty()) {
-            meshMap.put(CHUNK_MESH_TYPE_WATER_CALM, mesh);
+            meshes[MeshBuckets.WATER_CALM] = mesh;
         }
     }
 
@@ -642,7 +704,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
             return Math.round(calmColor[idx].w) & 0xFF;
         }
         Block nb = chunk.getNeighbour(cx, y, cz, 0, 0, 0);
-        if (nb == null || nb.getLiquidLevel() <= 0 || !TypeIds.WATER.equals(nb.getType())
+        if (nb == null || nb.getLiquidLevel() <= 0 || nb.getMeshBucket() != MeshBuckets.WATER
                 || chunk.getNeighbour(cx, y, cz, 0, 1, 0) != null) {
             return -1;
         }
@@ -876,27 +938,14 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         }
     }
 
-    private String getChunkMeshType(Block block) {
-        if (block.getType().equals(TypeIds.WATER)) {
-            return CHUNK_MESH_TYPE_WATER;
-        }
-        if (block.getType().equals(TypeIds.FIRE)) {
-            return CHUNK_MESH_TYPE_FIRE;
-        }
-        if (block.getType().equals(TypeIds.LAVA)) {
-            return CHUNK_MESH_TYPE_LAVA;
-        }
-        return CHUNK_MESH_TYPE_GENERIC;
-    }
-
-    private void addShapeToMesh(String textureName, Shape shape, ChunkMesh mesh, BlockNeighborhood neighborhood) {
+    private void addShapeToMesh(int typeId, Shape shape, ChunkMesh mesh, BlockNeighborhood neighborhood) {
         int position = mesh.getUvs().getInternalBuffer().position();
         shape.add(neighborhood, mesh);
         int length = mesh.getUvs().getInternalBuffer().position() - position;
         // Keep the shape's local [0,1] UVs and emit a per-vertex texture-array layer index. The collision
         // mesh has no UV buffer, so it is skipped.
         if (!mesh.isCollisionMesh()) {
-            BlocksConfig.getInstance().getTypeRegistry().assignLayers(textureName,
+            BlocksConfig.getInstance().getTypeRegistry().assignLayers(typeId,
                     mesh.getUvs().getInternalBuffer(), position, length, mesh.getLayers());
         }
     }
@@ -912,10 +961,10 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         return emptyNode;
     }
 
-    private void createGeometryAndAttach(String type, ChunkMesh chunkMesh, Node node) {
-        Geometry geometry = createGeometry(type, chunkMesh);
+    private void createGeometryAndAttach(int bucket, ChunkMesh chunkMesh, Node node) {
+        Geometry geometry = createGeometry(bucket, chunkMesh);
         if (geometry != null) {
-            if (TypeIds.WATER.equals(type) || CHUNK_MESH_TYPE_WATER_CALM.equals(type)) {
+            if (bucket == MeshBuckets.WATER || bucket == MeshBuckets.WATER_CALM) {
                 /*
                  * Special case for water.
                  * Water must be visible from inside and outside.
@@ -936,7 +985,7 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
                 node.attachChild(geometry);
                 node.attachChild(inside);
 
-            } else if (CHUNK_MESH_TYPE_LAVA.equals(type)) {
+            } else if (bucket == MeshBuckets.LAVA) {
                 // Lava is opaque from the outside (molten shader, back-face culled, Opaque bucket — set
                 // on `geometry` by createGeometry) but translucent orange from the inside (when the
                 // player is submerged). We reuse the same mesh as a front-face-culled clone with a flat
@@ -970,27 +1019,31 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         return debugChunkGeometry;
     }
 
-    private Geometry createGeometry(String type, ChunkMesh chunkMesh) {
+    private Geometry createGeometry(int bucket, ChunkMesh chunkMesh) {
+        // The blocks and the water hold nearly all the vertices : their positions are packed
+        chunkMesh.setPackedPositions(config.isPackedVertexPositions()
+                && (bucket == MeshBuckets.GENERIC || bucket == MeshBuckets.WATER));
         Mesh mesh = chunkMesh.generateMesh();
         if (mesh == null) {
             return null;
         }
 
-        Geometry geometry = new Geometry(type, mesh);
+        Geometry geometry = new Geometry(MeshBuckets.nameOf(bucket), mesh);
+        geometry.setLocalScale(ChunkMesh.getPositionScale(mesh));
         chunkMesh.clear();
         TypeRegistry typeRegistry = BlocksConfig.getInstance().getTypeRegistry();
-        switch (type) {
-            case CHUNK_MESH_TYPE_WATER:
-                typeRegistry.applyMaterial(geometry, type);
+        switch (bucket) {
+            case MeshBuckets.WATER:
+                typeRegistry.applyMaterial(geometry, TypeIds.WATER);
                 // The water material (IalonArray) emulates sRGB in-shader like the generic one.
                 geometry.getMaterial().setBoolean("ManualSrgb", config.isManualGammaEncode());
                 geometry.setQueueBucket(RenderQueue.Bucket.Transparent);
                 break;
-            case CHUNK_MESH_TYPE_WATER_CALM:
+            case MeshBuckets.WATER_CALM:
                 geometry.setMaterial(getCalmWaterMaterial());
                 geometry.setQueueBucket(RenderQueue.Bucket.Transparent);
                 break;
-            case CHUNK_MESH_TYPE_FIRE:
+            case MeshBuckets.FIRE:
                 geometry.setMaterial(getFireMaterial());
                 geometry.setQueueBucket(RenderQueue.Bucket.Transparent);
                 // Draw fire AFTER the calm-water surface (layers 2 & 3) in the layer-sorted Transparent
@@ -1003,18 +1056,15 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
                 // camera-expanded quad is never wrongly frustum-culled at chunk edges.
                 expandBound(mesh, BlocksConfig.getInstance().getBlockScale());
                 break;
-            case CHUNK_MESH_TYPE_LAVA:
+            case MeshBuckets.LAVA:
                 // Flowing lava (liquid shapes). Outside face : opaque, emissive molten shader in the
                 // default Opaque bucket (writes depth). The translucent inside face is added as a clone
                 // in createGeometryAndAttach.
                 geometry.setMaterial(getLavaMaterial());
                 break;
-            case CHUNK_MESH_TYPE_GENERIC:
+            default:
                 typeRegistry.applyGenericMaterial(geometry);
                 geometry.getMaterial().setBoolean("ManualSrgb", config.isManualGammaEncode());
-                break;
-            default:
-                typeRegistry.applyMaterial(geometry, type);
         }
 
         return geometry;
@@ -1036,6 +1086,26 @@ public class FacesMeshGenerator implements ChunkMeshGenerator {
         }
     }
 
+    /**
+     * @return the id of the block of every cell of a uniform chunk, 0 for air : the loops read it for each
+     * cell instead of a filled copy of the content of the chunk
+     */
+    private static short uniformBlockIdOf(Chunk chunk) {
+        Block block = chunk.getUniformBlock();
+        return block == null ? 0 : block.getId();
+    }
+
+    /**
+     * @return the number of cells of a chunk with the given blocks, null for a uniform chunk
+     */
+    private static int volumeOf(short[] blocks) {
+        if (blocks != null) {
+            return blocks.length;
+        }
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        return size.x * size.y * size.z;
+    }
+
     /**
      * Reverse calculate the index of the block in the chunk blocks array. When looping through the blocks array, this
      * method should be called once per iteration to know the location of the current block.
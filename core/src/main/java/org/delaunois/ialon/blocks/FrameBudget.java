@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import lombok.Getter;
+
+/**
+ * The time the render thread may spend per frame on deferred world work (attaching and detaching pages,
+ * starting liquid ticks). Consumers measure each item of work and {@link #spend(long)} its cost, then stop
+ * for the frame once {@link #hasTime()} is false : a heavily meshed chunk uses more of the frame than an
+ * air chunk. One instance is shared by all the consumers, so together they stay within the budget.
+ * <p>
+ * The budget adapts to the measured frame time : it is halved after a frame slower than the target, and
+ * grows slowly while frames are on target and the budget is used up, within [min, max]. Slow devices
+ * settle on a small budget, fast ones drain the queues in a few frames.
+ * <p>
+ * Not threadsafe : only used from the render thread.
+ *
+ * @author Cedric de Launois
+ */
+public class FrameBudget {
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    @Getter
+    private final long minNanos;
+
+    @Getter
+    private final long maxNanos;
+
+    @Getter
+    private final long targetFrameNanos;
+
+    @Getter
+    private long budgetNanos;
+
+    @Getter
+    private long spentNanos;
+
+    /**
+     * @param budgetNanos the initial budget per frame
+     * @param minNanos the lower bound of the budget
+     * @param maxNanos the upper bound of the budget
+     * @param targetFrameNanos the frame time above which the budget shrinks
+     */
+    public FrameBudget(long budgetNanos, long minNanos, long maxNanos, long targetFrameNanos) {
+        if (minNanos > maxNanos) {
+            throw new IllegalArgumentException("Minimum budget " + minNanos + " is above maximum budget " + maxNanos);
+        }
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.targetFrameNanos = targetFrameNanos;
+        this.budgetNanos = Math.max(minNanos, Math.min(maxNanos, budgetNanos));
+    }
+
+    /**
+     * Creates a budget from durations in milliseconds.
+     */
+    public static FrameBudget ofMillis(float budgetMs, float minMs, float maxMs, float targetFrameMs) {
+        return new FrameBudget(toNanos(budgetMs), toNanos(minMs), toNanos(maxMs), toNanos(targetFrameMs));
+    }
+
+    /**
+     * A budget that never runs out : the work per frame is only bounded by the item counts of the pagers.
+     */
+    public static FrameBudget unlimited() {
+        return new FrameBudget(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Starts a new frame : adapts the budget to the duration of the previous frame and resets the time
+     * spent. Called once per frame, before the consumers.
+     * @param tpf the duration of the previous frame, in seconds
+     */
+    public void beginFrame(float tpf) {
+        long frameNanos = (long) (tpf * 1e9);
+        if (frameNanos > targetFrameNanos) {
+            // Back off fast : the frame was a hitch, whatever caused it
+            budgetNanos = Math.max(minNanos, budgetNanos / 2);
+        } else if (spentNanos >= budgetNanos && budgetNanos < maxNanos) {
+            // Work is waiting and frames are on target : grow by 1/8th
+            budgetNanos = Math.min(maxNanos, budgetNanos + Math.max(1, budgetNanos / 8));
+        }
+        spentNanos = 0;
+    }
+
+    /**
+     * Accounts for the cost of an item of work.
+     * @param nanos the duration of the work
+     */
+    public void spend(long nanos) {
+        spentNanos += nanos;
+    }
+
+    /**
+     * Accounts for the work started at the given time.
+     * @param startNanos the {@link System#nanoTime()} at the start of the work
+     */
+    public void spendSince(long startNanos) {
+        spend(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return true if the frame has time left for more work
+     */
+    public boolean hasTime() {
+        return spentNanos < budgetNanos;
+    }
+
+    private static long toNanos(float ms) {
+        return (long) (ms * NANOS_PER_MS);
+    }
+
+}
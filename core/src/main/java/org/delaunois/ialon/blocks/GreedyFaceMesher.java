@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import com.simsilica.mathd.Vec3i;
+
+import java.util.Arrays;
+
+/**
+ * Greedy render mesher for the faces of the opaque cubes. During the render pass, the cube hands over
+ * each of its visible faces whose 4 corners have the same light (see
+ * {@link BlockNeighborhood#collectUniformFace(Direction, Vector4f[])}) instead of emitting it. The
+ * collected faces are then merged into the largest rectangles of coplanar faces sharing the same
+ * texture layer and the same light, and each rectangle is emitted as a single quad.
+ * <p>
+ * Faces with an ambient occlusion or light gradient are not collected : the cube emits them as
+ * usual, so the shading is unchanged. A merged quad repeats the texture of its faces : its UVs count
+ * the tiles across the quad and its layer is flagged with {@link #TILED_LAYER}, which tells the
+ * shader to fold them back into the tile (see {@code IalonArray.frag}).
+ * <p>
+ * Confined to a single meshing thread and reused from chunk to chunk.
+ *
+ * @author Cedric de Launois
+ */
+final class GreedyFaceMesher {
+
+    /**
+     * Added to the texture layer of a merged quad : its UVs count tiles instead of spanning one tile.
+     */
+    static final int TILED_LAYER = 128;
+
+    // Flags the faces of a multi tile block in a face key
+    private static final int MULTI = 0x100;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    // The corners of the face of each direction (sign of x, y, z), in the order Cube emits them
+    private static final int[][] CORNERS = {
+            {1, 1, -1, -1, 1, -1, 1, 1, 1, -1, 1, 1},       // UP
+            {-1, -1, -1, 1, -1, -1, -1, -1, 1, 1, -1, 1},   // DOWN
+            {-1, -1, 1, -1, 1, 1, -1, -1, -1, -1, 1, -1},   // WEST
+            {1, -1, -1, 1, 1, -1, 1, -1, 1, 1, 1, 1},       // EAST
+            {1, -1, 1, 1, 1, 1, -1, -1, 1, -1, 1, 1},       // SOUTH
+            {-1, -1, -1, -1, 1, -1, 1, -1, -1, 1, 1, -1}    // NORTH
+    };
+    // The axis the texture u and v of each direction run along, and their sense : +1 or -1
+    private static final int[] U_AXIS = {0, 0, 2, 2, 0, 0};
+    private static final int[] U_SENSE = {1, 1, 1, -1, 1, -1};
+    private static final int[] V_AXIS = {2, 2, 1, 1, 1, 1};
+    private static final int[] V_SENSE = {-1, 1, 1, 1, 1, 1};
+    // Multi tile blocks : the v of the top and bottom faces runs the other way (see TypeRegistry#assignLayers)
+    private static final int[] V_SENSE_MULTI = {1, -1, 1, 1, 1, 1};
+    // Multi tile blocks : the layer of each direction among the bottom, side and top layers
+    private static final int[] THIRD = {2, 0, 1, 1, 1, 1};
+
+    private final Vec3i chunkSize;
+    private final int volume;
+    private final TypeRegistry typeRegistry;
+
+    // The key (layer and packed light) of the collected face of each direction and block, 0 if none
+    private final long[] faces;
+    private final long[] mask;
+    private boolean empty = true;
+
+    private final int[] origin = new int[3];
+    private final int[] extent = new int[3];
+    private final Vector3f vertex = new Vector3f();
+    private final Vector3f normal = new Vector3f();
+    private final Vector2f uv = new Vector2f();
+    private final Vector4f color = new Vector4f();
+
+    GreedyFaceMesher(Vec3i chunkSize, TypeRegistry typeRegistry) {
+        this.chunkSize = chunkSize;
+        this.volume = chunkSize.x * chunkSize.y * chunkSize.z;
+        this.typeRegistry = typeRegistry;
+        this.faces = new long[DIRECTIONS.length * volume];
+        int maxDim = Math.max(chunkSize.x, Math.max(chunkSize.y, chunkSize.z));
+        this.mask = new long[maxDim * maxDim];
+    }
+
+    /**
+     * @return true if the mesher is sized for the given chunk size
+     */
+    boolean fits(Vec3i size) {
+        return chunkSize.x == size.x && chunkSize.y == size.y && chunkSize.z == size.z;
+    }
+
+    /**
+     * Forgets the faces collected for the previous chunk.
+     */
+    void clear() {
+        if (!empty) {
+            Arrays.fill(faces, 0);
+            empty = true;
+        }
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Collects a face of a cube, if it is uniformly lit and can be merged.
+     *
+     * @param block the block of the cube
+     * @param location the location of the block in the chunk
+     * @param face the direction of the face
+     * @param colors the light of the 4 corners of the face
+     * @return true if the face was collected : it must not be emitted
+     */
+    boolean collect(Block block, Vec3i location, Direction face, Vector4f[] colors) {
+        if (block.getMeshBucket() != MeshBuckets.GENERIC || block.isTransparent() || block.getLiquidLevel() > 0) {
+            return false;
+        }
+        int packedColor = packColor(colors[0]);
+        if (packColor(colors[1]) != packedColor || packColor(colors[2]) != packedColor
+                || packColor(colors[3]) != packedColor) {
+            return false;
+        }
+        int[] layers = typeRegistry.getLayers(block.getTypeId());
+        if (layers == null || (layers.length == 3) != block.isUsingMultipleImages()) {
+            return false;
+        }
+        int layer = layers.length == 3 ? layers[THIRD[face.ordinal()]] : layers[0];
+        if (layer >= TILED_LAYER) {
+            return false;
+        }
+
+        int key = 1 + (layers.length == 3 ? layer | MULTI : layer);
+        int index = location.z + (location.y + location.x * chunkSize.y) * chunkSize.z;
+        faces[face.ordinal() * volume + index] = (long) key << 32 | (packedColor & 0xFFFFFFFFL);
+        empty = false;
+        return true;
+    }
+
+    /**
+     * Merges the collected faces and emits the merged quads.
+     *
+     * @param mesh the render mesh of the opaque blocks
+     * @param blockScale the block scale
+     */
+    void emit(ChunkMesh mesh, float blockScale) {
+        if (empty) {
+            return;
+        }
+
+        int[] dims = {chunkSize.x, chunkSize.y, chunkSize.z};
+        int[] coord = new int[3];
+        for (Direction direction : DIRECTIONS) {
+            int d = direction.ordinal();
+            Vec3i dir = direction.getVector();
+            int faceAxis = dir.x != 0 ? 0 : (dir.y != 0 ? 1 : 2);
+            int axis1 = faceAxis == 0 ? 1 : 0;
+            int axis2 = faceAxis == 2 ? 1 : 2;
+            int size1 = dims[axis1];
+            int size2 = dims[axis2];
+            normal.set(dir.x, dir.y, dir.z);
+
+            for (int s = 0; s < dims[faceAxis]; s++) {
+                boolean found = false;
+                for (int j = 0; j < size2; j++) {
+                    for (int i = 0; i < size1; i++) {
+                        coord[faceAxis] = s;
+                        coord[axis1] = i;
+                        coord[axis2] = j;
+                        long key = faces[d * volume + coord[2] + (coord[1] + coord[0] * chunkSize.y) * chunkSize.z];
+                        mask[i + j * size1] = key;
+                        found |= key != 0;
+                    }
+                }
+                if (found) {
+                    merge(mesh, d, faceAxis, axis1, axis2, s, size1, size2, blockScale);
+                }
+            }
+        }
+        mesh.setTiledUvs(true);
+    }
+
+    private void merge(ChunkMesh mesh, int d, int faceAxis, int axis1, int axis2, int s, int size1, int size2,
+                       float blockScale) {
+        for (int j = 0; j < size2; j++) {
+            for (int i = 0; i < size1; ) {
+                long key = mask[i + j * size1];
+                if (key == 0) {
+                    i++;
+                    continue;
+                }
+                // grow width along axis1
+                int w = 1;
+                while (i + w < size1 && mask[(i + w) + j * size1] == key) {
+                    w++;
+                }
+                // grow height along axis2 while the whole row matches
+                int h = 1;
+                boolean grow = true;
+                while (j + h < size2 && grow) {
+                    for (int k = 0; k < w; k++) {
+                        if (mask[(i + k) + (j + h) * size1] != key) {
+                            grow = false;
+                            break;
+                        }
+                    }
+                    if (grow) {
+                        h++;
+                    }
+                }
+
+                origin[faceAxis] = s;
+                origin[axis1] = i;
+                origin[axis2] = j;
+                extent[faceAxis] = 1;
+                extent[axis1] = w;
+                extent[axis2] = h;
+                emitQuad(mesh, d, key, blockScale);
+
+                // consume the merged faces
+                for (int dj = 0; dj < h; dj++) {
+                    Arrays.fill(mask, i + (j + dj) * size1, i + w + (j + dj) * size1, 0);
+                }
+                i += w;
+            }
+        }
+    }
+
+    private void emitQuad(ChunkMesh mesh, int d, long key, float blockScale) {
+        int layerKey = (int) (key >>> 32) - 1;
+        boolean multi = (layerKey & MULTI) != 0;
+        float layer = (layerKey & ~MULTI) + TILED_LAYER;
+        int uAxis = U_AXIS[d];
+        int vAxis = V_AXIS[d];
+        int uSense = U_SENSE[d];
+        int vSense = multi ? V_SENSE_MULTI[d] : V_SENSE[d];
+        unpackColor((int) key, color);
+
+        int offset = mesh.getPositions().size();
+        int[] corners = CORNERS[d];
+        for (int c = 0; c < corners.length; c += 3) {
+            vertex.set(corner(corners[c], 0), corner(corners[c + 1], 1), corner(corners[c + 2], 2));
+            mesh.getPositions().add(vertex.multLocal(blockScale));
+            mesh.getNormals().add(normal);
+            // The tile count along the axis at the end where the texture ends, 0 where it starts
+            uv.set(corners[c + uAxis] == uSense ? extent[uAxis] : 0,
+                    corners[c + vAxis] == vSense ? extent[vAxis] : 0);
+            mesh.getUvs().add(uv);
+            mesh.getLayers().add(layer);
+            mesh.getColors().add(color);
+        }
+
+        DirectIntBuffer indices = mesh.getIndices();
+        indices.add(offset);
+        indices.add(offset + 1);
+        indices.add(offset + 2);
+        indices.add(offset + 1);
+        indices.add(offset + 3);
+        indices.add(offset + 2);
+    }
+
+    private float corner(int sign, int axis) {
+        return sign < 0 ? origin[axis] - 0.5f : origin[axis] + extent[axis] - 0.5f;
+    }
+
+    /**
+     * Packs a light color as the mesh stores it (see {@link DirectVector4fBuffer#getByteBuffer()}) : faces
+     * with the same packed color are shaded the same.
+     */
+    private static int packColor(Vector4f c) {
+        return colorByte(c.x) << 24 | colorByte(c.y) << 16 | colorByte(c.z) << 8 | (Math.round(c.w) & 0xFF);
+    }
+
+    private static void unpackColor(int packed, Vector4f store) {
+        store.set((packed >>> 24) / 255f, (packed >>> 16 & 0xFF) / 255f, (packed >>> 8 & 0xFF) / 255f, packed & 0xFF);
+    }
+
+    private static int colorByte(float v) {
+        return Math.max(0, Math.min(255, Math.round(v * 255f)));
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+/**
+ * A FIFO of ints on a ring buffer, grown (never shrunk) when full. Used as the BFS queue of the light
+ * flood fills. Not threadsafe.
+ *
+ * @author Cedric de Launois
+ */
+final class IntQueue {
+
+    private static final int INITIAL_CAPACITY = 4096;
+
+    private int[] buffer = new int[INITIAL_CAPACITY];
+    private int head;
+    private int size;
+
+    void offer(int value) {
+        if (size == buffer.length) {
+            int[] grown = new int[buffer.length * 2];
+            int firstPart = buffer.length - head;
+            System.arraycopy(buffer, head, grown, 0, firstPart);
+            System.arraycopy(buffer, 0, grown, firstPart, head);
+            buffer = grown;
+            head = 0;
+        }
+        buffer[(head + size) & (buffer.length - 1)] = value;
+        size++;
+    }
+
+    int poll() {
+        int value = buffer[head];
+        head = (head + 1) & (buffer.length - 1);
+        size--;
+        return value;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void clear() {
+        head = 0;
+        size = 0;
+    }
+}
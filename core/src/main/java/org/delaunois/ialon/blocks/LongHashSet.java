@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of primitive longs (typically {@link ChunkKey packed chunk locations}) : an open-addressing
+ * table with linear probing and backward-shift deletion. Adding or looking up a key allocates nothing,
+ * and {@link #clear()} keeps the table, so a set reused as a scratch buffer stops allocating once it
+ * reached its working size. Not threadsafe.
+ *
+ * @author Cedric de Launois
+ */
+public class LongHashSet {
+
+    private static final int INITIAL_CAPACITY = 16;
+    // Marks a free slot. The key with this value, if added, is tracked by containsFreeKey.
+    private static final long FREE = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+    private boolean containsFreeKey;
+
+    public LongHashSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the number of keys the set should hold without resizing
+     */
+    public LongHashSet(int expectedSize) {
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    /**
+     * @return true if the key was not already in the set
+     */
+    public boolean add(long key) {
+        if (key == FREE) {
+            boolean added = !containsFreeKey;
+            if (added) {
+                containsFreeKey = true;
+                size++;
+            }
+            return added;
+        }
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        if (size * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == FREE) {
+            return containsFreeKey;
+        }
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the key was in the set
+     */
+    public boolean remove(long key) {
+        if (key == FREE) {
+            boolean removed = containsFreeKey;
+            if (removed) {
+                containsFreeKey = false;
+                size--;
+            }
+            return removed;
+        }
+
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != FREE) {
+            if (keys[i] == key) {
+                deleteSlot(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the keys, keeping the allocated table.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, FREE);
+            containsFreeKey = false;
+            size = 0;
+        }
+    }
+
+    /**
+     * Performs the action for each key. The action must not modify this set.
+     *
+     * @param action the action to perform
+     */
+    public void forEach(LongConsumer action) {
+        if (containsFreeKey) {
+            action.accept(FREE);
+        }
+        for (long key : keys) {
+            if (key != FREE) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * @return the keys, in no particular order
+     */
+    public long[] toArray() {
+        long[] array = new long[size];
+        int n = 0;
+        if (containsFreeKey) {
+            array[n++] = FREE;
+        }
+        for (long key : keys) {
+            if (key != FREE) {
+                array[n++] = key;
+            }
+        }
+        return array;
+    }
+
+    private static int slot(long key, int mask) {
+        return (int) ConcurrentLongMap.hash(key) & mask;
+    }
+
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int free = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            if (keys[i] == FREE) {
+                break;
+            }
+            int ideal = slot(keys[i], mask);
+            // Move the key into the free slot unless its ideal slot lies cyclically in ]free, i]
+            boolean stays = free <= i ? (free < ideal && ideal <= i) : (free < ideal || ideal <= i);
+            if (!stays) {
+                keys[free] = keys[i];
+                free = i;
+            }
+        }
+        keys[free] = FREE;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        int mask = capacity - 1;
+        for (long key : oldKeys) {
+            if (key != FREE) {
+                int i = slot(key, mask);
+                while (keys[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.delaunois.ialon.blocks;
+
+/**
+ * The chunk meshes a chunk node is split into, one per material. Each {@link Block} is assigned its bucket by the
+ * {@link BlockRegistry} when it is registered, so the mesh generator indexes its meshes by bucket instead of by
+ * type name.
+ *
+ * @author Cedric de Launois
+ */
+public final class MeshBuckets {
+
+    public static final int GENERIC = 0;
+    public static final int WATER = 1;
+    // Flat calm-water surface, produced by the greedy calm-water mesher : no block is assigned to it.
+    public static final int WATER_CALM = 2;
+    public static final int FIRE = 3;
+    public static final int LAVA = 4;
+    public static final int COUNT = 5;
+
+    // The geometry name of each bucket
+    private static final String[] NAMES = {"generic", TypeIds.WATER, "water_calm", TypeIds.FIRE, TypeIds.LAVA};
+
+    private MeshBuckets() {
+        // Prevent instantiation
+    }
+
+    /**
+     * @param type the block type
+     * @return the bucket of the blocks of the given type
+     */
+    public static int of(String type) {
+        if (TypeIds.WATER.equals(type)) {
+            return WATER;
+        }
+        if (TypeIds.FIRE.equals(type)) {
+            return FIRE;
+        }
+        if (TypeIds.LAVA.equals(type)) {
+            return LAVA;
+        }
+        return GENERIC;
+    }
+
+    public static String nameOf(int bucket) {
+        return NAMES[bucket];
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks, for each chunk of a {@link ChunkManager#requestChunks(Collection, Collection)} request to
+ * mesh, the number of chunks of the request still to be generated before it can be meshed.
+ * <p>
+ * A chunk to mesh at (x, y, z) depends on the chunks to generate in the columns (x-1..x+1, z-1..z+1)
+ * from y-1 upwards : its neighbours, whose blocks its mesh reads, and the chunks above them, whose
+ * sunlight reaches the empty chunks around it (see {@link ColumnSunlight}). Chunks outside the request
+ * are either in the cache already or not loaded at all (border chunks) : they are not waited for.
+ * <p>
+ * Threadsafe, as long as each location to generate is reported once.
+ *
+ * @author Cedric de Launois
+ */
+final class MeshDependencies {
+
+    // Location to mesh -> number of its dependencies still to be generated
+    private final ConcurrentLongMap<AtomicInteger> pending = new ConcurrentLongMap<>();
+    private final int minMeshY;
+
+    MeshDependencies(Collection<Vec3i> locationsToGenerate, Collection<Vec3i> locationsToMesh) {
+        LongHashSet toGenerate = new LongHashSet(locationsToGenerate.size());
+        int maxY = Integer.MIN_VALUE;
+        for (Vec3i location : locationsToGenerate) {
+            toGenerate.add(ChunkKey.of(location));
+            maxY = Math.max(maxY, location.y);
+        }
+
+        int minY = Integer.MAX_VALUE;
+        for (Vec3i location : locationsToMesh) {
+            minY = Math.min(minY, location.y);
+            int count = 0;
+            for (int x = location.x - 1; x <= location.x + 1; x++) {
+                for (int z = location.z - 1; z <= location.z + 1; z++) {
+                    for (int y = location.y - 1; y <= maxY; y++) {
+                        if (toGenerate.contains(ChunkKey.of(x, y, z))) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            pending.put(ChunkKey.of(location), new AtomicInteger(count));
+        }
+        minMeshY = minY;
+    }
+
+    /**
+     * @param location a location to mesh
+     * @return true if the chunks the location depends on are all generated
+     */
+    boolean isReady(Vec3i location) {
+        AtomicInteger count = pending.get(ChunkKey.of(location));
+        return count != null && count.get() == 0;
+    }
+
+    /**
+     * Records that the chunk at the given location of the request is generated (or failed to).
+     * @param location a location to generate
+     * @return the locations to mesh whose last dependency was the given location
+     */
+    List<Vec3i> onGenerated(Vec3i location) {
+        List<Vec3i> ready = Collections.emptyList();
+        for (int x = location.x - 1; x <= location.x + 1; x++) {
+            for (int z = location.z - 1; z <= location.z + 1; z++) {
+                for (int y = minMeshY; y <= location.y + 1; y++) {
+                    AtomicInteger count = pending.get(ChunkKey.of(x, y, z));
+                    if (count != null && count.decrementAndGet() == 0) {
+                        if (ready.isEmpty()) {
+                            ready = new ArrayList<>();
+                        }
+                        ready.add(new Vec3i(x, y, z));
+                    }
+                }
+            }
+        }
+        return ready;
+    }
+
+}
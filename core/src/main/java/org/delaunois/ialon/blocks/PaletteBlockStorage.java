@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import java.util.Arrays;
+
+/**
+ * The block ids of a chunk, packed as indices into a palette of the distinct ids : 0 bit per block for
+ * a single id, 4 bits for up to 16 ids, 8 bits for up to 256 ids. A chunk with more distinct ids keeps
+ * its plain {@code short[]} (16 bits per block).
+ * <p>
+ * Immutable : a chunk unpacks its blocks before changing them (see {@link Chunk#compact()}).
+ *
+ * @author Cedric de Launois
+ */
+final class PaletteBlockStorage {
+
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    // Palette index of each block, 8 bits, before the final packing
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[0]);
+
+    private final int length;
+    private final short[] palette;
+    private final int bits;
+    private final byte[] indices;
+
+    private PaletteBlockStorage(int length, short[] palette, int bits, byte[] indices) {
+        this.length = length;
+        this.palette = palette;
+        this.bits = bits;
+        this.indices = indices;
+    }
+
+    /**
+     * @param blocks the block ids
+     * @return the packed block ids, or null if they hold more than 256 distinct ids
+     */
+    static PaletteBlockStorage pack(short[] blocks) {
+        byte[] scratch = SCRATCH.get();
+        if (scratch.length < blocks.length) {
+            scratch = new byte[blocks.length];
+            SCRATCH.set(scratch);
+        }
+
+        short[] palette = new short[16];
+        int paletteSize = 0;
+        // Blocks come in runs (air, rock, water...) : the last id found short-circuits most lookups
+        short lastId = 0;
+        int lastIndex = -1;
+        for (int i = 0; i < blocks.length; i++) {
+            short id = blocks[i];
+            if (id != lastId || lastIndex < 0) {
+                lastIndex = indexOf(palette, paletteSize, id);
+                if (lastIndex < 0) {
+                    if (paletteSize == MAX_PALETTE_SIZE) {
+                        return null;
+                    }
+                    if (paletteSize == palette.length) {
+                        palette = Arrays.copyOf(palette, paletteSize * 2);
+                    }
+                    palette[paletteSize] = id;
+                    lastIndex = paletteSize++;
+                }
+                lastId = id;
+            }
+            scratch[i] = (byte) lastIndex;
+        }
+
+        palette = Arrays.copyOf(palette, paletteSize);
+        if (paletteSize <= 1) {
+            return new PaletteBlockStorage(blocks.length, palette, 0, null);
+        }
+        if (paletteSize <= 16) {
+            byte[] indices = new byte[(blocks.length + 1) / 2];
+            for (int i = 0; i < blocks.length; i++) {
+                indices[i >> 1] |= (byte) (scratch[i] << ((i & 1) << 2));
+            }
+            return new PaletteBlockStorage(blocks.length, palette, 4, indices);
+        }
+        return new PaletteBlockStorage(blocks.length, palette, 8, Arrays.copyOf(scratch, blocks.length));
+    }
+
+    /**
+     * @param index the index of the block in the chunk
+     * @return the id of the block
+     */
+    short get(int index) {
+        switch (bits) {
+            case 0:
+                return palette.length == 0 ? 0 : palette[0];
+            case 4:
+                return palette[(indices[index >> 1] >> ((index & 1) << 2)) & 0xF];
+            default:
+                return palette[indices[index] & 0xFF];
+        }
+    }
+
+    /**
+     * @return the block ids, in a new array
+     */
+    short[] unpack() {
+        short[] blocks = new short[length];
+        if (bits == 0) {
+            Arrays.fill(blocks, palette.length == 0 ? 0 : palette[0]);
+        } else if (bits == 4) {
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = palette[(indices[i >> 1] >> ((i & 1) << 2)) & 0xF];
+            }
+        } else {
+            for (int i = 0; i < blocks.length; i++) {
+                blocks[i] = palette[indices[i] & 0xFF];
+            }
+        }
+        return blocks;
+    }
+
+    /**
+     * @return the distinct block ids
+     */
+    short[] getPalette() {
+        return palette;
+    }
+
+    /**
+     * @return the number of bits per block : 0, 4 or 8
+     */
+    int getBits() {
+        return bits;
+    }
+
+    /**
+     * @return an estimate of the memory held by the packed blocks, in bytes
+     */
+    long getSize() {
+        return palette.length * (long) Short.BYTES + (indices == null ? 0 : indices.length);
+    }
+
+    private static int indexOf(short[] values, int size, short value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -24,12 +24,8 @@ import com.jme3.bullet.objects.PhysicsRigidBody;
 import com.jme3.math.Vector3f;
 import com.simsilica.mathd.Vec3i;
 
-import java.util.HashSet;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -60,6 +56,11 @@ public class PhysicsChunkPager {
     @Setter
     private int maxUpdatePerFrame = 10;
 
+    @Getter
+    @Setter
+    @NonNull
+    private FrameBudget frameBudget = FrameBudget.unlimited();
+
     @Getter
     @Setter
     private Vec3i gridLowerBounds = new Vec3i(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE);
@@ -75,8 +76,9 @@ public class PhysicsChunkPager {
     @Getter
     private boolean ready = false;
 
+    // Keyed by packed location (see ChunkKey)
     @Getter
-    private final Map<Vec3i, PhysicsRigidBody> attachedPages = new ConcurrentHashMap<>();
+    private final ConcurrentLongMap<PhysicsRigidBody> attachedPages = new ConcurrentLongMap<>();
 
     private final ChunkManagerListener listener = new PhysicsChunkPagerListener();
     private final Queue<Vec3i> pagesToCreate = new ConcurrentLinkedQueue<>();
@@ -85,6 +87,8 @@ public class PhysicsChunkPager {
     private ExecutorService requestExecutor;
     private final Vec3i min = new Vec3i();
     private final Vec3i max = new Vec3i();
+    // Scratch set reused across updateQueues() invocations (requestExecutor thread only)
+    private final LongHashSet pages = new LongHashSet();
 
     public PhysicsChunkPager(PhysicsSpace physicsSpace, @NonNull ChunkManager chunkManager) {
         this.physicsSpace = physicsSpace;
@@ -148,28 +152,27 @@ public class PhysicsChunkPager {
             log.debug("PhysicsGrid is set to ({}:{}, {}:{}, {}:{})", min.x, max.x, min.y, max.y, min.z, max.z);
         }
 
-        Set<Vec3i> pages = new HashSet<>();
         for (int x = min.x; x <= max.x; x++) {
             for (int y = min.y; y <= max.y; y++) {
                 for (int z = min.z; z <= max.z; z++) {
-                    pages.add(new Vec3i(x, y, z));
+                    pages.add(ChunkKey.of(x, y, z));
                 }
             }
         }
 
         // detach pages outside of the grid
         pagesToDetach.clear();
-        for (Vec3i page : attachedPages.keySet()) {
+        attachedPages.forEach((page, body) -> {
             if (!pages.contains(page)) {
-                pagesToDetach.offer(page);
+                pagesToDetach.offer(ChunkKey.toVec3i(page));
             }
-        }
+        });
 
-        for (Vec3i page : pages) {
+        pages.forEach(page -> {
             if (!attachedPages.containsKey(page)) {
-                pagesToCreate.offer(page);
+                pagesToCreate.offer(ChunkKey.toVec3i(page));
             }
-        }
+        });
 
         pages.clear();
     }
@@ -179,17 +182,20 @@ public class PhysicsChunkPager {
         int removed = 0;
 
         while (pageLocation != null) {
-            PhysicsRigidBody page = attachedPages.get(pageLocation);
+            long key = ChunkKey.of(pageLocation);
+            PhysicsRigidBody page = attachedPages.get(key);
             if (page == null) {
                 log.warn("Trying to detach page at location {} that isn't attached.", pageLocation);
             } else {
+                long start = System.nanoTime();
                 detachPage(page);
-                attachedPages.remove(pageLocation);
+                attachedPages.remove(key);
+                frameBudget.spendSince(start);
                 log.debug("{} physic page detached", pageLocation);
                 removed += 1;
             }
 
-            if (removed < maxUpdatePerFrame) {
+            if (removed < maxUpdatePerFrame && frameBudget.hasTime()) {
                 pageLocation = pagesToDetach.poll();
             } else {
                 // Timeout for this frame. Stop work now.
@@ -237,9 +243,10 @@ public class PhysicsChunkPager {
         int attached = 0;
 
         while (page != null) {
+            long start = System.nanoTime();
 
             // detach the old page if any
-            PhysicsRigidBody oldPage = attachedPages.remove(page.location);
+            PhysicsRigidBody oldPage = attachedPages.remove(ChunkKey.of(page.location));
             if (oldPage != null) {
                 log.debug("{} physic page detached", page.location);
                 detachPage(oldPage);
@@ -249,12 +256,13 @@ public class PhysicsChunkPager {
             PhysicsRigidBody node = page.physicsRigidBody;
             if (node != null) {
                 attachPage(node);
-                attachedPages.put(page.location, node);
+                attachedPages.put(ChunkKey.of(page.location), node);
                 log.debug("{} physic page attached", page.location);
                 attached += 1;
             }
+            frameBudget.spendSince(start);
 
-            if (attached < maxUpdatePerFrame) {
+            if (attached < maxUpdatePerFrame && frameBudget.hasTime()) {
                 page = pagesToAttach.poll();
             } else {
                 // Timeout for this frame. Stop work now.
@@ -275,7 +283,7 @@ public class PhysicsChunkPager {
         }
 
         if (chunk.getCollisionMesh() == null || chunk.getCollisionMesh().getTriangleCount() < 1 || physicsSpace == null) {
-            if (attachedPages.containsKey(chunk.getLocation())) {
+            if (attachedPages.containsKey(ChunkKey.of(chunk.getLocation()))) {
                 // Remove the page
                 log.debug("Collision mesh is empty for physic page {}. Requesting detach.", chunk.getLocation());
                 pagesToDetach.offer(chunk.getLocation());
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.jme3.util.BufferUtils;
+
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * The indices shared by all the chunk meshes made of quads only. Each quad of 4 vertices is split into
+ * the triangles 0, 1, 2 and 1, 3, 2, offset by 4 vertices per quad : the indices of such a mesh only
+ * depend on its number of quads. Instead of storing and copying its own indices, the mesh references a
+ * view of the first indices of a buffer built once.
+ * <p>
+ * The 16-bit indices are sized for the largest mesh addressable with unsigned shorts. The 32-bit
+ * indices, for the rare larger meshes, grow on demand.
+ *
+ * @author Cedric de Launois
+ */
+final class QuadIndices {
+
+    private static final int[] PATTERN = {0, 1, 2, 1, 3, 2};
+
+    // The number of indices of the largest quad list addressable with 16-bit indices : 65536 vertices
+    private static final int MAX_SHORT_INDICES = 65536 / 4 * 6;
+    private static final ShortBuffer SHORT_INDICES = createShortIndices();
+    private static IntBuffer intIndices = BufferUtils.createIntBuffer(0);
+
+    private QuadIndices() {
+    }
+
+    /**
+     * @param i the position of an index in a quad list
+     * @return the index at this position
+     */
+    static int get(int i) {
+        return i / 6 * 4 + PATTERN[i % 6];
+    }
+
+    /**
+     * @param count the number of indices, at most the indices of 65536 vertices
+     * @return a view of the first count shared 16-bit indices
+     */
+    static ShortBuffer getShortBuffer(int count) {
+        ShortBuffer view = SHORT_INDICES.duplicate();
+        view.limit(count);
+        return view.slice();
+    }
+
+    /**
+     * @param count the number of indices
+     * @return a view of the first count shared 32-bit indices
+     */
+    static synchronized IntBuffer getIntBuffer(int count) {
+        if (intIndices.capacity() < count) {
+            // Grow by whole quads
+            int capacity = Math.max(count, intIndices.capacity() * 2);
+            intIndices = BufferUtils.createIntBuffer(capacity - capacity % 6 + 6);
+            for (int i = 0; i < intIndices.capacity(); i++) {
+                intIndices.put(get(i));
+            }
+            intIndices.flip();
+        }
+        IntBuffer view = intIndices.duplicate();
+        view.limit(count);
+        return view.slice();
+    }
+
+    private static ShortBuffer createShortIndices() {
+        ShortBuffer indices = BufferUtils.createShortBuffer(MAX_SHORT_INDICES);
+        for (int i = 0; i < MAX_SHORT_INDICES; i++) {
+            indices.put((short) get(i));
+        }
+        indices.flip();
+        return indices;
+    }
+
+}
@@ -0,0 +1,592 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.blocks.protobuf.BlocksProtos;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A File repository implementation packing chunks into region files. A region holds a cube of
+ * {@link #REGION_SIZE} x {@link #REGION_SIZE} x {@link #REGION_SIZE} chunks (16x16 chunk columns of the
+ * whole world height), so a world is a handful of files instead of one ZIP per chunk.
+ * <p>
+ * A region file starts with a fixed offset table : one int per chunk, {@code (first sector << 8) |
+ * sector count}, 0 meaning the chunk is not stored. It is followed by {@link #SECTOR_SIZE}-byte
+ * sectors ; a stored chunk occupies consecutive sectors holding its payload length followed by its
+ * deflated {@code ChunkProto}, in the same palette format as {@link ZipFileRepository}.
+ * Chunks are read through a memory-mapped view of the file. A saved chunk is always written to free
+ * sectors before the offset table points to it, so an interrupted write never corrupts the previous
+ * version.
+ * <p>
+ * A world saved by {@link ZipFileRepository} is migrated in the background (see
+ * {@link #migrateInBackground(Path)}) : until it completes, the chunks not migrated yet are read from
+ * their legacy files.
+ *
+ * @author Cedric de Launois
+ */
+@Slf4j
+public class RegionFileRepository implements ChunkRepository {
+
+    public static final String EXTENSION = ".zregion";
+    public static final int REGION_SIZE = 16;
+    public static final int SECTOR_SIZE = 4096;
+
+    private static final int CHUNKS_PER_REGION = REGION_SIZE * REGION_SIZE * REGION_SIZE;
+    private static final int HEADER_SECTORS = CHUNKS_PER_REGION * Integer.BYTES / SECTOR_SIZE;
+    private static final int MAX_SECTORS_PER_CHUNK = 0xFF;
+    private static final long MIGRATION_STOP_TIMEOUT_MS = 5000;
+
+    /**
+     * The path to save regions to and load regions from.
+     */
+    @Getter
+    private final Path path;
+
+    /**
+     * Side of the finite (torus) world in chunks. When &gt; 0 a chunk is stored/loaded under its
+     * canonical coordinates (x and z reduced modulo this value), exactly like
+     * {@link ZipFileRepository#getWorldSizeChunks()}. 0 disables this (legacy infinite world).
+     */
+    @Getter
+    @Setter
+    private int worldSizeChunks;
+
+    // Open regions, by region coordinates. Regions stay open until close().
+    private final Map<Vec3i, Region> regions = new ConcurrentHashMap<>();
+
+    // The legacy chunk files of the running background migration, null when there is none. A chunk
+    // moves from its legacy file to its region under the migration lock, so a load holding the lock
+    // finds it in one of them.
+    private volatile ZipFileRepository legacy;
+    private final Object migrationLock = new Object();
+    private ExecutorService migrationExecutor;
+    // Set by close() : the migration stops before its next chunk
+    private volatile boolean migrationStopped;
+
+    public RegionFileRepository(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public Chunk load(Vec3i location) {
+        if (location == null || path == null) {
+            return null;
+        }
+
+        if (legacy != null) {
+            synchronized (migrationLock) {
+                ZipFileRepository source = legacy;
+                Chunk chunk = source == null ? null : source.load(location);
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+        }
+
+        return loadFromRegion(location);
+    }
+
+    private Chunk loadFromRegion(Vec3i location) {
+        long start = System.nanoTime();
+        Vec3i canonical = canonical(location);
+        byte[] data;
+        try {
+            Region region = getRegion(canonical, false);
+            if (region == null) {
+                return null;
+            }
+            data = region.read(getChunkIndex(canonical));
+        } catch (IOException e) {
+            log.error("Unable to read chunk {}: {}", location, e.getMessage(), e);
+            return null;
+        }
+
+        if (data == null) {
+            if (log.isTraceEnabled()) {
+                log.trace("Chunk {} not found in repository", location);
+            }
+            return null;
+        }
+
+        // Inflate outside the region lock : loads of neighbouring chunks run in parallel.
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(data))) {
+            // The region is keyed by the canonical (wrapped) coordinates, but the returned chunk must
+            // carry the REQUESTED location so it caches and renders at the right place around the player.
+            Chunk chunk = ZipFileRepository.chunkProtoToChunk(BlocksProtos.ChunkProto.parseFrom(in), location);
+            if (log.isTraceEnabled()) {
+                log.trace("Loading {} took {}ms", chunk, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return chunk;
+        } catch (IOException e) {
+            log.error("Unable to decode chunk {}: {}", location, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public boolean save(Chunk chunk) {
+        if (chunk == null || path == null) {
+            return false;
+        }
+
+        if (legacy != null) {
+            synchronized (migrationLock) {
+                ZipFileRepository source = legacy;
+                boolean saved = store(chunk);
+                if (saved && source != null) {
+                    // The region now holds the latest version : the migration must not bring back the
+                    // legacy one
+                    deleteLegacyFile(source.getChunkPath(chunk));
+                }
+                return saved;
+            }
+        }
+
+        return store(chunk);
+    }
+
+    private boolean store(Chunk chunk) {
+        long start = System.nanoTime();
+        Vec3i canonical = canonical(chunk.getLocation());
+        BlocksProtos.ChunkProto chunkProto = ZipFileRepository.chunkToChunkProto(chunk);
+        try {
+            Region region = getRegion(canonical, chunkProto != null);
+            if (region == null) {
+                // Empty chunk and no region yet : nothing to store
+                return true;
+            }
+
+            if (chunkProto == null) {
+                region.delete(getChunkIndex(canonical));
+            } else {
+                region.write(getChunkIndex(canonical), deflate(chunkProto));
+            }
+
+            if (log.isTraceEnabled()) {
+                log.trace("Saving {} took {}ms", chunk, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return true;
+
+        } catch (IOException e) {
+            log.error("Unable to save chunk {}: {}", chunk, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Closes the open region files. The repository stays usable : regions are reopened on demand.
+     * A running background migration stops after its current chunk, and resumes with the next
+     * {@link #migrateInBackground(Path)} ; until then only the regions are read.
+     */
+    @Override
+    public void close() {
+        if (migrationExecutor != null) {
+            // Not interrupted : an interrupt inside a channel write would close the channel of the region
+            migrationStopped = true;
+            migrationExecutor.shutdown();
+            try {
+                if (!migrationExecutor.awaitTermination(MIGRATION_STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    log.warn("Migration of {} did not stop within {}ms", path.toAbsolutePath(), MIGRATION_STOP_TIMEOUT_MS);
+                }
+            } catch (InterruptedException e) {
+                log.error("Interrupted while stopping the migration of {}", path.toAbsolutePath());
+                Thread.currentThread().interrupt();
+            }
+        }
+        legacy = null;
+
+        synchronized (migrationLock) {
+            synchronized (regions) {
+                regions.values().forEach(Region::close);
+                regions.clear();
+            }
+        }
+    }
+
+    /**
+     * Runs {@link #migrateFrom(Path)} on a background thread, so that opening a world saved as .zblock
+     * files does not block the caller (the render thread). Until the migration completes, the chunks
+     * not migrated yet are loaded from their legacy files, and saving a chunk deletes its legacy file.
+     *
+     * @param zblockDirectory the directory holding the .zblock files
+     * @return the number of migrated chunks, when the migration completes
+     */
+    public Future<Integer> migrateInBackground(@NonNull Path zblockDirectory) {
+        ZipFileRepository source = new ZipFileRepository(zblockDirectory);
+        source.setWorldSizeChunks(worldSizeChunks);
+        legacy = source;
+        migrationStopped = false;
+
+        if (migrationExecutor == null || migrationExecutor.isShutdown()) {
+            migrationExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                    .setNameFormat("region-migration-%d")
+                    .setDaemon(true)
+                    .build());
+        }
+        return migrationExecutor.submit(() -> {
+            int migrated = migrateFrom(zblockDirectory);
+            legacy = null;
+            return migrated;
+        });
+    }
+
+    /**
+     * One-shot migration of a world saved by {@link ZipFileRepository} (one chunk_x_y_z.zblock file per
+     * chunk) into region files. Each chunk file is deleted once its chunk is stored in its region, so an
+     * interrupted migration simply resumes on the next call. A chunk already stored in its region was
+     * saved after the migration started : its region version is kept.
+     *
+     * @param zblockDirectory the directory holding the .zblock files
+     * @return the number of migrated chunks
+     */
+    public int migrateFrom(@NonNull Path zblockDirectory) {
+        if (!Files.isDirectory(zblockDirectory)) {
+            return 0;
+        }
+
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(zblockDirectory)) {
+            files = entries.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().endsWith(ZipFileRepository.EXTENSION))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.error("Unable to scan {}: {}", zblockDirectory.toAbsolutePath(), e.getMessage(), e);
+            return 0;
+        }
+
+        if (files.isEmpty()) {
+            return 0;
+        }
+
+        long start = System.nanoTime();
+        ZipFileRepository source = new ZipFileRepository(zblockDirectory);
+        int migrated = 0;
+        for (Path file : files) {
+            synchronized (migrationLock) {
+                if (migrationStopped) {
+                    log.info("Migration of {} stopped", zblockDirectory.toAbsolutePath());
+                    break;
+                }
+                if (Files.notExists(file)) {
+                    // Saved meanwhile : the region already holds the latest version
+                    continue;
+                }
+
+                Chunk chunk = source.load(file);
+                if (chunk == null) {
+                    log.warn("Skipped unreadable chunk file {}", file.toAbsolutePath());
+                    continue;
+                }
+
+                if (isStored(chunk.getLocation())) {
+                    // Saved while the migration was stopped (see close())
+                    deleteLegacyFile(file);
+                    continue;
+                }
+
+                if (store(chunk) && deleteLegacyFile(file)) {
+                    migrated += 1;
+                }
+            }
+        }
+
+        log.info("Migrated {} chunks from {} into region files in {}ms", migrated,
+                zblockDirectory.toAbsolutePath(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return migrated;
+    }
+
+    private boolean isStored(Vec3i location) {
+        Vec3i canonical = canonical(location);
+        try {
+            Region region = getRegion(canonical, false);
+            return region != null && region.contains(getChunkIndex(canonical));
+        } catch (IOException e) {
+            log.error("Unable to read chunk {}: {}", location, e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private static boolean deleteLegacyFile(Path file) {
+        try {
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            log.error("Unable to delete migrated chunk file {}: {}", file.toAbsolutePath(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    public static String getRegionFilename(@NonNull Vec3i regionLocation) {
+        return "region_" + regionLocation.x + "_" + regionLocation.y + "_" + regionLocation.z + EXTENSION;
+    }
+
+    /**
+     * @return the location of the region holding the chunk at the given location
+     */
+    public static Vec3i getRegionLocation(@NonNull Vec3i chunkLocation) {
+        return new Vec3i(
+                Math.floorDiv(chunkLocation.x, REGION_SIZE),
+                Math.floorDiv(chunkLocation.y, REGION_SIZE),
+                Math.floorDiv(chunkLocation.z, REGION_SIZE));
+    }
+
+    /**
+     * @return the canonical chunk coordinates : x and z reduced modulo {@link #worldSizeChunks} (y is
+     * left untouched : the world is not vertically circular). Returns the location unchanged when the
+     * world is infinite ({@code worldSizeChunks <= 0}).
+     */
+    private Vec3i canonical(@NonNull Vec3i location) {
+        if (worldSizeChunks <= 0) {
+            return location;
+        }
+        return new Vec3i(Math.floorMod(location.x, worldSizeChunks), location.y, Math.floorMod(location.z, worldSizeChunks));
+    }
+
+    private static int getChunkIndex(@NonNull Vec3i chunkLocation) {
+        int x = Math.floorMod(chunkLocation.x, REGION_SIZE);
+        int y = Math.floorMod(chunkLocation.y, REGION_SIZE);
+        int z = Math.floorMod(chunkLocation.z, REGION_SIZE);
+        return z + (y + x * REGION_SIZE) * REGION_SIZE;
+    }
+
+    private Region getRegion(Vec3i chunkLocation, boolean create) throws IOException {
+        Vec3i regionLocation = getRegionLocation(chunkLocation);
+        Region region = regions.get(regionLocation);
+        if (region != null) {
+            return region;
+        }
+
+        Path file = path.resolve(getRegionFilename(regionLocation));
+        if (!create && Files.notExists(file)) {
+            return null;
+        }
+
+        synchronized (regions) {
+            region = regions.get(regionLocation);
+            if (region == null) {
+                if (Files.notExists(path)) {
+                    Files.createDirectories(path);
+                    log.info("Created directory: {}", path.toAbsolutePath());
+                }
+                region = new Region(file);
+                regions.put(regionLocation, region);
+            }
+        }
+        return region;
+    }
+
+    private static byte[] deflate(BlocksProtos.ChunkProto chunkProto) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(SECTOR_SIZE);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            chunkProto.writeTo(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * An open region file : its offset table, the sector allocation map and the read-only mapping.
+     * All methods are synchronized ; only the (small) copies in and out of the file happen under the
+     * lock, the (de)compression is done by the caller.
+     * <p>
+     * The mapping is shared with the file, so the sectors written through the channel are seen through
+     * it : it is only remapped when a chunk is written past its end.
+     */
+    private static final class Region {
+
+        private final Path file;
+        private final FileChannel channel;
+        private final int[] offsets = new int[CHUNKS_PER_REGION];
+        private final BitSet usedSectors = new BitSet();
+        private MappedByteBuffer mapped;
+
+        Region(Path file) throws IOException {
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            usedSectors.set(0, HEADER_SECTORS);
+
+            if (channel.size() < (long) HEADER_SECTORS * SECTOR_SIZE) {
+                if (channel.size() > 0) {
+                    log.warn("Truncated region file {}, resetting it", file.toAbsolutePath());
+                }
+                writeFully(ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE), 0);
+                return;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    break;
+                }
+            }
+            header.flip();
+            header.asIntBuffer().get(offsets);
+
+            long fileSectors = (channel.size() + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            for (int i = 0; i < offsets.length; i++) {
+                int sector = offsets[i] >>> 8;
+                int count = offsets[i] & 0xFF;
+                if (offsets[i] == 0) {
+                    continue;
+                }
+                if (sector < HEADER_SECTORS || count == 0 || sector + count > fileSectors) {
+                    log.warn("Invalid offset for chunk {} in region file {}, dropping it", i, file.toAbsolutePath());
+                    offsets[i] = 0;
+                    continue;
+                }
+                usedSectors.set(sector, sector + count);
+            }
+        }
+
+        synchronized boolean contains(int index) {
+            return offsets[index] != 0;
+        }
+
+        synchronized byte[] read(int index) throws IOException {
+            int offset = offsets[index];
+            if (offset == 0) {
+                return null;
+            }
+
+            if (mapped == null) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+
+            int sector = offset >>> 8;
+            int count = offset & 0xFF;
+            ByteBuffer view = mapped.duplicate();
+            view.position(sector * SECTOR_SIZE);
+            int length = view.getInt();
+            if (length <= 0 || length > count * SECTOR_SIZE - Integer.BYTES) {
+                log.warn("Invalid length {} for chunk {} in region file {}", length, index, file.toAbsolutePath());
+                return null;
+            }
+
+            byte[] data = new byte[length];
+            view.get(data);
+            return data;
+        }
+
+        synchronized void write(int index, byte[] data) throws IOException {
+            int count = (data.length + Integer.BYTES + SECTOR_SIZE - 1) / SECTOR_SIZE;
+            if (count > MAX_SECTORS_PER_CHUNK) {
+                throw new IOException("Chunk data too large for a region file: " + data.length + " bytes");
+            }
+
+            // Write into free sectors first, then point the offset table to them and only then release
+            // the previous sectors of the chunk.
+            int sector = allocate(count);
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + data.length);
+            buffer.putInt(data.length).put(data).flip();
+            writeFully(buffer, (long) sector * SECTOR_SIZE);
+            usedSectors.set(sector, sector + count);
+
+            int previous = offsets[index];
+            setOffset(index, (sector << 8) | count);
+            release(previous);
+            if (mapped != null && (long) sector * SECTOR_SIZE + buffer.limit() > mapped.capacity()) {
+                // The file grew past the mapping
+                mapped = null;
+            }
+        }
+
+        synchronized void delete(int index) throws IOException {
+            int previous = offsets[index];
+            if (previous == 0) {
+                return;
+            }
+            setOffset(index, 0);
+            release(previous);
+        }
+
+        synchronized void close() {
+            mapped = null;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Unable to close region file {}: {}", file.toAbsolutePath(), e.getMessage(), e);
+            }
+        }
+
+        /**
+         * @return the first sector of the first run of {@code count} free sectors (first fit), possibly
+         * past the end of the file
+         */
+        private int allocate(int count) {
+            int start = usedSectors.nextClearBit(HEADER_SECTORS);
+            while (true) {
+                int end = usedSectors.nextSetBit(start);
+                if (end < 0 || end - start >= count) {
+                    return start;
+                }
+                start = usedSectors.nextClearBit(end);
+            }
+        }
+
+        private void release(int offset) {
+            if (offset != 0) {
+                int sector = offset >>> 8;
+                usedSectors.clear(sector, sector + (offset & 0xFF));
+            }
+        }
+
+        private void setOffset(int index, int offset) throws IOException {
+            offsets[index] = offset;
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+            buffer.putInt(offset).flip();
+            writeFully(buffer, (long) index * Integer.BYTES);
+        }
+
+        private void writeFully(ByteBuffer buffer, long position) throws IOException {
+            long pos = position;
+            while (buffer.hasRemaining()) {
+                pos += channel.write(buffer, pos);
+            }
+        }
+    }
+
+}
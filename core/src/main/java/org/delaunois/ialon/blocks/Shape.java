@@ -43,6 +43,10 @@ public interface Shape {
     int DIRECTIONS_SIZE = Direction.values().length;
     Direction[] FACES_DIR = {UP,DOWN,WEST,EAST,SOUTH,NORTH,DOWN,UP,EAST,WEST,NORTH,SOUTH,WEST,WEST,DOWN,UP,WEST,WEST,EAST,EAST,UP,DOWN,EAST,EAST,SOUTH,NORTH,SOUTH,SOUTH,DOWN,UP,NORTH,SOUTH,NORTH,NORTH,UP,DOWN};
 
+    // Collision boxes (see getCollisionBoxes) of a full block and of a shape without collision
+    float[] FULL_BOX = {-0.5f, -0.5f, -0.5f, 0.5f, 0.5f, 0.5f};
+    float[] NO_BOX = {};
+
     /**
      * Adds the shape at the location in the chunk to the chunk mesh.
      *
@@ -74,6 +78,51 @@ public interface Shape {
         return false;
     }
 
+    /**
+     * The axis-aligned boxes approximating the shape for the voxel collisions (see {@link VoxelCollider}), in
+     * the block-local coordinates of the shape vertices : the block spans [-0.5, 0.5] on each axis. Each box is
+     * 6 consecutive values : min x, y, z then max x, y, z. A full block by default.
+     *
+     * @return the collision boxes, never modified by the caller
+     */
+    default float[] getCollisionBoxes() {
+        return FULL_BOX;
+    }
+
+    /**
+     * A helper method that rotates collision boxes (see {@link #getCollisionBoxes()}) the same way the shape
+     * rotates its vertices. The rotations of the shapes are quarter turns : the rotated boxes stay axis-aligned.
+     *
+     * @param rotation the rotation of the shape, or null for none
+     * @param boxes the boxes of the shape before rotation
+     * @return the rotated boxes, in a new array
+     */
+    static float[] rotateBoxes(Quaternion rotation, float... boxes) {
+        float[] result = new float[boxes.length];
+        Vector3f min = new Vector3f();
+        Vector3f max = new Vector3f();
+        for (int i = 0; i < boxes.length; i += 6) {
+            min.set(boxes[i], boxes[i + 1], boxes[i + 2]);
+            max.set(boxes[i + 3], boxes[i + 4], boxes[i + 5]);
+            if (rotation != null) {
+                rotation.multLocal(min);
+                rotation.multLocal(max);
+            }
+            // Snap the rounding errors of the rotation, so that faces at +-0.5 stay flush with the block
+            result[i] = snap(Math.min(min.x, max.x));
+            result[i + 1] = snap(Math.min(min.y, max.y));
+            result[i + 2] = snap(Math.min(min.z, max.z));
+            result[i + 3] = snap(Math.max(min.x, max.x));
+            result[i + 4] = snap(Math.max(min.y, max.y));
+            result[i + 5] = snap(Math.max(min.z, max.z));
+        }
+        return result;
+    }
+
+    private static float snap(float value) {
+        return Math.round(value * 10000f) / 10000f;
+    }
+
     /**
      * A helper method that offsets a vertex based on the location of the block in the chunk and the block scale.
      *
@@ -107,7 +156,8 @@ public interface Shape {
      * @param v0 v1 v2 v3   the 4 local vertices, in the emission order the legacy {@code createXxx()} used
      * @param normal        the (already world-oriented) face normal, shared across the 4 vertices
      * @param uvs           the 4 texture coordinates
-     * @param flip          when {@code true}, swaps the triangle diagonal (used by smooth-shadow AO)
+     * @param flip          when {@code true}, swaps the triangle diagonal (used by smooth-shadow AO). The
+     *                      colors of a flipped quad must be added before it.
      * @param collisionMesh when {@code true}, only positions + indices are emitted (no normals / uvs)
      */
     static void emitQuad(ChunkMesh mesh, Vec3i location, float blockScale, Quaternion rotation,
@@ -115,28 +165,28 @@ public interface Shape {
                          Vector3f normal, Vector2f[] uvs, boolean flip, boolean collisionMesh) {
         int offset = mesh.getPositions().size();
         Vector3f scratch = VERTEX_SCRATCH.get();
-        emitVertex(mesh, scratch, rotation, v0, location, blockScale);
-        emitVertex(mesh, scratch, rotation, v1, location, blockScale);
-        emitVertex(mesh, scratch, rotation, v2, location, blockScale);
-        emitVertex(mesh, scratch, rotation, v3, location, blockScale);
-
-        DirectIntBuffer indices = mesh.getIndices();
         if (flip) {
-            indices.add(offset + 1);
-            indices.add(offset + 3);
-            indices.add(offset);
-            indices.add(offset + 3);
-            indices.add(offset + 2);
-            indices.add(offset);
+            // The triangles 1, 3, 0 and 3, 2, 0 : the vertices are emitted as 1, 3, 0, 2 so that the
+            // quad keeps the index pattern shared by all the quads (see QuadIndices)
+            emitVertex(mesh, scratch, rotation, v1, location, blockScale);
+            emitVertex(mesh, scratch, rotation, v3, location, blockScale);
+            emitVertex(mesh, scratch, rotation, v0, location, blockScale);
+            emitVertex(mesh, scratch, rotation, v2, location, blockScale);
         } else {
-            indices.add(offset);
-            indices.add(offset + 1);
-            indices.add(offset + 2);
-            indices.add(offset + 1);
-            indices.add(offset + 3);
-            indices.add(offset + 2);
+            emitVertex(mesh, scratch, rotation, v0, location, blockScale);
+            emitVertex(mesh, scratch, rotation, v1, location, blockScale);
+            emitVertex(mesh, scratch, rotation, v2, location, blockScale);
+            emitVertex(mesh, scratch, rotation, v3, location, blockScale);
         }
 
+        DirectIntBuffer indices = mesh.getIndices();
+        indices.add(offset);
+        indices.add(offset + 1);
+        indices.add(offset + 2);
+        indices.add(offset + 1);
+        indices.add(offset + 3);
+        indices.add(offset + 2);
+
         if (!collisionMesh) {
             DirectVector3fBuffer normals = mesh.getNormals();
             normals.add(normal);
@@ -144,10 +194,21 @@ public interface Shape {
             normals.add(normal);
             normals.add(normal);
             DirectVector2fBuffer uvBuffer = mesh.getUvs();
-            uvBuffer.add(uvs[0]);
-            uvBuffer.add(uvs[1]);
-            uvBuffer.add(uvs[2]);
-            uvBuffer.add(uvs[3]);
+            if (flip) {
+                uvBuffer.add(uvs[1]);
+                uvBuffer.add(uvs[3]);
+                uvBuffer.add(uvs[0]);
+                uvBuffer.add(uvs[2]);
+                // The colors of the quad, added before it, follow the vertices
+                if (mesh.getColors().size() == offset + 4) {
+                    mesh.getColors().reorderFlippedQuad(offset);
+                }
+            } else {
+                uvBuffer.add(uvs[0]);
+                uvBuffer.add(uvs[1]);
+                uvBuffer.add(uvs[2]);
+                uvBuffer.add(uvs[3]);
+            }
         }
     }
 
@@ -22,6 +22,7 @@ import org.delaunois.ialon.blocks.shapes.StairsInnerCorner;
 import org.delaunois.ialon.blocks.shapes.StairsOuterCorner;
 import org.delaunois.ialon.blocks.shapes.Wedge;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.concurrent.ConcurrentHashMap;
@@ -33,6 +34,8 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * A thread safe register for shapes. The register is used so only one instance of a shape is used throughout the Blocks
  * framework.
+ * Each shape name is given a small integer id when first registered, so that hot loops can fetch the shape with an
+ * array lookup ({@link #get(int)}, {@link #getLiquid(int)}) instead of hashing its name.
  *
  * @author rvandoosselaer
  */
@@ -40,6 +43,11 @@ import lombok.extern.slf4j.Slf4j;
 public class ShapeRegistry {
 
     private final ConcurrentMap<String, Shape> shapeRegistry = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> shapeIds = new ConcurrentHashMap<>();
+    // Indexed by shape id. Copied on write : readers never lock.
+    private volatile Shape[] shapes = new Shape[0];
+    // Indexed by liquid level (1 to Block.LIQUID_FULL)
+    private volatile Shape[] liquidShapes = new Shape[Block.LIQUID_FULL + 1];
 
     /**
      * Will register default shapes
@@ -60,6 +68,7 @@ public class ShapeRegistry {
         }
 
         shapeRegistry.put(name, shape);
+        index(name, shape);
         if (log.isTraceEnabled()) {
             log.trace("Registered shape {} -> {}", name, shape);
         }
@@ -74,9 +83,40 @@ public class ShapeRegistry {
         return s;
     }
 
+    /**
+     * @param id the shape id, see {@link #getId(String)}
+     * @return the shape with the given id, or null if none
+     */
+    public Shape get(int id) {
+        Shape[] array = shapes;
+        return id >= 0 && id < array.length ? array[id] : null;
+    }
+
+    /**
+     * @param level the liquid level, from 1 to {@link Block#LIQUID_FULL}
+     * @return the liquid shape of the given level, or null if none
+     */
+    public Shape getLiquid(int level) {
+        Shape[] array = liquidShapes;
+        return level > 0 && level < array.length ? array[level] : null;
+    }
+
+    /**
+     * Returns the id of the given shape name, assigning a new one if the name is unknown. The id of a name never
+     * changes, even when its shape is replaced or removed.
+     *
+     * @param name the shape name
+     * @return the shape id
+     */
+    public int getId(@NonNull String name) {
+        Integer id = shapeIds.get(name);
+        return id != null ? id : index(name, shapeRegistry.get(name));
+    }
+
     public boolean remove(@NonNull String name) {
         if (shapeRegistry.containsKey(name)) {
             Shape shape = shapeRegistry.remove(name);
+            index(name, null);
             if (log.isTraceEnabled()) {
                 log.trace("Removed shape {} -> {}", name, shape);
             }
@@ -85,14 +125,46 @@ public class ShapeRegistry {
         return false;
     }
 
-    public void clear() {
+    public synchronized void clear() {
         shapeRegistry.clear();
+        shapes = new Shape[shapes.length];
+        liquidShapes = new Shape[Block.LIQUID_FULL + 1];
     }
 
     public Collection<String> getAll() {
         return Collections.unmodifiableCollection(shapeRegistry.keySet());
     }
 
+    private synchronized int index(String name, Shape shape) {
+        Integer known = shapeIds.get(name);
+        int id = known != null ? known : shapeIds.size();
+        shapeIds.put(name, id);
+        Shape[] array = shapes.length > id ? shapes.clone() : Arrays.copyOf(shapes, id + 1);
+        array[id] = shape;
+        shapes = array;
+
+        int level = liquidLevelOf(name);
+        if (level > 0) {
+            Shape[] liquids = liquidShapes.clone();
+            liquids[level] = shape;
+            liquidShapes = liquids;
+        }
+        return id;
+    }
+
+    private static int liquidLevelOf(String name) {
+        if (ShapeIds.LIQUID.equals(name)) {
+            return Block.LIQUID_FULL;
+        }
+        // ShapeIds.ALL_LIQUID[level] is the shape of the flowing liquid of the given level
+        for (int level = 1; level < ShapeIds.ALL_LIQUID.length; level++) {
+            if (ShapeIds.ALL_LIQUID[level].equals(name)) {
+                return level;
+            }
+        }
+        return 0;
+    }
+
     public void registerDefaultShapes() {
         registerCubes();
 
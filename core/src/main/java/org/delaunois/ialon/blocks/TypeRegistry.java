@@ -42,6 +42,10 @@ import static java.util.Optional.empty;
  * {@code .j3m} {@code material} rendered directly (procedural fire/lava, kept out of the array as it carries no
  * diffuse tile) via {@link #registerMaterial(String, String)}. The former filename-convention theme lookup is gone :
  * the asset paths are supplied explicitly by the caller (from the YAML block catalog).
+ * <p>
+ * Each type name is also given a small integer id ({@link #getId(String)}), resolved once per block at registration,
+ * so the meshing loop assigns the texture layers by id ({@link #assignLayers(int, FloatBuffer, int, int,
+ * DirectFloatBuffer)}) without hashing the type name.
  *
  * @author rvandoosselaer
  */
@@ -61,6 +65,10 @@ public class TypeRegistry {
     // type name -> layer index(es) : single tile => [layer] ; multi (top/side/bottom) => 3 consecutive
     // layers matching the vertical thirds the shape emits (base+floor(v*3)).
     private final Map<String, int[]> typeLayers = new ConcurrentHashMap<>();
+    // type name -> small integer id, assigned on first use (see getId) and never reassigned
+    private final Map<String, Integer> typeIds = new ConcurrentHashMap<>();
+    // type id -> layer index(es) : the array-indexed view of typeLayers read by the meshing loop
+    private volatile int[][] layersById = new int[0][];
 
     public TypeRegistry(@NonNull AssetManager assetManager) {
         this.assetManager = assetManager;
@@ -185,6 +193,15 @@ public class TypeRegistry {
         array.setWrap(Texture.WrapMode.Repeat);
         array.getImage().setColorSpace(ColorSpace.sRGB);
         blockTextureArray = array;
+        typeLayers.keySet().forEach(this::getId);
+        int[][] byId = new int[typeIds.size()][];
+        typeLayers.forEach((name, layers) -> {
+            int id = getId(name);
+            if (id < byId.length) {
+                byId[id] = layers;
+            }
+        });
+        layersById = byId;
         log.info("Built block texture array : {} layers of {}x{} for {} block types",
                 layerImages.size(), tileSize, tileSize, typeLayers.size());
     }
@@ -276,10 +293,19 @@ public class TypeRegistry {
      * untouched with no layer emitted.
      */
     public void assignLayers(@NonNull String name, FloatBuffer uvBuf, int position, int len, DirectFloatBuffer layerBuf) {
+        assignLayers(getId(name), uvBuf, position, len, layerBuf);
+    }
+
+    /**
+     * Same as {@link #assignLayers(String, FloatBuffer, int, int, DirectFloatBuffer)}, for the type with the given
+     * id (see {@link #getId(String)}).
+     */
+    public void assignLayers(int typeId, FloatBuffer uvBuf, int position, int len, DirectFloatBuffer layerBuf) {
         if (blockTextureArray == null) {
             getBlockTextureArray();
         }
-        int[] layers = typeLayers.get(name);
+        int[][] byId = layersById;
+        int[] layers = typeId >= 0 && typeId < byId.length ? byId[typeId] : null;
         if (layers == null || len <= 0) {
             return;
         }
@@ -304,6 +330,19 @@ public class TypeRegistry {
         }
     }
 
+    /**
+     * @param typeId the id of the type (see {@link #getId(String)})
+     * @return the texture layer(s) of the type : one for a single tile, three (bottom, side, top) for a
+     * multi tile, or null if the type is absent from the texture array
+     */
+    public int[] getLayers(int typeId) {
+        if (blockTextureArray == null) {
+            getBlockTextureArray();
+        }
+        int[][] byId = layersById;
+        return typeId >= 0 && typeId < byId.length ? byId[typeId] : null;
+    }
+
     public Material register(@NonNull String name, @NonNull Material material) {
         if (name.isEmpty()) {
             throw new IllegalArgumentException("Invalid type name " + name + " specified.");
@@ -318,6 +357,28 @@ public class TypeRegistry {
         return material;
     }
 
+    /**
+     * Returns the id of the given type name, assigning a new one if the name is unknown, so that blocks may be
+     * registered before their type. The id of a name never changes.
+     *
+     * @param name the type name
+     * @return the type id
+     */
+    public int getId(@NonNull String name) {
+        Integer id = typeIds.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (typeIds) {
+            id = typeIds.get(name);
+            if (id == null) {
+                id = typeIds.size();
+                typeIds.put(name, id);
+            }
+            return id;
+        }
+    }
+
     public Material get(String name) {
         Material material = registry.get(name);
         if (material == null) {
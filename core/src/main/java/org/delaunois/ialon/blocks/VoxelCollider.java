@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+/**
+ * Collides axis-aligned boxes with the blocks of the chunks, without a physics engine : the blocks are
+ * read directly from the chunks in the cache, so nothing has to be built or paged when the chunks change.
+ * Solid blocks collide with the boxes of their shape (see {@link Shape#getCollisionBoxes()}), other blocks
+ * and chunks not in the cache are empty.
+ * <p>
+ * A box is 6 values in world coordinates : min x, y, z then max x, y, z. The block at (x, y, z) spans
+ * [x, x + 1] * blockScale on each axis.
+ * <p>
+ * Not threadsafe : one instance per moving body.
+ *
+ * @author Cedric de Launois
+ */
+public class VoxelCollider {
+
+    public static final int X = 0;
+    public static final int Y = 1;
+    public static final int Z = 2;
+
+    // Tolerance of the contacts : boxes touching within EPSILON do not overlap
+    private static final float EPSILON = 1e-4f;
+
+    private final ChunkManager chunkManager;
+    private final float blockScale;
+    private final Vec3i chunkSize;
+
+    // The last chunk looked up during a sweep : consecutive cells are mostly in the same chunk
+    private Vec3i chunkLocation;
+    private Chunk chunk;
+
+    public VoxelCollider(ChunkManager chunkManager) {
+        this.chunkManager = chunkManager;
+        this.blockScale = BlocksConfig.getInstance().getBlockScale();
+        this.chunkSize = BlocksConfig.getInstance().getChunkSize();
+    }
+
+    /**
+     * Computes how far the box can move along an axis before touching a solid block. The box is not moved.
+     * The blocks the box already overlaps are ignored, so that a box stuck in a block can get out of it.
+     *
+     * @param box the box, in world coordinates
+     * @param axis the axis of the move : {@link #X}, {@link #Y} or {@link #Z}
+     * @param distance the distance to move, negative towards the min of the axis
+     * @return the distance the box can move, between 0 and the given distance
+     */
+    public float sweep(float[] box, int axis, float distance) {
+        if (distance == 0) {
+            return 0;
+        }
+
+        // Work in block units : a block spans [x, x + 1]
+        float d = distance / blockScale;
+        int a1 = (axis + 1) % 3;
+        int a2 = (axis + 2) % 3;
+        float min = box[axis] / blockScale;
+        float max = box[axis + 3] / blockScale;
+        float min1 = box[a1] / blockScale;
+        float max1 = box[a1 + 3] / blockScale;
+        float min2 = box[a2] / blockScale;
+        float max2 = box[a2 + 3] / blockScale;
+
+        // The cells crossed by the move, and the cells the box overlaps on the other axes
+        int from = d > 0 ? floor(max - EPSILON) : floor(min + d);
+        int to = d > 0 ? floor(max + d) : floor(min + EPSILON);
+        int from1 = floor(min1 + EPSILON);
+        int to1 = floor(max1 - EPSILON);
+        int from2 = floor(min2 + EPSILON);
+        int to2 = floor(max2 - EPSILON);
+
+        // Chunks are replaced when edited : never reuse the chunk of a previous sweep
+        chunkLocation = null;
+        int[] cell = new int[3];
+        for (int c = from; c <= to; c++) {
+            cell[axis] = c;
+            for (int c1 = from1; c1 <= to1; c1++) {
+                cell[a1] = c1;
+                for (int c2 = from2; c2 <= to2; c2++) {
+                    cell[a2] = c2;
+                    Block block = getBlock(cell[X], cell[Y], cell[Z]);
+                    if (block == null || !block.isSolid()) {
+                        continue;
+                    }
+
+                    float[] boxes = block.getResolvedShape().getCollisionBoxes();
+                    for (int i = 0; i < boxes.length; i += 6) {
+                        // Shape boxes are centered on the block : [-0.5, 0.5] maps to [c, c + 1]
+                        float bMin = c + 0.5f + boxes[i + axis];
+                        float bMax = c + 0.5f + boxes[i + axis + 3];
+                        float bMin1 = c1 + 0.5f + boxes[i + a1];
+                        float bMax1 = c1 + 0.5f + boxes[i + a1 + 3];
+                        float bMin2 = c2 + 0.5f + boxes[i + a2];
+                        float bMax2 = c2 + 0.5f + boxes[i + a2 + 3];
+                        if (bMin1 >= max1 - EPSILON || bMax1 <= min1 + EPSILON
+                                || bMin2 >= max2 - EPSILON || bMax2 <= min2 + EPSILON) {
+                            continue;
+                        }
+
+                        if (d > 0 && bMin >= max - EPSILON) {
+                            d = Math.max(0, Math.min(d, bMin - max));
+                        } else if (d < 0 && bMax <= min + EPSILON) {
+                            d = Math.min(0, Math.max(d, bMax - min));
+                        }
+                    }
+                }
+            }
+        }
+
+        return d * blockScale;
+    }
+
+    private Block getBlock(int x, int y, int z) {
+        int cx = Math.floorDiv(x, chunkSize.x);
+        int cy = Math.floorDiv(y, chunkSize.y);
+        int cz = Math.floorDiv(z, chunkSize.z);
+        if (chunkLocation == null || chunkLocation.x != cx || chunkLocation.y != cy || chunkLocation.z != cz) {
+            chunkLocation = new Vec3i(cx, cy, cz);
+            chunk = chunkManager.getChunk(chunkLocation).orElse(null);
+        }
+        if (chunk == null) {
+            return null;
+        }
+        return chunk.getBlock(
+                Math.floorMod(x, chunkSize.x),
+                Math.floorMod(y, chunkSize.y),
+                Math.floorMod(z, chunkSize.z));
+    }
+
+    private static int floor(float value) {
+        return (int) Math.floor(value);
+    }
+
+}
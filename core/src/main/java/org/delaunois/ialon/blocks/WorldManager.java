@@ -12,12 +12,14 @@ import com.simsilica.mathd.Vec3i;
 import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -160,17 +162,22 @@ public class WorldManager {
         // Request chunk updates of neighbour blocks only if block is at the border of the chunk
         chunks.addAll(getAdjacentChunks(chunk, blockLocationInsideChunk, BlocksConfig.getInstance().getChunkSize()));
 
+        Supplier<Collection<Vec3i>> lightUpdate = null;
         if (chunkLightManager != null) {
             // Computes the light if the block is a torch
-            if (block.isTorchlight()) {
-                chunks.addAll(chunkLightManager.addTorchlight(blockLocationInsideChunk, chunk, 15));
-            } else {
-                chunks.addAll(chunkLightManager.removeSunlight(blockLocationInsideChunk, chunk));
-                chunks.addAll(chunkLightManager.removeTorchlight(blockLocationInsideChunk, chunk));
-            }
+            lightUpdate = () -> {
+                if (block.isTorchlight()) {
+                    return chunkLightManager.addTorchlight(blockLocationInsideChunk, chunk, 15);
+                }
+                Set<Vec3i> lightChunks = new LinkedHashSet<>(chunkLightManager.removeSunlight(blockLocationInsideChunk, chunk));
+                lightChunks.addAll(chunkLightManager.removeTorchlight(blockLocationInsideChunk, chunk));
+                return lightChunks;
+            };
         }
 
-        chunkManager.requestOrderedMeshChunks(chunks);
+        // The light propagates on the edit thread : the returned chunks do not include the chunks
+        // whose light only changed
+        chunkManager.requestOrderedMeshChunks(chunks, lightUpdate);
 
         return chunks;
     }
@@ -502,12 +509,17 @@ public class WorldManager {
         // frames. This requires the set keeping the order.
         chunks.add(chunk.getLocation());
 
+        Supplier<Collection<Vec3i>> lightUpdate = null;
         if (chunkLightManager != null) {
-            chunks.addAll(chunkLightManager.removeTorchlight(blockLocationInsideChunk, chunk));
-            chunks.addAll(chunkLightManager.restoreSunlight(location));
+            Vector3f lightLocation = location.clone();
+            lightUpdate = () -> {
+                Set<Vec3i> lightChunks = new LinkedHashSet<>(chunkLightManager.removeTorchlight(blockLocationInsideChunk, chunk));
+                lightChunks.addAll(chunkLightManager.restoreSunlight(lightLocation));
+                return lightChunks;
+            };
         }
 
-        chunkManager.requestOrderedMeshChunks(chunks);
+        chunkManager.requestOrderedMeshChunks(chunks, lightUpdate);
 
         return chunks;
     }
@@ -17,8 +17,25 @@ public interface WorldSettings {
 
     boolean isGreedyCalmWater();
 
+    /**
+     * @return true if the coplanar, uniformly lit faces of the opaque cubes are merged into larger quads
+     * repeating their texture
+     */
+    boolean isGreedyRenderMesh();
+
+    /**
+     * @return true if the render mesh positions of the blocks and the water are stored as fixed point
+     * shorts instead of floats (see {@link ChunkMesh#POSITION_STEPS})
+     */
+    boolean isPackedVertexPositions();
+
     boolean isDebugChunks();
 
     int getChunkSize();
 
+    /**
+     * @return true if the bodies collide directly with the blocks : no chunk collision mesh is needed
+     */
+    boolean isVoxelCollision();
+
 }
@@ -17,7 +17,6 @@
 
 package org.delaunois.ialon.blocks;
 
-import com.google.protobuf.ByteString;
 import com.simsilica.mathd.Vec3i;
 
 import org.delaunois.ialon.blocks.protobuf.BlocksProtos;
@@ -28,7 +27,7 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
@@ -47,6 +46,9 @@ import lombok.extern.slf4j.Slf4j;
  * A File repository implementation for loading and storing chunks using the Protocol Buffers method
  * and compressed using ZIP.
  * Each chunk is stored in a separate file.
+ * Chunks are written in the palette format ({@link #FORMAT_VERSION}) : the distinct block names of the
+ * chunk plus a run-length encoded array of palette indices, and a run-length encoded lightmap. Legacy
+ * files (one block name per cell) are still loaded.
  *
  * @author Cedric de Launois
  * @author rvandoosselaer
@@ -62,6 +64,13 @@ public class ZipFileRepository implements ChunkRepository {
     public static final String EXTENSION = ".zblock";
     public static final String ZIP_ENTRY_NAME = "chunk";
 
+    /**
+     * Version of the chunk data format written by this repository (see {@code blocks.proto}). Version 0
+     * (a file without version) is the legacy format storing one block name per cell.
+     */
+    public static final int FORMAT_VERSION = 2;
+    private static final int LEGACY_FORMAT_VERSION = 0;
+
     /**
      * The path to save chunks to and load chunks from.
      */
@@ -291,7 +300,10 @@ public class ZipFileRepository implements ChunkRepository {
         return "chunk_" + location.x + "_" + location.y + "_" + location.z + EXTENSION;
     }
 
-    private static Chunk chunkProtoToChunk(@NonNull BlocksProtos.ChunkProto chunkProto, Vec3i overrideLocation) {
+    /**
+     * Decodes a chunk, in the legacy or the palette format. Shared with {@link RegionFileRepository}.
+     */
+    static Chunk chunkProtoToChunk(@NonNull BlocksProtos.ChunkProto chunkProto, Vec3i overrideLocation) {
         Vec3i location = overrideLocation != null ? overrideLocation : getVector(chunkProto.getLocationList());
         if (location == null) {
             return null;
@@ -303,7 +315,27 @@ public class ZipFileRepository implements ChunkRepository {
         }
 
         int expectedSize = size.x * size.y * size.z;
+        short[] blocks;
+        byte[] lightMap;
+        if (chunkProto.getVersion() == FORMAT_VERSION) {
+            blocks = decodeBlocks(chunkProto, expectedSize);
+            lightMap = decodeLightMap(chunkProto, expectedSize);
+        } else if (chunkProto.getVersion() == LEGACY_FORMAT_VERSION) {
+            blocks = decodeLegacyBlocks(chunkProto, expectedSize);
+            lightMap = chunkProto.getLightmap().toByteArray();
+        } else {
+            throw new IllegalStateException("Unsupported chunk format version " + chunkProto.getVersion() + ".");
+        }
 
+        Chunk chunk = Chunk.createAt(location);
+        chunk.setBlocks(blocks);
+        chunk.setLightMap(lightMap);
+        chunk.update();
+
+        return chunk;
+    }
+
+    private static short[] decodeLegacyBlocks(@NonNull BlocksProtos.ChunkProto chunkProto, int expectedSize) {
         if (expectedSize != chunkProto.getBlocksCount()) {
             throw new IllegalStateException("Invalid block data specified! Expected " + expectedSize + " blocks, but found " + chunkProto.getBlocksCount() + " blocks.");
         }
@@ -316,31 +348,71 @@ public class ZipFileRepository implements ChunkRepository {
             blocks[i] = block != null ? block.getId() : 0;
             i += 1;
         }
+        return blocks;
+    }
 
-        byte[] lightMap = chunkProto.getLightmap().toByteArray();
+    private static short[] decodeBlocks(@NonNull BlocksProtos.ChunkProto chunkProto, int expectedSize) {
+        // Resolve each distinct block name once, then expand the runs with bulk fills.
+        BlockRegistry blockRegistry = BlocksConfig.getInstance().getBlockRegistry();
+        int paletteSize = chunkProto.getPaletteCount();
+        short[] paletteIds = new short[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            Block block = blockRegistry.get(chunkProto.getPalette(i));
+            paletteIds[i] = block != null ? block.getId() : 0;
+        }
 
-        Chunk chunk = Chunk.createAt(location);
-        chunk.setBlocks(blocks);
-        chunk.setLightMap(lightMap);
-        chunk.update();
+        short[] blocks = new short[expectedSize];
+        int runCount = chunkProto.getBlockRunsCount();
+        int index = 0;
+        for (int i = 0; i + 1 < runCount; i += 2) {
+            int length = chunkProto.getBlockRuns(i);
+            int paletteIndex = chunkProto.getBlockRuns(i + 1);
+            if (index + length > expectedSize || paletteIndex >= paletteSize) {
+                throw new IllegalStateException("Invalid block data specified! Run " + (i / 2) + " exceeds the chunk or the palette.");
+            }
+            Arrays.fill(blocks, index, index + length, paletteIds[paletteIndex]);
+            index += length;
+        }
 
-        return chunk;
+        if (index != expectedSize) {
+            throw new IllegalStateException("Invalid block data specified! Expected " + expectedSize + " blocks, but found " + index + " blocks.");
+        }
+        return blocks;
     }
 
-    private static BlocksProtos.ChunkProto chunkToChunkProto(@NonNull Chunk chunk) {
-        Vec3i size = BlocksConfig.getInstance().getChunkSize();
-        BlockRegistry blockRegistry = BlocksConfig.getInstance().getBlockRegistry();
-        short[] blocks = chunk.getBlocks();
-        if (blocks == null) {
-            return null;
+    private static byte[] decodeLightMap(@NonNull BlocksProtos.ChunkProto chunkProto, int expectedSize) {
+        byte[] lightMap = new byte[expectedSize];
+        int runCount = chunkProto.getLightmapRunsCount();
+        int index = 0;
+        for (int i = 0; i + 1 < runCount; i += 2) {
+            int length = chunkProto.getLightmapRuns(i);
+            if (index + length > expectedSize) {
+                throw new IllegalStateException("Invalid lightmap data specified! Run " + (i / 2) + " exceeds the chunk.");
+            }
+            Arrays.fill(lightMap, index, index + length, (byte) chunkProto.getLightmapRuns(i + 1));
+            index += length;
         }
 
-        List<String> blockList = new ArrayList<>(blocks.length);
-        for (short block : blocks) {
-            blockList.add(block == 0 ? BlockIds.NONE : blockRegistry.get(block).getName());
+        if (index != expectedSize) {
+            throw new IllegalStateException("Invalid lightmap data specified! Expected " + expectedSize + " values, but found " + index + " values.");
+        }
+        return lightMap;
+    }
+
+    /**
+     * Encodes a chunk in the palette format, or returns null for a chunk without blocks. A uniform chunk
+     * is encoded as a single run, without materializing its arrays. Shared with {@link RegionFileRepository}.
+     */
+    static BlocksProtos.ChunkProto chunkToChunkProto(@NonNull Chunk chunk) {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        // A compacted chunk stays packed : it is encoded from a copy of its blocks
+        short[] blocks = chunk.readBlocks();
+        Block uniformBlock = blocks == null ? chunk.getUniformBlock() : null;
+        if (blocks == null && uniformBlock == null) {
+            return null;
         }
 
-        return BlocksProtos.ChunkProto.newBuilder()
+        BlocksProtos.ChunkProto.Builder builder = BlocksProtos.ChunkProto.newBuilder()
                 // location
                 .addLocation(chunk.getLocation().x)
                 .addLocation(chunk.getLocation().y)
@@ -349,9 +421,79 @@ public class ZipFileRepository implements ChunkRepository {
                 .addSize(size.x)
                 .addSize(size.y)
                 .addSize(size.z)
-                .addAllBlocks(blockList)
-                .setLightmap(ByteString.copyFrom(chunk.getLightMap()))
-                .build();
+                .setVersion(FORMAT_VERSION);
+        if (blocks == null) {
+            int volume = size.x * size.y * size.z;
+            builder.addPalette(uniformBlock.getName())
+                    .addBlockRuns(volume).addBlockRuns(0)
+                    .addLightmapRuns(volume).addLightmapRuns(chunk.getUniformLight() & 0xFF);
+        } else {
+            encodeBlocks(blocks, builder);
+            byte[] lightMap = chunk.getLightMap();
+            if (lightMap == null) {
+                // Blocks set without a light map : every cell is at the uniform light
+                builder.addLightmapRuns(blocks.length).addLightmapRuns(chunk.getUniformLight() & 0xFF);
+            } else {
+                encodeLightMap(lightMap, builder);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Writes the blocks as a palette of block names and (run length, palette index) pairs.
+     * The palette is looked up once per run, not per cell.
+     */
+    private static void encodeBlocks(short[] blocks, BlocksProtos.ChunkProto.Builder builder) {
+        BlockRegistry blockRegistry = BlocksConfig.getInstance().getBlockRegistry();
+        // A chunk rarely holds more than a handful of distinct blocks : a linear scan of the palette
+        // is cheaper than hashing.
+        short[] paletteIds = new short[8];
+        int paletteSize = 0;
+        int index = 0;
+        while (index < blocks.length) {
+            short id = blocks[index];
+            int end = index + 1;
+            while (end < blocks.length && blocks[end] == id) {
+                end++;
+            }
+
+            int paletteIndex = indexOf(paletteIds, paletteSize, id);
+            if (paletteIndex < 0) {
+                if (paletteSize == paletteIds.length) {
+                    paletteIds = Arrays.copyOf(paletteIds, paletteSize * 2);
+                }
+                paletteIds[paletteSize] = id;
+                paletteIndex = paletteSize;
+                paletteSize += 1;
+                builder.addPalette(id == 0 ? BlockIds.NONE : blockRegistry.get(id).getName());
+            }
+
+            builder.addBlockRuns(end - index).addBlockRuns(paletteIndex);
+            index = end;
+        }
+    }
+
+    private static void encodeLightMap(byte[] lightMap, BlocksProtos.ChunkProto.Builder builder) {
+        int index = 0;
+        while (index < lightMap.length) {
+            byte level = lightMap[index];
+            int end = index + 1;
+            while (end < lightMap.length && lightMap[end] == level) {
+                end++;
+            }
+            builder.addLightmapRuns(end - index).addLightmapRuns(level & 0xFF);
+            index = end;
+        }
+    }
+
+    private static int indexOf(short[] values, int size, short value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     private static Vec3i getVector(@NonNull List<Integer> integers) {
@@ -29,6 +29,8 @@
 
 package org.delaunois.ialon.blocks.fastnoise;
 
+import java.util.Arrays;
+
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
 
@@ -343,10 +345,10 @@ public class FastNoise {
     }
 
     // Hashing
-    private final static int X_PRIME = 1619;
-    private final static int Y_PRIME = 31337;
-    private final static int Z_PRIME = 6971;
-    private final static int W_PRIME = 1013;
+    final static int X_PRIME = 1619;
+    final static int Y_PRIME = 31337;
+    final static int Z_PRIME = 6971;
+    final static int W_PRIME = 1013;
 
     private static int Hash2D(int seed, int x, int y) {
         int hash = seed;
@@ -1389,14 +1391,178 @@ public class FastNoise {
         return sum * m_fractalBounding;
     }
 
+    /**
+     * The kernel evaluating the simplex octaves of the batch variants : the Vector API kernel of the
+     * desktop build when it is on the class path and the incubator module is enabled, the scalar kernel
+     * otherwise (Android, tests).
+     */
+    static final SimplexKernel SIMPLEX_KERNEL = loadSimplexKernel();
+
+    private static SimplexKernel loadSimplexKernel() {
+        try {
+            return (SimplexKernel) Class.forName(SimplexKernel.VECTOR_KERNEL_CLASS)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // Not packaged (Android), or jdk.incubator.vector not resolved (no --add-modules)
+            return new ScalarSimplexKernel();
+        }
+    }
+
+    /**
+     * Batch variant of {@link #GetSimplexFractal(float, float)} : evaluates {@code count} points at once,
+     * octave by octave over all the points (the octave seed, amplitude and lacunarity are hoisted out of
+     * the per-point loop, and each octave is evaluated by the {@link SimplexKernel}). Bit-identical to
+     * the per-point evaluation.
+     *
+     * @param xs    the X of the points, overwritten (used as scratch)
+     * @param ys    the Y of the points, overwritten (used as scratch)
+     * @param count the number of points
+     * @param out   receives the noise of the points
+     */
+    public void GetSimplexFractal(float[] xs, float[] ys, int count, float[] out) {
+        for (int k = 0; k < count; k++) {
+            xs[k] *= m_frequency;
+            ys[k] *= m_frequency;
+        }
+
+        final SimplexKernel kernel = SIMPLEX_KERNEL;
+        final float[] octave = m_octaves > 1 ? new float[count] : null;
+        int seed = m_seed;
+        float amp = 1;
+        switch (m_fractalType) {
+            case FBM:
+                kernel.simplex(seed, xs, ys, count, out);
+                for (int i = 1; i < m_octaves; i++) {
+                    amp *= m_gain;
+                    seed++;
+                    for (int k = 0; k < count; k++) {
+                        xs[k] *= m_lacunarity;
+                        ys[k] *= m_lacunarity;
+                    }
+                    kernel.simplex(seed, xs, ys, count, octave);
+                    for (int k = 0; k < count; k++) {
+                        out[k] += octave[k] * amp;
+                    }
+                }
+                for (int k = 0; k < count; k++) {
+                    out[k] *= m_fractalBounding;
+                }
+                break;
+            case Billow:
+                kernel.simplex(seed, xs, ys, count, out);
+                for (int k = 0; k < count; k++) {
+                    out[k] = Math.abs(out[k]) * 2 - 1;
+                }
+                for (int i = 1; i < m_octaves; i++) {
+                    amp *= m_gain;
+                    seed++;
+                    for (int k = 0; k < count; k++) {
+                        xs[k] *= m_lacunarity;
+                        ys[k] *= m_lacunarity;
+                    }
+                    kernel.simplex(seed, xs, ys, count, octave);
+                    for (int k = 0; k < count; k++) {
+                        out[k] += (Math.abs(octave[k]) * 2 - 1) * amp;
+                    }
+                }
+                for (int k = 0; k < count; k++) {
+                    out[k] *= m_fractalBounding;
+                }
+                break;
+            case RigidMulti:
+                kernel.simplex(seed, xs, ys, count, out);
+                for (int k = 0; k < count; k++) {
+                    out[k] = 1 - Math.abs(out[k]);
+                }
+                for (int i = 1; i < m_octaves; i++) {
+                    amp *= m_gain;
+                    seed++;
+                    for (int k = 0; k < count; k++) {
+                        xs[k] *= m_lacunarity;
+                        ys[k] *= m_lacunarity;
+                    }
+                    kernel.simplex(seed, xs, ys, count, octave);
+                    for (int k = 0; k < count; k++) {
+                        out[k] -= (1 - Math.abs(octave[k])) * amp;
+                    }
+                }
+                break;
+            default:
+                Arrays.fill(out, 0, count, 0);
+                break;
+        }
+    }
+
+    /**
+     * Batch variant of {@link #GetSimplexFractalTiled(float, float, float)} over a regular grid :
+     * {@code out[j * width + i]} receives the noise at {@code (x0 + i * step, y0 + j * step)}. The circle
+     * mapping of each column and of each row is computed once (instead of 4 cos/sin per point), and each
+     * row is evaluated octave by octave by the {@link SimplexKernel}. Bit-identical to the per-point
+     * evaluation.
+     */
+    public void GetSimplexFractalTiled(float x0, float y0, float step, int width, int height, float period, float[] out) {
+        final float radiusFactor = period / TWO_PI;
+        float[] cosX = new float[width];
+        float[] sinX = new float[width];
+        for (int i = 0; i < width; i++) {
+            float x = x0 + i * step;
+            x -= period * (float) FastFloor(x / period);
+            final float angX = TWO_PI * x / period;
+            cosX[i] = (float) Math.cos(angX);
+            sinX[i] = (float) Math.sin(angX);
+        }
+
+        final SimplexKernel kernel = SIMPLEX_KERNEL;
+        final float[] xs = new float[width];
+        final float[] ys = new float[width];
+        final float[] octave = new float[width];
+        for (int j = 0; j < height; j++) {
+            float y = y0 + j * step;
+            y -= period * (float) FastFloor(y / period);
+            final float angY = TWO_PI * y / period;
+            final float cosY = (float) Math.cos(angY);
+            final float sinY = (float) Math.sin(angY);
+            final int row = j * width;
+
+            int seed = m_seed;
+            float freq = m_frequency;
+            float amp = 1;
+            for (int o = 0; o < m_octaves; o++) {
+                if (o > 0) {
+                    freq *= m_lacunarity;
+                    amp *= m_gain;
+                    seed++;
+                }
+                final float r = freq * radiusFactor;
+                for (int i = 0; i < width; i++) {
+                    xs[i] = cosX[i] * r;
+                    ys[i] = sinX[i] * r;
+                }
+                kernel.simplex(seed, xs, ys, cosY * r, sinY * r, width, octave);
+                if (o == 0) {
+                    System.arraycopy(octave, 0, out, row, width);
+                } else {
+                    for (int i = 0; i < width; i++) {
+                        out[row + i] += octave[i] * amp;
+                    }
+                }
+            }
+
+            for (int i = 0; i < width; i++) {
+                out[row + i] *= m_fractalBounding;
+            }
+        }
+    }
+
     public float GetSimplex(float x, float y) {
         return SingleSimplex(m_seed, x * m_frequency, y * m_frequency);
     }
 
-    private final static float F2 = (float) (1.0 / 2.0);
-    private final static float G2 = (float) (1.0 / 4.0);
+    final static float F2 = (float) (1.0 / 2.0);
+    final static float G2 = (float) (1.0 / 4.0);
 
-    private float SingleSimplex(int seed, float x, float y) {
+    static float SingleSimplex(int seed, float x, float y) {
         float t = (x + y) * F2;
         int i = FastFloor(x + t);
         int j = FastFloor(y + t);
@@ -1464,10 +1630,10 @@ public class FastNoise {
                     2, 1, 0, 3, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3, 1, 0, 2, 0, 0, 0, 0, 3, 2, 0, 1, 3, 2, 1, 0
             };
 
-    private final static float F4 = (float) ((2.23606797 - 1.0) / 4.0);
-    private final static float G4 = (float) ((5.0 - 2.23606797) / 20.0);
+    final static float F4 = (float) ((2.23606797 - 1.0) / 4.0);
+    final static float G4 = (float) ((5.0 - 2.23606797) / 20.0);
 
-    private float SingleSimplex(int seed, float x, float y, float z, float w) {
+    static float SingleSimplex(int seed, float x, float y, float z, float w) {
         float n0, n1, n2, n3, n4;
         float t = (x + y + z + w) * F4;
         int i = FastFloor(x + t);
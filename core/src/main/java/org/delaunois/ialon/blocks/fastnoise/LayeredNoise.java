@@ -4,6 +4,7 @@ import com.jme3.math.FastMath;
 import com.jme3.math.Vector2f;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class LayeredNoise {
@@ -76,13 +77,7 @@ public class LayeredNoise {
 
         for (NoiseLayer layer : layers) {
 
-            LayerMask mask = null;
-            if (layerMasks.size() > 0) {
-                mask = layerMasks.stream()
-                        .filter(m -> m.getNoiseLayer().getName().equals(layer.getName()))
-                        .findFirst()
-                        .orElse(null);
-            }
+            LayerMask mask = findMask(layer);
 
             float layerNoise = layer.evaluate(v);
 
@@ -121,13 +116,7 @@ public class LayeredNoise {
 
         for (NoiseLayer layer : layers) {
 
-            LayerMask mask = null;
-            if (!layerMasks.isEmpty()) {
-                mask = layerMasks.stream()
-                        .filter(m -> m.getNoiseLayer().getName().equals(layer.getName()))
-                        .findFirst()
-                        .orElse(null);
-            }
+            LayerMask mask = findMask(layer);
 
             float layerNoise = layer.evaluate(v, period);
 
@@ -147,6 +136,57 @@ public class LayeredNoise {
         return result;
     }
 
+    /**
+     * Evaluates the layers over a regular grid : {@code out[j * width + i]} receives the same value as
+     * {@link #evaluate(Vector2f, float)} at {@code (x0 + i * step, y0 + j * step)}. The grid is evaluated
+     * layer by layer, each layer over the whole grid, without any allocation per sample.
+     */
+    public void evaluate(float x0, float y0, float step, int width, int height, float period, float[] out) {
+
+        int size = width * height;
+        Arrays.fill(out, 0, size, 0f);
+        float[] layerNoise = new float[size];
+        float[] maskNoise = null;
+
+        for (NoiseLayer layer : layers) {
+
+            layer.evaluate(x0, y0, step, width, height, period, layerNoise);
+
+            LayerMask mask = findMask(layer);
+            if (mask != null) {
+                if (maskNoise == null) {
+                    maskNoise = new float[size];
+                }
+                mask.getWithLayer().evaluate(x0, y0, step, width, height, period, maskNoise);
+                for (int i = 0; i < size; i++) {
+                    layerNoise[i] *= maskNoise[i];
+                }
+            }
+
+            float strength = layer.getStrength();
+            for (int i = 0; i < size; i++) {
+                out[i] += layerNoise[i] * strength;
+            }
+        }
+
+        if (hardFloor) {
+            for (int i = 0; i < size; i++) {
+                float result = out[i];
+                out[i] += FastMath.saturate((hardFloorHeight - result) * 3.0f)
+                        * ((hardFloorHeight - result) * hardFloorStrength);
+            }
+        }
+    }
+
+    private LayerMask findMask(NoiseLayer layer) {
+        for (LayerMask mask : layerMasks) {
+            if (mask.getNoiseLayer().getName().equals(layer.getName())) {
+                return mask;
+            }
+        }
+        return null;
+    }
+
     private float smoothstep(final float a, final float b, final float x) {
         if (x < a) {
             return 0;
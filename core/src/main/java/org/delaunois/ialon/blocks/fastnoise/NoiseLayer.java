@@ -9,6 +9,7 @@ import com.jme3.texture.image.ImageRaster;
 import com.jme3.util.BufferUtils;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 public class NoiseLayer {
@@ -99,18 +100,17 @@ public class NoiseLayer {
             return 0;
         }
 
-        Vector2f f = v.clone();
-
-        switch (gradientPerturb.ordinal()) {
-            case 1:
-                perturbNoise.GradientPerturb(f);
-                break;
-            case 2:
-                perturbNoise.GradientPerturbFractal(f);
-                break;
+        float x = v.x;
+        float y = v.y;
+        if (gradientPerturb != GradientPerturb.Off) {
+            // The perturbation moves the point : work on a copy, the caller's vector is left untouched
+            Vector2f f = v.clone();
+            perturb(f);
+            x = f.x;
+            y = f.y;
         }
 
-        float noise = primaryNoise.GetNoise(f.x * scale.x, f.y * scale.y);
+        float noise = primaryNoise.GetNoise(x * scale.x, y * scale.y);
 
         if (inverted) {
             noise = -noise;
@@ -145,6 +145,70 @@ public class NoiseLayer {
 
     }
 
+    /**
+     * Evaluates the layer over a regular grid : {@code out[j * width + i]} receives the same value as
+     * {@link #evaluate(Vector2f, float)} at {@code (x0 + i * step, y0 + j * step)}. The whole grid is
+     * evaluated in one pass, without any allocation per sample.
+     */
+    public void evaluate(float x0, float y0, float step, int width, int height, float period, float[] out) {
+
+        int size = width * height;
+        if (!enabled) {
+            Arrays.fill(out, 0, size, 0f);
+            return;
+        }
+
+        if (period > 0) {
+            primaryNoise.GetSimplexFractalTiled(x0, y0, step, width, height, period, out);
+        } else {
+            boolean perturbed = gradientPerturb != GradientPerturb.Off;
+            boolean simplexFractal = primaryNoise.GetNoiseType() == FastNoise.NoiseType.SimplexFractal;
+            // The simplex fractal is evaluated in one batch over the (perturbed, scaled) points
+            float[] xs = simplexFractal ? new float[size] : null;
+            float[] ys = simplexFractal ? new float[size] : null;
+            Vector2f f = new Vector2f();
+            for (int j = 0; j < height; j++) {
+                float y = y0 + j * step;
+                int row = j * width;
+                for (int i = 0; i < width; i++) {
+                    f.set(x0 + i * step, y);
+                    if (perturbed) {
+                        perturb(f);
+                    }
+                    if (simplexFractal) {
+                        xs[row + i] = f.x * scale.x;
+                        ys[row + i] = f.y * scale.y;
+                    } else {
+                        out[row + i] = primaryNoise.GetNoise(f.x * scale.x, f.y * scale.y);
+                    }
+                }
+            }
+            if (simplexFractal) {
+                primaryNoise.GetSimplexFractal(xs, ys, size, out);
+            }
+        }
+
+        if (inverted) {
+            for (int i = 0; i < size; i++) {
+                out[i] = -out[i];
+            }
+        }
+
+    }
+
+    private void perturb(Vector2f f) {
+        switch (gradientPerturb) {
+            case On:
+                perturbNoise.GradientPerturb(f);
+                break;
+            case Fractal:
+                perturbNoise.GradientPerturbFractal(f);
+                break;
+            default:
+                break;
+        }
+    }
+
     public Texture2D generateTexture(int size) {
         ByteBuffer buffer = BufferUtils.createByteBuffer(size * size * 4);
         Image result = new Image(Image.Format.RGB8, size, size, buffer, ColorSpace.sRGB);
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.delaunois.ialon.blocks.fastnoise;
+
+/**
+ * The portable {@link SimplexKernel} : one scalar simplex per point.
+ *
+ * @author Cedric de Launois
+ */
+public class ScalarSimplexKernel implements SimplexKernel {
+
+    @Override
+    public void simplex(int seed, float[] xs, float[] ys, int count, float[] out) {
+        for (int k = 0; k < count; k++) {
+            out[k] = FastNoise.SingleSimplex(seed, xs[k], ys[k]);
+        }
+    }
+
+    @Override
+    public void simplex(int seed, float[] xs, float[] ys, float z, float w, int count, float[] out) {
+        for (int k = 0; k < count; k++) {
+            out[k] = FastNoise.SingleSimplex(seed, xs[k], ys[k], z, w);
+        }
+    }
+
+}
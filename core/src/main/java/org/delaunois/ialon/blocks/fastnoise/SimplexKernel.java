@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.delaunois.ialon.blocks.fastnoise;
+
+/**
+ * Evaluates one simplex octave over a batch of points, for the batch variants of {@link FastNoise}.
+ * Every implementation must be bit-identical to the scalar {@code FastNoise.SingleSimplex} : the
+ * terrain generated on every platform must be the same.
+ *
+ * <p>{@link ScalarSimplexKernel} is the portable kernel. The desktop build adds a kernel using the
+ * incubating Vector API, which {@link FastNoise} loads reflectively by its {@link #VECTOR_KERNEL_CLASS}
+ * name when available.
+ *
+ * @author Cedric de Launois
+ */
+public interface SimplexKernel {
+
+    String VECTOR_KERNEL_CLASS = "org.delaunois.ialon.blocks.fastnoise.VectorSimplexKernel";
+
+    /**
+     * 2D simplex : {@code out[k] = SingleSimplex(seed, xs[k], ys[k])} for {@code k < count}.
+     */
+    void simplex(int seed, float[] xs, float[] ys, int count, float[] out);
+
+    /**
+     * 4D simplex of a row at constant Z and W : {@code out[k] = SingleSimplex(seed, xs[k], ys[k], z, w)}
+     * for {@code k < count}.
+     */
+    void simplex(int seed, float[] xs, float[] ys, float z, float w, int count, float[] out);
+
+}
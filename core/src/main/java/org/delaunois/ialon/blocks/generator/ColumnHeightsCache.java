@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks.generator;
+
+import org.delaunois.ialon.blocks.ConcurrentLongMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.Getter;
+
+/**
+ * A bounded, threadsafe cache of column heightmaps, keyed by packed chunk column.
+ * <p>
+ * The cache holds two generations. New entries go to the young generation ; when it is full it becomes
+ * the old generation and the previous old one is dropped. An entry found in the old generation is
+ * promoted back to the young one. The cache therefore keeps between {@code capacity / 2} and
+ * {@code capacity} entries, and the recently used ones survive a rotation. Unlike an access-ordered
+ * LRU, a lookup does not reorder anything : reads never block (see {@link ConcurrentLongMap#get(long)}),
+ * only the rare rotation is synchronized.
+ *
+ * @author Cedric de Launois
+ */
+public class ColumnHeightsCache {
+
+    @Getter
+    private final int capacity;
+    private final int generationCapacity;
+
+    private volatile ConcurrentLongMap<float[]> young = new ConcurrentLongMap<>();
+    private volatile ConcurrentLongMap<float[]> old = new ConcurrentLongMap<>();
+    private final AtomicInteger youngSize = new AtomicInteger();
+
+    /**
+     * @param capacity the maximum number of entries
+     */
+    public ColumnHeightsCache(int capacity) {
+        this.capacity = Math.max(2, capacity);
+        this.generationCapacity = this.capacity / 2;
+    }
+
+    /**
+     * @return the heightmap of the column, or null
+     */
+    public float[] get(long key) {
+        float[] heights = young.get(key);
+        if (heights == null) {
+            heights = old.get(key);
+            if (heights != null) {
+                put(key, heights);
+            }
+        }
+        return heights;
+    }
+
+    public void put(long key, float[] heights) {
+        ConcurrentLongMap<float[]> generation = young;
+        if (generation.put(key, heights) == null && youngSize.incrementAndGet() >= generationCapacity) {
+            rotate(generation);
+        }
+    }
+
+    public synchronized void clear() {
+        young = new ConcurrentLongMap<>();
+        old = new ConcurrentLongMap<>();
+        youngSize.set(0);
+    }
+
+    private synchronized void rotate(ConcurrentLongMap<float[]> full) {
+        if (young != full) {
+            // Already rotated by another thread
+            return;
+        }
+        old = full;
+        young = new ConcurrentLongMap<>();
+        youngSize.set(0);
+    }
+
+}
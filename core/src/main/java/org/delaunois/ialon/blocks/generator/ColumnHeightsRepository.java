@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.blocks.generator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Spills the column heightmaps computed by {@link NoiseTerrainGenerator} to the world directory, so that
+ * revisiting an area or restarting the game reads them back instead of evaluating the noise again.
+ * <p>
+ * The columns are packed into region files of {@link #REGION_SIZE} x {@link #REGION_SIZE} columns, in the
+ * {@value #DIRECTORY} subdirectory of the world. A region file starts with a header (magic, format version,
+ * generator key, heightmap length), followed by one fixed-size slot per column : a presence flag and the
+ * heightmap. The key identifies the generator parameters the heightmaps were computed with : a region
+ * written with another key is ignored when loading, and started over when saving.
+ * <p>
+ * A region file stays open, with its header read once, until {@link #close()}. The columns of a region
+ * are read and written one at a time, the columns of other regions in parallel.
+ * <p>
+ * It is a pure cache : a missing, stale or unreadable column is just computed again. Nothing is written
+ * for a world that does not exist on disk.
+ *
+ * @author Cedric de Launois
+ */
+@Slf4j
+public class ColumnHeightsRepository {
+
+    public static final String DIRECTORY = "heights";
+    public static final int REGION_SIZE = 32;
+
+    private static final int MAGIC = 0x49414c48; // "IALH"
+    // Bump when the generator computes different heightmaps for the same parameters
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int PRESENT = 1;
+
+    @Getter
+    private final Path worldPath;
+    private final Path path;
+
+    // Open regions, by region file. Regions stay open until close().
+    private final Map<Path, Region> regions = new ConcurrentHashMap<>();
+
+    /**
+     * @param worldPath the world directory
+     */
+    public ColumnHeightsRepository(Path worldPath) {
+        this.worldPath = worldPath;
+        this.path = worldPath.resolve(DIRECTORY);
+    }
+
+    /**
+     * @param x the x of the chunk column
+     * @param z the z of the chunk column
+     * @param key the key of the generator parameters
+     * @param length the length of the heightmap
+     * @return the stored heightmap, or null if there is none for this key
+     */
+    public float[] load(int x, int z, long key, int length) {
+        Region region = getRegion(x, z);
+        try {
+            return region.load(x, z, key, length);
+        } catch (IOException e) {
+            log.warn("Could not load the heightmap of column ({}, {}) from {}", x, z, region.file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores the heightmap of a column.
+     *
+     * @param x the x of the chunk column
+     * @param z the z of the chunk column
+     * @param key the key of the generator parameters
+     * @param heights the heightmap
+     */
+    public void save(int x, int z, long key, float[] heights) {
+        Region region = getRegion(x, z);
+        try {
+            region.save(x, z, key, heights);
+        } catch (IOException e) {
+            log.error("Could not save the heightmap of column ({}, {}) to {}", x, z, region.file, e);
+        }
+    }
+
+    /**
+     * Closes the open region files. The repository stays usable : regions are reopened on demand.
+     */
+    public void close() {
+        synchronized (regions) {
+            regions.values().forEach(Region::close);
+            regions.clear();
+        }
+    }
+
+    private Region getRegion(int x, int z) {
+        Path file = path.resolve("heights_" + Math.floorDiv(x, REGION_SIZE) + "_" + Math.floorDiv(z, REGION_SIZE) + ".dat");
+        Region region = regions.get(file);
+        if (region != null) {
+            return region;
+        }
+
+        synchronized (regions) {
+            return regions.computeIfAbsent(file, Region::new);
+        }
+    }
+
+    private static int getSlotBytes(int length) {
+        return Integer.BYTES + length * Float.BYTES;
+    }
+
+    private static long getSlotPosition(int x, int z, int length) {
+        int index = Math.floorMod(z, REGION_SIZE) * REGION_SIZE + Math.floorMod(x, REGION_SIZE);
+        return HEADER_BYTES + (long) index * getSlotBytes(length);
+    }
+
+    /**
+     * @return false if the end of the file is reached before the buffer is full
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * A region file : its channel, opened on the first access, and its header. All methods are
+     * synchronized.
+     */
+    private final class Region {
+
+        private final Path file;
+        private FileChannel channel;
+        private boolean closed;
+
+        // The header, read once : whether it is valid, and the key and heightmap length it holds
+        private boolean headerRead;
+        private boolean headerValid;
+        private long headerKey;
+        private int headerLength;
+
+        Region(Path file) {
+            this.file = file;
+        }
+
+        synchronized float[] load(int x, int z, long key, int length) throws IOException {
+            if (!open(false) || !hasHeader(key, length)) {
+                return null;
+            }
+
+            ByteBuffer slot = ByteBuffer.allocate(getSlotBytes(length));
+            if (!readFully(channel, slot, getSlotPosition(x, z, length))) {
+                return null;
+            }
+            slot.flip();
+            if (slot.getInt() != PRESENT) {
+                return null;
+            }
+            float[] heights = new float[length];
+            slot.asFloatBuffer().get(heights);
+            return heights;
+        }
+
+        synchronized void save(int x, int z, long key, float[] heights) throws IOException {
+            if (!open(true)) {
+                return;
+            }
+
+            if (!hasHeader(key, heights.length)) {
+                // New region, or written with other generator parameters : start over
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(key).putInt(heights.length).flip();
+                writeFully(channel, header, 0);
+                headerValid = true;
+                headerKey = key;
+                headerLength = heights.length;
+            }
+
+            // The heightmap first, then the flag : an interrupted write leaves the column absent
+            long position = getSlotPosition(x, z, heights.length);
+            ByteBuffer data = ByteBuffer.allocate(heights.length * Float.BYTES);
+            data.asFloatBuffer().put(heights);
+            writeFully(channel, data, position + Integer.BYTES);
+            ByteBuffer flag = ByteBuffer.allocate(Integer.BYTES);
+            flag.putInt(PRESENT).flip();
+            writeFully(channel, flag, position);
+        }
+
+        synchronized void close() {
+            closed = true;
+            if (channel == null) {
+                return;
+            }
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error("Unable to close heights file {}: {}", file.toAbsolutePath(), e.getMessage(), e);
+            }
+            channel = null;
+        }
+
+        /**
+         * @param create whether to create the file (and the directory) when it does not exist
+         * @return false if the region is not available : no file and not created, or closed (a late
+         * access of a closed region just misses, the next one reopens the region)
+         */
+        private boolean open(boolean create) throws IOException {
+            if (channel != null) {
+                return true;
+            }
+            if (closed) {
+                return false;
+            }
+            if (Files.notExists(file)) {
+                if (!create || !Files.isDirectory(worldPath)) {
+                    return false;
+                }
+                Files.createDirectories(path);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            return true;
+        }
+
+        private boolean hasHeader(long key, int length) throws IOException {
+            if (!headerRead) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                if (readFully(channel, header, 0)) {
+                    header.flip();
+                    headerValid = header.getInt() == MAGIC && header.getInt() == FORMAT_VERSION;
+                    headerKey = header.getLong();
+                    headerLength = header.getInt();
+                }
+                headerRead = true;
+            }
+            return headerValid && headerKey == key && headerLength == length;
+        }
+    }
+
+}
@@ -5,6 +5,7 @@ import org.delaunois.ialon.blocks.Block;
 import org.delaunois.ialon.blocks.BlockIds;
 import org.delaunois.ialon.blocks.BlocksConfig;
 import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ColumnSunlight;
 import com.simsilica.mathd.Vec3i;
 
 public class FlatTerrainGenerator implements TerrainGenerator {
@@ -37,17 +38,13 @@ public class FlatTerrainGenerator implements TerrainGenerator {
 
         Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
         for (int x = 0; x < chunkSize.x; x++) {
-            for (int y = 0; y < chunkSize.y; y++) {
+            for (int y = 0; y <= ground; y++) {
                 for (int z = 0; z < chunkSize.z; z++) {
-                    if (y <= ground) {
-                        chunk.addBlock(x, y, z, block);
-                        chunk.setSunlight(x, y, z, 0);
-                    } else {
-                        chunk.setSunlight(x, y, z, 15);
-                    }
+                    chunk.addBlock(x, y, z, block);
                 }
             }
         }
+        ColumnSunlight.light(chunk, ColumnSunlight.fullSky());
 
         chunk.setDirty(false);
         return chunk;
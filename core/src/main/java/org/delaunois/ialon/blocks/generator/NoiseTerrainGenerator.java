@@ -31,6 +31,7 @@ import org.delaunois.ialon.blocks.BlockRegistry;
 import org.delaunois.ialon.blocks.BlocksConfig;
 import org.delaunois.ialon.blocks.Chunk;
 import org.delaunois.ialon.blocks.ChunkLightManager;
+import org.delaunois.ialon.blocks.ColumnSunlight;
 import org.delaunois.ialon.blocks.ShapeIds;
 import org.delaunois.ialon.blocks.TypeIds;
 import org.delaunois.ialon.blocks.WorldEditOverlay;
@@ -38,10 +39,6 @@ import org.delaunois.ialon.blocks.fastnoise.FastNoise;
 import org.delaunois.ialon.blocks.fastnoise.LayeredNoise;
 import org.delaunois.ialon.blocks.fastnoise.NoiseLayer;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Random;
 
 public class NoiseTerrainGenerator implements TerrainGenerator {
@@ -224,9 +221,9 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
 
     // The heightmap depends only on the chunk's (x, z) column, yet every chunk of a vertical column
     // (gridHeight of them) would recompute the same hundreds of noise samples. This bounded,
-    // thread-safe LRU memorizes the heightmap per column so it is computed once and shared by
-    // the whole column.
-    private static final int HEIGHTS_CACHE_CAPACITY = 256;
+    // thread-safe cache memorizes the heightmap per column so it is computed once and shared by
+    // the whole column. Resized from the pager grid by IalonConfig (see setHeightsCacheCapacity).
+    public static final int DEFAULT_HEIGHTS_CACHE_CAPACITY = 256;
 
     private long seed;
     private float waterHeight;
@@ -265,8 +262,9 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
     // world is opened ; consulted only by the chunk-free far paths (forEachTreeAnchor), never by the
     // voxel chunk generation (edited chunks are loaded from the save, not regenerated).
     private WorldEditOverlay worldEditOverlay;
-    private final Map<Long, float[]> heightsCache =
-            Collections.synchronizedMap(new HeightsCache(HEIGHTS_CACHE_CAPACITY));
+    private volatile ColumnHeightsCache heightsCache = new ColumnHeightsCache(DEFAULT_HEIGHTS_CACHE_CAPACITY);
+    // Optional spill of the column heightmaps to the world directory (null = memory only).
+    private volatile ColumnHeightsRepository heightsRepository;
 
     // Cached block references, resolved once on first generation to avoid a String-keyed
     // registry lookup (and, for itemGrass/waterLiquid, a String concatenation) per generated block.
@@ -375,6 +373,23 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         return seed;
     }
 
+    /**
+     * A hash of the seed and of the parameters the relief, forest and biome fields depend on : two
+     * generators with the same hash sample the same fields. Keys the far-terrain rasters cached in the
+     * world directory (see FarTerrainRasterRepository).
+     */
+    public long getParametersHash() {
+        long hash = seed;
+        hash = 31 * hash + Float.floatToIntBits(waterHeight);
+        hash = 31 * hash + Float.floatToIntBits(reliefAmplitude);
+        hash = 31 * hash + Float.floatToIntBits(reliefFrequency);
+        hash = 31 * hash + Float.floatToIntBits(treeMaxProb);
+        hash = 31 * hash + Float.floatToIntBits(forestFrequency);
+        hash = 31 * hash + Float.floatToIntBits(worldSize);
+        hash = 31 * hash + Float.floatToIntBits(peakCeiling);
+        return hash;
+    }
+
     public void setSeed(long seed) {
         this.seed = seed;
         createWorldNoise();
@@ -459,17 +474,16 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         }
 
         if (minh > maxWorldY) {
-            // all heights are above the max Y of the chunk : the chunk is full with ROCK
-            short[] blocks = new short[chunkSize.x * chunkSize.y * chunkSize.z];
-            short rockId = blockRock.getId();
-            Arrays.fill(blocks, rockId);
-            chunk.setBlocks(blocks);
-            chunk.setLightMap(new byte[chunkSize.x * chunkSize.y * chunkSize.z]);
+            // all heights are above the max Y of the chunk : the chunk is full with ROCK, in the dark.
+            // It stays uniform (no arrays) until it is edited.
+            chunk.setUniform(blockRock, 0, 0);
             return chunk;
         }
 
         // One biome classification per surface column (reused Vector2f, no per-block cost).
         Vector2f biomeSample = new Vector2f();
+        // The sunlight entering each column from the chunk above, see ColumnSunlight
+        int[] sky = new int[maxX * maxZ];
         for (int x = 0; x < maxX; x++) {
             int rowx = (x + CANOPY_RADIUS) * sizez;
             int worldX = worldOffsetX + x;
@@ -481,6 +495,7 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
                 float horizon = Math.max(groundh, waterHeight);
                 int worldZ = worldOffsetZ + z;
                 Biome biome = biomeAt(worldX, worldZ, biomeSample);
+                sky[x * maxZ + z] = skyAt(maxWorldY + 1, groundh, horizon);
 
                 for (int y = maxY - 1; y >= 0; y--) {
                     int worldY = minWorldY + y;
@@ -490,6 +505,7 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         }
 
         generateTrees(chunk, heights);
+        ColumnSunlight.light(chunk, sky);
 
         chunk.setDirty(true);
         return chunk;
@@ -501,7 +517,6 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         // bedrock so very deep water columns -- whose ground noise dips below 0 -- are not bottomless
         // (otherwise you see straight through the bottom of the water to the background).
         if (worldY <= 0) {
-            chunk.setSunlight(x, y, z, 0);
             chunk.addBlock(x, y, z, blockRock);
             return;
         }
@@ -509,7 +524,7 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         Block block;
 
         if (worldY > horizon) {
-            block = generateAboveHorizon(chunk, x, y, z);
+            block = null;
 
         } else if (worldY == (int) horizon) {
             block = generateSurface(chunk, x, y, z, worldY, groundh, worldX, worldZ, density, biome);
@@ -523,15 +538,8 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         }
     }
 
-    private Block generateAboveHorizon(Chunk chunk, int x, int y, int z) {
-        chunk.setSunlight(x, y, z, 15);
-        return null;
-    }
-
     private Block generateSurface(Chunk chunk, int x, int y, int z, int worldY, float groundh,
                                   int worldX, int worldZ, float density, Biome biome) {
-        chunk.setSunlight(x, y, z, 0);
-
         Block block;
         if (worldY > waterHeight) {
             // Altitude tiers first : snow caps the highest peaks, bare rock below it (mountains override
@@ -548,7 +556,6 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
             block = blockSand;
         } else {
             block = blockWaterSource;
-            chunk.setSunlight(x, y, z, 14);
         }
         return block;
     }
@@ -589,13 +596,10 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
                                       float horizon, Biome biome) {
         Block block;
         if (worldY > groundh) {
-            // Above ground but below horizon => in water. Water stays well-lit : its sunlight never drops
-            // below WATER_MIN_SUNLIGHT regardless of depth (so deep water is not gloomy).
+            // Above ground but below horizon => in water
             block = blockWaterLiquid;
-            chunk.setSunlight(x, y, z, Math.max(ChunkLightManager.WATER_MIN_SUNLIGHT, 14 - ((int) horizon - worldY)));
 
         } else {
-            chunk.setSunlight(x, y, z, 0);
             if (waterHeight - worldY < 3 && worldY == (int) groundh) {
                 block = blockSand;
             } else if (groundh - worldY < 3) {
@@ -608,19 +612,70 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         return block;
     }
 
+    /**
+     * @return the sunlight entering the top of a column from the cell at the given world height above
+     * it : full sunlight above the horizon, water keeps at least WATER_MIN_SUNLIGHT, none under ground
+     */
+    private static int skyAt(int worldY, float groundh, float horizon) {
+        if (worldY > horizon) {
+            return ColumnSunlight.FULL_SUNLIGHT;
+        }
+        return worldY > groundh ? ChunkLightManager.WATER_MIN_SUNLIGHT : 0;
+    }
+
     private float[] getHeights(Chunk chunk, int minx, int maxx, int minz, int maxz) {
         // Memorize per column : the heightmap is identical for every chunk sharing the same (x, z).
         // The returned array is treated as immutable by all callers, so it is safe to share.
-        long key = (((long) chunk.getLocation().x) << 32) | (chunk.getLocation().z & 0xFFFFFFFFL);
-        float[] cached = heightsCache.get(key);
-        if (cached != null) {
-            return cached;
+        int columnX = chunk.getLocation().x;
+        int columnZ = chunk.getLocation().z;
+        long key = (((long) columnX) << 32) | (columnZ & 0xFFFFFFFFL);
+        ColumnHeightsCache cache = heightsCache;
+        float[] heights = cache.get(key);
+        if (heights != null) {
+            return heights;
+        }
+
+        ColumnHeightsRepository repository = heightsRepository;
+        if (repository != null) {
+            int length = 2 + 2 * (maxx - minx + 1) * (maxz - minz + 1);
+            heights = repository.load(columnX, columnZ, getParametersHash(), length);
+        }
+        if (heights == null) {
+            heights = computeHeights(chunk, minx, maxx, minz, maxz);
+            if (repository != null) {
+                repository.save(columnX, columnZ, getParametersHash(), heights);
+            }
         }
-        float[] heights = computeHeights(chunk, minx, maxx, minz, maxz);
-        heightsCache.put(key, heights);
+        cache.put(key, heights);
         return heights;
     }
 
+    /**
+     * Resizes the column heightmap cache, e.g. to hold the columns of the pager grid. The memorized
+     * heightmaps are dropped.
+     *
+     * @param capacity the maximum number of memorized columns
+     */
+    public void setHeightsCacheCapacity(int capacity) {
+        if (capacity != heightsCache.getCapacity()) {
+            heightsCache = new ColumnHeightsCache(capacity);
+        }
+    }
+
+    /**
+     * @param heightsRepository where to spill the column heightmaps, or null to keep them in memory only
+     */
+    public void setHeightsRepository(ColumnHeightsRepository heightsRepository) {
+        this.heightsRepository = heightsRepository;
+    }
+
+    /**
+     * @return where the column heightmaps are spilled, or null if they are kept in memory only
+     */
+    public ColumnHeightsRepository getHeightsRepository() {
+        return heightsRepository;
+    }
+
     private float[] computeHeights(Chunk chunk, int minx, int maxx, int minz, int maxz) {
         Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
         int worldOffsetX = chunk.getLocation().x * chunkSize.x;
@@ -634,14 +689,18 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         float min = Float.MAX_VALUE;
         float max = Float.MIN_VALUE;
         float[] heights = new float[2 + 2 * gridSize];
-        // A single Vector2f is reused for every noise sample (the noise layers never mutate it,
-        // they clone internally) : one allocation per chunk instead of two per sampled column.
-        Vector2f sample = new Vector2f();
+        // The height and forest fields are evaluated in bulk over the column grid (z-major, x inner), then
+        // transposed into the x-major layout the readers use.
+        float[] grid = new float[gridSize];
+        float[] forest = new float[gridSize];
+        getHeights((float) worldOffsetX + minx, (float) worldOffsetZ + minz, 1f, sizex, sizez, grid);
+        forestNoise.evaluate((float) worldOffsetX + minx, (float) worldOffsetZ + minz, 1f, sizex, sizez, worldSize, forest);
         for (int x = minx; x <= maxx; x++) {
             int rowx = (x - minx) * sizez;
             for (int z = minz; z <= maxz; z++) {
                 int index = (z - minz) + rowx;
-                float h = getHeight((float) worldOffsetX + x, (float) worldOffsetZ + z, sample);
+                int gridIndex = (z - minz) * sizex + (x - minx);
+                float h = grid[gridIndex];
                 // The height grid lives at [2, 2 + gridSize) -- the SAME slot every reader uses
                 // (heights[2 + gridIndex] in the surface fill and generateTrees). Writing heights[index]
                 // here stored it 2 slots too early, so readers picked the height 2 cells away in z : on a
@@ -649,7 +708,7 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
                 // z-edge the +2 wrapped into another row, so neighbouring chunks placed the same tree's
                 // canopy at different heights -> orphaned "floating" leaves.
                 heights[2 + index] = h;
-                heights[densityBase + index] = densityAt((float) worldOffsetX + x, (float) worldOffsetZ + z, sample);
+                heights[densityBase + index] = forestDensity(forest[gridIndex]);
                 if (h < min) {
                     min = h;
                 }
@@ -963,8 +1022,11 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
 
     private float densityAt(float worldX, float worldZ, Vector2f sample) {
         // evaluate(sample, worldSize) is the tiled (seamless) path when worldSize > 0, else plain noise.
-        float raw = forestNoise.evaluate(sample.set(worldX, worldZ), worldSize); // ~[-1, 1]
-        float n = (raw + 1f) * 0.5f; // [0, 1], concentrated near 0.5
+        return forestDensity(forestNoise.evaluate(sample.set(worldX, worldZ), worldSize));
+    }
+
+    private static float forestDensity(float raw) {
+        float n = (raw + 1f) * 0.5f; // raw ~[-1, 1] -> [0, 1], concentrated near 0.5
         // Contrast curve : carve crisp dense woods (above the threshold) and bare clearings (below it).
         return smoothstep(FOREST_THRESHOLD - FOREST_EDGE, FOREST_THRESHOLD + FOREST_EDGE, n);
     }
@@ -1098,7 +1160,6 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
             case PALM: createPalmCanopy(chunk, x, y, z, th, cr, leaves); break;
             default:   createSphereCanopy(chunk, x, y, z, th, cr, leaves); break;
         }
-        createTreeShadow(chunk, x, y, z, th, cr);
     }
 
     private void createTrunk(Chunk chunk, int posx, int posy, int posz, int trunkHeight, Block log) {
@@ -1165,30 +1226,9 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         addBlock(chunk, loc.set(posx, topY - 1, posz - r), leaves);
     }
 
-    private void createTreeShadow(Chunk chunk, int posx, int posy, int posz, int trunkHeight, int canopyRadius) {
-        Vector3f locf = new Vector3f();
-        Vec3i treeLocation = new Vec3i(posx, posy, posz);
-
-        for (int y = treeLocation.y; y < treeLocation.y + trunkHeight + canopyRadius - 1; y++) {
-            for (int x = treeLocation.x - canopyRadius; x <= treeLocation.x + canopyRadius; x++) {
-                for (int z = treeLocation.z - canopyRadius; z <= treeLocation.z + canopyRadius; z++) {
-                    if (!Chunk.isInsideChunk(x, y, z)) {
-                        continue;
-                    }
-                    locf.set(x, y, z);
-                    float distance = locf.distance(new Vector3f(treeLocation.x, y, treeLocation.z));
-                    if (distance <= canopyRadius) {
-                        chunk.setSunlight(x, y, z, Math.max(0, 11 + ((int) distance)));
-                    }
-                }
-            }
-        }
-    }
-
     private void addBlock(Chunk chunk, Vec3i location, Block block) {
         if (Chunk.isInsideChunk(location.x, location.y, location.z)) {
             chunk.addBlock(location, block);
-            chunk.setSunlight(location.x, location.y, location.z, 0);
         }
     }
 
@@ -1277,11 +1317,34 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
     }
 
     private float getHeight(float worldX, float worldZ, Vector2f sample) {
-        float h = layeredNoise.evaluate(sample.set(worldX, worldZ), worldSize) + GROUND_MIN;
+        float relief = layeredNoise.evaluate(sample.set(worldX, worldZ), worldSize);
+        return shapeHeight(relief, continentalNoise.evaluate(sample.set(worldX, worldZ), worldSize));
+    }
+
+    /**
+     * Batch variant of {@link #getHeight(Vector3f)} : the noise layers are evaluated over the whole grid at
+     * once (see {@link LayeredNoise#evaluate(float, float, float, int, int, float, float[])}), with the same
+     * result at each column. Threadsafe.
+     */
+    @Override
+    public void getHeights(float x0, float z0, float step, int width, int depth, float[] heights) {
+        float[] continental = new float[width * depth];
+        layeredNoise.evaluate(x0, z0, step, width, depth, worldSize, heights);
+        continentalNoise.evaluate(x0, z0, step, width, depth, worldSize, continental);
+        for (int i = 0; i < continental.length; i++) {
+            heights[i] = shapeHeight(heights[i], continental[i]);
+        }
+    }
+
+    /**
+     * @return the height of a column given its relief and continental noises
+     */
+    private float shapeHeight(float relief, float continental) {
+        float h = relief + GROUND_MIN;
         // Highland relief : add a very-low-frequency continentalness term so whole regions climb into
         // mountains toward the (higher) snow line. Smooth and tiled -> no seam ; the soft ceiling below
         // absorbs the overshoot. Emergent "mountain biome" : the surface caps as rock/snow past the tiers.
-        float c01 = (continentalNoise.evaluate(sample.set(worldX, worldZ), worldSize) + 1f) * 0.5f;
+        float c01 = (continental + 1f) * 0.5f;
         h += c01 * HIGHLAND_BOOST;
         // Soft ceiling : at high relief the raw noise far exceeds the world ceiling (gridHeight*chunkHeight),
         // so peaks would be flat-cut at the top of the chunk grid. Compress everything above peakSoftStart
@@ -1296,23 +1359,4 @@ public class NoiseTerrainGenerator implements TerrainGenerator {
         return h;
     }
 
-    /**
-     * Bounded LRU (access-ordered) cache of per-column heightmaps. Wrapped in a synchronized map by
-     * the owner, since chunk generation runs on a thread pool.
-     */
-    private static final class HeightsCache extends LinkedHashMap<Long, float[]> {
-        private static final long serialVersionUID = 1L;
-        private final transient int capacity;
-
-        HeightsCache(int capacity) {
-            super(capacity * 4 / 3 + 1, 0.75f, true);
-            this.capacity = capacity;
-        }
-
-        @Override
-        protected boolean removeEldestEntry(Map.Entry<Long, float[]> eldest) {
-            return size() > capacity;
-        }
-    }
-
 }
\ No newline at end of file
@@ -10,4 +10,17 @@ public interface TerrainGenerator extends ChunkGenerator {
     void setWaterHeight(float waterHeight);
 
     float getHeight(Vector3f blockLocation);
+
+    /**
+     * Samples the height over a regular grid : {@code heights[j * width + i]} receives the height at
+     * {@code (x0 + i * step, z0 + j * step)}. Generators may override it with a batch evaluation.
+     */
+    default void getHeights(float x0, float z0, float step, int width, int depth, float[] heights) {
+        Vector3f location = new Vector3f();
+        for (int j = 0; j < depth; j++) {
+            for (int i = 0; i < width; i++) {
+                heights[j * width + i] = getHeight(location.set(x0 + i * step, 0f, z0 + j * step));
+            }
+        }
+    }
 }
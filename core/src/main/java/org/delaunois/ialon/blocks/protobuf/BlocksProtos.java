@@ -138,6 +138,116 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
      * @return The lightmap.
      */
     com.google.protobuf.ByteString getLightmap();
+
+    /**
+     * <pre>
+     * the format of the block and light data. 0 (unset) is the legacy format : one block name per cell in
+     * blocks and the raw lightmap. 2 is the palette format : palette + block_runs and lightmap_runs.
+     * </pre>
+     *
+     * <code>uint32 version = 5;</code>
+     * @return The version.
+     */
+    int getVersion();
+
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @return A list containing the palette.
+     */
+    java.util.List<java.lang.String>
+        getPaletteList();
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @return The count of palette.
+     */
+    int getPaletteCount();
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @param index The index of the element to return.
+     * @return The palette at the given index.
+     */
+    java.lang.String getPalette(int index);
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @param index The index of the value to return.
+     * @return The bytes of the palette at the given index.
+     */
+    com.google.protobuf.ByteString
+        getPaletteBytes(int index);
+
+    /**
+     * <pre>
+     * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+     * @return A list containing the blockRuns.
+     */
+    java.util.List<java.lang.Integer> getBlockRunsList();
+    /**
+     * <pre>
+     * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+     * @return The count of blockRuns.
+     */
+    int getBlockRunsCount();
+    /**
+     * <pre>
+     * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+     * @param index The index of the element to return.
+     * @return The blockRuns at the given index.
+     */
+    int getBlockRuns(int index);
+
+    /**
+     * <pre>
+     * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+     * @return A list containing the lightmapRuns.
+     */
+    java.util.List<java.lang.Integer> getLightmapRunsList();
+    /**
+     * <pre>
+     * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+     * @return The count of lightmapRuns.
+     */
+    int getLightmapRunsCount();
+    /**
+     * <pre>
+     * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+     * @param index The index of the element to return.
+     * @return The lightmapRuns at the given index.
+     */
+    int getLightmapRuns(int index);
   }
   /**
    * Protobuf type {@code ChunkProto}
@@ -166,6 +276,10 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
       blocks_ =
           com.google.protobuf.LazyStringArrayList.emptyList();
       lightmap_ = com.google.protobuf.ByteString.EMPTY;
+      palette_ =
+          com.google.protobuf.LazyStringArrayList.emptyList();
+      blockRuns_ = emptyIntList();
+      lightmapRuns_ = emptyIntList();
     }
 
     public static final com.google.protobuf.Descriptors.Descriptor
@@ -338,6 +452,159 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
       return lightmap_;
     }
 
+    public static final int VERSION_FIELD_NUMBER = 5;
+    private int version_ = 0;
+    /**
+     * <pre>
+     * the format of the block and light data. 0 (unset) is the legacy format : one block name per cell in
+     * blocks and the raw lightmap. 2 is the palette format : palette + block_runs and lightmap_runs.
+     * </pre>
+     *
+     * <code>uint32 version = 5;</code>
+     * @return The version.
+     */
+    @java.lang.Override
+    public int getVersion() {
+      return version_;
+    }
+
+    public static final int PALETTE_FIELD_NUMBER = 6;
+    @SuppressWarnings("serial")
+    private com.google.protobuf.LazyStringArrayList palette_ =
+        com.google.protobuf.LazyStringArrayList.emptyList();
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @return A list containing the palette.
+     */
+    public com.google.protobuf.ProtocolStringList
+        getPaletteList() {
+      return palette_;
+    }
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @return The count of palette.
+     */
+    public int getPaletteCount() {
+      return palette_.size();
+    }
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @param index The index of the element to return.
+     * @return The palette at the given index.
+     */
+    public java.lang.String getPalette(int index) {
+      return palette_.get(index);
+    }
+    /**
+     * <pre>
+     * v2 : the distinct block names of the chunk, referenced by index from block_runs
+     * </pre>
+     *
+     * <code>repeated string palette = 6;</code>
+     * @param index The index of the value to return.
+     * @return The bytes of the palette at the given index.
+     */
+    public com.google.protobuf.ByteString
+        getPaletteBytes(int index) {
+      return palette_.getByteString(index);
+    }
+
+    public static final int BLOCK_RUNS_FIELD_NUMBER = 7;
+    @SuppressWarnings("serial")
+    private com.google.protobuf.Internal.IntList blockRuns_ =
+        emptyIntList();
+    /**
+     * <pre>
+     * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+     * @return A list containing the blockRuns.
+     */
+    @java.lang.Override
+    public java.util.List<java.lang.Integer>
+        getBlockRunsList() {
+      return blockRuns_;
+    }
+    /**
+     * <pre>
+     * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+     * @return The count of blockRuns.
+     */
+    public int getBlockRunsCount() {
+      return blockRuns_.size();
+    }
+    /**
+     * <pre>
+     * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+     * @param index The index of the element to return.
+     * @return The blockRuns at the given index.
+     */
+    public int getBlockRuns(int index) {
+      return blockRuns_.getInt(index);
+    }
+    private int blockRunsMemoizedSerializedSize = -1;
+
+    public static final int LIGHTMAP_RUNS_FIELD_NUMBER = 8;
+    @SuppressWarnings("serial")
+    private com.google.protobuf.Internal.IntList lightmapRuns_ =
+        emptyIntList();
+    /**
+     * <pre>
+     * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+     * @return A list containing the lightmapRuns.
+     */
+    @java.lang.Override
+    public java.util.List<java.lang.Integer>
+        getLightmapRunsList() {
+      return lightmapRuns_;
+    }
+    /**
+     * <pre>
+     * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+     * @return The count of lightmapRuns.
+     */
+    public int getLightmapRunsCount() {
+      return lightmapRuns_.size();
+    }
+    /**
+     * <pre>
+     * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+     * </pre>
+     *
+     * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+     * @param index The index of the element to return.
+     * @return The lightmapRuns at the given index.
+     */
+    public int getLightmapRuns(int index) {
+      return lightmapRuns_.getInt(index);
+    }
+    private int lightmapRunsMemoizedSerializedSize = -1;
+
     private byte memoizedIsInitialized = -1;
     @java.lang.Override
     public final boolean isInitialized() {
@@ -373,6 +640,26 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
       if (!lightmap_.isEmpty()) {
         output.writeBytes(4, lightmap_);
       }
+      if (version_ != 0) {
+        output.writeUInt32(5, version_);
+      }
+      for (int i = 0; i < palette_.size(); i++) {
+        com.google.protobuf.GeneratedMessage.writeString(output, 6, palette_.getRaw(i));
+      }
+      if (getBlockRunsList().size() > 0) {
+        output.writeUInt32NoTag(58);
+        output.writeUInt32NoTag(blockRunsMemoizedSerializedSize);
+      }
+      for (int i = 0; i < blockRuns_.size(); i++) {
+        output.writeUInt32NoTag(blockRuns_.getInt(i));
+      }
+      if (getLightmapRunsList().size() > 0) {
+        output.writeUInt32NoTag(66);
+        output.writeUInt32NoTag(lightmapRunsMemoizedSerializedSize);
+      }
+      for (int i = 0; i < lightmapRuns_.size(); i++) {
+        output.writeUInt32NoTag(lightmapRuns_.getInt(i));
+      }
       getUnknownFields().writeTo(output);
     }
     private int computeSerializedSize_0() {
@@ -417,6 +704,46 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
         size += com.google.protobuf.CodedOutputStream
           .computeBytesSize(4, lightmap_);
       }
+      if (version_ != 0) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeUInt32Size(5, version_);
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < palette_.size(); i++) {
+          dataSize += computeStringSizeNoTag(palette_.getRaw(i));
+        }
+        size += dataSize;
+        size += 1 * getPaletteList().size();
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < blockRuns_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeUInt32SizeNoTag(blockRuns_.getInt(i));
+        }
+        size += dataSize;
+        if (!getBlockRunsList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        blockRunsMemoizedSerializedSize = dataSize;
+      }
+      {
+        int dataSize = 0;
+        for (int i = 0; i < lightmapRuns_.size(); i++) {
+          dataSize += com.google.protobuf.CodedOutputStream
+            .computeUInt32SizeNoTag(lightmapRuns_.getInt(i));
+        }
+        size += dataSize;
+        if (!getLightmapRunsList().isEmpty()) {
+          size += 1;
+          size += com.google.protobuf.CodedOutputStream
+              .computeInt32SizeNoTag(dataSize);
+        }
+        lightmapRunsMemoizedSerializedSize = dataSize;
+      }
       return size;
     }
     @java.lang.Override
@@ -449,6 +776,14 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
           .equals(other.getBlocksList())) return false;
       if (!getLightmap()
           .equals(other.getLightmap())) return false;
+      if (getVersion()
+          != other.getVersion()) return false;
+      if (!getPaletteList()
+          .equals(other.getPaletteList())) return false;
+      if (!getBlockRunsList()
+          .equals(other.getBlockRunsList())) return false;
+      if (!getLightmapRunsList()
+          .equals(other.getLightmapRunsList())) return false;
       if (!getUnknownFields().equals(other.getUnknownFields())) return false;
       return true;
     }
@@ -474,6 +809,20 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
       }
       hash = (37 * hash) + LIGHTMAP_FIELD_NUMBER;
       hash = (53 * hash) + getLightmap().hashCode();
+      hash = (37 * hash) + VERSION_FIELD_NUMBER;
+      hash = (53 * hash) + getVersion();
+      if (getPaletteCount() > 0) {
+        hash = (37 * hash) + PALETTE_FIELD_NUMBER;
+        hash = (53 * hash) + getPaletteList().hashCode();
+      }
+      if (getBlockRunsCount() > 0) {
+        hash = (37 * hash) + BLOCK_RUNS_FIELD_NUMBER;
+        hash = (53 * hash) + getBlockRunsList().hashCode();
+      }
+      if (getLightmapRunsCount() > 0) {
+        hash = (37 * hash) + LIGHTMAP_RUNS_FIELD_NUMBER;
+        hash = (53 * hash) + getLightmapRunsList().hashCode();
+      }
       hash = (29 * hash) + getUnknownFields().hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -610,6 +959,11 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
         blocks_ =
             com.google.protobuf.LazyStringArrayList.emptyList();
         lightmap_ = com.google.protobuf.ByteString.EMPTY;
+        version_ = 0;
+        palette_ =
+            com.google.protobuf.LazyStringArrayList.emptyList();
+        blockRuns_ = emptyIntList();
+        lightmapRuns_ = emptyIntList();
         return this;
       }
 
@@ -658,6 +1012,21 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
         if (((from_bitField0_ & 0x00000008) != 0)) {
           result.lightmap_ = lightmap_;
         }
+        if (((from_bitField0_ & 0x00000010) != 0)) {
+          result.version_ = version_;
+        }
+        if (((from_bitField0_ & 0x00000020) != 0)) {
+          palette_.makeImmutable();
+          result.palette_ = palette_;
+        }
+        if (((from_bitField0_ & 0x00000040) != 0)) {
+          blockRuns_.makeImmutable();
+          result.blockRuns_ = blockRuns_;
+        }
+        if (((from_bitField0_ & 0x00000080) != 0)) {
+          lightmapRuns_.makeImmutable();
+          result.lightmapRuns_ = lightmapRuns_;
+        }
       }
 
       @java.lang.Override
@@ -707,6 +1076,41 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
         if (!other.getLightmap().isEmpty()) {
           setLightmap(other.getLightmap());
         }
+        if (other.getVersion() != 0) {
+          setVersion(other.getVersion());
+        }
+        if (!other.palette_.isEmpty()) {
+          if (palette_.isEmpty()) {
+            palette_ = other.palette_;
+            bitField0_ |= 0x00000020;
+          } else {
+            ensurePaletteIsMutable();
+            palette_.addAll(other.palette_);
+          }
+          onChanged();
+        }
+        if (!other.blockRuns_.isEmpty()) {
+          if (blockRuns_.isEmpty()) {
+            blockRuns_ = other.blockRuns_;
+            blockRuns_.makeImmutable();
+            bitField0_ |= 0x00000040;
+          } else {
+            ensureBlockRunsIsMutable();
+            blockRuns_.addAll(other.blockRuns_);
+          }
+          onChanged();
+        }
+        if (!other.lightmapRuns_.isEmpty()) {
+          if (lightmapRuns_.isEmpty()) {
+            lightmapRuns_ = other.lightmapRuns_;
+            lightmapRuns_.makeImmutable();
+            bitField0_ |= 0x00000080;
+          } else {
+            ensureLightmapRunsIsMutable();
+            lightmapRuns_.addAll(other.lightmapRuns_);
+          }
+          onChanged();
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         onChanged();
         return this;
@@ -775,6 +1179,48 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
                 bitField0_ |= 0x00000008;
                 break;
               } // case 34
+              case 40: {
+                version_ = input.readUInt32();
+                bitField0_ |= 0x00000010;
+                break;
+              } // case 40
+              case 50: {
+                ensurePaletteIsMutable();
+                palette_.add(input.readStringRequireUtf8());
+                break;
+              } // case 50
+              case 56: {
+                int v = input.readUInt32();
+                ensureBlockRunsIsMutable();
+                blockRuns_.addInt(v);
+                break;
+              } // case 56
+              case 58: {
+                int length = input.readRawVarint32();
+                int limit = input.pushLimit(length);
+                ensureBlockRunsIsMutable();
+                while (input.getBytesUntilLimit() > 0) {
+                  blockRuns_.addInt(input.readUInt32());
+                }
+                input.popLimit(limit);
+                break;
+              } // case 58
+              case 64: {
+                int v = input.readUInt32();
+                ensureLightmapRunsIsMutable();
+                lightmapRuns_.addInt(v);
+                break;
+              } // case 64
+              case 66: {
+                int length = input.readRawVarint32();
+                int limit = input.pushLimit(length);
+                ensureLightmapRunsIsMutable();
+                while (input.getBytesUntilLimit() > 0) {
+                  lightmapRuns_.addInt(input.readUInt32());
+                }
+                input.popLimit(limit);
+                break;
+              } // case 66
               default: {
                 if (!super.parseUnknownField(input, extensionRegistry, tag)) {
                   done = true; // was an endgroup tag
@@ -1207,6 +1653,424 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
         return this;
       }
 
+      private int version_ ;
+      /**
+       * <pre>
+       * the format of the block and light data. 0 (unset) is the legacy format : one block name per cell in
+       * blocks and the raw lightmap. 2 is the palette format : palette + block_runs and lightmap_runs.
+       * </pre>
+       *
+       * <code>uint32 version = 5;</code>
+       * @return The version.
+       */
+      @java.lang.Override
+      public int getVersion() {
+        return version_;
+      }
+      /**
+       * <pre>
+       * the format of the block and light data. 0 (unset) is the legacy format : one block name per cell in
+       * blocks and the raw lightmap. 2 is the palette format : palette + block_runs and lightmap_runs.
+       * </pre>
+       *
+       * <code>uint32 version = 5;</code>
+       * @param value The version to set.
+       * @return This builder for chaining.
+       */
+      public Builder setVersion(int value) {
+
+        version_ = value;
+        bitField0_ |= 0x00000010;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * the format of the block and light data. 0 (unset) is the legacy format : one block name per cell in
+       * blocks and the raw lightmap. 2 is the palette format : palette + block_runs and lightmap_runs.
+       * </pre>
+       *
+       * <code>uint32 version = 5;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearVersion() {
+        bitField0_ = (bitField0_ & ~0x00000010);
+        version_ = 0;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.LazyStringArrayList palette_ =
+          com.google.protobuf.LazyStringArrayList.emptyList();
+      private void ensurePaletteIsMutable() {
+        if (!palette_.isModifiable()) {
+          palette_ = new com.google.protobuf.LazyStringArrayList(palette_);
+        }
+        bitField0_ |= 0x00000020;
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @return A list containing the palette.
+       */
+      public com.google.protobuf.ProtocolStringList
+          getPaletteList() {
+        palette_.makeImmutable();
+        return palette_;
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @return The count of palette.
+       */
+      public int getPaletteCount() {
+        return palette_.size();
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @param index The index of the element to return.
+       * @return The palette at the given index.
+       */
+      public java.lang.String getPalette(int index) {
+        return palette_.get(index);
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @param index The index of the value to return.
+       * @return The bytes of the palette at the given index.
+       */
+      public com.google.protobuf.ByteString
+          getPaletteBytes(int index) {
+        return palette_.getByteString(index);
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @param index The index to set the value at.
+       * @param value The palette to set.
+       * @return This builder for chaining.
+       */
+      public Builder setPalette(
+          int index, java.lang.String value) {
+        if (value == null) { throw new NullPointerException(); }
+        ensurePaletteIsMutable();
+        palette_.set(index, value);
+        bitField0_ |= 0x00000020;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @param value The palette to add.
+       * @return This builder for chaining.
+       */
+      public Builder addPalette(
+          java.lang.String value) {
+        if (value == null) { throw new NullPointerException(); }
+        ensurePaletteIsMutable();
+        palette_.add(value);
+        bitField0_ |= 0x00000020;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @param values The palette to add.
+       * @return This builder for chaining.
+       */
+      public Builder addAllPalette(
+          java.lang.Iterable<java.lang.String> values) {
+        ensurePaletteIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, palette_);
+        bitField0_ |= 0x00000020;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearPalette() {
+        palette_ =
+          com.google.protobuf.LazyStringArrayList.emptyList();
+        bitField0_ = (bitField0_ & ~0x00000020);;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the distinct block names of the chunk, referenced by index from block_runs
+       * </pre>
+       *
+       * <code>repeated string palette = 6;</code>
+       * @param value The bytes of the palette to add.
+       * @return This builder for chaining.
+       */
+      public Builder addPaletteBytes(
+          com.google.protobuf.ByteString value) {
+        if (value == null) { throw new NullPointerException(); }
+        checkByteStringIsUtf8(value);
+        ensurePaletteIsMutable();
+        palette_.add(value);
+        bitField0_ |= 0x00000020;
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.Internal.IntList blockRuns_ = emptyIntList();
+      private void ensureBlockRunsIsMutable() {
+        if (!blockRuns_.isModifiable()) {
+          blockRuns_ = makeMutableCopy(blockRuns_);
+        }
+        bitField0_ |= 0x00000040;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @return A list containing the blockRuns.
+       */
+      public java.util.List<java.lang.Integer>
+          getBlockRunsList() {
+        blockRuns_.makeImmutable();
+        return blockRuns_;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @return The count of blockRuns.
+       */
+      public int getBlockRunsCount() {
+        return blockRuns_.size();
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @param index The index of the element to return.
+       * @return The blockRuns at the given index.
+       */
+      public int getBlockRuns(int index) {
+        return blockRuns_.getInt(index);
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @param index The index to set the value at.
+       * @param value The blockRuns to set.
+       * @return This builder for chaining.
+       */
+      public Builder setBlockRuns(
+          int index, int value) {
+
+        ensureBlockRunsIsMutable();
+        blockRuns_.setInt(index, value);
+        bitField0_ |= 0x00000040;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @param value The blockRuns to add.
+       * @return This builder for chaining.
+       */
+      public Builder addBlockRuns(int value) {
+
+        ensureBlockRunsIsMutable();
+        blockRuns_.addInt(value);
+        bitField0_ |= 0x00000040;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @param values The blockRuns to add.
+       * @return This builder for chaining.
+       */
+      public Builder addAllBlockRuns(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureBlockRunsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, blockRuns_);
+        bitField0_ |= 0x00000040;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded block array, as (run length, palette index) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 block_runs = 7 [packed = true];</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearBlockRuns() {
+        blockRuns_ = emptyIntList();
+        bitField0_ = (bitField0_ & ~0x00000040);
+        onChanged();
+        return this;
+      }
+
+      private com.google.protobuf.Internal.IntList lightmapRuns_ = emptyIntList();
+      private void ensureLightmapRunsIsMutable() {
+        if (!lightmapRuns_.isModifiable()) {
+          lightmapRuns_ = makeMutableCopy(lightmapRuns_);
+        }
+        bitField0_ |= 0x00000080;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @return A list containing the lightmapRuns.
+       */
+      public java.util.List<java.lang.Integer>
+          getLightmapRunsList() {
+        lightmapRuns_.makeImmutable();
+        return lightmapRuns_;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @return The count of lightmapRuns.
+       */
+      public int getLightmapRunsCount() {
+        return lightmapRuns_.size();
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @param index The index of the element to return.
+       * @return The lightmapRuns at the given index.
+       */
+      public int getLightmapRuns(int index) {
+        return lightmapRuns_.getInt(index);
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @param index The index to set the value at.
+       * @param value The lightmapRuns to set.
+       * @return This builder for chaining.
+       */
+      public Builder setLightmapRuns(
+          int index, int value) {
+
+        ensureLightmapRunsIsMutable();
+        lightmapRuns_.setInt(index, value);
+        bitField0_ |= 0x00000080;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @param value The lightmapRuns to add.
+       * @return This builder for chaining.
+       */
+      public Builder addLightmapRuns(int value) {
+
+        ensureLightmapRunsIsMutable();
+        lightmapRuns_.addInt(value);
+        bitField0_ |= 0x00000080;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @param values The lightmapRuns to add.
+       * @return This builder for chaining.
+       */
+      public Builder addAllLightmapRuns(
+          java.lang.Iterable<? extends java.lang.Integer> values) {
+        ensureLightmapRunsIsMutable();
+        com.google.protobuf.AbstractMessageLite.Builder.addAll(
+            values, lightmapRuns_);
+        bitField0_ |= 0x00000080;
+        onChanged();
+        return this;
+      }
+      /**
+       * <pre>
+       * v2 : the run-length encoded lightmap, as (run length, light byte) pairs in cell order
+       * </pre>
+       *
+       * <code>repeated uint32 lightmap_runs = 8 [packed = true];</code>
+       * @return This builder for chaining.
+       */
+      public Builder clearLightmapRuns() {
+        lightmapRuns_ = emptyIntList();
+        bitField0_ = (bitField0_ & ~0x00000080);
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:ChunkProto)
     }
 
@@ -1272,11 +2136,13 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
       descriptor;
   static {
     java.lang.String[] descriptorData = {
-      "\n\014blocks.proto\"V\n\nChunkProto\022\024\n\010location" +
-      "\030\001 \003(\021B\002\020\001\022\020\n\004size\030\002 \003(\021B\002\020\001\022\016\n\006blocks\030\003" +
-      " \003(\t\022\020\n\010lightmap\030\004 \001(\014B3\n#org.delaunois." +
-      "ialon.blocks.protobufB\014BlocksProtosb\006pro" +
-      "to3"
+      "\n\014blocks.proto\"\253\001\n\nChunkProto\022\024\n\010locatio" +
+      "n\030\001 \003(\021B\002\020\001\022\020\n\004size\030\002 \003(\021B\002\020\001\022\016\n\006blocks\030" +
+      "\003 \003(\t\022\020\n\010lightmap\030\004 \001(\014\022\017\n\007version\030\005 \001(\r" +
+      "\022\017\n\007palette\030\006 \003(\t\022\026\n\nblock_runs\030\007 \003(\rB\002\020" +
+      "\001\022\031\n\rlightmap_runs\030\010 \003(\rB\002\020\001B3\n#org.dela" +
+      "unois.ialon.blocks.protobufB\014BlocksProto" +
+      "sb\006proto3"
     };
     descriptor = com.google.protobuf.Descriptors.FileDescriptor
       .internalBuildGeneratedFileFrom(descriptorData,
@@ -1287,7 +2153,7 @@ public final class BlocksProtos extends com.google.protobuf.GeneratedFile {
     internal_static_ChunkProto_fieldAccessorTable = new
       com.google.protobuf.GeneratedMessage.FieldAccessorTable(
         internal_static_ChunkProto_descriptor,
-        new java.lang.String[] { "Location", "Size", "Blocks", "Lightmap", });
+        new java.lang.String[] { "Location", "Size", "Blocks", "Lightmap", "Version", "Palette", "BlockRuns", "LightmapRuns", });
     descriptor.resolveAllFeaturesImmutable();
   }
 
@@ -38,6 +38,11 @@ public class Billboard implements Shape {
             new Vector2f(1.0f / UV_PADDING_FACTOR + UV_PADDING, 1.0f / UV_PADDING_FACTOR + UV_PADDING)  // top-right
     };
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return NO_BOX;
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         float blockScale = BlocksConfig.getInstance().getBlockScale();
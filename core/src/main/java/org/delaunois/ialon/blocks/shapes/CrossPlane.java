@@ -27,6 +27,11 @@ public class CrossPlane implements Shape {
     @Setter
     private boolean doubleFace = false;
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return NO_BOX;
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
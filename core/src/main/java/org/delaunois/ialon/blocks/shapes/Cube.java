@@ -100,35 +100,28 @@ public class Cube implements Shape {
         if (block == null)
             return;
 
-        boolean flip;
         boolean enlight = !chunkMesh.isCollisionMesh();
         boolean multipleImages = block.isUsingMultipleImages();
 
         Vec3i location = neighborhood.getLocation();
 
         if (chunk.isFaceVisible(neighborhood, UP)) {
-            flip = enlight && enlightFace(neighborhood, location, UP, chunk, chunkMesh);
-            createUp(location, chunkMesh, blockScale, multipleImages, flip);
+            addFace(neighborhood, location, UP, chunk, chunkMesh, blockScale, multipleImages, enlight);
         }
         if (chunk.isFaceVisible(neighborhood, DOWN)) {
-            flip = enlight && enlightFace(neighborhood, location, DOWN, chunk, chunkMesh);
-            createDown(location, chunkMesh, blockScale, multipleImages, flip);
+            addFace(neighborhood, location, DOWN, chunk, chunkMesh, blockScale, multipleImages, enlight);
         }
         if (chunk.isFaceVisible(neighborhood, WEST)) {
-            flip = enlight && enlightFace(neighborhood, location, WEST, chunk, chunkMesh);
-            createWest(location, chunkMesh, blockScale, multipleImages, flip);
+            addFace(neighborhood, location, WEST, chunk, chunkMesh, blockScale, multipleImages, enlight);
         }
         if (chunk.isFaceVisible(neighborhood, EAST)) {
-            flip = enlight && enlightFace(neighborhood, location, EAST, chunk, chunkMesh);
-            createEast(location, chunkMesh, blockScale, multipleImages, flip);
+            addFace(neighborhood, location, EAST, chunk, chunkMesh, blockScale, multipleImages, enlight);
         }
         if (chunk.isFaceVisible(neighborhood, SOUTH)) {
-            flip = enlight && enlightFace(neighborhood, location, SOUTH, chunk, chunkMesh);
-            createSouth(location, chunkMesh, blockScale, multipleImages, flip);
+            addFace(neighborhood, location, SOUTH, chunk, chunkMesh, blockScale, multipleImages, enlight);
         }
         if (chunk.isFaceVisible(neighborhood, NORTH)) {
-            flip = enlight && enlightFace(neighborhood, location, NORTH, chunk, chunkMesh);
-            createNorth(location, chunkMesh, blockScale, multipleImages, flip);
+            addFace(neighborhood, location, NORTH, chunk, chunkMesh, blockScale, multipleImages, enlight);
         }
     }
 
@@ -141,11 +134,45 @@ public class Cube implements Shape {
         return true;
     }
 
-    private boolean enlightFace(BlockNeighborhood n, Vec3i location, Direction face, Chunk chunk, ChunkMesh chunkMesh) {
-        return softShadow(n, location, face, chunk, chunkMesh);
+    private void addFace(BlockNeighborhood n, Vec3i location, Direction face, Chunk chunk, ChunkMesh chunkMesh,
+                         float blockScale, boolean multipleImages, boolean enlight) {
+        boolean flip = false;
+        if (enlight) {
+            Vector4f[] colors = n.getCornerColorScratch();
+            flip = softShadow(n, face, chunk, colors);
+            if (n.collectUniformFace(face, colors)) {
+                // Merged with its coplanar neighbours by the greedy render mesher
+                return;
+            }
+            chunkMesh.getColors().add(colors[0]);
+            chunkMesh.getColors().add(colors[1]);
+            chunkMesh.getColors().add(colors[2]);
+            chunkMesh.getColors().add(colors[3]);
+        }
+
+        switch (face) {
+            case UP:
+                createUp(location, chunkMesh, blockScale, multipleImages, flip);
+                break;
+            case DOWN:
+                createDown(location, chunkMesh, blockScale, multipleImages, flip);
+                break;
+            case WEST:
+                createWest(location, chunkMesh, blockScale, multipleImages, flip);
+                break;
+            case EAST:
+                createEast(location, chunkMesh, blockScale, multipleImages, flip);
+                break;
+            case SOUTH:
+                createSouth(location, chunkMesh, blockScale, multipleImages, flip);
+                break;
+            default:
+                createNorth(location, chunkMesh, blockScale, multipleImages, flip);
+                break;
+        }
     }
 
-    private boolean softShadow(BlockNeighborhood n, Vec3i location, Direction face, Chunk chunk, ChunkMesh chunkMesh) {
+    private boolean softShadow(BlockNeighborhood n, Direction face, Chunk chunk, Vector4f[] colors) {
         Vector4f color = n.getFaceLight(face);
 
         //  Bottom     Middle      Top            Y ---> X
@@ -157,18 +184,10 @@ public class Cube implements Shape {
 
         // a01  a11
         // a00  a10
-        Vector4f store = n.getColorScratch();
-        float a11 = chunk.vertexColor(nb[7], nb[1], nb[0], color, store).w; // UP:20 DO:00 NO:00 SO:08 WE:06 EA:02
-        chunkMesh.getColors().add(store);
-
-        float a01 = chunk.vertexColor(nb[1], nb[3], nb[2], color, store).w; // UP:18 DO:02 NO:18 SO:26 WE:24 EA:20
-        chunkMesh.getColors().add(store);
-
-        float a10 = chunk.vertexColor(nb[5], nb[7], nb[6], color, store).w; // UP:26 DO:06 NO:02 SO:06 WE:00 EA:08
-        chunkMesh.getColors().add(store);
-
-        float a00 = chunk.vertexColor(nb[3], nb[5], nb[4], color, store).w; // UP:24 DO:08 NO:20 SO:24 WE:18 EA:26
-        chunkMesh.getColors().add(store);
+        float a11 = chunk.vertexColor(nb[7], nb[1], nb[0], color, colors[0]).w; // UP:20 DO:00 NO:00 SO:08 WE:06 EA:02
+        float a01 = chunk.vertexColor(nb[1], nb[3], nb[2], color, colors[1]).w; // UP:18 DO:02 NO:18 SO:26 WE:24 EA:20
+        float a10 = chunk.vertexColor(nb[5], nb[7], nb[6], color, colors[2]).w; // UP:26 DO:06 NO:02 SO:06 WE:00 EA:08
+        float a00 = chunk.vertexColor(nb[3], nb[5], nb[4], color, colors[3]).w; // UP:24 DO:08 NO:20 SO:24 WE:18 EA:26
 
         float grad1 = Math.abs(a00 - a11);
         float grad2 = Math.abs(a01 - a10);
@@ -41,6 +41,11 @@ public class Fence implements Shape {
 
     private final Quaternion emitRotation;
 
+    // Half width of the collision box of the post. Wider than the post : the rails between two posts
+    // are not collided individually, the widened post closes the gap to a player.
+    private static final float COLLISION_HALF_WIDTH = 0.25f;
+    private final float[] collisionBoxes;
+
     private final Vector3f nUp;
     private final Vector3f nDown;
     private final Vector3f nNorth;
@@ -85,6 +90,8 @@ public class Fence implements Shape {
         this.nWest = rotation.mult(new Vector3f(-1f, 0f, 0f));
 
         float te = this.widthExtend;
+        float ce = Math.max(te, COLLISION_HALF_WIDTH);
+        this.collisionBoxes = Shape.rotateBoxes(rotation, -ce, -0.5f, -ce, ce, 0.5f, ce);
         this.bMM = new Vector3f(-te, -0.5f, -te);
         this.bMP = new Vector3f(-te, -0.5f, te);
         this.bPM = new Vector3f(te, -0.5f, -te);
@@ -121,6 +128,11 @@ public class Fence implements Shape {
         };
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
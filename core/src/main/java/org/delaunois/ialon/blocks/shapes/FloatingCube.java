@@ -80,6 +80,13 @@ public class FloatingCube implements Shape {
         this.nWest = rotation.mult(new Vector3f(-1f, 0f, 0f));
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        // Not precomputed : half_width is a shared mutable static
+        float hw = half_width;
+        return new float[] {-hw, -hw, -hw, hw, hw, hw};
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
@@ -8,9 +8,8 @@ import org.delaunois.ialon.blocks.BlocksConfig;
 import org.delaunois.ialon.blocks.Chunk;
 import org.delaunois.ialon.blocks.ChunkMesh;
 import org.delaunois.ialon.blocks.Direction;
+import org.delaunois.ialon.blocks.MeshBuckets;
 import org.delaunois.ialon.blocks.Shape;
-import org.delaunois.ialon.blocks.ShapeIds;
-import org.delaunois.ialon.blocks.TypeIds;
 import com.simsilica.mathd.Vec3i;
 
 import org.delaunois.ialon.blocks.BlockNeighborhood;
@@ -69,6 +68,11 @@ public class Liquid implements Shape {
         this.renderUp = renderUp;
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return NO_BOX;
+    }
+
     @Override
     public void add(BlockNeighborhood neighborhood, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
@@ -363,10 +367,7 @@ public class Liquid implements Shape {
         // would only produce a quad coplanar with the structure's opaque face — the z-fighting seen in the
         // back of a stair standing in water. A pure liquid cell's own shape covers no face (default), so
         // this never culls normal water.
-        if (center != null && BlocksConfig.getInstance()
-                .getShapeRegistry()
-                .get(center.getShape())
-                .fullyCoversFace(direction)) {
+        if (center != null && center.getResolvedShape().fullyCoversFace(direction)) {
             return false;
         }
 
@@ -383,7 +384,7 @@ public class Liquid implements Shape {
             // the liquid filling its cell is water. Comparing block types here would treat that water
             // as "different" from the neighbouring water and emit the shared face from both sides —
             // two coplanar water quads that z-fight (the diagonal moiré seen around objects in water).
-            return center == null || !liquidType(center).equals(liquidType(neighbour));
+            return center == null || isLava(center) != isLava(neighbour);
         }
 
         // Non-liquid neighbour. A transparent neighbour (glass, leaves, ...) never hides the liquid face.
@@ -393,7 +394,7 @@ public class Liquid implements Shape {
 
         // An opaque full cube always fully covers the boundary : cull the liquid face (fast path, the
         // dominant shoreline / lakebed case).
-        if (ShapeIds.CUBE.equals(neighbour.getShape())) {
+        if (neighbour.isCube()) {
             return false;
         }
 
@@ -401,19 +402,16 @@ public class Liquid implements Shape {
         // shared boundary square (e.g. the full back or base of a stair, slab or wedge sitting against the
         // liquid). Otherwise the opaque neighbour face and this liquid face are coplanar and z-fight — the
         // shimmer seen behind a stair placed in water. Mirrors Chunk#isFaceVisible.
-        return !BlocksConfig.getInstance()
-                .getShapeRegistry()
-                .get(neighbour.getShape())
-                .fullyCoversFace(direction.opposite());
+        return !neighbour.getResolvedShape().fullyCoversFace(direction.opposite());
     }
 
     /**
-     * The type of the liquid filling a cell, independent of the (possibly structural) block occupying
+     * Whether the liquid filling a cell is lava, independent of the (possibly structural) block occupying
      * it. Lava never co-habits a structural block (pure-cell rule), so any liquid-carrying block whose
      * own type is not lava holds water. Mirrors {@code WorldManager#liquidTypeOf}.
      */
-    private static String liquidType(Block block) {
-        return TypeIds.LAVA.equals(block.getType()) ? TypeIds.LAVA : TypeIds.WATER;
+    private static boolean isLava(Block block) {
+        return block.getMeshBucket() == MeshBuckets.LAVA;
     }
 
 }
@@ -35,6 +35,7 @@ public class Pole implements Shape {
     private final float widthExtend;
 
     private final Quaternion emitRotation;
+    private final float[] collisionBoxes;
 
     private final Vector3f nUp;
     private final Vector3f nDown;
@@ -80,6 +81,7 @@ public class Pole implements Shape {
         this.nWest = rotation.mult(new Vector3f(-1f, 0f, 0f));
 
         float te = this.widthExtend;
+        this.collisionBoxes = Shape.rotateBoxes(rotation, -te, -0.5f, -te, te, 0.5f, te);
         this.bMM = new Vector3f(-te, -0.5f, -te);
         this.bMP = new Vector3f(-te, -0.5f, te);
         this.bPM = new Vector3f(te, -0.5f, -te);
@@ -116,6 +118,11 @@ public class Pole implements Shape {
         };
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
@@ -1,6 +1,5 @@
 package org.delaunois.ialon.blocks.shapes;
 
-import com.jme3.math.Matrix4f;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector2f;
 import com.jme3.math.Vector3f;
@@ -164,24 +163,6 @@ public class RoundedCube implements Shape {
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.282f, -0.367f, -0.886f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.282f, 0.367f, -0.886f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.367f, -0.282f, -0.886f)));
-            // Tangents:
-            Matrix4f rotationMatrix = rotation.toRotationMatrix(new Matrix4f());
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, -0.303f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, 0.303f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, -0.303f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, 0.303f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, 1.000f)));
             if (!multipleImages) {
                 chunkMesh.getUvs().add(new Vector2f(0.036f, 0.964f));
                 chunkMesh.getUvs().add(new Vector2f(0.964f, 0.036f));
@@ -312,24 +293,6 @@ public class RoundedCube implements Shape {
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.367f, 0.282f, 0.886f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.282f, -0.367f, 0.886f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.282f, 0.367f, 0.886f)));
-            // Tangents:
-            Matrix4f rotationMatrix = rotation.toRotationMatrix(new Matrix4f());
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, 0.303f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, -0.303f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, 0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.000f, -0.383f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, -0.303f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.000f, 0.303f, -1.000f)));
             if (!multipleImages) {
                 chunkMesh.getUvs().add(new Vector2f(0.964f, 0.964f));
                 chunkMesh.getUvs().add(new Vector2f(0.036f, 0.036f));
@@ -460,24 +423,6 @@ public class RoundedCube implements Shape {
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.886f, -0.367f, -0.282f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.886f, 0.367f, 0.282f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.924f, 0.000f, 0.383f)));
-            // Tangents:
-            Matrix4f rotationMatrix = rotation.toRotationMatrix(new Matrix4f());
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.000f, 0.000f, -1.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.000f, 0.000f, -1.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.303f, 0.000f, -0.953f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.303f, 0.000f, -0.953f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.000f, 0.000f, -1.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.303f, 0.000f, -0.953f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.303f, 0.000f, -0.953f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, -1.000f)));
             if (!multipleImages) {
                 chunkMesh.getUvs().add(new Vector2f(0.964f, 0.964f));
                 chunkMesh.getUvs().add(new Vector2f(0.036f, 0.036f));
@@ -608,24 +553,6 @@ public class RoundedCube implements Shape {
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.924f, 0.000f, 0.383f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.886f, 0.367f, -0.282f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.924f, 0.000f, -0.383f)));
-            // Tangents:
-            Matrix4f rotationMatrix = rotation.toRotationMatrix(new Matrix4f());
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.303f, 0.000f, -0.953f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.000f, 0.000f, -1.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.000f, 0.000f, -1.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.303f, 0.000f, -0.953f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.303f, 0.000f, -0.953f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(-0.383f, 0.000f, -0.924f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.303f, 0.000f, -0.953f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.383f, 0.000f, -0.924f, 1.000f)));
             if (!multipleImages) {
                 chunkMesh.getUvs().add(new Vector2f(0.036f, 0.964f));
                 chunkMesh.getUvs().add(new Vector2f(0.964f, 0.036f));
@@ -756,24 +683,6 @@ public class RoundedCube implements Shape {
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.282f, -0.886f, -0.367f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.383f, -0.924f, 0.000f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.282f, -0.886f, 0.367f)));
-            // Tangents:
-            Matrix4f rotationMatrix = rotation.toRotationMatrix(new Matrix4f());
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, -0.303f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.303f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.303f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, 1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, -0.303f, 0.000f, 1.000f)));
             if (!multipleImages) {
                 chunkMesh.getUvs().add(new Vector2f(0.036f, 0.036f));
                 chunkMesh.getUvs().add(new Vector2f(0.007f, 0.007f));
@@ -904,24 +813,6 @@ public class RoundedCube implements Shape {
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(-0.282f, 0.886f, -0.367f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.383f, 0.924f, 0.000f)));
             chunkMesh.getNormals().add(rotation.mult(new Vector3f(0.282f, 0.886f, 0.367f)));
-            // Tangents:
-            Matrix4f rotationMatrix = rotation.toRotationMatrix(new Matrix4f());
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.303f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, -0.303f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(1.000f, 0.000f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, 0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, 0.303f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.924f, -0.383f, 0.000f, -1.000f)));
-            chunkMesh.getTangents().add(rotationMatrix.mult(new Vector4f(0.953f, -0.303f, 0.000f, -1.000f)));
             if (!multipleImages) {
                 chunkMesh.getUvs().add(new Vector2f(0.036f, 0.964f));
                 chunkMesh.getUvs().add(new Vector2f(0.964f, 0.036f));
@@ -38,6 +38,7 @@ public class ShortPole implements Shape {
     private final float height;
 
     private final Quaternion emitRotation;
+    private final float[] collisionBoxes;
 
     private final Vector3f nUp;
     private final Vector3f nDown;
@@ -85,6 +86,7 @@ public class ShortPole implements Shape {
 
         float te = this.widthExtend;
         float h = this.height;
+        this.collisionBoxes = Shape.rotateBoxes(rotation, -te, -0.5f, -te, te, h, te);
         this.bMM = new Vector3f(-te, -0.5f, -te);
         this.bMP = new Vector3f(-te, -0.5f, te);
         this.bPM = new Vector3f(te, -0.5f, -te);
@@ -121,6 +123,11 @@ public class ShortPole implements Shape {
         };
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
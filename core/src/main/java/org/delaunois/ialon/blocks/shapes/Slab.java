@@ -66,6 +66,9 @@ public class Slab implements Shape {
     protected final Quaternion rotation;
     protected final Quaternion emitRotation;
 
+    // Collision box : the slab, rotated to its direction
+    private final float[] collisionBoxes;
+
     // Precomputed, world-oriented face normals (rotated once instead of 4x per face). protected : reused
     // by the SquareCuboid subclass.
     protected final Vector3f nUp;
@@ -106,6 +109,7 @@ public class Slab implements Shape {
 
         this.rotation = Shape.getRotationFromDirection(direction);
         this.emitRotation = direction == Direction.UP ? null : rotation;
+        this.collisionBoxes = Shape.rotateBoxes(rotation, -0.5f, this.startY, -0.5f, 0.5f, this.endY, 0.5f);
 
         this.nUp = rotation.mult(new Vector3f(0f, 1f, 0f));
         this.nDown = rotation.mult(new Vector3f(0f, -1f, 0f));
@@ -199,6 +203,11 @@ public class Slab implements Shape {
         }
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     public boolean fullyCoversFace(Direction direction) {
         // A slab spans the full cell cross-section in the two axes perpendicular to its thickness, so it
         // fully covers exactly the world face its flush boundary plane lies on. The local bottom plane
@@ -42,6 +42,7 @@ public class Square implements Shape {
     private final Quaternion emitRotation;
     private final Vector3f normal;
     private final Vector2f[] uvFace;
+    private final float[] collisionBoxes;
 
     public Square() {
         this(Direction.UP);
@@ -59,9 +60,15 @@ public class Square implements Shape {
         this.direction = direction;
         this.emitRotation = direction == Direction.UP ? null : rotation;
         this.normal = rotation.mult(new Vector3f(0f, 1f, 0f));
+        this.collisionBoxes = Shape.rotateBoxes(rotation, -0.5f, -0.5f, -0.5f, 0.5f, -0.48f, 0.5f);
         this.uvFace = (direction == Direction.NORTH || direction == Direction.SOUTH) ? UV_NORTH_SOUTH : UV_OTHER;
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     @Override
     public void add(Vec3i location, Chunk chunk, ChunkMesh chunkMesh) {
         // get the block scale, we multiply it with the vertex positions
@@ -30,11 +30,21 @@ public class Stairs implements Shape {
     private static final Quaternion PI_X = new Quaternion().fromAngleAxis(FastMath.PI, Vector3f.UNIT_X);
     private static final Quaternion PI_Y = new Quaternion().fromAngleAxis(FastMath.PI, Vector3f.UNIT_Y);
     private static final Quaternion INVERSE = PI_X.mult(PI_Y);
+    private static final float SIXTH = 1f / 6f;
+
+    // Collision boxes of the three steps, one third of a block high each, the highest on the north side.
+    // Package-private : also approximates the slope of the Wedge.
+    static final float[] STAIRS_BOXES = {
+            -0.5f, -0.5f, -0.5f, 0.5f, -SIXTH, 0.5f,
+            -0.5f, -SIXTH, -0.5f, 0.5f, SIXTH, SIXTH,
+            -0.5f, SIXTH, -0.5f, 0.5f, 0.5f, -SIXTH
+    };
 
     private final Direction direction;
     private final boolean upsideDown;
     private final Quaternion rotation;
     private final Quaternion emitRotation;
+    private final float[] collisionBoxes;
 
     private final Vector3f nUp;
     private final Vector3f nDown;
@@ -59,6 +69,7 @@ public class Stairs implements Shape {
         }
         this.rotation = rot;
         this.emitRotation = Quaternion.IDENTITY.equals(rot) ? null : rot;
+        this.collisionBoxes = Shape.rotateBoxes(rot, STAIRS_BOXES);
 
         this.nUp = rot.mult(new Vector3f(0.0f, 1.0f, 0.0f));
         this.nDown = rot.mult(new Vector3f(0.0f, -1.0f, 0.0f));
@@ -100,6 +111,11 @@ public class Stairs implements Shape {
         }
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     public boolean fullyCoversFace(Direction direction) {
         Direction oppositeYawFaceDirection = Shape.getOppositeYawFaceDirection(direction, this.direction);
         return oppositeYawFaceDirection == (upsideDown ? Direction.UP : Direction.DOWN)
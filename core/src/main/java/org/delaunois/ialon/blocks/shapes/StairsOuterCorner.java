@@ -25,10 +25,19 @@ public class StairsOuterCorner implements Shape {
     private static final Quaternion PI_X = new Quaternion().fromAngleAxis(FastMath.PI, Vector3f.UNIT_X);
     private static final Quaternion PI_Y = new Quaternion().fromAngleAxis(FastMath.PI, Vector3f.UNIT_Y);
     private static final Quaternion INVERSE = PI_X.mult(PI_Y);
+    private static final float SIXTH = 1f / 6f;
+
+    // Collision boxes of the three steps, the highest in the north-west corner
+    private static final float[] BOXES = {
+            -0.5f, -0.5f, -0.5f, 0.5f, -SIXTH, 0.5f,
+            -0.5f, -SIXTH, -0.5f, SIXTH, SIXTH, SIXTH,
+            -0.5f, SIXTH, -0.5f, -SIXTH, 0.5f, -SIXTH
+    };
 
     private final Direction direction;
     private final boolean upsideDown;
     private final Quaternion rotation;
+    private final float[] collisionBoxes;
 
     // Each face uses a single uniform normal : rotate it once here instead of per vertex.
     private final Vector3f nUp;
@@ -53,6 +62,7 @@ public class StairsOuterCorner implements Shape {
             rot = INVERSE.mult(rot.inverse());
         }
         this.rotation = rot;
+        this.collisionBoxes = Shape.rotateBoxes(rot, BOXES);
 
         this.nUp = rot.mult(new Vector3f(0.0f, 1.0f, 0.0f));
         this.nDown = rot.mult(new Vector3f(0.0f, -1.0f, 0.0f));
@@ -93,6 +103,11 @@ public class StairsOuterCorner implements Shape {
         }
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     public boolean fullyCoversFace(Direction direction) {
         return Shape.getOppositeYawFaceDirection(direction, this.direction) == Direction.DOWN;
     }
@@ -75,6 +75,7 @@ public class Wedge implements Shape {
     private final boolean upsideDown;
     private final Quaternion rotation;
     private final Quaternion emitRotation;
+    private final float[] collisionBoxes;
 
     private final Vector3f nDown;
     private final Vector3f nSouth;
@@ -97,6 +98,8 @@ public class Wedge implements Shape {
         }
         this.rotation = rot;
         this.emitRotation = Quaternion.IDENTITY.equals(rot) ? null : rot;
+        // The slope collides as stairs : walkable with the step height of the character
+        this.collisionBoxes = Shape.rotateBoxes(rot, Stairs.STAIRS_BOXES);
 
         this.nDown = rot.mult(new Vector3f(0.0f, -1.0f, 0.0f));
         this.nSouth = rot.mult(new Vector3f(0.0f, 0.70710677f, 0.70710677f));
@@ -160,6 +163,11 @@ public class Wedge implements Shape {
         add(new BlockNeighborhood(location, chunk), chunkMesh);
     }
 
+    @Override
+    public float[] getCollisionBoxes() {
+        return collisionBoxes;
+    }
+
     public boolean fullyCoversFace(Direction direction) {
         Direction oppositeYawFaceDirection = Shape.getOppositeYawFaceDirection(direction, this.direction);
         return oppositeYawFaceDirection == (upsideDown ? Direction.UP : Direction.DOWN)
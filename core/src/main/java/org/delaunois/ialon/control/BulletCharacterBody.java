@@ -0,0 +1,34 @@
+package org.delaunois.ialon.control;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.shapes.ConvexShape;
+import com.jme3.bullet.control.CharacterControl;
+
+/**
+ * A character body simulated by Bullet : collides with the chunk collision meshes added to the physics
+ * space by the PhysicsChunkPager.
+ *
+ * @author Cedric de Launois
+ */
+public class BulletCharacterBody extends CharacterControl implements CharacterBody {
+
+    public BulletCharacterBody(ConvexShape shape, float stepHeight) {
+        super(shape, stepHeight);
+    }
+
+    @Override
+    public void enterPhysicsSpace(PhysicsSpace physicsSpace) {
+        physicsSpace.add(this);
+    }
+
+    @Override
+    public void leavePhysicsSpace(PhysicsSpace physicsSpace) {
+        physicsSpace.remove(this);
+    }
+
+    @Override
+    public void setStepHeight(float stepHeight) {
+        getCharacter().setStepHeight(stepHeight);
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.delaunois.ialon.control;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+
+/**
+ * The physical body of the player : moves the spatial it is bound to according to the walk direction,
+ * the gravity and the collisions with the world. Driven by the {@link PlayerCharacterControl}.
+ * <p>
+ * Two implementations : {@link BulletCharacterBody} collides with the chunk collision meshes paged in
+ * the Bullet physics space, {@link VoxelCharacterBody} collides directly with the blocks of the chunks.
+ *
+ * @author Cedric de Launois
+ */
+public interface CharacterBody {
+
+    /**
+     * Binds the body to the spatial it moves. The body starts at the location of the spatial.
+     * @param spatial the spatial, or null to unbind
+     */
+    void setSpatial(Spatial spatial);
+
+    /**
+     * Moves the spatial to the location of the body.
+     * @param tpf the time per frame, in seconds
+     */
+    void update(float tpf);
+
+    /**
+     * Adds the body to the physics space, if it lives in one.
+     */
+    void enterPhysicsSpace(PhysicsSpace physicsSpace);
+
+    /**
+     * Removes the body from the physics space, if it lives in one.
+     */
+    void leavePhysicsSpace(PhysicsSpace physicsSpace);
+
+    /**
+     * @param walkDirection the displacement per physics tick (1/60 s)
+     */
+    void setWalkDirection(Vector3f walkDirection);
+
+    void setPhysicsLocation(Vector3f location);
+
+    void setGravity(float gravity);
+
+    void setFallSpeed(float fallSpeed);
+
+    void setJumpSpeed(float jumpSpeed);
+
+    void setStepHeight(float stepHeight);
+
+    boolean onGround();
+
+    void jump();
+
+}
@@ -1,9 +1,10 @@
 package org.delaunois.ialon.control;
 
-import com.jme3.bullet.collision.shapes.ConvexShape;
-import com.jme3.bullet.control.CharacterControl;
 import com.jme3.math.Vector3f;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
 import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AbstractControl;
 import org.delaunois.ialon.blocks.Block;
 import org.delaunois.ialon.blocks.TypeIds;
 
@@ -13,9 +14,12 @@ import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.delaunois.ialon.blocks.WorldManager;
 
+/**
+ * Moves the player with its {@link CharacterBody} and tracks the block where the player stands.
+ */
 @Slf4j
 @Getter
-public class PlayerCharacterControl extends CharacterControl {
+public class PlayerCharacterControl extends AbstractControl {
 
     private final Vector3f oldPlayerBlockCenterLocation = new Vector3f();
     private final Vector3f playerBlockCenterLocation = new Vector3f();
@@ -28,27 +32,24 @@ public class PlayerCharacterControl extends CharacterControl {
     private Block block;
     private boolean underWater = false;
     private boolean onScale = false;
-    private CharacterControl characterControl;
+    private final CharacterBody body;
 
-    public PlayerCharacterControl(ConvexShape shape, float stepHeight, WorldManager worldManager, IalonConfig config) {
-        super(shape, stepHeight);
+    public PlayerCharacterControl(CharacterBody body, WorldManager worldManager, IalonConfig config) {
+        this.body = body;
         this.worldManager = worldManager;
         this.config = config;
-        setGravity(config.getGroundGravity());
+        body.setGravity(config.getGroundGravity());
     }
 
     @Override
     public void setSpatial(Spatial newSpatial) {
         super.setSpatial(newSpatial);
-        characterControl = newSpatial.getControl(CharacterControl.class);
-        if (characterControl == null) {
-            throw new IllegalStateException("PlayerCharacterControl needs a spatial with a CharacterControl");
-        }
+        body.setSpatial(newSpatial);
     }
 
     @Override
-    public void update(float tpf) {
-        super.update(tpf);
+    protected void controlUpdate(float tpf) {
+        body.update(tpf);
         walkDirection.zero();
 
         playerLocation.set(getSpatial().getLocalTranslation());
@@ -56,7 +57,7 @@ public class PlayerCharacterControl extends CharacterControl {
 
         if (playerLocation.y < 1) {
             playerLocation.setY(config.getMaxy());
-            characterControl.setPhysicsLocation(playerLocation);
+            body.setPhysicsLocation(playerLocation);
         }
 
         oldPlayerBlockCenterLocation.set(playerBlockCenterLocation);
@@ -94,8 +95,40 @@ public class PlayerCharacterControl extends CharacterControl {
     }
 
     @Override
+    protected void controlRender(RenderManager rm, ViewPort vp) {
+        // Nothing to do
+    }
+
     public void setWalkDirection(Vector3f offset) {
         walkDirection.set(offset);
-        super.setWalkDirection(offset);
+        body.setWalkDirection(offset);
+    }
+
+    public void setPhysicsLocation(Vector3f location) {
+        body.setPhysicsLocation(location);
+    }
+
+    public void setGravity(float gravity) {
+        body.setGravity(gravity);
+    }
+
+    public void setFallSpeed(float fallSpeed) {
+        body.setFallSpeed(fallSpeed);
+    }
+
+    public void setJumpSpeed(float jumpSpeed) {
+        body.setJumpSpeed(jumpSpeed);
+    }
+
+    public void setStepHeight(float stepHeight) {
+        body.setStepHeight(stepHeight);
+    }
+
+    public boolean onGround() {
+        return body.onGround();
+    }
+
+    public void jump() {
+        body.jump();
     }
 }
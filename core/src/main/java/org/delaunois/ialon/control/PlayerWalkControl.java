@@ -111,7 +111,7 @@ public class PlayerWalkControl extends AbstractControl implements ActionListener
                 // Setting step height to a low value prevents a bug in bullet
                 // that makes the character fall with a different speed below
                 // the stepHeight. This bug is noticeable especially under water.
-                playerCharacterControl.getCharacter().setStepHeight(0.03f);
+                playerCharacterControl.setStepHeight(0.03f);
                 playerCharacterControl.setFallSpeed(config.getWaterGravity());
                 playerCharacterControl.setJumpSpeed(config.getWaterJumpSpeed());
                 log.debug("Applied water gravity");
@@ -119,7 +119,7 @@ public class PlayerWalkControl extends AbstractControl implements ActionListener
 
             case ON_RAIL:
             default:
-                playerCharacterControl.getCharacter().setStepHeight(config.getPlayerStepHeight());
+                playerCharacterControl.setStepHeight(config.getPlayerStepHeight());
                 playerCharacterControl.setFallSpeed(config.getGroundGravity());
                 playerCharacterControl.setJumpSpeed(config.getJumpSpeed());
                 log.debug("Applied ground gravity");
@@ -154,7 +154,7 @@ public class PlayerWalkControl extends AbstractControl implements ActionListener
         if (enabled) {
             log.debug("Walking");
             config.getInputActionManager().addListener(this, ACTIONS);
-            playerCharacterControl.getCharacter().setStepHeight(config.getPlayerStepHeight());
+            playerCharacterControl.setStepHeight(config.getPlayerStepHeight());
             playerCharacterControl.setFallSpeed(config.getGroundGravity());
             playerCharacterControl.setJumpSpeed(config.getJumpSpeed());
 
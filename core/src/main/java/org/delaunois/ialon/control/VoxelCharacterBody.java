@@ -0,0 +1,214 @@
+package org.delaunois.ialon.control;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+
+import org.delaunois.ialon.blocks.VoxelCollider;
+
+import lombok.Getter;
+
+import static org.delaunois.ialon.blocks.VoxelCollider.X;
+import static org.delaunois.ialon.blocks.VoxelCollider.Y;
+import static org.delaunois.ialon.blocks.VoxelCollider.Z;
+
+/**
+ * A character body colliding directly with the blocks of the chunks (see {@link VoxelCollider}) : no
+ * collision mesh has to be built nor added to a physics space when the chunks around the player change.
+ * <p>
+ * The body is an axis-aligned box centered on its location. It mimics the kinematic character of Bullet :
+ * it moves by the walk direction at each physics tick (1/60 s), falls with the gravity up to the fall
+ * speed, and climbs the obstacles up to the step height when on the ground. Each axis is moved
+ * separately, so the body slides along the walls.
+ *
+ * @author Cedric de Launois
+ */
+public class VoxelCharacterBody implements CharacterBody {
+
+    private static final float TICK = 1 / 60f;
+
+    // Same as the default max sub steps of Bullet : beyond, the simulation slows down rather than
+    // moving the body by large steps
+    private static final int MAX_TICKS_PER_FRAME = 4;
+
+    // The capsule of Bullet climbs slightly above its step height thanks to its rounded bottom : a box
+    // needs this margin to climb the same obstacles (e.g. a stair step of 1/3)
+    private static final float STEP_MARGIN = 0.05f;
+
+    private final VoxelCollider collider;
+    private final float halfWidth;
+    private final float halfHeight;
+
+    @Getter
+    private final Vector3f location = new Vector3f();
+    private final Vector3f walkDirection = new Vector3f();
+    private final float[] box = new float[6];
+    private final float[] stepBox = new float[6];
+
+    private Spatial spatial;
+    private float gravity = 9.8f;
+    private float fallSpeed = 55f;
+    private float jumpSpeed = 10f;
+    private float stepHeight;
+    private float verticalVelocity;
+    private boolean onGround;
+    private float time;
+
+    /**
+     * @param collider the collider of the world
+     * @param radius the half width of the body
+     * @param height the height of the body
+     * @param stepHeight the maximum height of the obstacles climbed when walking
+     */
+    public VoxelCharacterBody(VoxelCollider collider, float radius, float height, float stepHeight) {
+        this.collider = collider;
+        this.halfWidth = radius;
+        this.halfHeight = height / 2;
+        this.stepHeight = stepHeight;
+    }
+
+    @Override
+    public void setSpatial(Spatial spatial) {
+        this.spatial = spatial;
+        if (spatial != null) {
+            location.set(spatial.getLocalTranslation());
+        }
+    }
+
+    @Override
+    public void update(float tpf) {
+        time += tpf;
+        int ticks = 0;
+        while (time >= TICK && ticks < MAX_TICKS_PER_FRAME) {
+            step();
+            time -= TICK;
+            ticks++;
+        }
+        if (ticks == MAX_TICKS_PER_FRAME) {
+            time = 0;
+        }
+
+        if (spatial != null) {
+            spatial.setLocalTranslation(location);
+        }
+    }
+
+    @Override
+    public void enterPhysicsSpace(PhysicsSpace physicsSpace) {
+        // Not simulated by the physics engine
+    }
+
+    @Override
+    public void leavePhysicsSpace(PhysicsSpace physicsSpace) {
+        // Not simulated by the physics engine
+    }
+
+    @Override
+    public void setWalkDirection(Vector3f walkDirection) {
+        this.walkDirection.set(walkDirection);
+    }
+
+    @Override
+    public void setPhysicsLocation(Vector3f location) {
+        this.location.set(location);
+        verticalVelocity = 0;
+        if (spatial != null) {
+            spatial.setLocalTranslation(location);
+        }
+    }
+
+    @Override
+    public void setGravity(float gravity) {
+        this.gravity = gravity;
+    }
+
+    @Override
+    public void setFallSpeed(float fallSpeed) {
+        this.fallSpeed = fallSpeed;
+    }
+
+    @Override
+    public void setJumpSpeed(float jumpSpeed) {
+        this.jumpSpeed = jumpSpeed;
+    }
+
+    @Override
+    public void setStepHeight(float stepHeight) {
+        this.stepHeight = stepHeight;
+    }
+
+    @Override
+    public boolean onGround() {
+        return onGround;
+    }
+
+    @Override
+    public void jump() {
+        verticalVelocity = jumpSpeed;
+        onGround = false;
+    }
+
+    private void step() {
+        // Vertical velocity, clamped like Bullet does : the jump speed upwards, the fall speed downwards
+        verticalVelocity = Math.max(-fallSpeed, Math.min(jumpSpeed, verticalVelocity - gravity * TICK));
+
+        updateBox(box);
+        float dy = verticalVelocity * TICK + walkDirection.y;
+        float moved = collider.sweep(box, Y, dy);
+        if (isBlocked(moved, dy)) {
+            onGround = dy < 0;
+            verticalVelocity = 0;
+        } else {
+            onGround = false;
+        }
+        location.y += moved;
+
+        if (walkDirection.x != 0 || walkDirection.z != 0) {
+            walk(walkDirection.x, walkDirection.z);
+        }
+    }
+
+    private void walk(float dx, float dz) {
+        updateBox(box);
+        float mx = collider.sweep(box, X, dx);
+        offset(box, X, mx);
+        float mz = collider.sweep(box, Z, dz);
+
+        if (onGround && (isBlocked(mx, dx) || isBlocked(mz, dz))) {
+            // Blocked : try again from above the obstacle, then go back down on it
+            updateBox(stepBox);
+            float up = collider.sweep(stepBox, Y, stepHeight + STEP_MARGIN);
+            offset(stepBox, Y, up);
+            float sx = collider.sweep(stepBox, X, dx);
+            offset(stepBox, X, sx);
+            float sz = collider.sweep(stepBox, Z, dz);
+            offset(stepBox, Z, sz);
+            float down = collider.sweep(stepBox, Y, -up);
+            if (Math.abs(sx) + Math.abs(sz) > Math.abs(mx) + Math.abs(mz)) {
+                location.addLocal(sx, up + down, sz);
+                return;
+            }
+        }
+
+        location.addLocal(mx, 0, mz);
+    }
+
+    private static boolean isBlocked(float moved, float wanted) {
+        return Math.abs(wanted - moved) > 1e-6f;
+    }
+
+    private void updateBox(float[] b) {
+        b[0] = location.x - halfWidth;
+        b[1] = location.y - halfHeight;
+        b[2] = location.z - halfWidth;
+        b[3] = location.x + halfWidth;
+        b[4] = location.y + halfHeight;
+        b[5] = location.z + halfWidth;
+    }
+
+    private static void offset(float[] b, int axis, float distance) {
+        b[axis] += distance;
+        b[axis + 3] += distance;
+    }
+
+}
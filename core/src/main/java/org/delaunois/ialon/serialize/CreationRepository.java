@@ -45,7 +45,7 @@ import lombok.extern.slf4j.Slf4j;
  * scoped to a world — they live in {@code save/creations/} so a creation captured in one world can be
  * placed into any other.
  *
- * <p>Each creation is one {@code <id>.zcreation} file, stored in the SAME compact format as chunks (see
+ * <p>Each creation is one {@code <id>.zcreation} file, stored in the legacy (version 0) chunk format (see
  * {@code ZipFileRepository}) : a ZIP holding a Protobuf {@code ChunkProto} ({@code data} entry : size +
  * row-major block names) plus a small text {@code meta} entry (display name + dimensions). ZIP deflate
  * collapses the long runs of repeated block names, so the file stays small without any hand-rolled
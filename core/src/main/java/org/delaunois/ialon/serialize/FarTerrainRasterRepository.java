@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package org.delaunois.ialon.serialize;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Caches the procedural rasters of the far terrain (heightmap, forest density and biome colours) in a
+ * binary file ({@value #FILENAME}) inside the world directory, so that re-opening a world skips the
+ * sampling of the generator.
+ *
+ * <p>The rasters only depend on the generator and on the far-terrain layout : the file carries the key
+ * they were sampled with, and is ignored when the key (or the raster sizes) no longer match. It is a
+ * pure cache : a missing, stale or unreadable file just means the rasters are sampled again. Player
+ * edits are not part of it, they are replayed from the world-edit overlay.
+ *
+ * @author Cedric de Launois
+ */
+@Slf4j
+public final class FarTerrainRasterRepository {
+
+    public static final String FILENAME = "farterrain.dat";
+
+    private static final int MAGIC = 0x49414c46; // "IALF"
+    // Bump when the generator changes the fields it samples : the cached rasters are then resampled
+    private static final int FORMAT_VERSION = 1;
+
+    private FarTerrainRasterRepository() {
+    }
+
+    /**
+     * The far-terrain rasters.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Rasters {
+        // Heights, pre-divided by the sampling step
+        private final float[] heightmap;
+        // One byte per texel
+        private final byte[] forestDensity;
+        // Three bytes (RGB) per texel
+        private final byte[] biomeColors;
+    }
+
+    /**
+     * Loads the rasters stored in {@code worldPath/farterrain.dat}.
+     *
+     * @param worldPath the world directory
+     * @param key the key of the expected rasters
+     * @param sizes the expected lengths of the heightmap, forest density and biome colour rasters
+     * @return the rasters, or null if there are none for this key and these sizes
+     */
+    public static synchronized Rasters load(Path worldPath, long key, int... sizes) {
+        if (worldPath == null) {
+            return null;
+        }
+        Path file = worldPath.resolve(FILENAME);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || in.readLong() != key) {
+                log.info("Ignoring stale far terrain rasters {}", file);
+                return null;
+            }
+            for (int size : sizes) {
+                if (in.readInt() != size) {
+                    log.info("Ignoring far terrain rasters {} : size mismatch", file);
+                    return null;
+                }
+            }
+
+            byte[] heights = new byte[sizes[0] * Float.BYTES];
+            in.readFully(heights);
+            float[] heightmap = new float[sizes[0]];
+            ByteBuffer.wrap(heights).asFloatBuffer().get(heightmap);
+            byte[] forestDensity = new byte[sizes[1]];
+            in.readFully(forestDensity);
+            byte[] biomeColors = new byte[sizes[2]];
+            in.readFully(biomeColors);
+            log.info("Loaded far terrain rasters in {}ms", System.currentTimeMillis() - start);
+            return new Rasters(heightmap, forestDensity, biomeColors);
+        } catch (IOException e) {
+            log.warn("Could not load far terrain rasters {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the rasters to {@code worldPath/farterrain.dat}, replacing the previous ones.
+     *
+     * @param worldPath the world directory
+     * @param key the key of the rasters
+     * @param rasters the rasters
+     */
+    public static synchronized void save(Path worldPath, long key, Rasters rasters) {
+        if (worldPath == null || rasters == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Path file = worldPath.resolve(FILENAME);
+        try {
+            Files.createDirectories(worldPath);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(key);
+                out.writeInt(rasters.heightmap.length);
+                out.writeInt(rasters.forestDensity.length);
+                out.writeInt(rasters.biomeColors.length);
+                ByteBuffer heights = ByteBuffer.allocate(rasters.heightmap.length * Float.BYTES);
+                heights.asFloatBuffer().put(rasters.heightmap);
+                out.write(heights.array());
+                out.write(rasters.forestDensity);
+                out.write(rasters.biomeColors);
+            }
+            log.info("Saved far terrain rasters in {}ms", System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.error("Could not save far terrain rasters {}", file, e);
+        }
+    }
+}
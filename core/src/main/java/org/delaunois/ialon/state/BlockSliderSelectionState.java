@@ -81,12 +81,14 @@ import org.delaunois.ialon.blocks.TypeIds;
 import org.delaunois.ialon.blocks.BlockRegistry;
 import org.delaunois.ialon.blocks.BlocksConfig;
 import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkMesh;
 import org.delaunois.ialon.blocks.ChunkMeshGenerator;
 import org.delaunois.ialon.blocks.ShapeIds;
 import org.delaunois.ialon.ui.UiHelper;
 
 import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
@@ -692,6 +694,23 @@ public class BlockSliderSelectionState extends BaseAppState implements Resizable
                 geometry.getMesh().setBuffer(VertexBuffer.Type.Normal, 3, normalFloats);
             }
 
+            // Same for packed positions (fixed point shorts, brought back to world units by the
+            // geometry scale overridden above) : expand them to floats in world units.
+            VertexBuffer positionBuffer = geometry.getMesh().getBuffer(VertexBuffer.Type.Position);
+            if (positionBuffer != null && positionBuffer.getFormat() == VertexBuffer.Format.Short) {
+                float scale = ChunkMesh.getPositionScale(geometry.getMesh());
+                ShortBuffer positionShorts = (ShortBuffer) positionBuffer.getData();
+                int count = positionShorts.limit();
+                FloatBuffer positionFloats = BufferUtils.createFloatBuffer(count);
+                for (int i = 0; i < count; i++) {
+                    positionFloats.put(positionShorts.get(i) * scale);
+                }
+                positionFloats.flip();
+                geometry.getMesh().clearBuffer(VertexBuffer.Type.Position);
+                geometry.getMesh().setBuffer(VertexBuffer.Type.Position, 3, positionFloats);
+                geometry.getMesh().updateBound();
+            }
+
             node.attachChild(geometry);
 
         }
@@ -22,16 +22,28 @@ import com.jme3.app.state.BaseAppState;
 import com.simsilica.mathd.Vec3i;
 
 import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkLiquidManager;
+import org.delaunois.ialon.blocks.ChunkManager;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.delaunois.ialon.blocks.ChunkLiquidManager;
 
 /**
  * An application state to handle the liquid simulation.
+ * <p>
+ * The render thread only paces the simulation : each tick runs on the edit thread of the chunk manager
+ * (see {@link ChunkManager#requestOrderedUpdate}), serialized with the block edits, their light updates
+ * and their meshing. It steps the flow (bounded by {@link IalonConfig#getLiquidSimulationNodeBudget()}),
+ * then remeshes the chunks changed by the tick, all at once. The chunk manager hands the meshes to the
+ * pager as one batch. The next tick does not start before these meshes are built, so a mesh never
+ * sees a half-applied tick. No tick starts while the pagers have used up the shared
+ * {@link IalonConfig#getFrameBudget() frame budget}.
  *
  * @author Cedric de Launois
  */
@@ -44,6 +56,8 @@ public class ChunkLiquidManagerState extends BaseAppState {
     private float elapsed = 0;
     private float elapsedLava = 0;
     private final IalonConfig config;
+    // The running tick, if any
+    private Future<List<Chunk>> pendingTick;
 
     public ChunkLiquidManagerState(IalonConfig config) {
         this.config = config;
@@ -57,7 +71,11 @@ public class ChunkLiquidManagerState extends BaseAppState {
 
     @Override
     protected void cleanup(Application app) {
-        // Nothing to do
+        // A running tick ends within its node budget, a pending one is dropped
+        if (pendingTick != null) {
+            pendingTick.cancel(false);
+            pendingTick = null;
+        }
     }
 
     @Override
@@ -72,33 +90,41 @@ public class ChunkLiquidManagerState extends BaseAppState {
 
     @Override
     public void update(float tpf) {
-        // Water (and shared liquid recession) on its own cadence.
+        // Water (and shared liquid recession) and lava each on their own cadence
+        // (config.lavaSimulationSpeed < waterSimulationSpeed).
         elapsed += tpf;
-        int queueSize = chunkLiquidManager.queueSize();
-        if (elapsed > (1 / config.getWaterSimulationSpeed()) && queueSize > 0) {
-            Set<Vec3i> updatedChunks = new HashSet<>();
-            for (int i = 0; i < queueSize; i ++) {
-                updatedChunks.addAll(chunkLiquidManager.step());
+        elapsedLava += tpf;
+        boolean water = elapsed > (1 / config.getWaterSimulationSpeed()) && chunkLiquidManager.queueSize() > 0;
+        boolean lava = elapsedLava > (1 / config.getLavaSimulationSpeed()) && chunkLiquidManager.lavaQueueSize() > 0;
+
+        // While the previous tick is still running, or while the pagers used up the frame budget, the
+        // elapsed times keep growing : the tick is retried on the next frame. A tick remeshes chunks the
+        // pager attaches in the next frames, it must not add to a backlog that already fills them.
+        if ((water || lava) && config.getFrameBudget().hasTime() && (pendingTick == null || pendingTick.isDone())) {
+            if (water) {
+                elapsed = 0;
             }
-            if (!updatedChunks.isEmpty()) {
-                chunkLiquidManager.updateChunkMesh(updatedChunks);
+            if (lava) {
+                elapsedLava = 0;
             }
-            elapsed = 0;
+            pendingTick = config.getChunkManager().requestOrderedUpdate(() -> tick(water, lava));
         }
+    }
 
-        // Lava on its own, slower cadence (config.lavaSimulationSpeed < waterSimulationSpeed).
-        elapsedLava += tpf;
-        int lavaQueueSize = chunkLiquidManager.lavaQueueSize();
-        if (elapsedLava > (1 / config.getLavaSimulationSpeed()) && lavaQueueSize > 0) {
-            Set<Vec3i> updatedChunks = new HashSet<>();
-            for (int i = 0; i < lavaQueueSize; i ++) {
-                updatedChunks.addAll(chunkLiquidManager.stepLava());
-            }
-            if (!updatedChunks.isEmpty()) {
-                chunkLiquidManager.updateChunkMesh(updatedChunks);
-            }
-            elapsedLava = 0;
+    /**
+     * Steps the simulation, on the edit thread.
+     * @return the locations of the chunks changed by the tick
+     */
+    private Set<Vec3i> tick(boolean water, boolean lava) {
+        int budget = config.getLiquidSimulationNodeBudget();
+        Set<Vec3i> updatedChunks = new HashSet<>();
+        if (water) {
+            updatedChunks.addAll(chunkLiquidManager.tick(budget));
+        }
+        if (lava) {
+            updatedChunks.addAll(chunkLiquidManager.tickLava(budget));
         }
+        return updatedChunks;
     }
 
 }
@@ -41,6 +41,8 @@ public class ChunkPagerState extends BaseAppState {
 
     @Override
     public void update(float tpf) {
+        // The pager owns the frame : the other consumers of the shared budget spend what it leaves
+        chunkPager.getFrameBudget().beginFrame(tpf);
         chunkPager.update();
     }
 
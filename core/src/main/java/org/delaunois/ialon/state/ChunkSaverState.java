@@ -5,6 +5,7 @@ import com.jme3.app.Application;
 import com.jme3.app.state.BaseAppState;
 import org.delaunois.ialon.blocks.Chunk;
 import org.delaunois.ialon.blocks.ChunkManagerListener;
+import org.delaunois.ialon.blocks.ChunkRepository;
 import org.delaunois.ialon.blocks.WorldEditOverlay;
 import com.simsilica.mathd.Vec3i;
 
@@ -34,6 +35,10 @@ public class ChunkSaverState extends BaseAppState implements ChunkManagerListene
 
     private final IalonConfig config;
 
+    // The repository of the world this state saves, captured at initialize : on a world switch the config
+    // is repointed at the next world before this state is cleaned up.
+    private ChunkRepository repository;
+
     public ChunkSaverState(IalonConfig config) {
         this.config = config;
     }
@@ -41,6 +46,7 @@ public class ChunkSaverState extends BaseAppState implements ChunkManagerListene
     @Override
     protected void initialize(Application app) {
         executorService = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("chunk-saver").build());
+        repository = config.getChunkRepository();
     }
 
     /**
@@ -53,7 +59,10 @@ public class ChunkSaverState extends BaseAppState implements ChunkManagerListene
                 .getChunk(location)
                 .ifPresent(chunk -> executorService.submit(() -> {
                     try {
-                        config.getChunkRepository().save(chunk);
+                        if (repository.save(chunk)) {
+                            // Saved : the chunk cache has nothing left to write back
+                            chunk.setDirty(false);
+                        }
                         log.info("Chunk {} saved", location);
                     } catch (Exception e) {
                         log.error("Failed to save chunk", e);
@@ -64,6 +73,8 @@ public class ChunkSaverState extends BaseAppState implements ChunkManagerListene
     @Override
     protected void cleanup(Application app) {
         log.info("Stopping chunk-saver");
+        // Release the repository files once the pending saves are written
+        executorService.submit(repository::close);
         executorService.shutdown();
     }
 
@@ -40,9 +40,11 @@ import com.jme3.texture.image.ColorSpace;
 import com.jme3.util.BufferUtils;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 import com.simsilica.mathd.Vec3i;
 
@@ -60,6 +62,7 @@ import org.delaunois.ialon.blocks.generator.TerrainGenerator;
 import org.delaunois.ialon.control.MoonControl;
 import org.delaunois.ialon.control.SkyControl;
 import org.delaunois.ialon.control.ThrottledTerrainLodControl;
+import org.delaunois.ialon.serialize.FarTerrainRasterRepository;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -199,12 +202,13 @@ public class FarTerrainState extends BaseAppState implements ChunkManagerListene
         // World units between two heightmap samples.
         this.step = extent / (HEIGHTMAP_SIZE - 1);
         float step = this.step;
-        float[] heightmap = sampleHeightmap(generator, step);
+        FarTerrainRasterRepository.Rasters rasters = loadOrSampleRasters(generator, step);
+        float[] heightmap = rasters.getHeightmap();
         this.heightmap = heightmap;
 
         terrain = new TerrainQuad("FarTerrain", PATCH_SIZE, HEIGHTMAP_SIZE, heightmap);
         material = createMaterial();
-        bindProceduralMaps(generator, step);
+        bindProceduralMaps(rasters);
         terrain.setMaterial(material);
         // Uniform scale : heights were pre-divided by step (see sampleHeightmap), so world Y is exact
         // again after scaling, AND a uniform scale keeps the terrain normals correct in world space.
@@ -238,6 +242,41 @@ public class FarTerrainState extends BaseAppState implements ChunkManagerListene
                 HEIGHTMAP_SIZE, HEIGHTMAP_SIZE, extent, step);
     }
 
+    /**
+     * Returns the procedural rasters of the far terrain. They only depend on the generator and on the
+     * layout of the far terrain, so the noise generator's ones are cached in the world directory (see
+     * {@link FarTerrainRasterRepository}) : re-opening a world reads them back instead of sampling the
+     * ~300k generator columns again. The cached heightmap is the raw procedural one, the player edits are
+     * replayed on top of it (see {@link #applyAllOverrides}).
+     */
+    private FarTerrainRasterRepository.Rasters loadOrSampleRasters(TerrainGenerator generator, float step) {
+        if (!(generator instanceof NoiseTerrainGenerator)) {
+            // No forest / biome field : only the heightmap, not cached (no stable key for the generator)
+            return new FarTerrainRasterRepository.Rasters(sampleHeightmap(generator, step), null, null);
+        }
+
+        NoiseTerrainGenerator noise = (NoiseTerrainGenerator) generator;
+        long key = 31 * noise.getParametersHash() + Float.floatToIntBits(extent);
+        int heightmapLength = HEIGHTMAP_SIZE * HEIGHTMAP_SIZE;
+        int forestDensityLength = FOREST_DENSITY_SIZE * FOREST_DENSITY_SIZE;
+        int biomeColorsLength = BIOME_MAP_SIZE * BIOME_MAP_SIZE * 3;
+        Path worldPath = config.getCurrentWorldPath();
+        FarTerrainRasterRepository.Rasters rasters = FarTerrainRasterRepository.load(worldPath, key,
+                heightmapLength, forestDensityLength, biomeColorsLength);
+        if (rasters != null) {
+            return rasters;
+        }
+
+        long start = System.currentTimeMillis();
+        rasters = new FarTerrainRasterRepository.Rasters(
+                sampleHeightmap(generator, step),
+                sampleForestDensity(noise, step),
+                sampleBiomeColors(noise, step));
+        log.info("Far terrain rasters sampled in {}ms", System.currentTimeMillis() - start);
+        FarTerrainRasterRepository.save(worldPath, key, rasters);
+        return rasters;
+    }
+
     /**
      * Samples the generator height over a regular grid centered on the origin. The world coordinate
      * of sample (i, j) matches the position {@link TerrainQuad} gives to that heightmap cell, so the
@@ -248,20 +287,36 @@ public class FarTerrainState extends BaseAppState implements ChunkManagerListene
     private float[] sampleHeightmap(TerrainGenerator generator, float step) {
         float[] heightmap = new float[HEIGHTMAP_SIZE * HEIGHTMAP_SIZE];
         float half = (HEIGHTMAP_SIZE - 1) / 2f;
-        Vector3f sample = new Vector3f();
-        for (int j = 0; j < HEIGHTMAP_SIZE; j++) {
-            float worldZ = (j - half) * step;
-            int row = j * HEIGHTMAP_SIZE;
-            for (int i = 0; i < HEIGHTMAP_SIZE; i++) {
-                float worldX = (i - half) * step;
-                float h = generator.getHeight(sample.set(worldX, 0f, worldZ));
+        sampleRows(HEIGHTMAP_SIZE, (fromRow, toRow) -> {
+            // The stripe is sampled in one batch, straight into its rows of the heightmap
+            float[] stripe = new float[(toRow - fromRow) * HEIGHTMAP_SIZE];
+            generator.getHeights(-half * step, (fromRow - half) * step, step, HEIGHTMAP_SIZE, toRow - fromRow, stripe);
+            int offset = fromRow * HEIGHTMAP_SIZE;
+            for (int i = 0; i < stripe.length; i++) {
                 // Pre-divided by step : after the uniform localScale (step) the world Y is exact again.
-                heightmap[row + i] = h / step;
+                heightmap[offset + i] = stripe[i] / step;
             }
-        }
+        });
         return heightmap;
     }
 
+    /**
+     * Samples the rows of a raster in parallel. The generators are threadsafe (they already serve the chunk
+     * generation pool) and every sample writes its own cell, so the rows are split into stripes sampled on
+     * the common fork/join pool. Each stripe allocates its own scratch.
+     */
+    private static void sampleRows(int rows, RowSampler sampler) {
+        int stripes = Math.min(rows, Runtime.getRuntime().availableProcessors() * 4);
+        IntStream.range(0, stripes).parallel().forEach(stripe ->
+                sampler.sample(rows * stripe / stripes, rows * (stripe + 1) / stripes));
+    }
+
+    /**
+     * Samples the rows [fromRow, toRow) of a raster.
+     */
+    private interface RowSampler {
+        void sample(int fromRow, int toRow);
+    }
     /**
      * Replays all persisted relief overrides onto the heightmap. Each override is keyed by a
      * <b>canonical</b> heightmap sample (wrapped to the world period), so on the finite torus it is
@@ -475,24 +530,23 @@ public class FarTerrainState extends BaseAppState implements ChunkManagerListene
     }
 
     /**
-     * Builds the forest-density tint map (a low-res field of the same seamless forest noise that scatters
-     * the trees) and binds it plus the tint parameters to the material. The shader darkens the distant
-     * grass slopes where this field is high, so the beyond-billboard woods read as dark-green relief. Only
-     * the noise generator carries a forest field ; for the others the FOREST_TINT define stays off.
+     * Binds the forest-density tint map (a low-res field of the same seamless forest noise that scatters
+     * the trees) plus the tint parameters to the material. The shader darkens the distant grass slopes
+     * where this field is high, so the beyond-billboard woods read as dark-green relief. Only the noise
+     * generator carries a forest field ; for the others the FOREST_TINT define stays off.
      */
-    private void bindProceduralMaps(TerrainGenerator generator, float step) {
-        if (!(generator instanceof NoiseTerrainGenerator)) {
+    private void bindProceduralMaps(FarTerrainRasterRepository.Rasters rasters) {
+        if (rasters.getForestDensity() == null) {
             return;
         }
-        NoiseTerrainGenerator noise = (NoiseTerrainGenerator) generator;
-        material.setTexture("ForestDensityMap", createForestDensityTexture(noise, step));
+        material.setTexture("ForestDensityMap", createRasterTexture(rasters.getForestDensity(), 1, FOREST_DENSITY_SIZE));
         material.setColor("ForestTintColor", config.getForestTintColor());
         material.setFloat("ForestTintStrength", config.getForestTintStrength());
         // Ramp the tint in where the billboards thin out, so the two layers don't double-darken the slopes.
         material.setFloat("ForestTintStart", config.getFarTreeDistance());
         // Biome colour map : the grass band is tinted per biome (same source as the near voxels), so the
         // distant horizon reads with the same biome palette. Shares the Extent/ForestOrigin UV below.
-        material.setTexture("BiomeMap", createBiomeColorTexture(noise, step));
+        material.setTexture("BiomeMap", createRasterTexture(rasters.getBiomeColors(), 3, BIOME_MAP_SIZE));
         material.setFloat("Extent", extent);
         material.setVector2("ForestOrigin", forestOrigin); // mutated in place in update() on tile snaps
         forestTintEnabled = true;
@@ -500,52 +554,67 @@ public class FarTerrainState extends BaseAppState implements ChunkManagerListene
 
     /**
      * Samples the forest-density field over the same origin-centered grid as the heightmap (local coords),
-     * into a single-channel-as-RGBA8 texture covering the whole extent. The field is periodic with the
-     * world size, so on the torus the tile snap (a multiple of that period) keeps it aligned.
+     * one byte per texel, covering the whole extent. The field is periodic with the world size, so on the
+     * torus the tile snap (a multiple of that period) keeps it aligned.
      */
-    private Texture2D createForestDensityTexture(NoiseTerrainGenerator noise, float step) {
+    private static byte[] sampleForestDensity(NoiseTerrainGenerator noise, float step) {
         int n = FOREST_DENSITY_SIZE;
         // Map the n texels across the same world span the heightmap covers (HEIGHTMAP_SIZE-1 cells of step).
         float worldStep = step * (HEIGHTMAP_SIZE - 1) / (float) n;
         float half = n / 2f;
-        ByteBuffer data = BufferUtils.createByteBuffer(n * n * 4);
-        for (int j = 0; j < n; j++) {
-            float worldZ = (j - half) * worldStep;
-            for (int i = 0; i < n; i++) {
-                float worldX = (i - half) * worldStep;
-                float d = noise.getForestDensity(worldX, worldZ);
-                byte b = (byte) Math.round(Math.max(0f, Math.min(1f, d)) * 255f);
-                data.put(b).put(b).put(b).put((byte) 0xFF);
+        byte[] density = new byte[n * n];
+        sampleRows(n, (fromRow, toRow) -> {
+            for (int j = fromRow; j < toRow; j++) {
+                float worldZ = (j - half) * worldStep;
+                for (int i = 0; i < n; i++) {
+                    float worldX = (i - half) * worldStep;
+                    density[j * n + i] = unitToByte(noise.getForestDensity(worldX, worldZ));
+                }
             }
-        }
-        data.flip();
-        Image img = new Image(Image.Format.RGBA8, n, n, data, ColorSpace.Linear);
-        Texture2D tex = new Texture2D(img);
-        tex.setMagFilter(Texture.MagFilter.Bilinear);
-        tex.setMinFilter(Texture.MinFilter.BilinearNoMipMaps);
-        return tex;
+        });
+        return density;
     }
 
     /**
-     * Bakes the biome grass-band colour over the same origin-centered grid as the forest-density map. The
-     * biome field is periodic with the world size (seamless on the torus), so the tile snap keeps it
-     * aligned. Colours are LINEAR (like the m_BaseColor palette in the shader) ; the shader does the sRGB
+     * Bakes the biome grass-band colour (RGB bytes) over the same origin-centered grid as the forest-density
+     * map. The biome field is periodic with the world size (seamless on the torus), so the tile snap keeps
+     * it aligned. Colours are LINEAR (like the m_BaseColor palette in the shader) ; the shader does the sRGB
      * output encode where needed (MANUAL_SRGB). The shader replaces its grass base with this texel.
      */
-    private Texture2D createBiomeColorTexture(NoiseTerrainGenerator noise, float step) {
+    private static byte[] sampleBiomeColors(NoiseTerrainGenerator noise, float step) {
         int n = BIOME_MAP_SIZE;
         float worldStep = step * (HEIGHTMAP_SIZE - 1) / (float) n;
         float half = n / 2f;
-        ByteBuffer data = BufferUtils.createByteBuffer(n * n * 4);
-        Vector2f sample = new Vector2f();
-        ColorRGBA c = new ColorRGBA();
-        for (int j = 0; j < n; j++) {
-            float worldZ = (j - half) * worldStep;
-            for (int i = 0; i < n; i++) {
-                float worldX = (i - half) * worldStep;
-                noise.biomeColorAt(worldX, worldZ, sample, c);
-                data.put(unitToByte(c.r)).put(unitToByte(c.g)).put(unitToByte(c.b)).put((byte) 0xFF);
+        byte[] colors = new byte[n * n * 3];
+        sampleRows(n, (fromRow, toRow) -> {
+            Vector2f sample = new Vector2f();
+            ColorRGBA c = new ColorRGBA();
+            for (int j = fromRow; j < toRow; j++) {
+                float worldZ = (j - half) * worldStep;
+                for (int i = 0; i < n; i++) {
+                    float worldX = (i - half) * worldStep;
+                    noise.biomeColorAt(worldX, worldZ, sample, c);
+                    int texel = (j * n + i) * 3;
+                    colors[texel] = unitToByte(c.r);
+                    colors[texel + 1] = unitToByte(c.g);
+                    colors[texel + 2] = unitToByte(c.b);
+                }
             }
+        });
+        return colors;
+    }
+
+    /**
+     * Wraps a raster of 1 (grey) or 3 (RGB) bytes per texel into an opaque, bilinear RGBA8 texture.
+     */
+    private static Texture2D createRasterTexture(byte[] raster, int channels, int n) {
+        ByteBuffer data = BufferUtils.createByteBuffer(n * n * 4);
+        for (int texel = 0; texel < n * n; texel++) {
+            int offset = texel * channels;
+            byte r = raster[offset];
+            byte g = channels == 3 ? raster[offset + 1] : r;
+            byte b = channels == 3 ? raster[offset + 2] : r;
+            data.put(r).put(g).put(b).put((byte) 0xFF);
         }
         data.flip();
         Image img = new Image(Image.Format.RGBA8, n, n, data, ColorSpace.Linear);
@@ -319,8 +319,8 @@ public class FarTreeState extends BaseAppState {
         // Ground the trunk base on the far-terrain surface (+ vertical offset), then sink it a little so the
         // billboard doesn't appear to float on slopes (its base is a flat line, above the downhill side).
         float voff = config.getFarTerrainVerticalOffset() - config.getFarTreeSink();
-        // Scratch for the coarse-height lookups (off-thread, single-threaded builder : safe to share).
-        Vector3f scratch = new Vector3f();
+        // The far-terrain lattice under the region, sampled in one batch for the coarse-height lookups.
+        CoarseGrid grid = new CoarseGrid(cx - region, cz - region, cx + region, cz + region);
 
         AnchorList list = new AnchorList();
         generator.forEachTreeAnchor(cx - region, cx + region, cz - region, cz + region,
@@ -333,31 +333,55 @@ public class FarTreeState extends BaseAppState {
                     // Anchor on the COARSE far-terrain surface (not the per-block gy) so the tree sits on
                     // the relief the far terrain actually renders, instead of floating above its under-
                     // sampled surface.
-                    list.add(wx, coarseHeight(wx, wz, scratch) + voff, wz, species, height);
+                    list.add(wx, grid.heightAt(wx, wz) + voff, wz, species, height);
                 });
 
         return packMesh(list);
     }
 
     /**
-     * Height of the far-terrain surface at world (wx, wz) : bilinear interpolation of {@code getHeight}
-     * over the far-terrain heightmap lattice (spacing {@link #farGridStep}, aligned on multiples of the
-     * step like FarTerrainState's grid). This is the surface the far terrain actually renders — grounding
-     * trees on it (rather than the per-block height) stops them floating above the under-sampled relief.
+     * The far-terrain heightmap lattice (spacing {@link #farGridStep}, aligned on multiples of the step like
+     * FarTerrainState's grid) over a region, sampled in one batch with {@code getHeights}.
      */
-    private float coarseHeight(float wx, float wz, Vector3f scratch) {
-        float step = farGridStep;
-        float x0 = (float) Math.floor(wx / step) * step;
-        float z0 = (float) Math.floor(wz / step) * step;
-        float fx = (wx - x0) / step;
-        float fz = (wz - z0) / step;
-        float h00 = generator.getHeight(scratch.set(x0, 0f, z0));
-        float h10 = generator.getHeight(scratch.set(x0 + step, 0f, z0));
-        float h01 = generator.getHeight(scratch.set(x0, 0f, z0 + step));
-        float h11 = generator.getHeight(scratch.set(x0 + step, 0f, z0 + step));
-        float hx0 = h00 + (h10 - h00) * fx;
-        float hx1 = h01 + (h11 - h01) * fx;
-        return hx0 + (hx1 - hx0) * fz;
+    private final class CoarseGrid {
+        private final int cellX0;
+        private final int cellZ0;
+        private final int width;
+        private final int depth;
+        private final float[] heights;
+
+        CoarseGrid(float minX, float minZ, float maxX, float maxZ) {
+            cellX0 = (int) Math.floor(minX / farGridStep);
+            cellZ0 = (int) Math.floor(minZ / farGridStep);
+            // One more node past the last cell, for the bilinear interpolation
+            width = (int) Math.floor(maxX / farGridStep) - cellX0 + 2;
+            depth = (int) Math.floor(maxZ / farGridStep) - cellZ0 + 2;
+            heights = new float[width * depth];
+            generator.getHeights(cellX0 * farGridStep, cellZ0 * farGridStep, farGridStep, width, depth, heights);
+        }
+
+        /**
+         * Height of the far-terrain surface at world (wx, wz) : bilinear interpolation of the lattice. This
+         * is the surface the far terrain actually renders — grounding trees on it (rather than the per-block
+         * height) stops them floating above the under-sampled relief.
+         */
+        float heightAt(float wx, float wz) {
+            float step = farGridStep;
+            int cellX = (int) Math.floor(wx / step);
+            int cellZ = (int) Math.floor(wz / step);
+            float fx = (wx - cellX * step) / step;
+            float fz = (wz - cellZ * step) / step;
+            int i = Math.max(0, Math.min(width - 2, cellX - cellX0));
+            int j = Math.max(0, Math.min(depth - 2, cellZ - cellZ0));
+            int index = j * width + i;
+            float h00 = heights[index];
+            float h10 = heights[index + 1];
+            float h01 = heights[index + width];
+            float h11 = heights[index + width + 1];
+            float hx0 = h00 + (h10 - h00) * fx;
+            float hx1 = h01 + (h11 - h01) * fx;
+            return hx0 + (hx1 - hx0) * fz;
+        }
     }
 
     private Mesh packMesh(AnchorList a) {
@@ -49,7 +49,7 @@ import lombok.extern.slf4j.Slf4j;
  * we can attribute to phases) and <b>gap</b> (buffer swap + vsync/fps-cap idle + GPU-driver stalls + OS
  * scheduling), plus GC activity and chunk-page churn :
  *
- * <pre>HITCH 52.0ms | work 3.4 (state 0.2 / spatial 3.0 / render 0.2) | gap 48.6 (swap/vsync/driver/OS) | top=SpatialUpdate 3.0ms | GC +1 (40ms) | chunkNode 567 (net +0) | pageOps +0</pre>
+ * <pre>HITCH 52.0ms | work 3.4 (state 0.2 / spatial 3.0 / render 0.2) | gap 48.6 (swap/vsync/driver/OS) | top=SpatialUpdate 3.0ms | GC +1 (40ms) | chunkNode 567 (net +0) | pageOps +0 | budget 0.8/4.0ms</pre>
  *
  * Reading it :
  * <ul>
@@ -60,7 +60,8 @@ import lombok.extern.slf4j.Slf4j;
  *   <li><b>gap</b> dominates ⇒ the freeze is NOT in our code : buffer swap / vsync / GPU-driver stall /
  *       OS scheduling. If the <b>GC</b> column is also non-zero, it was a collection pause.</li>
  *   <li><b>top</b> names the single costliest AppStep ; <b>pageOps</b> &gt; 0 ⇒ chunks (re)meshed that
- *       frame even if the net child count is unchanged.</li>
+ *       frame even if the net child count is unchanged ; <b>budget</b> is the paging time spent that
+ *       frame against the adaptive {@link org.delaunois.ialon.blocks.FrameBudget}.</li>
  * </ul>
  * The steady path does no logging and no allocation (just {@code nanoTime} + array adds + a couple of
  * MXBean reads), so it is safe to leave on.
@@ -308,10 +309,17 @@ public class HitchProfilerState extends BaseAppState implements AppProfiler {
             }
         }
 
-        log.warn("HITCH {}ms | work {} (state {} / spatial {}{} / render {}) | gap {} (swap/vsync/driver/OS) | top={} {}ms | sub={} {}ms | draws={} tris={} | GC +{} ({}ms) | chunkNode {} (net {}{}) | pageOps +{}",
+        // Paging time spent this frame against the (adaptive) frame budget : a hitch with pageOps but a
+        // small spent time is not caused by the pager.
+        String budget = "-";
+        if (chunkPager != null && chunkPager.getFrameBudget().getBudgetNanos() != Long.MAX_VALUE) {
+            budget = fmt(chunkPager.getFrameBudget().getSpentNanos()) + "/" + fmt(chunkPager.getFrameBudget().getBudgetNanos());
+        }
+
+        log.warn("HITCH {}ms | work {} (state {} / spatial {}{} / render {}) | gap {} (swap/vsync/driver/OS) | top={} {}ms | sub={} {}ms | draws={} tris={} | GC +{} ({}ms) | chunkNode {} (net {}{}) | pageOps +{} | budget {}ms",
                 fmt(period), fmt(work), fmt(state), fmt(spatial), spatialDetail, fmt(render), fmt(gap),
                 STEPS[top], fmt(bucket[top]), topSub, fmt(topSubNs[0]), draws, tris, gcDeltaCount, gcDeltaTime,
-                children, childDelta >= 0 ? "+" : "", childDelta, pageOpsDelta);
+                children, childDelta >= 0 ? "+" : "", childDelta, pageOpsDelta, budget);
     }
 
     private static String fmt(long nanos) {
@@ -35,6 +35,8 @@ import com.jme3.scene.VertexBuffer;
 import com.jme3.texture.Image;
 import org.delaunois.ialon.blocks.Block;
 import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkCache;
+import org.delaunois.ialon.blocks.ChunkKey;
 import com.simsilica.lemur.Axis;
 import com.simsilica.lemur.Container;
 import com.simsilica.lemur.FillMode;
@@ -55,14 +57,15 @@ import java.lang.management.GarbageCollectorMXBean;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 import org.delaunois.ialon.blocks.ChunkManager;
 import org.delaunois.ialon.blocks.ChunkPager;
+import org.delaunois.ialon.blocks.ConcurrentLongMap;
 
 @Slf4j
 public class IalonDebugState extends BaseAppState implements Resizable {
@@ -229,11 +232,14 @@ public class IalonDebugState extends BaseAppState implements Resizable {
         int nearChunks = 0;
         int farChunks = 0;
         java.util.Set<Vec3i> farRegions = new java.util.HashSet<>();
-        Map<Vec3i, Node> attachedPages = chunkPager.getAttachedPages();
+        ConcurrentLongMap<Node> attachedPages = chunkPager.getAttachedPages();
         Vec3i center = chunkPager.getCenterPage();
-        for (Map.Entry<Vec3i, Node> entry : attachedPages.entrySet()) {
-            Vec3i loc = entry.getKey();
-            Node page = entry.getValue();
+        for (long key : attachedPages.keys()) {
+            Node page = attachedPages.get(key);
+            if (page == null) {
+                continue;
+            }
+            Vec3i loc = ChunkKey.toVec3i(key);
             int pageGeoms = 0;
             for (Geometry geom : collectGeometries(page)) {
                 renderMeshBytes += meshBytes(geom.getMesh());
@@ -274,16 +280,17 @@ public class IalonDebugState extends BaseAppState implements Resizable {
         }
 
         // Chunk data arrays (heap) + collision meshes (direct), over the FULL ChunkManager cache
-        // (not just the pager working set), so stale chunks lingering beyond the grid radius show up.
+        // (not just the pager working set), so the released chunks kept beyond the grid radius show up.
         long blockBytes = 0;
         long lightBytes = 0;
         long collisionBytes = 0;
         int cachedChunks = 0;
         int nonEmptyChunks = 0;
-        for (Chunk chunk : chunkPager.getChunkManager().getCache().getChunks()) {
+        ChunkCache cache = chunkPager.getChunkManager().getCache();
+        for (Chunk chunk : cache.getChunks()) {
             cachedChunks++;
-            if (chunk.getBlocks() != null) {
-                blockBytes += chunk.getBlocks().length * 2L; // short[]
+            if (!chunk.isUniform()) {
+                blockBytes += chunk.getBlocksSize(); // short[] or packed
                 nonEmptyChunks++;
             }
             if (chunk.getLightMap() != null) {
@@ -315,6 +322,7 @@ public class IalonDebugState extends BaseAppState implements Resizable {
                 + "Chunk data (heap) ....... %6.1f MB  (%d non-empty / %d cached / %d in pager)%n"
                 + "  blocks short[] ........ %6.1f MB%n"
                 + "  lightMap byte[] ....... %6.1f MB%n"
+                + "Chunk cache ............. %6.1f MB / %.0f MB  (%d released, %d hits, %d misses, %d evictions, %d write-backs)%n"
                 + "Texture atlas (diffuse) . %6.1f MB  (%dx%d ABGR8, +~33%% mips on GPU)%n"
                 + "%n=== RENDER REPORT ===%n"
                 + "Draw calls (engine) ..... %d objects, %d triangles  (last frame; -1 = stats off)%n"
@@ -331,6 +339,8 @@ public class IalonDebugState extends BaseAppState implements Resizable {
                 mb(blockBytes + lightBytes), nonEmptyChunks, cachedChunks, fetchedChunks,
                 mb(blockBytes),
                 mb(lightBytes),
+                mb(cache.getBytes()), mb(cache.getMaxBytes()), cache.getReleasedSize(),
+                cache.getHits(), cache.getMisses(), cache.getEvictions(), cache.getWriteBacks(),
                 mb(atlasBytes), atlas.getWidth(), atlas.getHeight(),
                 drawObjects, drawTriangles,
                 geometryCount, culledGeoms,
@@ -552,12 +562,12 @@ public class IalonDebugState extends BaseAppState implements Resizable {
 
         Vec3i centerpage = chunkPager.getCenterPage();
         grid.clearChildren();
-        Map<Vec3i, Chunk> fetchedPages = chunkPager.getFetchedPages();
-        Map<Vec3i, Node> attachedPages = chunkPager.getAttachedPages();
+        ConcurrentLongMap<Chunk> fetchedPages = chunkPager.getFetchedPages();
+        ConcurrentLongMap<Node> attachedPages = chunkPager.getAttachedPages();
 
-        List<Vec3i> locations = fetchedPages.keySet()
-                .stream()
-                .filter(loc -> loc.y == 4)
+        List<Vec3i> locations = Arrays.stream(fetchedPages.keys())
+                .filter(key -> ChunkKey.y(key) == 4)
+                .mapToObj(ChunkKey::toVec3i)
                 .collect(Collectors.toList());
 
         Vec3i min = new Vec3i();
@@ -574,11 +584,11 @@ public class IalonDebugState extends BaseAppState implements Resizable {
                                      Vec3i centerpage,
                                      Vec3i min,
                                      float size,
-                                     Map<Vec3i, Chunk> fetchedPages,
-                                     Map<Vec3i, Node> attachedPages) {
+                                     ConcurrentLongMap<Chunk> fetchedPages,
+                                     ConcurrentLongMap<Node> attachedPages) {
         ColorRGBA color = ColorRGBA.White;
-        Chunk chunk = fetchedPages.get(location);
-        Node attachedPage = attachedPages.get(location);
+        Chunk chunk = fetchedPages.get(ChunkKey.of(location));
+        Node attachedPage = attachedPages.get(ChunkKey.of(location));
         Chunk cachedChunk = chunkPager.getChunkManager().getChunk(location).orElse(null);
 
         if (chunk.getNode() != null && cachedChunk != null && cachedChunk.getNode() != null) {
@@ -117,6 +117,8 @@ public class MemoryGuardState extends BaseAppState {
     private void stepDownRenderDistance(boolean oom, float ratio) {
         highSamples = 0;
         cooldownRemaining = COOLDOWN;
+        // First drop the chunks kept for fast revisits : they are the cheapest memory to give back
+        config.getChunkManager().releaseCacheMemory();
 
         int current = config.getGridRadius();
         int min = config.getGridRadiusMin();
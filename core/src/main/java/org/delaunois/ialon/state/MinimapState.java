@@ -586,7 +586,14 @@ public class MinimapState extends BaseAppState implements Resizable, Popup {
         // hardware framebuffer does the encode, so we keep the texels linear. (See memory: srgb-color-pipeline.)
         boolean manualSrgb = config.isManualGammaEncode();
         ByteBuffer data = BufferUtils.createByteBuffer(texSize * texSize * 4);
-        Vector3f sample = new Vector3f();
+        // Without a far-terrain heightmap, the generator is sampled at the texel centers in one batch
+        float[] texelHeights = null;
+        if (heights == null) {
+            texelHeights = new float[texSize * texSize];
+            float texelStep = worldExtent / texSize;
+            float origin = (0.5f / texSize - 0.5f) * worldExtent;
+            generator.getHeights(origin, origin, texelStep, texSize, texSize, texelHeights);
+        }
         ColorRGBA c = new ColorRGBA();
         for (int j = 0; j < texSize; j++) {
             float v = (j + 0.5f) / texSize;
@@ -600,7 +607,7 @@ public class MinimapState extends BaseAppState implements Resizable, Popup {
                 if (heights != null) {
                     height = sampleHeightmap(heights, hmSize, hmStep, u, v);
                 } else {
-                    height = generator.getHeight(sample.set(worldX, 0f, worldZ));
+                    height = texelHeights[j * texSize + i];
                 }
                 // Per-texel biome grass colour (continuous blend), or the flat base colour as a fallback.
                 ColorRGBA grassColor = noise != null
@@ -35,7 +35,9 @@ import com.jme3.scene.control.CameraControl;
 import com.simsilica.lemur.Label;
 
 import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.control.BulletCharacterBody;
 import org.delaunois.ialon.control.ButtonHighlightControl;
+import org.delaunois.ialon.control.CharacterBody;
 import org.delaunois.ialon.control.PlaceholderControl;
 import org.delaunois.ialon.control.PlayerActionControl;
 import org.delaunois.ialon.control.PlayerCharacterControl;
@@ -43,6 +45,7 @@ import org.delaunois.ialon.control.PlayerFlyControl;
 import org.delaunois.ialon.control.PlayerHeadDirectionControl;
 import org.delaunois.ialon.control.PlayerRailControl;
 import org.delaunois.ialon.control.PlayerWalkControl;
+import org.delaunois.ialon.control.VoxelCharacterBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -52,6 +55,8 @@ import lombok.Getter;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.delaunois.ialon.blocks.ChunkLightManager;
+import org.delaunois.ialon.blocks.ChunkLiquidManager;
+import org.delaunois.ialon.blocks.VoxelCollider;
 import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
 import org.delaunois.ialon.blocks.generator.TerrainGenerator;
 import org.delaunois.ialon.input.PlayerListener;
@@ -107,11 +112,13 @@ public class PlayerState extends BaseAppState implements Resizable {
         wagon = createWagon();
         TerrainGenerator gen = config.getTerrainGenerator();
         NoiseTerrainGenerator noiseGen = (gen instanceof NoiseTerrainGenerator) ? (NoiseTerrainGenerator) gen : null;
+        ChunkLiquidManager chunkLiquidManager = Optional.ofNullable(app.getStateManager().getState(ChunkLiquidManagerState.class))
+                .map(ChunkLiquidManagerState::getChunkLiquidManager).orElse(null);
         worldManager = new WorldManager(
                 config.getChunkManager(),
-                new ChunkLightManager(config),
-                Optional.ofNullable(app.getStateManager().getState(ChunkLiquidManagerState.class))
-                        .map(ChunkLiquidManagerState::getChunkLiquidManager).orElse(null),
+                // One light engine for the edits and the liquid simulation, both run on the edit thread
+                chunkLiquidManager == null ? new ChunkLightManager(config) : chunkLiquidManager.getChunkLightManager(),
+                chunkLiquidManager,
                 // Far-horizon edit overlay : only the noise generator scatters trees / has a far horizon.
                 noiseGen != null ? config.getWorldEditOverlay() : null,
                 noiseGen
@@ -155,7 +162,7 @@ public class PlayerState extends BaseAppState implements Resizable {
         app.getRootNode().attachChild(playerNode);
         BulletAppState bulletAppState = app.getStateManager().getState(BulletAppState.class);
         ButtonManagerState buttonManagerState = app.getStateManager().getState(ButtonManagerState.class);
-        bulletAppState.getPhysicsSpace().add(playerCharacterControl);
+        playerCharacterControl.getBody().enterPhysicsSpace(bulletAppState.getPhysicsSpace());
         config.getInputActionManager().addListener(playerActionControl);
         config.getInputActionManager().addListener(playerWalkControl);
         config.getInputActionManager().addListener(playerFlyControl);
@@ -181,7 +188,7 @@ public class PlayerState extends BaseAppState implements Resizable {
             playerNode.getParent().detachChild(playerNode);
             BulletAppState bulletAppState = app.getStateManager().getState(BulletAppState.class);
             if (bulletAppState != null && bulletAppState.getPhysicsSpace() != null) {
-                bulletAppState.getPhysicsSpace().remove(playerCharacterControl);
+                playerCharacterControl.getBody().leavePhysicsSpace(bulletAppState.getPhysicsSpace());
             }
         }
     }
@@ -223,19 +230,32 @@ public class PlayerState extends BaseAppState implements Resizable {
      */
     private Node createPlayer(SimpleApplication app, IalonConfig config, WorldManager worldManager) {
         // We set up collision detection for the player by creating
-        // a capsule collision shape and a CharacterControl.
-        // The CharacterControl offers extra settings for
+        // a character body : either a box colliding directly with the blocks,
+        // or a capsule collision shape and a CharacterControl colliding with
+        // the chunk meshes in the physics space.
+        // The body offers extra settings for
         // size, stepheight, jumping, falling, and gravity.
         // We also put the player in its starting position.
-        CapsuleCollisionShape capsuleShape = new CapsuleCollisionShape(
-                config.getPlayerRadius(),
-                config.getPlayerHeight() - 2 * config.getPlayerRadius(),
-                1);
-        PlayerCharacterControl characterControl = new PlayerCharacterControl(capsuleShape, config.getPlayerStepHeight(), worldManager, config);
+        CharacterBody body;
+        if (config.isVoxelCollision()) {
+            body = new VoxelCharacterBody(
+                    new VoxelCollider(config.getChunkManager()),
+                    config.getPlayerRadius(),
+                    config.getPlayerHeight(),
+                    config.getPlayerStepHeight());
+        } else {
+            CapsuleCollisionShape capsuleShape = new CapsuleCollisionShape(
+                    config.getPlayerRadius(),
+                    config.getPlayerHeight() - 2 * config.getPlayerRadius(),
+                    1);
+            BulletCharacterBody bulletBody = new BulletCharacterBody(capsuleShape, config.getPlayerStepHeight());
+            bulletBody.getCharacter().setMaxSlope(FastMath.PI * 0.3f);
+            body = bulletBody;
+        }
+        PlayerCharacterControl characterControl = new PlayerCharacterControl(body, worldManager, config);
         characterControl.setJumpSpeed(config.getJumpSpeed());
         characterControl.setFallSpeed(config.getGroundGravity());
         characterControl.setGravity(config.getGroundGravity());
-        characterControl.getCharacter().setMaxSlope(FastMath.PI * 0.3f);
 
         if (config.getPlayerLocation() == null) {
             config.setPlayerLocation(config.computeSpawnLocation());
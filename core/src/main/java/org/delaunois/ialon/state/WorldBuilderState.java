@@ -59,9 +59,11 @@ public class WorldBuilderState extends BaseAppState {
         int total = gridSize * gridSize * config.getGridHeight();
 
         ChunkPager chunkPager = getStateManager().getState(ChunkPagerState.class).getChunkPager();
-        PhysicsChunkPager physicsChunkPager = getStateManager().getState(PhysicsChunkPagerState.class).getPhysicsChunkPager();
+        // No physics pager when the player collides directly with the blocks
+        PhysicsChunkPager physicsChunkPager = Optional.ofNullable(getStateManager().getState(PhysicsChunkPagerState.class))
+                .map(PhysicsChunkPagerState::getPhysicsChunkPager).orElse(null);
         int numPagesAttached = chunkPager.getAttachedPages().size();
-        int numPhysicPagesAttached = physicsChunkPager.getAttachedPages().size();
+        int numPhysicPagesAttached = physicsChunkPager == null ? 0 : physicsChunkPager.getAttachedPages().size();
         int percent = numPagesAttached * 100 / total;
         if (numPagesAttached > pagesAttached || numPhysicPagesAttached > physicPagesAttached) {
             log.debug("{} pages - {} physic pages attached ({}%)", numPagesAttached, numPhysicPagesAttached, percent);
@@ -69,14 +71,19 @@ public class WorldBuilderState extends BaseAppState {
             physicPagesAttached = numPhysicPagesAttached;
             lastProgressTime = System.currentTimeMillis();
         }
-        if (numPagesAttached >= total && physicsChunkPager.isReady()
+        if (numPagesAttached >= total && (physicsChunkPager == null || physicsChunkPager.isReady())
                 || (System.currentTimeMillis() - lastProgressTime > STALL_TIMEOUT_MS)) {
             long stopTime = System.currentTimeMillis();
             long duration = stopTime - startTime;
             log.info("World built in {}ms ({}ms per page)", duration, ((float)duration) / pagesAttached);
             log.info("Starting player");
             chunkPager.setMaxUpdatePerFrame(config.getMaxUpdatePerFrame());
-            physicsChunkPager.setMaxUpdatePerFrame(10);
+            // Loading ran unbounded : from now on paging shares the frame time with the player
+            chunkPager.setFrameBudget(config.getFrameBudget());
+            if (physicsChunkPager != null) {
+                physicsChunkPager.setMaxUpdatePerFrame(10);
+                physicsChunkPager.setFrameBudget(config.getFrameBudget());
+            }
             playerState.setEnabled(true);
             Optional.ofNullable(getStateManager().getState(ChunkLiquidManagerState.class))
                     .ifPresent(state -> state.setEnabled(true));
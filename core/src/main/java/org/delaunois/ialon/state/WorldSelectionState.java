@@ -88,7 +88,9 @@ public class WorldSelectionState extends BaseAppState {
         IalonInitializer.detachWorldStates(app);
 
         // 3. Repoint the config at the new world and drop the cached data sources so the lazy getters
-        //    rebuild them for the new save directory and generation parameters.
+        //    rebuild them for the new save directory and generation parameters. Their open files are
+        //    closed first.
+        config.closeWorldFiles();
         config.setWorldId(worldId);
         config.setChunkManager(null);
         config.setChunkRepository(null);
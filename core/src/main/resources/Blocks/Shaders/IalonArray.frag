@@ -13,6 +13,7 @@ uniform float m_AlphaDiscardThreshold;
 
 in vec2 texCoord;
 flat in float layer;
+flat in float tiled;
 in vec3 AmbientSum;
 in vec4 DiffuseSum;
 
@@ -21,7 +22,14 @@ void main() {
     vec4 diffuseColor;
 
     #ifdef DIFFUSEARRAY
-    diffuseColor = texture(m_DiffuseArray, vec3(texCoord, layer));
+    if (tiled > 0.5) {
+        // Greedy-merged quad : fold the tile count into the tile at the center of the layer, [0.25, 0.75]
+        // (see TypeRegistry.expandImage), and pick the mip level from the unfolded, continuous coordinates
+        vec2 tileCoord = 0.25 + 0.5 * fract(texCoord);
+        diffuseColor = textureGrad(m_DiffuseArray, vec3(tileCoord, layer), dFdx(texCoord) * 0.5, dFdy(texCoord) * 0.5);
+    } else {
+        diffuseColor = texture(m_DiffuseArray, vec3(texCoord, layer));
+    }
     #else
     diffuseColor = vec4(1.0);
     #endif
@@ -34,6 +34,8 @@ out vec3 SpecularSum;
 
 out vec2 texCoord;
 flat out float layer;
+// 1 for a greedy-merged quad, whose UVs count the tiles across the quad
+flat out float tiled;
 
 #ifdef VERTEX_COLOR
     attribute vec4 inColor;
@@ -64,7 +66,9 @@ void main() {
 
     gl_Position = TransformWorldViewProjection(modelSpacePos);
 
-    layer = inTexCoord2;
+    // A greedy-merged quad flags its layer with 128 (GreedyFaceMesher.TILED_LAYER)
+    tiled = step(128.0, inTexCoord2);
+    layer = inTexCoord2 - 128.0 * tiled;
 
     // Local [0,1] UVs over the tile. Flowing water scrolls by g_Time ; the sampler's Repeat wrap tiles
     // the (seamlessly mirror-bordered) layer natively -- no per-tile atlas wrap math needed.
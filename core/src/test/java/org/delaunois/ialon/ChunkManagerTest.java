@@ -11,8 +11,16 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.delaunois.ialon.blocks.Chunk;
 import org.delaunois.ialon.blocks.ChunkLightManager;
 import org.delaunois.ialon.blocks.ChunkLiquidManager;
 import org.delaunois.ialon.blocks.ChunkManager;
@@ -80,4 +88,28 @@ class ChunkManagerTest {
         Vector3f location = new Vector3f(16, 32, 2);
         worldManager.addBlock(location, BlocksConfig.getInstance().getBlockRegistry().get((short)1));
     }
+
+    @Test
+    void updatesRunOnTheEditThreadInOrder() throws ExecutionException, InterruptedException {
+        ChunkManager chunkManager = ChunkManager.builder().poolSize(1).build();
+        chunkManager.initialize();
+        try {
+            List<String> steps = Collections.synchronizedList(new ArrayList<>());
+            chunkManager.requestOrderedMeshChunks(Collections.emptyList(), () -> {
+                steps.add("edit " + Thread.currentThread().getName());
+                return Collections.emptyList();
+            });
+            Future<List<Chunk>> update = chunkManager.requestOrderedUpdate(() -> {
+                steps.add("update " + Thread.currentThread().getName());
+                return Collections.emptyList();
+            });
+
+            assertTrue(update.get().isEmpty(), "nothing changed, nothing to remesh");
+            assertEquals(2, steps.size());
+            assertTrue(steps.get(0).startsWith("edit chunk-editor"));
+            assertTrue(steps.get(1).startsWith("update chunk-editor"));
+        } finally {
+            chunkManager.cleanup();
+        }
+    }
 }
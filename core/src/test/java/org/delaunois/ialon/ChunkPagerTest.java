@@ -16,10 +16,14 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.delaunois.ialon.blocks.ChunkKey;
 import org.delaunois.ialon.blocks.ChunkManager;
 import org.delaunois.ialon.blocks.ChunkPager;
 import org.delaunois.ialon.blocks.FacesMeshGenerator;
@@ -76,6 +80,37 @@ class ChunkPagerTest {
         chunkManager.cleanup(100);
     }
 
+    @Test
+    void testEditBatchIsAttachedInOneFrame() throws Exception {
+        ChunkManager chunkManager = ChunkManager.builder()
+                .generator(new FlatTerrainGenerator())
+                .poolSize(1)
+                .build();
+        chunkManager.initialize();
+
+        ChunkPager chunkPager = new ChunkPager(new Node(), chunkManager);
+        chunkPager.setMaxUpdatePerFrame(10000);
+        chunkPager.initialize();
+        chunkPager.setLocation(new Vector3f());
+        Vec3i grid = BlocksConfig.getInstance().getGrid();
+        while (chunkPager.getAttachedPages().size() < grid.x * grid.y * grid.z) {
+            chunkPager.update();
+        }
+
+        // An edit remeshing more chunks than the frame budget : all its pages swap in the same frame
+        chunkPager.setMaxUpdatePerFrame(1);
+        List<Vec3i> locations = List.of(new Vec3i(0, 0, 0), new Vec3i(1, 0, 0), new Vec3i(0, -1, 0), new Vec3i(0, 0, 1));
+        List<Chunk> chunks = chunkManager.requestOrderedMeshChunks(locations).get(10, TimeUnit.SECONDS);
+        assertEquals(locations.size(), chunks.size());
+        chunkPager.update();
+        for (Chunk chunk : chunks) {
+            assertSame(chunk.getNode(), chunkPager.getAttachedPages().get(ChunkKey.of(chunk.getLocation())));
+        }
+
+        chunkPager.cleanup(100);
+        chunkManager.cleanup(100);
+    }
+
     @Test
     void testChunkPager2() {
         ChunkManager chunkManager = ChunkManager.builder()
@@ -1,6 +1,7 @@
 package org.delaunois.ialon;
 
 import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
 import com.jme3.util.BufferAllocatorFactory;
 import com.jme3.util.PrimitiveAllocator;
 import org.delaunois.ialon.blocks.BlocksConfig;
@@ -264,4 +265,33 @@ class NoiseTerrainGeneratorTest {
         org.junit.jupiter.api.Assertions.assertNotEquals(standardTotal, amplifiedTotal,
                 "doubling reliefAmplitude must change the terrain height");
     }
+
+    /**
+     * The batch height sampling evaluates the noise layers over a whole grid at once : it must return the
+     * same heights as the point-by-point sampling, on the infinite world and on the torus.
+     */
+    @Test
+    void batchHeightsMatchPointHeights() {
+        IalonConfig config = new IalonConfig();
+        NoiseTerrainGenerator[] generators = {
+                new NoiseTerrainGenerator(2, config.getWaterHeight()),
+                new NoiseTerrainGenerator(2, config.getWaterHeight(), config.getMaxy(), config.getWorldSize())
+        };
+        int width = 21;
+        int depth = 13;
+        float step = 7.5f;
+        float x0 = -40f;
+        float z0 = 1000f;
+
+        for (NoiseTerrainGenerator generator : generators) {
+            float[] heights = new float[width * depth];
+            generator.getHeights(x0, z0, step, width, depth, heights);
+            for (int j = 0; j < depth; j++) {
+                for (int i = 0; i < width; i++) {
+                    float expected = generator.getHeight(new Vector3f(x0 + i * step, 0f, z0 + j * step));
+                    assertEquals(expected, heights[j * width + i], 1e-4f, "height differs at " + i + ", " + j);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,257 @@
+package org.delaunois.ialon;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.blocks.BlockIds;
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.RegionFileRepository;
+import org.delaunois.ialon.blocks.ZipFileRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the region file store : chunks sharing a region read back intact, rewrites and deletions
+ * keep the other chunks readable, data survives a reopen and worlds saved as .zblock files migrate, in
+ * the background too, resuming after a close.
+ */
+class RegionFileRepositoryTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void chunksOfOneRegionRoundTripAndSurviveReopen(@TempDir Path dir) {
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        Chunk a = createChunk(new Vec3i(0, 0, 0), 1);
+        Chunk b = createChunk(new Vec3i(1, 2, 3), 2);
+        Chunk c = createChunk(new Vec3i(-1, 0, -5), 3);
+        assertTrue(repo.save(a));
+        assertTrue(repo.save(b));
+        assertTrue(repo.save(c));
+
+        assertSameChunk(a, repo.load(a.getLocation()));
+        assertSameChunk(b, repo.load(b.getLocation()));
+        assertSameChunk(c, repo.load(c.getLocation()));
+        assertNull(repo.load(new Vec3i(4, 4, 4)), "a chunk never saved must not be found");
+
+        repo.close();
+        assertEquals(2, countFiles(dir, RegionFileRepository.EXTENSION), "(0,0,0) and (1,2,3) share a region");
+
+        RegionFileRepository reopened = new RegionFileRepository(dir);
+        assertSameChunk(a, reopened.load(a.getLocation()));
+        assertSameChunk(b, reopened.load(b.getLocation()));
+        assertSameChunk(c, reopened.load(c.getLocation()));
+        reopened.close();
+    }
+
+    @Test
+    void rewriteAndDeleteKeepNeighboursIntact(@TempDir Path dir) {
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        Chunk small = createChunk(new Vec3i(2, 0, 2), 0);
+        Chunk neighbour = createChunk(new Vec3i(2, 0, 3), 4);
+        assertTrue(repo.save(small));
+        assertTrue(repo.save(neighbour));
+
+        // Noisy content does not compress : the chunk grows over several sectors
+        Chunk large = createChunk(small.getLocation(), 5);
+        assertTrue(repo.save(large));
+        assertSameChunk(large, repo.load(large.getLocation()));
+        assertSameChunk(neighbour, repo.load(neighbour.getLocation()));
+
+        // A chunk without blocks removes the stored chunk
+        Chunk empty = Chunk.createAt(neighbour.getLocation());
+        assertTrue(repo.save(empty));
+        assertNull(repo.load(neighbour.getLocation()));
+        assertSameChunk(large, repo.load(large.getLocation()));
+        repo.close();
+
+        RegionFileRepository reopened = new RegionFileRepository(dir);
+        assertNull(reopened.load(neighbour.getLocation()));
+        assertSameChunk(large, reopened.load(large.getLocation()));
+        reopened.close();
+    }
+
+    @Test
+    void finiteWorldStoresCanonicalChunks(@TempDir Path dir) {
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        repo.setWorldSizeChunks(8);
+        Chunk chunk = createChunk(new Vec3i(-1, 1, 9), 6);
+        assertTrue(repo.save(chunk));
+
+        Chunk wrapped = repo.load(new Vec3i(7, 1, 1));
+        assertNotNull(wrapped);
+        assertEquals(new Vec3i(7, 1, 1), wrapped.getLocation(), "the loaded chunk carries the requested location");
+        assertArrayEquals(chunk.getBlocks(), wrapped.getBlocks());
+        repo.close();
+    }
+
+    @Test
+    void zblockWorldMigratesIntoRegions(@TempDir Path dir) {
+        ZipFileRepository legacy = new ZipFileRepository(dir);
+        Chunk a = createChunk(new Vec3i(0, 1, 0), 7);
+        Chunk b = createChunk(new Vec3i(-20, 3, 17), 8);
+        assertTrue(legacy.save(a));
+        assertTrue(legacy.save(b));
+        assertEquals(2, countFiles(dir, ZipFileRepository.EXTENSION));
+
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        assertEquals(2, repo.migrateFrom(dir));
+        assertEquals(0, countFiles(dir, ZipFileRepository.EXTENSION), "migrated chunk files are deleted");
+        assertSameChunk(a, repo.load(a.getLocation()));
+        assertSameChunk(b, repo.load(b.getLocation()));
+
+        assertEquals(0, repo.migrateFrom(dir), "a migrated world has nothing left to migrate");
+        repo.close();
+    }
+
+    @Test
+    void zblockWorldMigratesInBackground(@TempDir Path dir) throws ExecutionException, InterruptedException {
+        ZipFileRepository legacy = new ZipFileRepository(dir);
+        Chunk a = createChunk(new Vec3i(0, 1, 0), 7);
+        Chunk b = createChunk(new Vec3i(-20, 3, 17), 8);
+        assertTrue(legacy.save(a));
+        assertTrue(legacy.save(b));
+
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        Future<Integer> migration = repo.migrateInBackground(dir);
+
+        // Migrated or not yet, the chunks are found, and a chunk saved meanwhile keeps its latest version
+        assertSameChunk(b, repo.load(b.getLocation()));
+        Chunk edited = createChunk(a.getLocation(), 9);
+        assertTrue(repo.save(edited));
+        assertSameChunk(edited, repo.load(a.getLocation()));
+
+        assertTrue(migration.get() <= 2);
+        assertEquals(0, countFiles(dir, ZipFileRepository.EXTENSION), "migrated chunk files are deleted");
+        assertSameChunk(edited, repo.load(a.getLocation()));
+        assertSameChunk(b, repo.load(b.getLocation()));
+        repo.close();
+    }
+
+    @Test
+    void closeStopsTheMigrationAndKeepsRegionsUsable(@TempDir Path dir) throws ExecutionException, InterruptedException {
+        ZipFileRepository legacy = new ZipFileRepository(dir);
+        Chunk[] chunks = new Chunk[8];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = createChunk(new Vec3i(i, 0, 0), i + 1);
+            assertTrue(legacy.save(chunks[i]));
+        }
+
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        Future<Integer> migration = repo.migrateInBackground(dir);
+        repo.close();
+        assertTrue(migration.isDone(), "close waits for the migration to stop");
+        migration.get();
+
+        // The regions stay writable after the stopped migration, and the saved version wins on resume
+        Chunk edited = createChunk(chunks[7].getLocation(), 20);
+        assertTrue(repo.save(edited));
+        assertSameChunk(edited, repo.load(edited.getLocation()));
+
+        repo.migrateInBackground(dir).get();
+        assertEquals(0, countFiles(dir, ZipFileRepository.EXTENSION), "migrated chunk files are deleted");
+        for (int i = 0; i < chunks.length - 1; i++) {
+            assertSameChunk(chunks[i], repo.load(chunks[i].getLocation()));
+        }
+        assertSameChunk(edited, repo.load(edited.getLocation()));
+        repo.close();
+    }
+
+    @Test
+    void writesInsideTheMappingAreRead(@TempDir Path dir) {
+        RegionFileRepository repo = new RegionFileRepository(dir);
+        Chunk a = createChunk(new Vec3i(0, 0, 0), 1);
+        Chunk b = createChunk(new Vec3i(0, 0, 1), 2);
+        assertTrue(repo.save(a));
+        assertTrue(repo.save(b));
+        assertSameChunk(a, repo.load(a.getLocation()));
+
+        // Deleting a frees its sectors : the new version of b is written there, inside the mapping
+        assertTrue(repo.save(Chunk.createAt(a.getLocation())));
+        Chunk rewritten = createChunk(b.getLocation(), 3);
+        assertTrue(repo.save(rewritten));
+        assertSameChunk(rewritten, repo.load(b.getLocation()));
+
+        // A chunk written past the end of the mapping is read too
+        Chunk large = createChunk(a.getLocation(), 5);
+        assertTrue(repo.save(large));
+        assertSameChunk(large, repo.load(a.getLocation()));
+        assertSameChunk(rewritten, repo.load(b.getLocation()));
+        repo.close();
+    }
+
+    @Test
+    void missingDirectoryIsNotCreatedByLoads(@TempDir Path dir) {
+        Path world = dir.resolve("world");
+        RegionFileRepository repo = new RegionFileRepository(world);
+        assertNull(repo.load(new Vec3i(0, 0, 0)));
+        assertFalse(Files.exists(world));
+    }
+
+    private static Chunk createChunk(Vec3i location, int seed) {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        int volume = size.x * size.y * size.z;
+        short rockId = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK).getId();
+        short dirtId = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.DIRT).getId();
+        Random random = new Random(seed);
+
+        short[] blocks = new short[volume];
+        byte[] light = new byte[volume];
+        for (int i = 0; i < volume; i++) {
+            if (seed % 5 == 0) {
+                // Random cells : poorly compressible
+                blocks[i] = random.nextBoolean() ? rockId : dirtId;
+                light[i] = (byte) random.nextInt(256);
+            } else {
+                blocks[i] = i < volume / (seed + 1) ? rockId : 0;
+                light[i] = (byte) (blocks[i] == 0 ? 0xF0 : 0);
+            }
+        }
+
+        Chunk chunk = Chunk.createAt(location);
+        chunk.setBlocks(blocks);
+        chunk.setLightMap(light);
+        return chunk;
+    }
+
+    private static void assertSameChunk(Chunk expected, Chunk actual) {
+        assertNotNull(actual, "chunk " + expected.getLocation() + " must be found");
+        assertEquals(expected.getLocation(), actual.getLocation());
+        assertArrayEquals(expected.getBlocks(), actual.getBlocks());
+        assertArrayEquals(expected.getLightMap(), actual.getLightMap());
+    }
+
+    private static long countFiles(Path dir, String extension) {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(extension)).count();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
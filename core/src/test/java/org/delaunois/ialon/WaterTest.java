@@ -1,10 +1,25 @@
 package org.delaunois.ialon;
 
+import com.simsilica.mathd.Vec3i;
+
 import org.delaunois.ialon.blocks.BlockIds;
 
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkLiquidManager;
+import org.delaunois.ialon.blocks.ChunkManagerListener;
 import org.delaunois.ialon.support.BaseSceneryTest;
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class WaterTest extends BaseSceneryTest {
 
     @Test
@@ -54,4 +69,56 @@ class WaterTest extends BaseSceneryTest {
         verify("chunk_0_0_0.zblock", "the water should have disappeared");
     }
 
+    @Test
+    void testTickNodeBudget() {
+        init("water-ut1");
+        ChunkLiquidManager liquidManager = worldManager.getChunkLiquidManager();
+
+        addBlock(BlockIds.WATER_SOURCE, 8, 9, 8);
+        assertEquals(1, liquidManager.queueSize());
+        assertEquals(Set.of(ORIGIN), liquidManager.tick(1));
+
+        // The source spread to its 4 neighbours : a budget of 2 leaves 2 of them for the next tick
+        int queued = liquidManager.queueSize();
+        assertTrue(queued > 2);
+        liquidManager.tick(2);
+        assertTrue(liquidManager.queueSize() >= queued - 2);
+
+        int ticks = 0;
+        while (liquidManager.queueSize() > 0 && ticks < MAX_SIMULATION_STEPS) {
+            liquidManager.tick(2);
+            ticks++;
+        }
+        verify("expected.zblock", "a bounded tick should converge to the same flow");
+    }
+
+    @Test
+    void testUpdatedMeshesAreNotified() throws Exception {
+        init("water-ut1");
+        List<Chunk> updated = new CopyOnWriteArrayList<>();
+        worldManager.getChunkManager().addListener(new ChunkManagerListener() {
+            @Override
+            public void onChunkUpdated(Chunk chunk) {
+                updated.add(chunk);
+            }
+
+            @Override
+            public void onChunkAvailable(Chunk chunk) {
+                // Not tested
+            }
+        });
+
+        addBlock(BlockIds.WATER_SOURCE, 8, 9, 8);
+        assertEquals(1, updated.size(), "the edit itself remeshes the chunk once");
+        updated.clear();
+        ChunkLiquidManager liquidManager = worldManager.getChunkLiquidManager();
+        Set<Vec3i> updatedChunks = liquidManager.tick(Integer.MAX_VALUE);
+        assertFalse(updatedChunks.isEmpty());
+        for (Future<Chunk> mesh : liquidManager.updateChunkMesh(updatedChunks)) {
+            assertTrue(mesh.get(10, TimeUnit.SECONDS).getNode() != null);
+        }
+        assertEquals(1, updated.size());
+        assertEquals(ORIGIN, updated.get(0).getLocation());
+    }
+
 }
@@ -0,0 +1,125 @@
+package org.delaunois.ialon;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import org.delaunois.ialon.blocks.BlockIds;
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.protobuf.BlocksProtos;
+import com.simsilica.mathd.Vec3i;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.delaunois.ialon.blocks.ZipFileRepository;
+
+/**
+ * Validates the palette chunk format (version 2) : a saved chunk reads back with identical blocks and
+ * lightmap, the file no longer holds one block name per cell, and legacy files still load.
+ */
+class ZipFileRepositoryTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void paletteFormatRoundTrips(@TempDir Path dir) throws Exception {
+        ZipFileRepository repo = new ZipFileRepository(dir);
+
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        int volume = size.x * size.y * size.z;
+        short rockId = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK).getId();
+        short dirtId = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.DIRT).getId();
+
+        short[] blocks = new short[volume];
+        byte[] light = new byte[volume];
+        for (int i = 0; i < volume; i++) {
+            // Long runs of rock, a few scattered dirt cells and air on top, with a varying lightmap.
+            blocks[i] = i < volume / 2 ? rockId : (i % 97 == 0 ? dirtId : 0);
+            light[i] = (byte) (i < volume / 2 ? 0 : (0xF << 4) | (i % 5));
+        }
+
+        Vec3i location = new Vec3i(3, 1, -2);
+        Chunk chunk = Chunk.createAt(location);
+        chunk.setBlocks(blocks);
+        chunk.setLightMap(light);
+        assertTrue(repo.save(chunk));
+
+        Chunk loaded = repo.load(location);
+        assertNotNull(loaded);
+        assertEquals(location, loaded.getLocation());
+        assertArrayEquals(blocks, loaded.getBlocks(), "blocks must survive the palette encoding");
+        assertArrayEquals(light, loaded.getLightMap(), "lightmap must survive the run-length encoding");
+
+        BlocksProtos.ChunkProto proto = readProto(repo.getChunkPath(chunk));
+        assertEquals(ZipFileRepository.FORMAT_VERSION, proto.getVersion());
+        assertEquals(0, proto.getBlocksCount(), "the palette format must not store one name per cell");
+        assertEquals(3, proto.getPaletteCount(), "rock, dirt and air");
+    }
+
+    @Test
+    void blocksWithoutLightMapRoundTripAtTheUniformLight(@TempDir Path dir) {
+        ZipFileRepository repo = new ZipFileRepository(dir);
+
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        int volume = size.x * size.y * size.z;
+        short rockId = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK).getId();
+        short[] blocks = new short[volume];
+        Arrays.fill(blocks, 0, volume / 3, rockId);
+
+        Vec3i location = new Vec3i(0, 2, 5);
+        Chunk chunk = Chunk.createAt(location);
+        chunk.setBlocks(blocks);
+        assertNull(chunk.getLightMap());
+        assertTrue(repo.save(chunk));
+
+        Chunk loaded = repo.load(location);
+        assertNotNull(loaded, "a chunk saved without a lightmap must load");
+        assertArrayEquals(blocks, loaded.getBlocks());
+        byte[] light = new byte[volume];
+        Arrays.fill(light, chunk.getUniformLight());
+        assertArrayEquals(light, loaded.getLightMap(), "the missing lightmap is saved as the uniform light");
+    }
+
+    @Test
+    void legacyFileStillLoadsAndIsRewrittenInPaletteFormat(@TempDir Path dir) throws Exception {
+        Path legacyDir = Paths.get("src/test/resources/scenery/water-ut1");
+        Chunk legacy = new ZipFileRepository(legacyDir).load("chunk_0_0_0.zblock");
+        assertNotNull(legacy, "a legacy (version 0) chunk file must still load");
+        assertEquals(0, readProto(legacyDir.resolve("chunk_0_0_0.zblock")).getVersion());
+
+        ZipFileRepository repo = new ZipFileRepository(dir);
+        assertTrue(repo.save(legacy));
+        Chunk reloaded = repo.load(legacy.getLocation());
+        assertNotNull(reloaded);
+        assertArrayEquals(legacy.getBlocks(), reloaded.getBlocks());
+        assertArrayEquals(legacy.getLightMap(), reloaded.getLightMap());
+        assertEquals(ZipFileRepository.FORMAT_VERSION, readProto(repo.getChunkPath(legacy)).getVersion());
+    }
+
+    private static BlocksProtos.ChunkProto readProto(Path file) throws Exception {
+        try (ZipFile zip = new ZipFile(file.toFile());
+             InputStream in = zip.getInputStream(zip.getEntry(ZipFileRepository.ZIP_ENTRY_NAME))) {
+            return BlocksProtos.ChunkProto.parseFrom(in);
+        }
+    }
+}
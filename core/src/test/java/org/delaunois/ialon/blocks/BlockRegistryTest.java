@@ -0,0 +1,94 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Validates the resolution done at block registration : every block carries the shape, shape id, type id and
+ * mesh bucket its names refer to, and the array-indexed lookups of the registries agree with the named ones. A
+ * block registered before its shape or type registry is resolved once they are initialized.
+ */
+class BlockRegistryTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void registeredBlocksAreResolved() {
+        BlocksConfig config = BlocksConfig.getInstance();
+        ShapeRegistry shapeRegistry = config.getShapeRegistry();
+        TypeRegistry typeRegistry = config.getTypeRegistry();
+        for (Block block : config.getBlockRegistry().getAll()) {
+            assertNotNull(block.getResolvedShape(), block.getName());
+            assertSame(shapeRegistry.get(block.getShape()), block.getResolvedShape(), block.getName());
+            assertSame(block.getResolvedShape(), shapeRegistry.get(block.getShapeId()), block.getName());
+            assertEquals(typeRegistry.getId(block.getType()), block.getTypeId(), block.getName());
+            assertEquals(MeshBuckets.of(block.getType()), block.getMeshBucket(), block.getName());
+            assertEquals(ShapeIds.CUBE.equals(block.getShape()), block.isCube(), block.getName());
+        }
+    }
+
+    @Test
+    void blocksRegisteredBeforeTheirRegistriesAreResolvedAgain() {
+        BlocksConfig config = BlocksConfig.getInstance();
+        ShapeRegistry shapeRegistry = config.getShapeRegistry();
+        TypeRegistry typeRegistry = config.getTypeRegistry();
+        BlockRegistry blockRegistry = new BlockRegistry();
+        Block block = Block.builder().name("late").shape("late_shape").type(TypeIds.GRASS).build();
+
+        config.setTypeRegistry(null);
+        try {
+            blockRegistry.register(block);
+        } finally {
+            config.setTypeRegistry(typeRegistry);
+        }
+        assertNull(block.getResolvedShape(), "the shape is not registered yet");
+
+        Shape shape = shapeRegistry.get(ShapeIds.CUBE);
+        shapeRegistry.register("late_shape", shape);
+        try {
+            blockRegistry.resolveAll();
+            assertSame(shape, block.getResolvedShape());
+            assertSame(shape, shapeRegistry.get(block.getShapeId()));
+            assertEquals(typeRegistry.getId(TypeIds.GRASS), block.getTypeId());
+        } finally {
+            shapeRegistry.remove("late_shape");
+        }
+    }
+
+    @Test
+    void liquidShapesAreIndexedByLevel() {
+        ShapeRegistry shapeRegistry = BlocksConfig.getInstance().getShapeRegistry();
+        for (int level = 1; level < Block.LIQUID_FULL; level++) {
+            assertSame(shapeRegistry.get(ShapeIds.LIQUID + "_" + level), shapeRegistry.getLiquid(level));
+        }
+        assertSame(shapeRegistry.get(ShapeIds.LIQUID), shapeRegistry.getLiquid(Block.LIQUID_FULL));
+    }
+
+    @Test
+    void meshBuckets() {
+        assertEquals(MeshBuckets.WATER, MeshBuckets.of(TypeIds.WATER));
+        assertEquals(MeshBuckets.LAVA, MeshBuckets.of(TypeIds.LAVA));
+        assertEquals(MeshBuckets.FIRE, MeshBuckets.of(TypeIds.FIRE));
+        assertEquals(MeshBuckets.GENERIC, MeshBuckets.of(TypeIds.GRASS));
+        assertEquals(TypeIds.WATER, MeshBuckets.nameOf(MeshBuckets.WATER));
+    }
+
+}
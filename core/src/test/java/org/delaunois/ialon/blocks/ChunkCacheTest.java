@@ -0,0 +1,199 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the bounded chunk cache : released chunks are invisible to the resolver but revived by
+ * acquire, evicted least recently released first once over budget, and written back when dirty.
+ */
+class ChunkCacheTest {
+
+    private static final int ROUNDS = 2000;
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void releasedChunkIsHiddenUntilAcquired() {
+        ChunkCache cache = new ChunkCache(Long.MAX_VALUE, null);
+        Chunk chunk = createChunk(new Vec3i(1, 2, 3));
+        cache.put(chunk);
+        assertSame(chunk, cache.unsafeFastGet(chunk.getLocation()));
+
+        cache.release(chunk.getLocation());
+        assertNull(cache.unsafeFastGet(chunk.getLocation()), "a released chunk is outside the pager grid");
+        assertFalse(cache.get(chunk.getLocation()).isPresent());
+        assertEquals(1, cache.getReleasedSize());
+
+        assertSame(chunk, cache.acquire(chunk.getLocation()));
+        assertSame(chunk, cache.unsafeFastGet(chunk.getLocation()));
+        assertEquals(0, cache.getReleasedSize());
+        assertNull(cache.acquire(new Vec3i(9, 9, 9)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyReleasedFirstAndKeepsLiveChunks() {
+        long chunkBytes = ChunkCache.estimateSize(createChunk(new Vec3i(0, 0, 0)));
+        ChunkCache cache = new ChunkCache(3 * chunkBytes, null);
+        Chunk[] chunks = new Chunk[5];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = createChunk(new Vec3i(i, 0, 0));
+            cache.put(chunks[i]);
+        }
+        assertEquals(5 * chunkBytes, cache.getBytes());
+        assertFalse(cache.isOverBudget(), "nothing to evict while all chunks are live");
+
+        cache.release(chunks[3].getLocation());
+        cache.release(chunks[0].getLocation());
+        cache.release(chunks[1].getLocation());
+        assertTrue(cache.isOverBudget());
+        cache.maintain();
+
+        assertEquals(3 * chunkBytes, cache.getBytes());
+        assertEquals(2, cache.getEvictions());
+        assertNull(cache.acquire(chunks[3].getLocation()), "released first, evicted first");
+        assertNull(cache.acquire(chunks[0].getLocation()));
+        assertSame(chunks[1], cache.acquire(chunks[1].getLocation()), "the most recently released chunk stays warm");
+        assertSame(chunks[2], cache.unsafeFastGet(chunks[2].getLocation()));
+        assertSame(chunks[4], cache.unsafeFastGet(chunks[4].getLocation()));
+
+        cache.trimTo(0);
+        assertEquals(3 * chunkBytes, cache.getBytes(), "live chunks are never evicted");
+    }
+
+    @Test
+    void dirtyChunksAreWrittenBackBeforeEviction() {
+        Map<Vec3i, Chunk> saved = new HashMap<>();
+        ChunkRepository repository = new ChunkRepository() {
+            @Override
+            public Chunk load(Vec3i location) {
+                return saved.get(location);
+            }
+
+            @Override
+            public boolean save(Chunk chunk) {
+                saved.put(chunk.getLocation(), chunk);
+                return true;
+            }
+        };
+
+        ChunkCache cache = new ChunkCache(0, repository);
+        Chunk clean = createChunk(new Vec3i(0, 0, 0));
+        Chunk dirty = createChunk(new Vec3i(1, 0, 0));
+        dirty.setDirty(true);
+        cache.put(clean);
+        cache.put(dirty);
+        cache.release(clean.getLocation());
+        cache.release(dirty.getLocation());
+        cache.maintain();
+
+        assertEquals(0, cache.getSize());
+        assertEquals(1, cache.getWriteBacks());
+        assertSame(dirty, saved.get(dirty.getLocation()));
+        assertFalse(saved.containsKey(clean.getLocation()), "a clean chunk is evicted without a save");
+        assertFalse(dirty.isDirty());
+    }
+
+    @Test
+    void failedWriteBackKeepsTheChunk() {
+        ChunkRepository failing = new ChunkRepository() {
+            @Override
+            public Chunk load(Vec3i location) {
+                return null;
+            }
+
+            @Override
+            public boolean save(Chunk chunk) {
+                return false;
+            }
+        };
+
+        ChunkCache cache = new ChunkCache(0, failing);
+        Chunk dirty = createChunk(new Vec3i(0, 0, 0));
+        dirty.setDirty(true);
+        cache.put(dirty);
+        cache.release(dirty.getLocation());
+        cache.maintain();
+
+        assertEquals(0, cache.getEvictions());
+        assertSame(dirty, cache.acquire(dirty.getLocation()), "changes are not dropped when the save fails");
+    }
+
+    @Test
+    void acquireRacingEvictionReturnsOnlyTrackedChunks() throws InterruptedException, BrokenBarrierException {
+        ChunkCache cache = new ChunkCache(Long.MAX_VALUE, null);
+        Vec3i location = new Vec3i(0, 0, 0);
+        CyclicBarrier start = new CyclicBarrier(2);
+        AtomicReference<Chunk> acquired = new AtomicReference<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            Chunk chunk = createChunk(location);
+            cache.put(chunk);
+            cache.release(location);
+
+            Thread acquirer = new Thread(() -> {
+                awaitQuietly(start);
+                acquired.set(cache.acquire(location));
+            });
+            acquirer.start();
+            start.await();
+            cache.trimTo(0);
+            acquirer.join();
+
+            if (acquired.get() != null) {
+                assertSame(chunk, acquired.get());
+                assertSame(chunk, cache.unsafeFastGet(location), "an acquired chunk is tracked by the cache");
+                cache.evict(location);
+            } else {
+                assertNull(cache.unsafeFastGet(location));
+                assertEquals(0, cache.getSize(), "a chunk not acquired is evicted");
+            }
+        }
+        assertEquals(ROUNDS, cache.getHits() + cache.getMisses());
+    }
+
+    private static void awaitQuietly(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (BrokenBarrierException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Chunk createChunk(Vec3i location) {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        Chunk chunk = Chunk.createAt(location);
+        chunk.setBlocks(new short[size.x * size.y * size.z]);
+        chunk.setLightMap(new byte[size.x * size.y * size.z]);
+        return chunk;
+    }
+}
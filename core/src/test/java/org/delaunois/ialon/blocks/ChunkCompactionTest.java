@@ -0,0 +1,123 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the palette packing of the chunk blocks : packed blocks read back exactly, in 0, 4 or 8 bits
+ * per block depending on the number of distinct blocks, and a compacted chunk unpacks on the first write.
+ */
+class ChunkCompactionTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void packedBlocksReadBackExactly() {
+        Random random = new Random(7);
+        int[] paletteSizes = {1, 2, 16, 17, 256};
+        int[] expectedBits = {0, 4, 4, 8, 8};
+        for (int p = 0; p < paletteSizes.length; p++) {
+            short[] blocks = new short[4096];
+            for (int i = 0; i < blocks.length; i++) {
+                // Distinct ids, and every one of them present
+                blocks[i] = (short) (100 + (i < paletteSizes[p] ? i : random.nextInt(paletteSizes[p])));
+            }
+
+            PaletteBlockStorage packed = PaletteBlockStorage.pack(blocks);
+            assertEquals(expectedBits[p], packed.getBits(), paletteSizes[p] + " distinct blocks");
+            assertEquals(paletteSizes[p], packed.getPalette().length);
+            assertArrayEquals(blocks, packed.unpack());
+            for (int i = 0; i < blocks.length; i++) {
+                assertEquals(blocks[i], packed.get(i));
+            }
+        }
+    }
+
+    @Test
+    void tooManyDistinctBlocksStayPlain() {
+        short[] blocks = new short[4096];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = (short) (i % 257);
+        }
+        assertNull(PaletteBlockStorage.pack(blocks));
+    }
+
+    @Test
+    void compactedChunkUnpacksOnTheFirstWrite() {
+        BlockRegistry registry = BlocksConfig.getInstance().getBlockRegistry();
+        Block rock = registry.get(BlockIds.ROCK);
+        Block dirt = registry.get(BlockIds.DIRT);
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        chunk.setBlocks(new short[size.x * size.y * size.z]);
+        chunk.setLightMap(new byte[size.x * size.y * size.z]);
+        chunk.addBlock(1, 2, 3, rock);
+        chunk.update();
+        long plainSize = chunk.getBlocksSize();
+
+        assertTrue(chunk.compact());
+        assertTrue(chunk.isCompacted());
+        assertFalse(chunk.isUniform());
+        assertTrue(chunk.getBlocksSize() < plainSize / 3, "4 bits per block plus the palette");
+        assertSame(rock, chunk.getBlock(1, 2, 3));
+        assertNull(chunk.getBlock(3, 2, 1));
+        chunk.update();
+        assertFalse(chunk.isEmpty());
+        assertFalse(chunk.isFull());
+
+        chunk.addBlock(3, 2, 1, dirt);
+        assertFalse(chunk.isCompacted());
+        assertSame(rock, chunk.getBlock(1, 2, 3));
+        assertSame(dirt, chunk.getBlock(3, 2, 1));
+        assertEquals(plainSize, chunk.getBlocksSize());
+    }
+
+    @Test
+    void lightAndReadsLeaveTheChunkPacked() {
+        BlockRegistry registry = BlocksConfig.getInstance().getBlockRegistry();
+        Block rock = registry.get(BlockIds.ROCK);
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        chunk.setBlocks(new short[size.x * size.y * size.z]);
+        chunk.setLightMap(new byte[size.x * size.y * size.z]);
+        chunk.addBlock(1, 0, 3, rock);
+        chunk.update();
+        assertTrue(chunk.compact());
+
+        chunk.setSunlight(2, 2, 2, 9);
+        chunk.setTorchlight(2, 2, 2, 4);
+        ColumnSunlight.light(chunk, new int[size.x * size.z]);
+        int[] sky = ColumnSunlight.bottomOf(chunk);
+        short[] blocks = chunk.readBlocks();
+
+        assertTrue(chunk.isCompacted(), "reading the blocks or writing the light does not unpack them");
+        assertEquals(rock.getId(), blocks[Chunk.calculateIndex(1, 0, 3)]);
+        assertEquals(0, blocks[Chunk.calculateIndex(3, 0, 1)]);
+        assertEquals(size.x * size.z, sky.length);
+        assertEquals(4, chunk.getTorchlight(2, 2, 2));
+        assertSame(rock, chunk.getBlock(1, 0, 3));
+    }
+}
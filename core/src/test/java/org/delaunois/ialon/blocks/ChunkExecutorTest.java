@@ -0,0 +1,84 @@
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the chunk task queue : waiting tasks run by distance to the focus, are re-sorted when the
+ * focus moves, and are cancelled once out of the area around the focus.
+ */
+class ChunkExecutorTest {
+
+    @Test
+    void tasksRunClosestToTheFocusFirst() throws Exception {
+        ChunkExecutor executor = new ChunkExecutor(1, Executors.defaultThreadFactory());
+        try {
+            CountDownLatch blocker = block(executor);
+            List<Integer> order = new CopyOnWriteArrayList<>();
+            executor.setFocus(new Vec3i(0, 0, 0), new Vec3i(10, 10, 10));
+            List<Future<Boolean>> tasks = new ArrayList<>();
+            for (int x : new int[] {3, 1, 2}) {
+                tasks.add(executor.submit(ChunkExecutor.at(new Vec3i(x, 0, 0), () -> order.add(x))));
+            }
+
+            // The focus moves to the other side : the farthest task now runs first
+            executor.setFocus(new Vec3i(4, 0, 0), new Vec3i(10, 10, 10));
+            blocker.countDown();
+            for (Future<Boolean> task : tasks) {
+                task.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(List.of(3, 2, 1), order);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void tasksOutOfTheAreaAreCancelled() throws Exception {
+        ChunkExecutor executor = new ChunkExecutor(1, Executors.defaultThreadFactory());
+        try {
+            CountDownLatch blocker = block(executor);
+            Future<Boolean> near = executor.submit(ChunkExecutor.at(new Vec3i(1, 0, 0), () -> true));
+            Future<Boolean> far = executor.submit(ChunkExecutor.at(new Vec3i(9, 0, 0), () -> true));
+            Future<Boolean> unbound = executor.submit(() -> true);
+
+            executor.setFocus(new Vec3i(0, 0, 0), new Vec3i(2, 2, 2));
+            blocker.countDown();
+
+            assertTrue(near.get(5, TimeUnit.SECONDS));
+            assertTrue(unbound.get(5, TimeUnit.SECONDS));
+            assertTrue(far.isCancelled());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Occupies the single worker of the executor until the returned latch is released, so the next
+     * tasks wait in the queue.
+     */
+    private static CountDownLatch block(ChunkExecutor executor) throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.submit(() -> {
+            started.countDown();
+            blocker.await();
+            return null;
+        });
+        started.await();
+        return blocker;
+    }
+
+}
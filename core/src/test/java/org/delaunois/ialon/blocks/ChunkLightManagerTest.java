@@ -0,0 +1,147 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
+import org.delaunois.ialon.support.LegacyChunkLightManager;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validates the array-based light engine against the former, object-based one : the same random
+ * sequence of edits on two identical worlds must give the same lightmaps and the same chunks to remesh.
+ */
+class ChunkLightManagerTest {
+
+    private static final int RADIUS = 2;
+    private static final int EDITS = 300;
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @AfterAll
+    static void reset() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void matchesTheLegacyEngine() {
+        IalonConfig config = new IalonConfig();
+        ChunkManager expectedWorld = createWorld(config);
+        ChunkManager actualWorld = createWorld(config);
+        config.setChunkManager(expectedWorld);
+        LegacyChunkLightManager legacy = new LegacyChunkLightManager(config);
+        config.setChunkManager(actualWorld);
+        ChunkLightManager engine = new ChunkLightManager(config);
+
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+        int worldHeight = config.getGridHeight() * chunkSize.y;
+        Random random = new Random(3);
+        for (int i = 0; i < EDITS; i++) {
+            // Edit around the surface of the central chunks : the light crosses chunk borders
+            int x = random.nextInt(3 * chunkSize.x) - chunkSize.x;
+            int z = random.nextInt(3 * chunkSize.z) - chunkSize.z;
+            int y = surface(actualWorld, x, z, worldHeight) + random.nextInt(5) - 2;
+            if (y < 1 || y >= worldHeight - 1) {
+                continue;
+            }
+            Vector3f location = new Vector3f(x + 0.5f, y + 0.5f, z + 0.5f);
+            int op = random.nextInt(3);
+            Set<Vec3i> expected = edit(expectedWorld, location, op, rock, legacy::removeSunlight, legacy::removeTorchlight, legacy::restoreSunlight, legacy::addTorchlight);
+            Set<Vec3i> actual = edit(actualWorld, location, op, rock, engine::removeSunlight, engine::removeTorchlight, engine::restoreSunlight, engine::addTorchlight);
+            assertEquals(expected, actual, "chunks to remesh after edit " + i);
+        }
+
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int y = 0; y < config.getGridHeight(); y++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    Vec3i location = new Vec3i(x, y, z);
+                    assertArrayEquals(expectedWorld.getChunk(location).orElseThrow().getLightMap(),
+                            actualWorld.getChunk(location).orElseThrow().getLightMap(), "lightmap of " + location);
+                }
+            }
+        }
+        expectedWorld.cleanup(1000);
+        actualWorld.cleanup(1000);
+    }
+
+    private interface CellLight {
+        Set<Vec3i> apply(Vec3i blockLocationInsideChunk, Chunk chunk);
+    }
+
+    private interface TorchLight {
+        Set<Vec3i> apply(Vec3i blockLocationInsideChunk, Chunk chunk, int intensity);
+    }
+
+    private interface WorldLight {
+        Set<Vec3i> apply(Vector3f location);
+    }
+
+    /**
+     * Applies the edit the way WorldManager does : add a block, remove a block or light a torch.
+     */
+    private static Set<Vec3i> edit(ChunkManager world, Vector3f location, int op, Block rock,
+                                   CellLight removeSunlight, CellLight removeTorchlight,
+                                   WorldLight restoreSunlight, TorchLight addTorchlight) {
+        Chunk chunk = world.getChunk(ChunkManager.getChunkLocation(location)).orElseThrow();
+        Vec3i local = chunk.toLocalLocation(ChunkManager.getBlockLocation(location));
+        Set<Vec3i> chunks;
+        if (op == 0) {
+            chunk.addBlock(local, rock);
+            chunks = removeSunlight.apply(local, chunk);
+            chunks.addAll(removeTorchlight.apply(local, chunk));
+        } else if (op == 1) {
+            chunk.removeBlock(local);
+            chunks = removeTorchlight.apply(local, chunk);
+            chunks.addAll(restoreSunlight.apply(location));
+        } else {
+            chunks = addTorchlight.apply(local, chunk, 15);
+        }
+        return chunks;
+    }
+
+    private static int surface(ChunkManager world, int x, int z, int worldHeight) {
+        for (int y = worldHeight - 1; y > 0; y--) {
+            if (world.getBlock(new Vector3f(x + 0.5f, y + 0.5f, z + 0.5f)).isPresent()) {
+                return y;
+            }
+        }
+        return 0;
+    }
+
+    private static ChunkManager createWorld(IalonConfig config) {
+        ChunkManager world = ChunkManager.builder()
+                .generator(new NoiseTerrainGenerator(2, 50f))
+                .poolSize(1)
+                .build();
+        world.initialize();
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int y = 0; y < config.getGridHeight(); y++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    world.generateChunk(new Vec3i(x, y, z));
+                }
+            }
+        }
+        return world;
+    }
+}
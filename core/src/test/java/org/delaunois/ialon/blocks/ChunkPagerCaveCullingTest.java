@@ -50,7 +50,7 @@ class ChunkPagerCaveCullingTest {
     }
 
     private Spatial.CullHint cullHintAt(int x, int z) {
-        return pager.getAttachedPages().get(new Vec3i(x, 0, z)).getLocalCullHint();
+        return pager.getAttachedPages().get(ChunkKey.of(x, 0, z)).getLocalCullHint();
     }
 
     @Test
@@ -0,0 +1,79 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.scene.Node;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the attachment of the pages queued by the chunk manager when the chunks leave the grid
+ * before the pager gets to them.
+ */
+class ChunkPagerTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    private ChunkManager chunkManager;
+    private ChunkPager pager;
+
+    @BeforeEach
+    void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+        chunkManager = ChunkManager.builder().poolSize(1).cacheSize(Long.MAX_VALUE).build();
+        chunkManager.initialize();
+        pager = new ChunkPager(new Node("test-root"), chunkManager);
+        pager.initialize();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pager.cleanup();
+        chunkManager.cleanup();
+    }
+
+    @Test
+    void chunkReleasedWhileQueuedIsNotAttached() throws ExecutionException, InterruptedException {
+        Vec3i location = new Vec3i(0, 0, 0);
+        assertNotNull(chunkManager.generateChunk(location));
+        for (Future<Chunk> result : chunkManager.requestMeshChunks(Collections.singletonList(location))) {
+            result.get();
+        }
+        Chunk chunk = chunkManager.getChunk(location).orElseThrow(AssertionError::new);
+        assertNotNull(chunk.getNode(), "the page of the chunk is queued for attach");
+
+        // The chunk leaves the grid before the pager attaches its page
+        chunkManager.fastRemoveChunk(location);
+        assertNull(chunk.getNode());
+
+        assertDoesNotThrow(pager::attachNextPages);
+        assertFalse(pager.getAttachedPages().containsKey(ChunkKey.of(location)));
+
+        // Back in the grid, the chunk is meshed again and its new page is attached
+        assertNotNull(chunkManager.generateChunk(location));
+        for (Future<Chunk> result : chunkManager.requestMeshChunks(Collections.singletonList(location))) {
+            result.get();
+        }
+        pager.attachNextPages();
+        assertTrue(pager.getAttachedPages().containsKey(ChunkKey.of(location)));
+    }
+
+}
@@ -0,0 +1,134 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector4f;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import lombok.NonNull;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Validates the padded snapshot read by the mesher : it holds the same blocks and lights as the chunk
+ * and neighbour lookups, whatever the storage of the neighbours (plain, packed, uniform or missing).
+ */
+class ChunkSnapshotTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void snapshotMatchesTheNeighbourLookups() {
+        BlockRegistry registry = BlocksConfig.getInstance().getBlockRegistry();
+        Block[] palette = {null, registry.get(BlockIds.ROCK), registry.get(BlockIds.DIRT),
+                registry.get(BlockIds.WATER_SOURCE), registry.get(BlockIds.LAVA_SOURCE)};
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        Random random = new Random(11);
+        Map<Vec3i, Chunk> chunks = new HashMap<>();
+        ChunkResolver resolver = new ChunkResolver() {
+            @Override
+            public Optional<Chunk> get(@NonNull Vec3i location) {
+                return Optional.ofNullable(chunks.get(location));
+            }
+
+            @Override
+            public Chunk unsafeFastGet(@NonNull Vec3i location) {
+                return chunks.get(location);
+            }
+        };
+
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dz = -1; dz <= 1; dz++) {
+                    Vec3i location = new Vec3i(dx, dy, dz);
+                    int kind = Math.floorMod(dx + 2 * dy + 3 * dz, 4);
+                    // 0 : plain, 1 : packed, 2 : uniform, 3 : missing
+                    if (kind == 3 && !location.equals(new Vec3i(0, 0, 0))) {
+                        // Not loaded
+                        continue;
+                    }
+                    Chunk chunk = Chunk.createAt(location);
+                    chunk.setChunkResolver(resolver);
+                    if (kind == 2 && !location.equals(new Vec3i(0, 0, 0))) {
+                        chunk.setUniform(palette[1], 0, 3);
+                    } else {
+                        chunk.setBlocks(new short[size.x * size.y * size.z]);
+                        chunk.setLightMap(new byte[size.x * size.y * size.z]);
+                        for (int x = 0; x < size.x; x++) {
+                            for (int y = 0; y < size.y; y++) {
+                                for (int z = 0; z < size.z; z++) {
+                                    Block block = palette[random.nextInt(palette.length)];
+                                    if (block != null) {
+                                        chunk.addBlock(x, y, z, block);
+                                    }
+                                    chunk.setSunlight(x, y, z, random.nextInt(16));
+                                    chunk.setTorchlight(x, y, z, random.nextInt(16));
+                                }
+                            }
+                        }
+                        if (kind == 1) {
+                            chunk.compact();
+                        }
+                    }
+                    chunks.put(location, chunk);
+                }
+            }
+        }
+
+        Chunk center = chunks.get(new Vec3i(0, 0, 0));
+        Block[] expectedBlocks = new Block[(size.x + 2) * (size.y + 2) * (size.z + 2)];
+        Vector4f[] expectedLights = new Vector4f[expectedBlocks.length * 2];
+        int i = 0;
+        for (int x = -1; x <= size.x; x++) {
+            for (int y = -1; y <= size.y; y++) {
+                for (int z = -1; z <= size.z; z++, i++) {
+                    expectedBlocks[i] = center.getNeighbour(x, y, z, 0, 0, 0);
+                    expectedLights[2 * i] = center.getLightLevel(x, y, z, null, new Vector4f());
+                    expectedLights[2 * i + 1] = center.getLightLevel(x, y - 1, z, Direction.UP, new Vector4f());
+                }
+            }
+        }
+
+        ChunkSnapshot snapshot = ChunkSnapshot.open(center);
+        try {
+            assertSame(snapshot, ChunkSnapshot.getActive(center));
+            assertNull(ChunkSnapshot.getActive(chunks.get(new Vec3i(1, 0, 0))));
+            i = 0;
+            for (int x = -1; x <= size.x; x++) {
+                for (int y = -1; y <= size.y; y++) {
+                    for (int z = -1; z <= size.z; z++, i++) {
+                        String at = "(" + x + ", " + y + ", " + z + ")";
+                        assertSame(expectedBlocks[i], snapshot.getBlock(x, y, z), at);
+                        assertEquals(expectedLights[2 * i], snapshot.getLightLevel(x, y, z, null, new Vector4f()), at);
+                        assertEquals(expectedLights[2 * i + 1], snapshot.getLightLevel(x, y, z, Direction.UP, new Vector4f()), at);
+                        // The chunk lookups read the snapshot while it is open
+                        assertSame(expectedBlocks[i], center.getNeighbour(x, y, z, 0, 0, 0), at);
+                    }
+                }
+            }
+        } finally {
+            snapshot.close();
+        }
+        assertNull(ChunkSnapshot.getActive(center));
+    }
+}
@@ -0,0 +1,88 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.delaunois.ialon.blocks.protobuf.BlocksProtos;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the uniform chunk : it reads as its block and light everywhere without any array, and
+ * materializes its arrays from them on the first write.
+ */
+class ChunkUniformTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void uniformChunkReadsAsItsBlockWithoutArrays() {
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        chunk.setUniform(rock, 0, 0);
+
+        assertTrue(chunk.isUniform());
+        assertNull(chunk.getBlocks());
+        assertNull(chunk.getLightMap());
+        assertTrue(chunk.isFull());
+        assertFalse(chunk.isEmpty());
+        assertTrue(chunk.isFullyOpaque());
+        assertSame(rock, chunk.getBlock(3, 4, 5));
+        assertEquals(0, chunk.getSunlight(3, 4, 5));
+        assertEquals(0, chunk.getTorchlight(3, 4, 5));
+
+        chunk.computeFaceConnectivity();
+        assertEquals(0, chunk.getFaceConnectivity());
+    }
+
+    @Test
+    void firstWriteMaterializesTheUniformContent() {
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        chunk.setUniform(rock, 0, 0);
+
+        assertSame(rock, chunk.removeBlock(1, 1, 1));
+        assertFalse(chunk.isUniform());
+        assertNotNull(chunk.getBlocks());
+        assertNull(chunk.getBlock(1, 1, 1));
+        assertSame(rock, chunk.getBlock(2, 1, 1));
+        assertEquals(0, chunk.getSunlight(2, 1, 1));
+        assertTrue(chunk.isDirty());
+    }
+
+    @Test
+    void uniformChunkIsSavedAsASingleRun() {
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        Chunk chunk = Chunk.createAt(new Vec3i(1, 2, 3));
+        chunk.setUniform(rock, 0, 0);
+
+        BlocksProtos.ChunkProto proto = ZipFileRepository.chunkToChunkProto(chunk);
+        assertNotNull(proto);
+        assertTrue(chunk.isUniform(), "saving must not materialize the arrays");
+        assertEquals(2, proto.getBlockRunsCount());
+
+        Chunk loaded = ZipFileRepository.chunkProtoToChunk(proto, null);
+        assertNotNull(loaded);
+        assertTrue(loaded.isFull());
+        assertSame(rock, loaded.getBlock(7, 8, 9));
+        assertEquals(0, loaded.getSunlight(7, 8, 9));
+    }
+}
@@ -0,0 +1,107 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Validates the column sunlight stage : full sunlight falls straight down the columns open to the sky,
+ * spreads sideways only from the columns rising above their neighbours, and reaches the empty chunks
+ * under terrain through ChunkManager whatever the generation order.
+ */
+class ColumnSunlightTest {
+
+    private static final int HOLE = 8;
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void emptyChunkUnderFullSkyStaysUnallocated() {
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        ColumnSunlight.light(chunk, ColumnSunlight.fullSky());
+        assertNull(chunk.getBlocks());
+        assertEquals(15, chunk.getSunlight(3, 4, 5));
+    }
+
+    @Test
+    void sunlightFallsThroughTheHoleOfARoof() {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        Chunk roof = createRoof(new Vec3i(0, 1, 0));
+        ColumnSunlight.light(roof, ColumnSunlight.fullSky());
+        assertEquals(15, roof.getSunlight(0, size.y - 1, 0));
+        assertEquals(0, roof.getSunlight(0, 0, 0));
+        assertEquals(15, roof.getSunlight(HOLE, 0, HOLE));
+
+        Chunk cave = Chunk.createAt(new Vec3i(0, 0, 0));
+        ColumnSunlight.light(cave, ColumnSunlight.bottomOf(roof));
+        assertEquals(15, cave.getSunlight(HOLE, size.y - 1, HOLE));
+        assertEquals(15, cave.getSunlight(HOLE, 0, HOLE));
+        assertEquals(14, cave.getSunlight(HOLE + 1, size.y - 1, HOLE));
+        assertEquals(11, cave.getSunlight(HOLE + 2, 3, HOLE - 2));
+        assertEquals(0, cave.getSunlight(0, size.y - 1, 0));
+        assertEquals(0, cave.getTorchlight(HOLE, 0, HOLE));
+    }
+
+    @Test
+    void chunkManagerLightsEmptyChunksUnderTerrain() {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        for (boolean roofFirst : new boolean[] {true, false}) {
+            ChunkManager world = ChunkManager.builder()
+                    .generator(location -> location.y == 2 ? createRoof(location) : Chunk.createAt(location))
+                    .poolSize(1)
+                    .build();
+            world.initialize();
+            Vec3i roof = new Vec3i(0, 2, 0);
+            Vec3i[] caves = {new Vec3i(0, 1, 0), new Vec3i(0, 0, 0)};
+            if (roofFirst) {
+                world.generateChunk(roof);
+            }
+            world.generateChunk(caves[0]);
+            world.generateChunk(caves[1]);
+            if (!roofFirst) {
+                world.generateChunk(roof);
+            }
+
+            for (Vec3i location : caves) {
+                Chunk cave = world.getChunk(location).orElseThrow();
+                assertEquals(0, cave.getSunlight(0, size.y / 2, 0), "sunlight under the roof of " + location);
+                assertEquals(15, cave.getSunlight(HOLE, size.y / 2, HOLE), "sunlight under the hole of " + location);
+            }
+            world.cleanup(1000);
+        }
+    }
+
+    /**
+     * @return a chunk whose bottom layer is made of rock, except a one block hole at (HOLE, HOLE)
+     */
+    private static Chunk createRoof(Vec3i location) {
+        Vec3i size = BlocksConfig.getInstance().getChunkSize();
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        Chunk chunk = Chunk.createAt(location);
+        for (int x = 0; x < size.x; x++) {
+            for (int z = 0; z < size.z; z++) {
+                if (x != HOLE || z != HOLE) {
+                    chunk.addBlock(x, 0, z, rock);
+                }
+            }
+        }
+        ColumnSunlight.light(chunk, ColumnSunlight.fullSky());
+        return chunk;
+    }
+}
@@ -0,0 +1,166 @@
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the packed chunk keys and the primitive long-keyed map and set against the JDK
+ * collections they replace.
+ */
+class ConcurrentLongMapTest {
+
+    @Test
+    void chunkKeyRoundTrips() {
+        int[] values = {0, 1, -1, 15, -16, 1000, -1000, (1 << 20) - 1, -(1 << 20)};
+        for (int x : values) {
+            for (int y : values) {
+                for (int z : values) {
+                    long key = ChunkKey.of(x, y, z);
+                    assertEquals(new Vec3i(x, y, z), ChunkKey.toVec3i(key));
+                }
+            }
+        }
+        assertFalse(ChunkKey.of(1, 0, 0) == ChunkKey.of(0, 1, 0));
+        assertFalse(ChunkKey.of(0, -1, 0) == ChunkKey.of(0, 0, -1));
+        assertEquals(3, ChunkKey.distanceSq(ChunkKey.of(1, 1, 1), 0, 0, 0));
+    }
+
+    @Test
+    void mapMatchesHashMap() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        Map<Long, String> reference = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // A small key space : many collisions, overwrites and removals in long probe runs
+            long key = ChunkKey.of(random.nextInt(40) - 20, random.nextInt(10), random.nextInt(40) - 20);
+            int op = random.nextInt(3);
+            if (op == 0) {
+                String value = "v" + i;
+                assertEquals(reference.put(key, value), map.put(key, value));
+            } else if (op == 1) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                assertEquals(reference.get(key), map.get(key));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        for (Map.Entry<Long, String> entry : reference.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+
+        Map<Long, String> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(reference, visited);
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(ChunkKey.of(0, 0, 0)));
+    }
+
+    @Test
+    void conditionalRemoveComparesIdentity() {
+        ConcurrentLongMap<String> map = new ConcurrentLongMap<>();
+        String value = "a";
+        map.put(7L, value);
+        assertFalse(map.remove(7L, new String("a")));
+        assertSame(value, map.get(7L));
+        assertTrue(map.remove(7L, value));
+        assertFalse(map.containsKey(7L));
+    }
+
+    @Test
+    void readersSeeStableKeysDuringConcurrentWrites() throws Exception {
+        ConcurrentLongMap<Long> map = new ConcurrentLongMap<>();
+        int stable = 2000;
+        for (long key = 0; key < stable; key++) {
+            map.put(key, key);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            // The writer churns other keys : resizes and backward shifts move the stable keys around
+            Future<?> writer = executor.submit(() -> {
+                Random random = new Random(1);
+                while (running.get()) {
+                    long key = stable + random.nextInt(50_000);
+                    if (random.nextBoolean()) {
+                        map.put(key, key);
+                    } else {
+                        map.remove(key);
+                    }
+                }
+            });
+            Future<Integer> reader1 = executor.submit(() -> readStableKeys(map, stable));
+            Future<Integer> reader2 = executor.submit(() -> readStableKeys(map, stable));
+
+            assertEquals(0, reader1.get(30, TimeUnit.SECONDS));
+            assertEquals(0, reader2.get(30, TimeUnit.SECONDS));
+            running.set(false);
+            writer.get(30, TimeUnit.SECONDS);
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+    }
+
+    private static int readStableKeys(ConcurrentLongMap<Long> map, int stable) {
+        int errors = 0;
+        for (int round = 0; round < 200; round++) {
+            for (long key = 0; key < stable; key++) {
+                Long value = map.get(key);
+                if (value == null || value != key) {
+                    errors++;
+                }
+            }
+        }
+        return errors;
+    }
+
+    @Test
+    void setMatchesHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> reference = new HashSet<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 200_000; i++) {
+            // Include Long.MIN_VALUE, the set's free-slot marker, among the keys
+            long key = random.nextInt(20) == 0 ? Long.MIN_VALUE : ChunkKey.of(random.nextInt(30), random.nextInt(10), random.nextInt(30));
+            int op = random.nextInt(3);
+            if (op == 0) {
+                assertEquals(reference.add(key), set.add(key));
+            } else if (op == 1) {
+                assertEquals(reference.remove(key), set.remove(key));
+            } else {
+                assertEquals(reference.contains(key), set.contains(key));
+            }
+        }
+        assertEquals(reference.size(), set.size());
+
+        Set<Long> visited = new HashSet<>();
+        set.forEach(visited::add);
+        assertEquals(reference, visited);
+        assertEquals(reference.size(), set.toArray().length);
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(Long.MIN_VALUE));
+    }
+}
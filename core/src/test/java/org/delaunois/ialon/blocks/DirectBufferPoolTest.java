@@ -0,0 +1,102 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the pool of the native buffers of the render meshes : the buffers are exactly sized views
+ * of pooled buffers, and a released mesh hands them back once for the next meshes.
+ */
+class DirectBufferPoolTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @AfterEach
+    void tearDown() {
+        DirectBufferPool.clear();
+    }
+
+    @Test
+    void sizeClassesWasteAtMostAQuarter() {
+        assertEquals(256, DirectBufferPool.classSize(1));
+        assertEquals(256, DirectBufferPool.classSize(256));
+        assertEquals(320, DirectBufferPool.classSize(257));
+        assertEquals(512, DirectBufferPool.classSize(512));
+        assertEquals(640, DirectBufferPool.classSize(513));
+        for (int size = 257; size < 100000; size += 37) {
+            int classSize = DirectBufferPool.classSize(size);
+            assertTrue(classSize >= size && classSize - size < size / 4, "size " + size);
+        }
+    }
+
+    @Test
+    void releasedBuffersAreReused() {
+        DirectBufferPool.Lease lease = new DirectBufferPool.Lease();
+        FloatBuffer floats = DirectBufferPool.createFloatBuffer(300, lease);
+        ShortBuffer shorts = DirectBufferPool.createShortBuffer(7, lease);
+        assertEquals(300, floats.capacity());
+        assertEquals(300, floats.remaining());
+        assertEquals(7, shorts.capacity());
+        assertEquals(0, DirectBufferPool.getPooledBytes());
+
+        DirectBufferPool.PooledMesh mesh = new DirectBufferPool.PooledMesh(lease);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, floats);
+        mesh.setBuffer(VertexBuffer.Type.Index, 1, shorts);
+        mesh.release();
+        assertNull(mesh.getBuffer(VertexBuffer.Type.Position));
+        assertEquals(0, mesh.getBufferList().size());
+        long pooled = DirectBufferPool.getPooledBytes();
+        assertEquals(DirectBufferPool.classSize(1200) + DirectBufferPool.classSize(14), pooled);
+
+        // Releasing twice does not pool the buffers twice
+        mesh.release();
+        assertEquals(pooled, DirectBufferPool.getPooledBytes());
+
+        DirectBufferPool.createFloatBuffer(290, new DirectBufferPool.Lease());
+        assertEquals(pooled - DirectBufferPool.classSize(1200), DirectBufferPool.getPooledBytes());
+    }
+
+    @Test
+    void renderMeshesArePooled() {
+        ChunkMesh chunkMesh = new ChunkMesh(false);
+        Vector3f normal = new Vector3f(0, 1, 0);
+        for (int i = 0; i < 4; i++) {
+            chunkMesh.getPositions().add(new Vector3f(i & 1, 0, i >> 1));
+            chunkMesh.getNormals().add(normal);
+            chunkMesh.getUvs().add(new Vector2f(i & 1, i >> 1));
+        }
+        chunkMesh.getIndices().add(0);
+        chunkMesh.getIndices().add(1);
+        chunkMesh.getIndices().add(2);
+
+        Mesh mesh = chunkMesh.generateMesh();
+        assertInstanceOf(DirectBufferPool.PooledMesh.class, mesh);
+        assertEquals(4, mesh.getVertexCount());
+        assertEquals(1, mesh.getTriangleCount());
+        ((DirectBufferPool.PooledMesh) mesh).release();
+        assertTrue(DirectBufferPool.getPooledBytes() > 0);
+
+        ChunkMesh collisionMesh = new ChunkMesh(true);
+        collisionMesh.getPositions().add(normal);
+        collisionMesh.getIndices().add(0);
+        assertEquals(Mesh.class, collisionMesh.generateMesh().getClass());
+    }
+
+}
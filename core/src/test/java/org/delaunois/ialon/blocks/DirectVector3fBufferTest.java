@@ -7,12 +7,16 @@ import com.jme3.util.PrimitiveAllocator;
 import org.junit.jupiter.api.Test;
 
 import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
  * Locks the signed-byte packing of {@link DirectVector3fBuffer#getByteBuffer()} used for normals :
  * unit-range components scaled by 127, clamped to [-127, 127], the GPU expands them back to [-1, 1].
+ * Also locks the fixed point short packing of {@link DirectVector3fBuffer#getFixedPointBuffer(float)}
+ * used for packed positions.
  */
 class DirectVector3fBufferTest {
 
@@ -52,4 +56,23 @@ class DirectVector3fBufferTest {
         assertEquals(-127, bb.get(1));
         assertEquals(127, bb.get(2));
     }
+
+    @Test
+    void positionPacksToFixedPoint() {
+        // A liquid level (5/6 block) rounds to the nearest 1/256 : 213.33 -> 213
+        DirectVector3fBuffer buf = new DirectVector3fBuffer(2);
+        buf.add(new Vector3f(-0.5f, 15.5f + 5f / 6f, 3f));
+        ShortBuffer sb = buf.getFixedPointBuffer(ChunkMesh.POSITION_STEPS);
+        assertEquals(-128, sb.get(0));
+        assertEquals(15 * 256 + 128 + 213, sb.get(1));
+        assertEquals(768, sb.get(2));
+        assertEquals(3, sb.limit());
+    }
+
+    @Test
+    void positionOutOfShortRangeIsNotPacked() {
+        DirectVector3fBuffer buf = new DirectVector3fBuffer(2);
+        buf.add(new Vector3f(0f, 128f, 0f));
+        assertNull(buf.getFixedPointBuffer(ChunkMesh.POSITION_STEPS));
+    }
 }
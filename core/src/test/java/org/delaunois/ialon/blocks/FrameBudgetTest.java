@@ -0,0 +1,64 @@
+package org.delaunois.ialon.blocks;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the frame budget : work is accounted by its cost, the budget halves after a slow frame and
+ * grows back while frames are on target and the budget is used up, within its bounds.
+ */
+class FrameBudgetTest {
+
+    private static final float ON_TARGET = 0.010f;
+    private static final float SLOW = 0.050f;
+
+    @Test
+    void workIsAccountedByCost() {
+        FrameBudget budget = FrameBudget.ofMillis(4, 1, 8, 20);
+        budget.beginFrame(ON_TARGET);
+        assertTrue(budget.hasTime());
+        budget.spend(3_000_000L);
+        assertTrue(budget.hasTime());
+        budget.spend(1_000_000L);
+        assertFalse(budget.hasTime());
+
+        // A new frame resets the time spent
+        budget.beginFrame(ON_TARGET);
+        assertTrue(budget.hasTime());
+        assertEquals(0, budget.getSpentNanos());
+    }
+
+    @Test
+    void budgetAdaptsToTheFrameTime() {
+        FrameBudget budget = FrameBudget.ofMillis(4, 1, 8, 20);
+
+        budget.beginFrame(SLOW);
+        assertEquals(2_000_000L, budget.getBudgetNanos());
+        budget.beginFrame(SLOW);
+        budget.beginFrame(SLOW);
+        assertEquals(1_000_000L, budget.getBudgetNanos());
+
+        // Idle frames on target : no reason to grow
+        budget.beginFrame(ON_TARGET);
+        assertEquals(1_000_000L, budget.getBudgetNanos());
+
+        // Saturated frames on target : grow up to the maximum
+        for (int i = 0; i < 100; i++) {
+            budget.spend(budget.getBudgetNanos());
+            budget.beginFrame(ON_TARGET);
+        }
+        assertEquals(8_000_000L, budget.getBudgetNanos());
+    }
+
+    @Test
+    void unlimitedBudgetNeverRunsOut() {
+        FrameBudget budget = FrameBudget.unlimited();
+        budget.beginFrame(SLOW);
+        budget.spend(1_000_000_000L);
+        assertTrue(budget.hasTime());
+    }
+
+}
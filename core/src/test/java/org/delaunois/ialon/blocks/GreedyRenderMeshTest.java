@@ -0,0 +1,109 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the greedy render mesh of the opaque cubes : the uniformly lit faces of a flat floor are
+ * merged into far fewer quads, while the rendered surface stays exactly the same.
+ */
+class GreedyRenderMeshTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @Test
+    void floorIsMergedAndAreaConserved() {
+        Mesh plain = meshFloor(false);
+        Mesh greedy = meshFloor(true);
+
+        assertTrue(greedy.getTriangleCount() * 4 < plain.getTriangleCount(),
+                "greedy meshing should merge the floor (got " + greedy.getTriangleCount()
+                        + " triangles instead of " + plain.getTriangleCount() + ")");
+        assertEquals(totalArea(plain), totalArea(greedy), 1e-2f,
+                "merged quads must cover exactly the faces they replace");
+    }
+
+    private static Mesh meshFloor(boolean greedyRenderMesh) {
+        BlocksConfig blocksConfig = BlocksConfig.getInstance();
+        Vec3i cs = blocksConfig.getChunkSize();
+        Block rock = blocksConfig.getBlockRegistry().get(BlockIds.ROCK);
+
+        // Two rock layers in full sunlight
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        for (int x = 0; x < cs.x; x++) {
+            for (int z = 0; z < cs.z; z++) {
+                chunk.addBlock(x, 0, z, rock);
+                chunk.addBlock(x, 1, z, rock);
+            }
+        }
+        byte[] lightMap = new byte[cs.x * cs.y * cs.z];
+        Arrays.fill(lightMap, (byte) 0xF0);
+        chunk.setLightMap(lightMap);
+        chunk.update();
+
+        IalonConfig config = new IalonConfig();
+        config.setGreedyRenderMesh(greedyRenderMesh);
+        new FacesMeshGenerator(config).createAndSetNodeAndCollisionMesh(chunk);
+
+        Mesh mesh = findMesh(chunk.getNode(), MeshBuckets.nameOf(MeshBuckets.GENERIC));
+        assertNotNull(mesh, "a mesh must have been generated for the rock");
+        return mesh;
+    }
+
+    private static Mesh findMesh(Node node, String name) {
+        for (Spatial child : node.getChildren()) {
+            if (child instanceof Geometry && name.equals(child.getName())) {
+                return ((Geometry) child).getMesh();
+            }
+        }
+        return null;
+    }
+
+    private static float totalArea(Mesh mesh) {
+        FloatBuffer pos = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        IndexBuffer ib = mesh.getIndexBuffer();
+        Vector3f a = new Vector3f();
+        Vector3f b = new Vector3f();
+        Vector3f c = new Vector3f();
+        float area = 0f;
+        for (int i = 0; i < ib.size(); i += 3) {
+            read(pos, ib.get(i), a);
+            read(pos, ib.get(i + 1), b);
+            read(pos, ib.get(i + 2), c);
+            area += b.subtract(a).cross(c.subtract(a)).length() * 0.5f;
+        }
+        return area;
+    }
+
+    private static void read(FloatBuffer pos, int index, Vector3f store) {
+        store.set(pos.get(index * 3), pos.get(index * 3 + 1), pos.get(index * 3 + 2));
+    }
+}
@@ -0,0 +1,72 @@
+package org.delaunois.ialon.blocks;
+
+import com.simsilica.mathd.Vec3i;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the dependency tracking of the streaming generate-then-mesh pipeline : a chunk is reported
+ * ready exactly once, when its neighbour columns are generated from the layer below it upwards.
+ */
+class MeshDependenciesTest {
+
+    @Test
+    void chunksAreReadyOnceTheirNeighbourColumnsAreGenerated() {
+        List<Vec3i> toGenerate = new ArrayList<>();
+        List<Vec3i> toMesh = new ArrayList<>();
+        for (int x = -2; x <= 2; x++) {
+            for (int y = 0; y <= 3; y++) {
+                for (int z = -2; z <= 2; z++) {
+                    toGenerate.add(new Vec3i(x, y, z));
+                    if (Math.abs(x) <= 1 && Math.abs(z) <= 1 && y >= 1 && y <= 2) {
+                        toMesh.add(new Vec3i(x, y, z));
+                    }
+                }
+            }
+        }
+
+        MeshDependencies dependencies = new MeshDependencies(toGenerate, toMesh);
+        toMesh.forEach(location -> assertFalse(dependencies.isReady(location)));
+
+        // Generate the center columns top-down first : the center chunks complete before the borders
+        toGenerate.sort((a, b) -> {
+            int da = a.x * a.x + a.z * a.z;
+            int db = b.x * b.x + b.z * b.z;
+            return da != db ? Integer.compare(da, db) : Integer.compare(b.y, a.y);
+        });
+
+        Set<Vec3i> ready = new HashSet<>();
+        Vec3i firstReady = null;
+        for (Vec3i location : toGenerate) {
+            for (Vec3i mesh : dependencies.onGenerated(location)) {
+                assertTrue(ready.add(mesh), "reported twice " + mesh);
+                assertTrue(dependencies.isReady(mesh));
+                if (firstReady == null) {
+                    firstReady = mesh;
+                }
+            }
+        }
+
+        assertEquals(new HashSet<>(toMesh), ready);
+        assertEquals(0, firstReady.x);
+        assertEquals(0, firstReady.z);
+    }
+
+    @Test
+    void chunksWithoutPendingDependenciesAreReady() {
+        Vec3i location = new Vec3i(4, 1, 4);
+        MeshDependencies dependencies = new MeshDependencies(List.of(new Vec3i(10, 1, 10)), List.of(location));
+        assertTrue(dependencies.isReady(location));
+        assertTrue(dependencies.onGenerated(new Vec3i(10, 1, 10)).isEmpty());
+    }
+
+}
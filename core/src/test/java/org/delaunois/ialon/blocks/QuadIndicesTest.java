@@ -0,0 +1,123 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.scene.mesh.IndexBuffer;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validates the shared quad indices : quad lists are only counted and reference the shared indices,
+ * other index lists are stored as added, and a flipped quad keeps both its triangles and the quad
+ * pattern.
+ */
+class QuadIndicesTest {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    private static final int[] PATTERN = {0, 1, 2, 1, 3, 2};
+
+    @Test
+    void sharedViewsHoldTheQuadPattern() {
+        ShortBuffer shorts = QuadIndices.getShortBuffer(60);
+        IntBuffer ints = QuadIndices.getIntBuffer(600);
+        assertEquals(60, shorts.limit());
+        assertEquals(600, ints.limit());
+        for (int i = 0; i < 600; i++) {
+            int expected = i / 6 * 4 + PATTERN[i % 6];
+            assertEquals(expected, ints.get(i));
+            if (i < 60) {
+                assertEquals(expected, shorts.get(i));
+            }
+        }
+        // The last 16-bit index addresses the 65536th vertex
+        ShortBuffer all = QuadIndices.getShortBuffer(65536 / 4 * 6);
+        assertEquals(65534, all.get(all.limit() - 1) & 0xFFFF);
+    }
+
+    @Test
+    void quadListIsCountedAndOtherListsAreStored() {
+        DirectIntBuffer quads = new DirectIntBuffer(4);
+        for (int i = 0; i < 1200; i++) {
+            quads.add(QuadIndices.get(i));
+        }
+        assertTrue(quads.isQuadList());
+        assertEquals(1200, quads.size());
+
+        // A triangle breaking the pattern : the quads added before are written back
+        DirectIntBuffer mixed = new DirectIntBuffer(4);
+        for (int i = 0; i < 12; i++) {
+            mixed.add(QuadIndices.get(i));
+        }
+        mixed.add(8);
+        mixed.add(10);
+        mixed.add(9);
+        assertFalse(mixed.isQuadList());
+        IntBuffer stored = mixed.getBuffer();
+        assertEquals(15, stored.limit());
+        for (int i = 0; i < 12; i++) {
+            assertEquals(QuadIndices.get(i), stored.get(i));
+        }
+        assertEquals(8, stored.get(12));
+        assertEquals(10, stored.get(13));
+        assertEquals(9, stored.get(14));
+
+        mixed.clear();
+        mixed.add(0);
+        assertFalse(mixed.isQuadList(), "an incomplete quad is not a quad list");
+    }
+
+    @Test
+    void flippedQuadKeepsItsTrianglesAndColors() {
+        Vector3f[] corners = {new Vector3f(0, 0, 0), new Vector3f(1, 0, 0), new Vector3f(0, 1, 0), new Vector3f(1, 1, 0)};
+        Vector2f[] uvs = {new Vector2f(0, 0), new Vector2f(1, 0), new Vector2f(0, 1), new Vector2f(1, 1)};
+        ChunkMesh chunkMesh = new ChunkMesh(false);
+        for (int c = 0; c < 4; c++) {
+            // Each corner gets a distinct color : its index in the red channel
+            chunkMesh.getColors().add(new Vector4f(c / 4f, 0, 0, 1));
+        }
+        Shape.emitQuad(chunkMesh, new Vec3i(0, 0, 0), 1f, null, corners[0], corners[1], corners[2], corners[3],
+                Vector3f.UNIT_Z, uvs, true, false);
+        FloatBuffer colors = chunkMesh.getColors().getBuffer();
+        FloatBuffer positions = chunkMesh.getPositions().getBuffer();
+        FloatBuffer uvBuffer = chunkMesh.getUvs().getBuffer();
+        for (int v = 0; v < 4; v++) {
+            int corner = Math.round(colors.get(v * 4) * 4);
+            assertEquals(corners[corner].x, positions.get(v * 3));
+            assertEquals(corners[corner].y, positions.get(v * 3 + 1));
+            assertEquals(uvs[corner].x, uvBuffer.get(v * 2));
+            assertEquals(uvs[corner].y, uvBuffer.get(v * 2 + 1));
+        }
+
+        // Regenerate to read the triangles : they are 1, 3, 0 and 3, 2, 0 of the original corners
+        chunkMesh.clear();
+        Shape.emitQuad(chunkMesh, new Vec3i(0, 0, 0), 1f, null, corners[0], corners[1], corners[2], corners[3],
+                Vector3f.UNIT_Z, uvs, true, false);
+        assertTrue(chunkMesh.getIndices().isQuadList());
+        Mesh mesh = chunkMesh.generateMesh();
+        FloatBuffer pos = mesh.getFloatBuffer(VertexBuffer.Type.Position);
+        IndexBuffer ib = mesh.getIndexBuffer();
+        int[] expected = {1, 3, 0, 3, 2, 0};
+        assertEquals(6, ib.size());
+        for (int i = 0; i < 6; i++) {
+            int v = ib.get(i);
+            assertEquals(corners[expected[i]], new Vector3f(pos.get(v * 3), pos.get(v * 3 + 1), pos.get(v * 3 + 2)));
+        }
+    }
+}
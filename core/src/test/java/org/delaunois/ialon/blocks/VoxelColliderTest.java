@@ -0,0 +1,111 @@
+package org.delaunois.ialon.blocks;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.delaunois.ialon.blocks.shapes.Stairs;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.delaunois.ialon.blocks.VoxelCollider.X;
+import static org.delaunois.ialon.blocks.VoxelCollider.Y;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Validates the voxel collisions : boxes stop against the collision boxes of the solid blocks, rotated
+ * with their shape, and move freely through empty cells, missing chunks and the blocks they overlap.
+ */
+class VoxelColliderTest {
+
+    private static final float DELTA = 1e-4f;
+    private static final float SIXTH = 1f / 6f;
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    private ChunkManager chunkManager;
+    private VoxelCollider collider;
+
+    @BeforeAll
+    static void setUp() {
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), new IalonConfig());
+    }
+
+    @BeforeEach
+    void createWorld() {
+        BlockRegistry registry = BlocksConfig.getInstance().getBlockRegistry();
+        Block bricks = registry.get(BlockIds.getName(TypeIds.BRICKS, ShapeIds.CUBE));
+        Block slab = registry.get(BlockIds.getName(TypeIds.BRICKS, ShapeIds.SLAB));
+        assertNotNull(bricks);
+        assertNotNull(slab);
+
+        Chunk chunk = Chunk.createAt(new Vec3i(0, 0, 0));
+        chunk.addBlock(2, 0, 2, bricks);
+        chunk.addBlock(5, 0, 5, slab);
+
+        chunkManager = ChunkManager.builder().poolSize(1).build();
+        chunkManager.initialize();
+        chunkManager.getCache().put(chunk);
+        collider = new VoxelCollider(chunkManager);
+    }
+
+    @AfterEach
+    void cleanup() {
+        chunkManager.cleanup(1000);
+    }
+
+    @Test
+    void stairsBoxesFollowTheRotation() {
+        // The local shape : highest step on the north side (-z)
+        assertArrayEquals(new float[] {-0.5f, SIXTH, -0.5f, 0.5f, 0.5f, -SIXTH}, top(new Stairs(Direction.SOUTH, false)), DELTA);
+        // Turned by half a turn : highest step on the south side
+        assertArrayEquals(new float[] {-0.5f, SIXTH, SIXTH, 0.5f, 0.5f, 0.5f}, top(new Stairs(Direction.NORTH, false)), DELTA);
+        // Upside down : the "highest" step hangs from the ceiling
+        assertArrayEquals(new float[] {-0.5f, -0.5f, -0.5f, 0.5f, -SIXTH, -SIXTH}, top(new Stairs(Direction.SOUTH, true)), DELTA);
+    }
+
+    @Test
+    void boxesStopOnSolidBlocks() {
+        // Falling on the cube at (2, 0, 2) : stops on its top
+        assertEquals(-2f, collider.sweep(box(2.2f, 3f, 2.2f), Y, -5f), DELTA);
+        // Walking into the side of the cube
+        assertEquals(0.9f, collider.sweep(new float[] {0.5f, 0.2f, 2.2f, 1.1f, 1.8f, 2.8f}, X, 3f), DELTA);
+        // Falling on the slab at (5, 0, 5) : stops a third of a block high
+        assertEquals(-(3f - 1f / 3f), collider.sweep(box(5.2f, 3f, 5.2f), Y, -5f), DELTA);
+    }
+
+    @Test
+    void boxesMoveFreelyElsewhere() {
+        // Next to the cube, touching it : no overlap on the other axes
+        assertEquals(-5f, collider.sweep(box(3f, 3f, 2.2f), Y, -5f), DELTA);
+        // In a chunk that is not loaded
+        assertEquals(-5f, collider.sweep(box(-10f, 3f, -10f), Y, -5f), DELTA);
+        // Stuck in the cube : free to get out of it
+        assertEquals(-2f, collider.sweep(box(2.2f, 0.5f, 2.2f), Y, -2f), DELTA);
+    }
+
+    private static float[] top(Shape stairs) {
+        float[] boxes = stairs.getCollisionBoxes();
+        assertEquals(18, boxes.length);
+        float[] top = new float[6];
+        System.arraycopy(boxes, 12, top, 0, 6);
+        return top;
+    }
+
+    /**
+     * A 0.6 x 1.6 x 0.6 box, with its min corner at the given location.
+     */
+    private static float[] box(float x, float y, float z) {
+        return new float[] {x, y, z, x + 0.6f, y + 1.6f, z + 0.6f};
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.delaunois.ialon.blocks.fastnoise;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Validates the batch simplex kernels of {@link FastNoise} : they must be bit-identical to the per-point
+ * evaluation, so that existing worlds are generated exactly as before.
+ */
+class FastNoiseBatchTest {
+
+    private static final int WIDTH = 17;
+    private static final int HEIGHT = 9;
+    private static final float STEP = 3.7f;
+    private static final float X0 = -123.5f;
+    private static final float Y0 = 4000f;
+
+    @Test
+    void batchSimplexFractalMatchesPointNoise() {
+        for (FastNoise.FractalType type : FastNoise.FractalType.values()) {
+            FastNoise noise = noise(type);
+            float[] xs = new float[WIDTH * HEIGHT];
+            float[] ys = new float[WIDTH * HEIGHT];
+            for (int k = 0; k < xs.length; k++) {
+                xs[k] = X0 + (k % WIDTH) * STEP;
+                ys[k] = Y0 + (k / WIDTH) * STEP;
+            }
+            float[] out = new float[xs.length];
+            noise.GetSimplexFractal(xs, ys, xs.length, out);
+
+            for (int k = 0; k < out.length; k++) {
+                float expected = noise.GetNoise(X0 + (k % WIDTH) * STEP, Y0 + (k / WIDTH) * STEP);
+                assertEquals(expected, out[k], type + " differs at " + k);
+            }
+        }
+    }
+
+    @Test
+    void batchSimplexFractalTiledMatchesPointNoise() {
+        float period = 4096f;
+        FastNoise noise = noise(FastNoise.FractalType.FBM);
+        float[] out = new float[WIDTH * HEIGHT];
+        noise.GetSimplexFractalTiled(X0, Y0, STEP, WIDTH, HEIGHT, period, out);
+
+        for (int j = 0; j < HEIGHT; j++) {
+            for (int i = 0; i < WIDTH; i++) {
+                float expected = noise.GetSimplexFractalTiled(X0 + i * STEP, Y0 + j * STEP, period);
+                assertEquals(expected, out[j * WIDTH + i], "differs at " + i + ", " + j);
+            }
+        }
+    }
+
+    private static FastNoise noise(FastNoise.FractalType type) {
+        FastNoise noise = new FastNoise(1337);
+        noise.SetNoiseType(FastNoise.NoiseType.SimplexFractal);
+        noise.SetFractalType(type);
+        noise.SetFrequency(0.01f);
+        return noise;
+    }
+}
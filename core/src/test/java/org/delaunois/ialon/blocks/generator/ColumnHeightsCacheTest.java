@@ -0,0 +1,32 @@
+package org.delaunois.ialon.blocks.generator;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ColumnHeightsCacheTest {
+
+    @Test
+    void recentlyUsedColumnsSurviveRotations() {
+        ColumnHeightsCache cache = new ColumnHeightsCache(8);
+        float[] kept = new float[1];
+        cache.put(0, kept);
+        for (long key = 1; key < 100; key++) {
+            cache.put(key, new float[1]);
+            // Used all along : promoted to the young generation before it is dropped
+            assertSame(kept, cache.get(0));
+        }
+        assertNull(cache.get(1), "the eldest columns are evicted");
+        assertNotNull(cache.get(99));
+    }
+
+    @Test
+    void clearDropsEverything() {
+        ColumnHeightsCache cache = new ColumnHeightsCache(8);
+        cache.put(1, new float[1]);
+        cache.clear();
+        assertNull(cache.get(1));
+    }
+}
@@ -0,0 +1,72 @@
+package org.delaunois.ialon.blocks.generator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ColumnHeightsRepositoryTest {
+
+    @Test
+    void savedColumnsAreLoadedBack(@TempDir Path world) {
+        ColumnHeightsRepository repository = new ColumnHeightsRepository(world);
+        float[] a = {1f, 2f, 3f, 4f};
+        float[] b = {-5f, 6.5f, 7f, 8f};
+        repository.save(0, 0, 42L, a);
+        repository.save(-1, 40, 42L, b);
+
+        assertArrayEquals(a, repository.load(0, 0, 42L, 4));
+        assertArrayEquals(b, repository.load(-1, 40, 42L, 4));
+        assertNull(repository.load(1, 0, 42L, 4), "column never saved");
+        assertNull(repository.load(0, 0, 43L, 4), "other generator parameters");
+        assertNull(repository.load(0, 0, 42L, 5), "other heightmap layout");
+    }
+
+    @Test
+    void otherParametersStartTheRegionOver(@TempDir Path world) {
+        ColumnHeightsRepository repository = new ColumnHeightsRepository(world);
+        repository.save(0, 0, 42L, new float[] {1f, 2f});
+        repository.save(1, 0, 43L, new float[] {3f, 4f});
+
+        assertNull(repository.load(0, 0, 42L, 2));
+        assertNull(repository.load(0, 0, 43L, 2));
+        assertArrayEquals(new float[] {3f, 4f}, repository.load(1, 0, 43L, 2));
+    }
+
+    @Test
+    void columnsAreSavedConcurrentlyAndSurviveClose(@TempDir Path world) throws InterruptedException {
+        ColumnHeightsRepository repository = new ColumnHeightsRepository(world);
+        int columns = 2 * ColumnHeightsRepository.REGION_SIZE;
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int x = first; x < columns; x += threads.length) {
+                    repository.save(x, -x, 42L, new float[] {x, -x});
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        repository.close();
+        for (int x = 0; x < columns; x++) {
+            assertArrayEquals(new float[] {x, -x}, repository.load(x, -x, 42L, 2), "column " + x);
+        }
+        repository.close();
+    }
+
+    @Test
+    void nothingIsWrittenForAMissingWorld(@TempDir Path save) {
+        Path world = save.resolve("missing");
+        new ColumnHeightsRepository(world).save(0, 0, 42L, new float[] {1f});
+        assertFalse(Files.exists(world));
+    }
+}
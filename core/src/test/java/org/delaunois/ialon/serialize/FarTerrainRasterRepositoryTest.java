@@ -0,0 +1,40 @@
+package org.delaunois.ialon.serialize;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FarTerrainRasterRepositoryTest {
+
+    @Test
+    void savedRastersAreLoadedBackForTheSameKey(@TempDir Path world) {
+        FarTerrainRasterRepository.Rasters rasters = new FarTerrainRasterRepository.Rasters(
+                new float[] {0f, 1.5f, -2.25f, 42f},
+                new byte[] {0, 127, (byte) 255, 3},
+                new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        FarTerrainRasterRepository.save(world, 1234L, rasters);
+
+        FarTerrainRasterRepository.Rasters loaded = FarTerrainRasterRepository.load(world, 1234L, 4, 4, 12);
+        assertNotNull(loaded);
+        assertArrayEquals(rasters.getHeightmap(), loaded.getHeightmap());
+        assertArrayEquals(rasters.getForestDensity(), loaded.getForestDensity());
+        assertArrayEquals(rasters.getBiomeColors(), loaded.getBiomeColors());
+    }
+
+    @Test
+    void staleRastersAreIgnored(@TempDir Path world) {
+        assertNull(FarTerrainRasterRepository.load(world, 1234L, 4, 4, 12), "no file yet");
+
+        FarTerrainRasterRepository.save(world, 1234L, new FarTerrainRasterRepository.Rasters(
+                new float[4], new byte[4], new byte[12]));
+        // Another seed or generator parameters
+        assertNull(FarTerrainRasterRepository.load(world, 5678L, 4, 4, 12));
+        // Another raster layout
+        assertNull(FarTerrainRasterRepository.load(world, 1234L, 9, 4, 12));
+    }
+}
@@ -84,11 +84,13 @@ public abstract class BaseSceneryTest {
     public void addBlock(String blockName, int x, int y, int z) {
         assertInitialized();
         worldManager.addBlock(new Vector3f(x, y, z), BlocksConfig.getInstance().getBlockRegistry().get(blockName));
+        worldManager.getChunkManager().waitForEdits();
     }
 
     public void removeBlock(int x, int y, int z) {
         assertInitialized();
         worldManager.removeBlock(new Vector3f(x, y, z));
+        worldManager.getChunkManager().waitForEdits();
     }
 
     public void removeSourceBlock(int x, int y, int z) {
@@ -77,6 +77,19 @@ public class ChunkMeshBenchmark {
         System.out.printf("Center chunk : empty=%b full=%b, render vertices=%d (~%d visible faces)%n",
                 center.isEmpty(), center.isFull(), vertices, faces);
 
+        // ---- Greedy render mesh : vertex count of the production path without and with merging ----
+        generator.createAndSetNodeAndCollisionMesh(center);
+        int plainVertices = center.getNode().getVertexCount();
+        IalonConfig greedyConfig = new IalonConfig();
+        greedyConfig.setGreedyRenderMesh(true);
+        FacesMeshGenerator greedyGenerator = new FacesMeshGenerator(greedyConfig);
+        greedyGenerator.createAndSetNodeAndCollisionMesh(center);
+        int greedyVertices = center.getNode().getVertexCount();
+        System.out.printf("Greedy render mesh : vertices %d -> %d (x%.1f fewer)%n",
+                plainVertices, greedyVertices, plainVertices / (double) Math.max(1, greedyVertices));
+        runWarmup(() -> greedyGenerator.createAndSetNodeAndCollisionMesh(center));
+        Result greedy = run(() -> greedyGenerator.createAndSetNodeAndCollisionMesh(center));
+
         // ---- T_full : production meshing path (render mesh + greedy collision mesh) ----
         runWarmup(() -> generator.createAndSetNodeAndCollisionMesh(center));
         resolver.reset();
@@ -120,6 +133,7 @@ public class ChunkMeshBenchmark {
 
         System.out.println();
         System.out.printf("T_full        : %8.1f us/chunk   (render mesh + greedy collision)%n", full.usPerOp());
+        System.out.printf("T_full greedy : %8.1f us/chunk   (greedy render mesh + greedy collision)%n", greedy.usPerOp());
         System.out.printf("T_render      : %8.1f us/chunk   -> %4.1f%% of full (render mesh only)%n",
                 render.usPerOp(), 100.0 * render.usPerOp() / full.usPerOp());
         double tCollision = full.usPerOp() - render.usPerOp();
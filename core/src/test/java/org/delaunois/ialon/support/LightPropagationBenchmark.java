@@ -0,0 +1,172 @@
+package org.delaunois.ialon.support;
+
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Vector3f;
+import com.jme3.util.BufferAllocatorFactory;
+import com.jme3.util.PrimitiveAllocator;
+import com.simsilica.mathd.Vec3i;
+
+import org.delaunois.ialon.IalonConfig;
+import org.delaunois.ialon.IalonInitializer;
+import org.delaunois.ialon.blocks.Block;
+import org.delaunois.ialon.blocks.BlockIds;
+import org.delaunois.ialon.blocks.BlocksConfig;
+import org.delaunois.ialon.blocks.Chunk;
+import org.delaunois.ialon.blocks.ChunkLightManager;
+import org.delaunois.ialon.blocks.ChunkManager;
+import org.delaunois.ialon.blocks.generator.NoiseTerrainGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Manual (interactive) micro-benchmark of the light propagation engines — NOT part of the automated
+ * suite. Run its {@link #main(String[])} from the IDE.
+ *
+ * <p>Replays the same edits with the former engine ({@link LegacyChunkLightManager}) and the current
+ * one ({@link ChunkLightManager}) on two identical generated worlds : placing then removing a torch
+ * near the surface, and digging a block under the surface then filling it back (sunlight removal and
+ * restoration under an overhang). Each pair of edits restores the world, so the passes are comparable.
+ */
+public class LightPropagationBenchmark {
+
+    static {
+        System.setProperty(BufferAllocatorFactory.PROPERTY_BUFFER_ALLOCATOR_IMPLEMENTATION, PrimitiveAllocator.class.getName());
+    }
+
+    private static final int RADIUS = 2;
+    private static final int EDITS = 2000;
+    private static final int WARMUP_PASSES = 3;
+    private static final int MEASURE_PASSES = 5;
+
+    public static void main(String[] args) {
+        IalonConfig config = new IalonConfig();
+        IalonInitializer.configureBlocksFramework(new DesktopAssetManager(true), config);
+
+        ChunkManager legacyWorld = createWorld(config);
+        ChunkManager world = createWorld(config);
+        config.setChunkManager(legacyWorld);
+        LegacyChunkLightManager legacy = new LegacyChunkLightManager(config);
+        config.setChunkManager(world);
+        ChunkLightManager engine = new ChunkLightManager(config);
+
+        List<Vector3f> torches = new ArrayList<>();
+        List<Vector3f> digs = new ArrayList<>();
+        pickLocations(world, config, torches, digs);
+        System.out.printf("%d torch edits, %d dig edits per pass%n", torches.size() * 2, digs.size() * 2);
+
+        for (int i = 0; i < WARMUP_PASSES; i++) {
+            runLegacy(legacyWorld, legacy, torches, digs);
+            run(world, engine, torches, digs);
+        }
+
+        long legacyNs = 0;
+        long engineNs = 0;
+        for (int i = 0; i < MEASURE_PASSES; i++) {
+            legacyNs += runLegacy(legacyWorld, legacy, torches, digs);
+            engineNs += run(world, engine, torches, digs);
+        }
+
+        double legacyMs = legacyNs / 1e6 / MEASURE_PASSES;
+        double engineMs = engineNs / 1e6 / MEASURE_PASSES;
+        System.out.printf("Legacy engine (linked queues) : %8.1f ms per pass%n", legacyMs);
+        System.out.printf("Array engine (ring buffers)   : %8.1f ms per pass (x%.2f)%n", engineMs, legacyMs / engineMs);
+
+        legacyWorld.cleanup(1000);
+        world.cleanup(1000);
+    }
+
+    private static long runLegacy(ChunkManager world, LegacyChunkLightManager legacy, List<Vector3f> torches, List<Vector3f> digs) {
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        long start = System.nanoTime();
+        for (Vector3f location : torches) {
+            Chunk chunk = chunkAt(world, location);
+            Vec3i local = chunk.toLocalLocation(ChunkManager.getBlockLocation(location));
+            legacy.addTorchlight(local, chunk, 15);
+            legacy.removeTorchlight(local, chunk);
+        }
+        for (Vector3f location : digs) {
+            Chunk chunk = chunkAt(world, location);
+            Vec3i local = chunk.toLocalLocation(ChunkManager.getBlockLocation(location));
+            Block block = chunk.removeBlock(local);
+            legacy.removeTorchlight(local, chunk);
+            legacy.restoreSunlight(location);
+            chunk.addBlock(local, block == null ? rock : block);
+            legacy.removeSunlight(local, chunk);
+            legacy.removeTorchlight(local, chunk);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long run(ChunkManager world, ChunkLightManager engine, List<Vector3f> torches, List<Vector3f> digs) {
+        Block rock = BlocksConfig.getInstance().getBlockRegistry().get(BlockIds.ROCK);
+        long start = System.nanoTime();
+        for (Vector3f location : torches) {
+            Chunk chunk = chunkAt(world, location);
+            Vec3i local = chunk.toLocalLocation(ChunkManager.getBlockLocation(location));
+            engine.addTorchlight(local, chunk, 15);
+            engine.removeTorchlight(local, chunk);
+        }
+        for (Vector3f location : digs) {
+            Chunk chunk = chunkAt(world, location);
+            Vec3i local = chunk.toLocalLocation(ChunkManager.getBlockLocation(location));
+            Block block = chunk.removeBlock(local);
+            engine.removeTorchlight(local, chunk);
+            engine.restoreSunlight(location);
+            chunk.addBlock(local, block == null ? rock : block);
+            engine.removeSunlight(local, chunk);
+            engine.removeTorchlight(local, chunk);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void pickLocations(ChunkManager world, IalonConfig config, List<Vector3f> torches, List<Vector3f> digs) {
+        Vec3i chunkSize = BlocksConfig.getInstance().getChunkSize();
+        int worldHeight = config.getGridHeight() * chunkSize.y;
+        Random random = new Random(1);
+        for (int i = 0; i < EDITS; i++) {
+            int x = random.nextInt(3 * chunkSize.x) - chunkSize.x;
+            int z = random.nextInt(3 * chunkSize.z) - chunkSize.z;
+            int y = surface(world, x, z, worldHeight);
+            if (y < 3 || y >= worldHeight - 2) {
+                continue;
+            }
+            if (i % 2 == 0) {
+                torches.add(new Vector3f(x + 0.5f, y + 1.5f, z + 0.5f));
+            } else {
+                // Two blocks under the surface : the dug cell is under an overhang
+                digs.add(new Vector3f(x + 0.5f, y - 1.5f, z + 0.5f));
+            }
+        }
+    }
+
+    private static Chunk chunkAt(ChunkManager world, Vector3f location) {
+        return world.getChunk(ChunkManager.getChunkLocation(location)).orElseThrow();
+    }
+
+    private static int surface(ChunkManager world, int x, int z, int worldHeight) {
+        for (int y = worldHeight - 1; y > 0; y--) {
+            if (world.getBlock(new Vector3f(x + 0.5f, y + 0.5f, z + 0.5f)).isPresent()) {
+                return y;
+            }
+        }
+        return 0;
+    }
+
+    private static ChunkManager createWorld(IalonConfig config) {
+        ChunkManager world = ChunkManager.builder()
+                .generator(new NoiseTerrainGenerator(2, config.getWaterHeight()))
+                .poolSize(1)
+                .build();
+        world.initialize();
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int y = 0; y < config.getGridHeight(); y++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    world.generateChunk(new Vec3i(x, y, z));
+                }
+            }
+        }
+        return world;
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2022 Cédric de Launois
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package org.delaunois.ialon.blocks.fastnoise;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.F2;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.F4;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.G2;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.G4;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.W_PRIME;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.X_PRIME;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.Y_PRIME;
+import static org.delaunois.ialon.blocks.fastnoise.FastNoise.Z_PRIME;
+
+/**
+ * {@link SimplexKernel} evaluating the simplex of a whole vector of points at once with the incubating
+ * Vector API (desktop only, opt-in : built and shipped with {@code -PvectorNoise}, see build.gradle).
+ * {@link FastNoise} loads it reflectively and falls back to the {@link ScalarSimplexKernel} when the
+ * module is not available.
+ *
+ * <p>Each lane performs exactly the float operations of the scalar {@code FastNoise.SingleSimplex}, in
+ * the same order and without FMA, so the results are bit-identical : the branches become blends, the
+ * gradient tables become selections on the hash, and the 4D simplex order table becomes the rank of
+ * each coordinate (the number of the other coordinates it is greater than, which is what the table
+ * holds). The points beyond the last full vector are evaluated by the scalar simplex.
+ *
+ * @author Cedric de Launois
+ */
+public class VectorSimplexKernel implements SimplexKernel {
+
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, FLOATS.vectorShape());
+
+    private static final float G4_2 = 2 * G4;
+    private static final float G4_3 = 3 * G4;
+    private static final float G4_4 = 4 * G4;
+
+    @Override
+    public void simplex(int seed, float[] xs, float[] ys, int count, float[] out) {
+        int bound = FLOATS.loopBound(count);
+        int k = 0;
+        for (; k < bound; k += FLOATS.length()) {
+            simplex(seed, FloatVector.fromArray(FLOATS, xs, k), FloatVector.fromArray(FLOATS, ys, k))
+                    .intoArray(out, k);
+        }
+        for (; k < count; k++) {
+            out[k] = FastNoise.SingleSimplex(seed, xs[k], ys[k]);
+        }
+    }
+
+    @Override
+    public void simplex(int seed, float[] xs, float[] ys, float z, float w, int count, float[] out) {
+        FloatVector zv = FloatVector.broadcast(FLOATS, z);
+        FloatVector wv = FloatVector.broadcast(FLOATS, w);
+        int bound = FLOATS.loopBound(count);
+        int k = 0;
+        for (; k < bound; k += FLOATS.length()) {
+            simplex(seed, FloatVector.fromArray(FLOATS, xs, k), FloatVector.fromArray(FLOATS, ys, k), zv, wv)
+                    .intoArray(out, k);
+        }
+        for (; k < count; k++) {
+            out[k] = FastNoise.SingleSimplex(seed, xs[k], ys[k], z, w);
+        }
+    }
+
+    private static FloatVector simplex(int seed, FloatVector x, FloatVector y) {
+        FloatVector t = x.add(y).mul(F2);
+        IntVector i = floor(x.add(t));
+        IntVector j = floor(y.add(t));
+
+        t = toFloat(i.add(j)).mul(G2);
+        FloatVector x0 = x.sub(toFloat(i).sub(t));
+        FloatVector y0 = y.sub(toFloat(j).sub(t));
+
+        VectorMask<Integer> xFirst = x0.compare(VectorOperators.GT, y0).cast(INTS);
+        IntVector zero = IntVector.zero(INTS);
+        IntVector i1 = zero.blend(1, xFirst);
+        IntVector j1 = zero.blend(1, xFirst.not());
+
+        FloatVector x1 = x0.sub(toFloat(i1)).add(G2);
+        FloatVector y1 = y0.sub(toFloat(j1)).add(G2);
+        FloatVector x2 = x0.sub(1).add(F2);
+        FloatVector y2 = y0.sub(1).add(F2);
+
+        FloatVector n0 = contribution(seed, i, j, x0, y0);
+        FloatVector n1 = contribution(seed, i.add(i1), j.add(j1), x1, y1);
+        FloatVector n2 = contribution(seed, i.add(1), j.add(1), x2, y2);
+
+        return n0.add(n1).add(n2).mul(50);
+    }
+
+    private static FloatVector contribution(int seed, IntVector i, IntVector j, FloatVector xd, FloatVector yd) {
+        FloatVector t = FloatVector.broadcast(FLOATS, 0.5f).sub(xd.mul(xd)).sub(yd.mul(yd));
+        VectorMask<Float> outside = t.compare(VectorOperators.LT, 0);
+        t = t.mul(t);
+        return t.mul(t).mul(grad(seed, i, j, xd, yd)).blend(0, outside);
+    }
+
+    /**
+     * GradCoord2D : GRAD_2D[hash &amp; 7] is (&plusmn;1, &plusmn;1) for 0..3, then (0, -1), (-1, 0),
+     * (0, 1), (1, 0).
+     */
+    private static FloatVector grad(int seed, IntVector x, IntVector y, FloatVector xd, FloatVector yd) {
+        IntVector hash = IntVector.broadcast(INTS, seed)
+                .lanewise(VectorOperators.XOR, x.mul(X_PRIME))
+                .lanewise(VectorOperators.XOR, y.mul(Y_PRIME));
+        hash = hash.mul(hash).mul(hash).mul(60493);
+        hash = hash.lanewise(VectorOperators.ASHR, 13).lanewise(VectorOperators.XOR, hash);
+        hash = hash.and(7);
+
+        VectorMask<Float> corner = hash.compare(VectorOperators.LT, 4).cast(FLOATS);
+        FloatVector minusOne = FloatVector.broadcast(FLOATS, -1);
+        FloatVector zero = FloatVector.zero(FLOATS);
+        FloatVector gx = zero
+                .blend(-1, hash.compare(VectorOperators.EQ, 5).cast(FLOATS))
+                .blend(1, hash.compare(VectorOperators.EQ, 7).cast(FLOATS))
+                .blend(minusOne.blend(1, hash.and(1).compare(VectorOperators.NE, 0).cast(FLOATS)), corner);
+        FloatVector gy = zero
+                .blend(-1, hash.compare(VectorOperators.EQ, 4).cast(FLOATS))
+                .blend(1, hash.compare(VectorOperators.EQ, 6).cast(FLOATS))
+                .blend(minusOne.blend(1, hash.and(2).compare(VectorOperators.NE, 0).cast(FLOATS)), corner);
+
+        return xd.mul(gx).add(yd.mul(gy));
+    }
+
+    private static FloatVector simplex(int seed, FloatVector x, FloatVector y, FloatVector z, FloatVector w) {
+        FloatVector t = x.add(y).add(z).add(w).mul(F4);
+        IntVector i = floor(x.add(t));
+        IntVector j = floor(y.add(t));
+        IntVector k = floor(z.add(t));
+        IntVector l = floor(w.add(t));
+        t = toFloat(i.add(j).add(k).add(l)).mul(G4);
+        FloatVector x0 = x.sub(toFloat(i).sub(t));
+        FloatVector y0 = y.sub(toFloat(j).sub(t));
+        FloatVector z0 = z.sub(toFloat(k).sub(t));
+        FloatVector w0 = w.sub(toFloat(l).sub(t));
+
+        VectorMask<Integer> xy = x0.compare(VectorOperators.GT, y0).cast(INTS);
+        VectorMask<Integer> xz = x0.compare(VectorOperators.GT, z0).cast(INTS);
+        VectorMask<Integer> yz = y0.compare(VectorOperators.GT, z0).cast(INTS);
+        VectorMask<Integer> xw = x0.compare(VectorOperators.GT, w0).cast(INTS);
+        VectorMask<Integer> yw = y0.compare(VectorOperators.GT, w0).cast(INTS);
+        VectorMask<Integer> zw = z0.compare(VectorOperators.GT, w0).cast(INTS);
+
+        // SIMPLEX_4D[c], ... : the rank of each coordinate among the four
+        IntVector zero = IntVector.zero(INTS);
+        IntVector rankX = zero.add(1, xy).add(1, xz).add(1, xw);
+        IntVector rankY = zero.add(1, xy.not()).add(1, yz).add(1, yw);
+        IntVector rankZ = zero.add(1, xz.not()).add(1, yz.not()).add(1, zw);
+        IntVector rankW = zero.add(1, xw.not()).add(1, yw.not()).add(1, zw.not());
+
+        IntVector i1 = atLeast(rankX, 3);
+        IntVector i2 = atLeast(rankX, 2);
+        IntVector i3 = atLeast(rankX, 1);
+        IntVector j1 = atLeast(rankY, 3);
+        IntVector j2 = atLeast(rankY, 2);
+        IntVector j3 = atLeast(rankY, 1);
+        IntVector k1 = atLeast(rankZ, 3);
+        IntVector k2 = atLeast(rankZ, 2);
+        IntVector k3 = atLeast(rankZ, 1);
+        IntVector l1 = atLeast(rankW, 3);
+        IntVector l2 = atLeast(rankW, 2);
+        IntVector l3 = atLeast(rankW, 1);
+
+        FloatVector n0 = contribution(seed, i, j, k, l, x0, y0, z0, w0);
+        FloatVector n1 = contribution(seed, i.add(i1), j.add(j1), k.add(k1), l.add(l1),
+                x0.sub(toFloat(i1)).add(G4), y0.sub(toFloat(j1)).add(G4),
+                z0.sub(toFloat(k1)).add(G4), w0.sub(toFloat(l1)).add(G4));
+        FloatVector n2 = contribution(seed, i.add(i2), j.add(j2), k.add(k2), l.add(l2),
+                x0.sub(toFloat(i2)).add(G4_2), y0.sub(toFloat(j2)).add(G4_2),
+                z0.sub(toFloat(k2)).add(G4_2), w0.sub(toFloat(l2)).add(G4_2));
+        FloatVector n3 = contribution(seed, i.add(i3), j.add(j3), k.add(k3), l.add(l3),
+                x0.sub(toFloat(i3)).add(G4_3), y0.sub(toFloat(j3)).add(G4_3),
+                z0.sub(toFloat(k3)).add(G4_3), w0.sub(toFloat(l3)).add(G4_3));
+        FloatVector n4 = contribution(seed, i.add(1), j.add(1), k.add(1), l.add(1),
+                x0.sub(1).add(G4_4), y0.sub(1).add(G4_4), z0.sub(1).add(G4_4), w0.sub(1).add(G4_4));
+
+        return n0.add(n1).add(n2).add(n3).add(n4).mul(27);
+    }
+
+    private static FloatVector contribution(int seed, IntVector i, IntVector j, IntVector k, IntVector l,
+                                            FloatVector xd, FloatVector yd, FloatVector zd, FloatVector wd) {
+        FloatVector t = FloatVector.broadcast(FLOATS, (float) 0.6)
+                .sub(xd.mul(xd)).sub(yd.mul(yd)).sub(zd.mul(zd)).sub(wd.mul(wd));
+        VectorMask<Float> outside = t.compare(VectorOperators.LT, 0);
+        t = t.mul(t);
+        return t.mul(t).mul(grad(seed, i, j, k, l, xd, yd, zd, wd)).blend(0, outside);
+    }
+
+    /**
+     * GradCoord4D : the high bits of the hash pick 3 of the 4 coordinates, the low bits their signs.
+     */
+    private static FloatVector grad(int seed, IntVector x, IntVector y, IntVector z, IntVector w,
+                                    FloatVector xd, FloatVector yd, FloatVector zd, FloatVector wd) {
+        IntVector hash = IntVector.broadcast(INTS, seed)
+                .lanewise(VectorOperators.XOR, x.mul(X_PRIME))
+                .lanewise(VectorOperators.XOR, y.mul(Y_PRIME))
+                .lanewise(VectorOperators.XOR, z.mul(Z_PRIME))
+                .lanewise(VectorOperators.XOR, w.mul(W_PRIME));
+        hash = hash.mul(hash).mul(hash).mul(60493);
+        hash = hash.lanewise(VectorOperators.ASHR, 13).lanewise(VectorOperators.XOR, hash);
+        hash = hash.and(31);
+
+        IntVector high = hash.lanewise(VectorOperators.ASHR, 3);
+        VectorMask<Float> wxy = high.compare(VectorOperators.EQ, 1).cast(FLOATS);
+        VectorMask<Float> zwx = high.compare(VectorOperators.EQ, 2).cast(FLOATS);
+        FloatVector a = yd.blend(wd, wxy).blend(zd, zwx);
+        FloatVector b = zd.blend(xd, wxy).blend(wd, zwx);
+        FloatVector c = wd.blend(yd, wxy).blend(xd, zwx);
+
+        return signed(a, hash, 4).add(signed(b, hash, 2)).add(signed(c, hash, 1));
+    }
+
+    private static FloatVector signed(FloatVector v, IntVector hash, int bit) {
+        return v.neg().blend(v, hash.and(bit).compare(VectorOperators.NE, 0).cast(FLOATS));
+    }
+
+    private static IntVector atLeast(IntVector rank, int min) {
+        return IntVector.zero(INTS).blend(1, rank.compare(VectorOperators.GE, min));
+    }
+
+    /**
+     * FastFloor : truncation toward zero, minus one unless {@code f >= 0}.
+     */
+    private static IntVector floor(FloatVector f) {
+        IntVector truncated = (IntVector) f.convertShape(VectorOperators.F2I, INTS, 0);
+        return truncated.sub(1, f.compare(VectorOperators.GE, 0).not().cast(INTS));
+    }
+
+    private static FloatVector toFloat(IntVector i) {
+        return (FloatVector) i.convertShape(VectorOperators.I2F, FLOATS, 0);
+    }
+
+}
@@ -0,0 +1,61 @@
+package org.delaunois.ialon.blocks.fastnoise;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Validates the Vector API simplex kernel of the desktop build : it is the one loaded by {@link FastNoise}
+ * when the incubator module is enabled, and it is bit-identical to the scalar kernel, full vectors and
+ * tails included, so that the desktop generates the same worlds as Android.
+ */
+class VectorSimplexKernelTest {
+
+    private static final int BATCHES = 2000;
+
+    private final SimplexKernel vector = new VectorSimplexKernel();
+    private final SimplexKernel scalar = new ScalarSimplexKernel();
+
+    @Test
+    void fastNoiseLoadsTheVectorKernel() {
+        assertInstanceOf(VectorSimplexKernel.class, FastNoise.SIMPLEX_KERNEL);
+    }
+
+    @Test
+    void vectorKernelMatchesScalarKernel() {
+        Random random = new Random(1337);
+        for (int batch = 0; batch < BATCHES; batch++) {
+            int count = 1 + random.nextInt(40);
+            float scale = (float) Math.pow(10, random.nextInt(6) - 2);
+            float[] xs = new float[count];
+            float[] ys = new float[count];
+            for (int k = 0; k < count; k++) {
+                xs[k] = (random.nextFloat() * 2 - 1) * scale;
+                // Whole coordinates hit the FastFloor edge cases
+                ys[k] = random.nextInt(8) == 0 ? Math.round(xs[k]) : (random.nextFloat() * 2 - 1) * scale;
+            }
+            int seed = random.nextInt();
+            float z = (random.nextFloat() * 2 - 1) * scale;
+            float w = (random.nextFloat() * 2 - 1) * scale;
+
+            float[] expected = new float[count];
+            float[] actual = new float[count];
+            scalar.simplex(seed, xs, ys, count, expected);
+            vector.simplex(seed, xs, ys, count, actual);
+            assertBitIdentical(expected, actual, "2D batch " + batch);
+
+            scalar.simplex(seed, xs, ys, z, w, count, expected);
+            vector.simplex(seed, xs, ys, z, w, count, actual);
+            assertBitIdentical(expected, actual, "4D batch " + batch);
+        }
+    }
+
+    private static void assertBitIdentical(float[] expected, float[] actual, String message) {
+        for (int k = 0; k < expected.length; k++) {
+            assertEquals(Float.floatToRawIntBits(expected[k]), Float.floatToRawIntBits(actual[k]), message + " differs at " + k);
+        }
+    }
+}